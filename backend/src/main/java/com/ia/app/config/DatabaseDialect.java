@@ -0,0 +1,31 @@
+package com.ia.app.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.stereotype.Component;
+
+// Banco detectado uma vez na subida: os caminhos JDBC escolhem entre o SQL do Postgres
+// (producao) e o SQL portavel (H2 nos testes).
+@Component
+public class DatabaseDialect {
+
+  private final boolean postgres;
+
+  public DatabaseDialect(DataSource dataSource) {
+    this.postgres = detectPostgres(dataSource);
+  }
+
+  public boolean isPostgres() {
+    return postgres;
+  }
+
+  private static boolean detectPostgres(DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection()) {
+      String product = connection.getMetaData().getDatabaseProductName();
+      return product != null && product.toLowerCase().contains("postgresql");
+    } catch (SQLException ex) {
+      throw new IllegalStateException("database_dialect_detection_failed", ex);
+    }
+  }
+}
@@ -39,6 +39,9 @@ public class CatalogConfiguration extends AuditableEntity {
   @Column(name = "active", nullable = false)
   private boolean active = true;
 
+  @Column(name = "stock_escrow_enabled", nullable = false)
+  private boolean stockEscrowEnabled = false;
+
   @Version
   @Column(name = "version", nullable = false)
   private Long version = 0L;
@@ -79,6 +82,14 @@ public class CatalogConfiguration extends AuditableEntity {
     this.active = active;
   }
 
+  public boolean isStockEscrowEnabled() {
+    return stockEscrowEnabled;
+  }
+
+  public void setStockEscrowEnabled(boolean stockEscrowEnabled) {
+    this.stockEscrowEnabled = stockEscrowEnabled;
+  }
+
   public Long getVersion() {
     return version;
   }
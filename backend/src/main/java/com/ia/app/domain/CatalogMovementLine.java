@@ -8,6 +8,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import java.time.Instant;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
 @Table(name = "catalog_movement_line")
@@ -45,6 +49,19 @@ public class CatalogMovementLine {
   @Column(name = "after_value", nullable = false, precision = 19, scale = 6)
   private java.math.BigDecimal afterValue = java.math.BigDecimal.ZERO;
 
+  @Column(name = "escrow_pending", nullable = false)
+  private boolean escrowPending = false;
+
+  @Column(name = "data_hora_movimentacao", nullable = false)
+  private Instant dataHoraMovimentacao;
+
+  // Carimbado pelo banco no insert (default now(), o inicio da transacao): o fechamento diario
+  // compara com um corte tirado do mesmo relogio.
+  @Generated(event = EventType.INSERT)
+  @ColumnDefault("current_timestamp")
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
   public Long getId() {
     return id;
   }
@@ -120,4 +137,24 @@ public class CatalogMovementLine {
   public void setAfterValue(java.math.BigDecimal afterValue) {
     this.afterValue = afterValue;
   }
+
+  public boolean isEscrowPending() {
+    return escrowPending;
+  }
+
+  public void setEscrowPending(boolean escrowPending) {
+    this.escrowPending = escrowPending;
+  }
+
+  public Instant getDataHoraMovimentacao() {
+    return dataHoraMovimentacao;
+  }
+
+  public void setDataHoraMovimentacao(Instant dataHoraMovimentacao) {
+    this.dataHoraMovimentacao = dataHoraMovimentacao;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
 }
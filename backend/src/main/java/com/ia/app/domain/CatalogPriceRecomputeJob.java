@@ -0,0 +1,210 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.Instant;
+
+@Entity
+@Table(name = "catalog_price_recompute_job")
+public class CatalogPriceRecomputeJob {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Column(name = "catalog_configuration_by_group_id", nullable = false)
+  private Long catalogConfigurationByGroupId;
+
+  @Column(name = "catalog_configuration_id", nullable = false)
+  private Long catalogConfigurationId;
+
+  @Column(name = "agrupador_id", nullable = false)
+  private Long agrupadorId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "catalog_type", nullable = false, length = 20)
+  private CatalogConfigurationType catalogType;
+
+  @Column(name = "status", nullable = false, length = 20)
+  private String status;
+
+  @Column(name = "last_item_id", nullable = false)
+  private long lastItemId;
+
+  @Column(name = "total_items")
+  private Long totalItems;
+
+  @Column(name = "items_processed", nullable = false)
+  private long itemsProcessed;
+
+  @Column(name = "prices_changed", nullable = false)
+  private long pricesChanged;
+
+  @Column(name = "error_message", length = 255)
+  private String errorMessage;
+
+  @Column(name = "requested_by", nullable = false, length = 120)
+  private String requestedBy;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "started_at")
+  private Instant startedAt;
+
+  @Column(name = "heartbeat_at")
+  private Instant heartbeatAt;
+
+  @Column(name = "finished_at")
+  private Instant finishedAt;
+
+  @Version
+  @Column(name = "version", nullable = false)
+  private long version;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public Long getCatalogConfigurationByGroupId() {
+    return catalogConfigurationByGroupId;
+  }
+
+  public void setCatalogConfigurationByGroupId(Long catalogConfigurationByGroupId) {
+    this.catalogConfigurationByGroupId = catalogConfigurationByGroupId;
+  }
+
+  public Long getCatalogConfigurationId() {
+    return catalogConfigurationId;
+  }
+
+  public void setCatalogConfigurationId(Long catalogConfigurationId) {
+    this.catalogConfigurationId = catalogConfigurationId;
+  }
+
+  public Long getAgrupadorId() {
+    return agrupadorId;
+  }
+
+  public void setAgrupadorId(Long agrupadorId) {
+    this.agrupadorId = agrupadorId;
+  }
+
+  public CatalogConfigurationType getCatalogType() {
+    return catalogType;
+  }
+
+  public void setCatalogType(CatalogConfigurationType catalogType) {
+    this.catalogType = catalogType;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public long getLastItemId() {
+    return lastItemId;
+  }
+
+  public void setLastItemId(long lastItemId) {
+    this.lastItemId = lastItemId;
+  }
+
+  public Long getTotalItems() {
+    return totalItems;
+  }
+
+  public void setTotalItems(Long totalItems) {
+    this.totalItems = totalItems;
+  }
+
+  public long getItemsProcessed() {
+    return itemsProcessed;
+  }
+
+  public void setItemsProcessed(long itemsProcessed) {
+    this.itemsProcessed = itemsProcessed;
+  }
+
+  public long getPricesChanged() {
+    return pricesChanged;
+  }
+
+  public void setPricesChanged(long pricesChanged) {
+    this.pricesChanged = pricesChanged;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public String getRequestedBy() {
+    return requestedBy;
+  }
+
+  public void setRequestedBy(String requestedBy) {
+    this.requestedBy = requestedBy;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getHeartbeatAt() {
+    return heartbeatAt;
+  }
+
+  public void setHeartbeatAt(Instant heartbeatAt) {
+    this.heartbeatAt = heartbeatAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,134 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(
+  name = "catalog_stock_balance_snapshot",
+  uniqueConstraints = {
+    @UniqueConstraint(
+      name = "ux_catalog_stock_balance_snapshot_scope_date",
+      columnNames = {
+        "tenant_id", "catalog_type", "catalogo_id", "agrupador_empresa_id", "estoque_tipo_id", "filial_id", "snapshot_date"
+      })
+  })
+public class CatalogStockBalanceSnapshot {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "catalog_type", nullable = false, length = 20)
+  private CatalogConfigurationType catalogType;
+
+  @Column(name = "catalogo_id", nullable = false)
+  private Long catalogoId;
+
+  @Column(name = "agrupador_empresa_id", nullable = false)
+  private Long agrupadorEmpresaId;
+
+  @Column(name = "estoque_tipo_id", nullable = false)
+  private Long estoqueTipoId;
+
+  @Column(name = "filial_id", nullable = false)
+  private Long filialId;
+
+  @Column(name = "snapshot_date", nullable = false)
+  private LocalDate snapshotDate;
+
+  @Column(name = "quantidade", nullable = false, precision = 19, scale = 6)
+  private BigDecimal quantidade = BigDecimal.ZERO;
+
+  @Column(name = "preco", nullable = false, precision = 19, scale = 6)
+  private BigDecimal preco = BigDecimal.ZERO;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public CatalogConfigurationType getCatalogType() {
+    return catalogType;
+  }
+
+  public void setCatalogType(CatalogConfigurationType catalogType) {
+    this.catalogType = catalogType;
+  }
+
+  public Long getCatalogoId() {
+    return catalogoId;
+  }
+
+  public void setCatalogoId(Long catalogoId) {
+    this.catalogoId = catalogoId;
+  }
+
+  public Long getAgrupadorEmpresaId() {
+    return agrupadorEmpresaId;
+  }
+
+  public void setAgrupadorEmpresaId(Long agrupadorEmpresaId) {
+    this.agrupadorEmpresaId = agrupadorEmpresaId;
+  }
+
+  public Long getEstoqueTipoId() {
+    return estoqueTipoId;
+  }
+
+  public void setEstoqueTipoId(Long estoqueTipoId) {
+    this.estoqueTipoId = estoqueTipoId;
+  }
+
+  public Long getFilialId() {
+    return filialId;
+  }
+
+  public void setFilialId(Long filialId) {
+    this.filialId = filialId;
+  }
+
+  public LocalDate getSnapshotDate() {
+    return snapshotDate;
+  }
+
+  public void setSnapshotDate(LocalDate snapshotDate) {
+    this.snapshotDate = snapshotDate;
+  }
+
+  public BigDecimal getQuantidade() {
+    return quantidade;
+  }
+
+  public void setQuantidade(BigDecimal quantidade) {
+    this.quantidade = quantidade;
+  }
+
+  public BigDecimal getPreco() {
+    return preco;
+  }
+
+  public void setPreco(BigDecimal preco) {
+    this.preco = preco;
+  }
+}
@@ -0,0 +1,132 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Table(
+  name = "catalog_stock_consolidated_balance",
+  uniqueConstraints = {
+    @UniqueConstraint(
+      name = "ux_catalog_stock_consolidated_scope",
+      columnNames = {"tenant_id", "catalog_type", "catalogo_id", "agrupador_empresa_id", "estoque_tipo_id"})
+  })
+public class CatalogStockConsolidatedBalance {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Column(name = "catalogo_id", nullable = false)
+  private Long catalogoId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "catalog_type", nullable = false, length = 20)
+  private CatalogConfigurationType catalogType;
+
+  @Column(name = "catalog_configuration_id", nullable = false)
+  private Long catalogConfigurationId;
+
+  @Column(name = "agrupador_empresa_id", nullable = false)
+  private Long agrupadorEmpresaId;
+
+  @Column(name = "estoque_tipo_id", nullable = false)
+  private Long estoqueTipoId;
+
+  @Column(name = "quantidade_total", nullable = false, precision = 19, scale = 6)
+  private BigDecimal quantidadeTotal = BigDecimal.ZERO;
+
+  @Column(name = "preco_total", nullable = false, precision = 19, scale = 6)
+  private BigDecimal precoTotal = BigDecimal.ZERO;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public Long getCatalogoId() {
+    return catalogoId;
+  }
+
+  public void setCatalogoId(Long catalogoId) {
+    this.catalogoId = catalogoId;
+  }
+
+  public CatalogConfigurationType getCatalogType() {
+    return catalogType;
+  }
+
+  public void setCatalogType(CatalogConfigurationType catalogType) {
+    this.catalogType = catalogType;
+  }
+
+  public Long getCatalogConfigurationId() {
+    return catalogConfigurationId;
+  }
+
+  public void setCatalogConfigurationId(Long catalogConfigurationId) {
+    this.catalogConfigurationId = catalogConfigurationId;
+  }
+
+  public Long getAgrupadorEmpresaId() {
+    return agrupadorEmpresaId;
+  }
+
+  public void setAgrupadorEmpresaId(Long agrupadorEmpresaId) {
+    this.agrupadorEmpresaId = agrupadorEmpresaId;
+  }
+
+  public Long getEstoqueTipoId() {
+    return estoqueTipoId;
+  }
+
+  public void setEstoqueTipoId(Long estoqueTipoId) {
+    this.estoqueTipoId = estoqueTipoId;
+  }
+
+  public BigDecimal getQuantidadeTotal() {
+    return quantidadeTotal;
+  }
+
+  public void setQuantidadeTotal(BigDecimal quantidadeTotal) {
+    this.quantidadeTotal = quantidadeTotal;
+  }
+
+  public BigDecimal getPrecoTotal() {
+    return precoTotal;
+  }
+
+  public void setPrecoTotal(BigDecimal precoTotal) {
+    this.precoTotal = precoTotal;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
@@ -0,0 +1,213 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Table(name = "catalog_stock_reconciliation_mismatch")
+public class CatalogStockReconciliationMismatch {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "run_id", nullable = false)
+  private Long runId;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "catalog_type", nullable = false, length = 20)
+  private CatalogConfigurationType catalogType;
+
+  @Column(name = "catalogo_id", nullable = false)
+  private Long catalogoId;
+
+  @Column(name = "catalog_configuration_id", nullable = false)
+  private Long catalogConfigurationId;
+
+  @Column(name = "agrupador_empresa_id", nullable = false)
+  private Long agrupadorEmpresaId;
+
+  @Column(name = "estoque_tipo_id", nullable = false)
+  private Long estoqueTipoId;
+
+  @Column(name = "filial_id", nullable = false)
+  private Long filialId;
+
+  @Column(name = "balance_id")
+  private Long balanceId;
+
+  @Column(name = "ledger_quantidade", nullable = false, precision = 19, scale = 6)
+  private BigDecimal ledgerQuantidade;
+
+  @Column(name = "balance_quantidade", nullable = false, precision = 19, scale = 6)
+  private BigDecimal balanceQuantidade;
+
+  @Column(name = "ledger_preco", nullable = false, precision = 19, scale = 6)
+  private BigDecimal ledgerPreco;
+
+  @Column(name = "balance_preco", nullable = false, precision = 19, scale = 6)
+  private BigDecimal balancePreco;
+
+  @Column(name = "repaired", nullable = false)
+  private boolean repaired;
+
+  @Column(name = "repair_movement_id")
+  private Long repairMovementId;
+
+  @Column(name = "repair_error", length = 120)
+  private String repairError;
+
+  @Column(name = "detected_at", nullable = false)
+  private Instant detectedAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getRunId() {
+    return runId;
+  }
+
+  public void setRunId(Long runId) {
+    this.runId = runId;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public CatalogConfigurationType getCatalogType() {
+    return catalogType;
+  }
+
+  public void setCatalogType(CatalogConfigurationType catalogType) {
+    this.catalogType = catalogType;
+  }
+
+  public Long getCatalogoId() {
+    return catalogoId;
+  }
+
+  public void setCatalogoId(Long catalogoId) {
+    this.catalogoId = catalogoId;
+  }
+
+  public Long getCatalogConfigurationId() {
+    return catalogConfigurationId;
+  }
+
+  public void setCatalogConfigurationId(Long catalogConfigurationId) {
+    this.catalogConfigurationId = catalogConfigurationId;
+  }
+
+  public Long getAgrupadorEmpresaId() {
+    return agrupadorEmpresaId;
+  }
+
+  public void setAgrupadorEmpresaId(Long agrupadorEmpresaId) {
+    this.agrupadorEmpresaId = agrupadorEmpresaId;
+  }
+
+  public Long getEstoqueTipoId() {
+    return estoqueTipoId;
+  }
+
+  public void setEstoqueTipoId(Long estoqueTipoId) {
+    this.estoqueTipoId = estoqueTipoId;
+  }
+
+  public Long getFilialId() {
+    return filialId;
+  }
+
+  public void setFilialId(Long filialId) {
+    this.filialId = filialId;
+  }
+
+  public Long getBalanceId() {
+    return balanceId;
+  }
+
+  public void setBalanceId(Long balanceId) {
+    this.balanceId = balanceId;
+  }
+
+  public BigDecimal getLedgerQuantidade() {
+    return ledgerQuantidade;
+  }
+
+  public void setLedgerQuantidade(BigDecimal ledgerQuantidade) {
+    this.ledgerQuantidade = ledgerQuantidade;
+  }
+
+  public BigDecimal getBalanceQuantidade() {
+    return balanceQuantidade;
+  }
+
+  public void setBalanceQuantidade(BigDecimal balanceQuantidade) {
+    this.balanceQuantidade = balanceQuantidade;
+  }
+
+  public BigDecimal getLedgerPreco() {
+    return ledgerPreco;
+  }
+
+  public void setLedgerPreco(BigDecimal ledgerPreco) {
+    this.ledgerPreco = ledgerPreco;
+  }
+
+  public BigDecimal getBalancePreco() {
+    return balancePreco;
+  }
+
+  public void setBalancePreco(BigDecimal balancePreco) {
+    this.balancePreco = balancePreco;
+  }
+
+  public boolean isRepaired() {
+    return repaired;
+  }
+
+  public void setRepaired(boolean repaired) {
+    this.repaired = repaired;
+  }
+
+  public Long getRepairMovementId() {
+    return repairMovementId;
+  }
+
+  public void setRepairMovementId(Long repairMovementId) {
+    this.repairMovementId = repairMovementId;
+  }
+
+  public String getRepairError() {
+    return repairError;
+  }
+
+  public void setRepairError(String repairError) {
+    this.repairError = repairError;
+  }
+
+  public Instant getDetectedAt() {
+    return detectedAt;
+  }
+
+  public void setDetectedAt(Instant detectedAt) {
+    this.detectedAt = detectedAt;
+  }
+}
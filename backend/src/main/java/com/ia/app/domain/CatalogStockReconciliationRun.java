@@ -0,0 +1,110 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "catalog_stock_reconciliation_run")
+public class CatalogStockReconciliationRun {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "repair_mode", nullable = false)
+  private boolean repairMode;
+
+  @Column(name = "status", nullable = false, length = 20)
+  private String status;
+
+  @Column(name = "units_total", nullable = false)
+  private int unitsTotal;
+
+  @Column(name = "mismatch_count", nullable = false)
+  private int mismatchCount;
+
+  @Column(name = "repaired_count", nullable = false)
+  private int repairedCount;
+
+  @Column(name = "error_message", length = 255)
+  private String errorMessage;
+
+  @Column(name = "started_at", nullable = false)
+  private Instant startedAt;
+
+  @Column(name = "finished_at")
+  private Instant finishedAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public boolean isRepairMode() {
+    return repairMode;
+  }
+
+  public void setRepairMode(boolean repairMode) {
+    this.repairMode = repairMode;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public int getUnitsTotal() {
+    return unitsTotal;
+  }
+
+  public void setUnitsTotal(int unitsTotal) {
+    this.unitsTotal = unitsTotal;
+  }
+
+  public int getMismatchCount() {
+    return mismatchCount;
+  }
+
+  public void setMismatchCount(int mismatchCount) {
+    this.mismatchCount = mismatchCount;
+  }
+
+  public int getRepairedCount() {
+    return repairedCount;
+  }
+
+  public void setRepairedCount(int repairedCount) {
+    this.repairedCount = repairedCount;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
@@ -0,0 +1,47 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "catalog_stock_snapshot_run")
+public class CatalogStockSnapshotRun {
+
+  @Id
+  @Column(name = "snapshot_date", nullable = false)
+  private LocalDate snapshotDate;
+
+  @Column(name = "line_cutoff", nullable = false)
+  private Instant lineCutoff;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  public LocalDate getSnapshotDate() {
+    return snapshotDate;
+  }
+
+  public void setSnapshotDate(LocalDate snapshotDate) {
+    this.snapshotDate = snapshotDate;
+  }
+
+  public Instant getLineCutoff() {
+    return lineCutoff;
+  }
+
+  public void setLineCutoff(Instant lineCutoff) {
+    this.lineCutoff = lineCutoff;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+}
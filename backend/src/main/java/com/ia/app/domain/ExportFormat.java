@@ -0,0 +1,35 @@
+package com.ia.app.domain;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+  CSV("csv", "text/csv; charset=UTF-8"),
+  XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+  private final String extension;
+  private final String contentType;
+
+  ExportFormat(String extension, String contentType) {
+    this.extension = extension;
+    this.contentType = contentType;
+  }
+
+  public String extension() {
+    return extension;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+
+  public static ExportFormat fromNullable(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return CSV;
+    }
+    try {
+      return ExportFormat.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("export_format_invalid");
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "export_job")
+public class ExportJob {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Column(name = "source", nullable = false, length = 40)
+  private String source;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "format", nullable = false, length = 10)
+  private ExportFormat format;
+
+  @Column(name = "status", nullable = false, length = 20)
+  private String status;
+
+  @Column(name = "rows_written", nullable = false)
+  private long rowsWritten;
+
+  @Column(name = "file_name", nullable = false, length = 160)
+  private String fileName;
+
+  @Column(name = "file_size")
+  private Long fileSize;
+
+  @Column(name = "error_message", length = 255)
+  private String errorMessage;
+
+  @Column(name = "requested_by", nullable = false, length = 120)
+  private String requestedBy;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "started_at")
+  private Instant startedAt;
+
+  @Column(name = "finished_at")
+  private Instant finishedAt;
+
+  @Column(name = "heartbeat_at", nullable = false)
+  private Instant heartbeatAt;
+
+  @Column(name = "expires_at")
+  private Instant expiresAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  public ExportFormat getFormat() {
+    return format;
+  }
+
+  public void setFormat(ExportFormat format) {
+    this.format = format;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  public void setRowsWritten(long rowsWritten) {
+    this.rowsWritten = rowsWritten;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public void setFileName(String fileName) {
+    this.fileName = fileName;
+  }
+
+  public Long getFileSize() {
+    return fileSize;
+  }
+
+  public void setFileSize(Long fileSize) {
+    this.fileSize = fileSize;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public String getRequestedBy() {
+    return requestedBy;
+  }
+
+  public void setRequestedBy(String requestedBy) {
+    this.requestedBy = requestedBy;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  public void setExpiresAt(Instant expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+
+  public Instant getHeartbeatAt() {
+    return heartbeatAt;
+  }
+
+  public void setHeartbeatAt(Instant heartbeatAt) {
+    this.heartbeatAt = heartbeatAt;
+  }
+}
@@ -0,0 +1,60 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Arquivo da exportacao guardado no banco em blocos, para qualquer no servir o download.
+@Entity
+@Table(
+  name = "export_job_chunk",
+  uniqueConstraints = {
+    @UniqueConstraint(name = "ux_export_job_chunk_job_chunk", columnNames = {"job_id", "chunk_no"})
+  })
+public class ExportJobChunk {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "job_id", nullable = false)
+  private Long jobId;
+
+  @Column(name = "chunk_no", nullable = false)
+  private int chunkNo;
+
+  @Column(name = "data", nullable = false, columnDefinition = "bytea")
+  private byte[] data;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(Long jobId) {
+    this.jobId = jobId;
+  }
+
+  public int getChunkNo() {
+    return chunkNo;
+  }
+
+  public void setChunkNo(int chunkNo) {
+    this.chunkNo = chunkNo;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  public void setData(byte[] data) {
+    this.data = data;
+  }
+}
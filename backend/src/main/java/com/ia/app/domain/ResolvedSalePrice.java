@@ -0,0 +1,159 @@
+package com.ia.app.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(
+  name = "resolved_sale_price",
+  uniqueConstraints = {
+    @UniqueConstraint(
+      name = "ux_resolved_sale_price_scope",
+      columnNames = {"tenant_id", "price_book_id", "variant_key", "catalog_type", "catalog_item_id", "tenant_unit_key"})
+  })
+public class ResolvedSalePrice {
+
+  public static final long NO_VARIANT = 0L;
+  public static final UUID ANY_UNIT = new UUID(0L, 0L);
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false)
+  private Long tenantId;
+
+  @Column(name = "price_book_id", nullable = false)
+  private Long priceBookId;
+
+  @Column(name = "variant_key", nullable = false)
+  private Long variantKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "catalog_type", nullable = false, length = 20)
+  private CatalogConfigurationType catalogType;
+
+  @Column(name = "catalog_item_id", nullable = false)
+  private Long catalogItemId;
+
+  @Column(name = "tenant_unit_key", nullable = false)
+  private UUID tenantUnitKey;
+
+  @Column(name = "price_final", nullable = false, precision = 19, scale = 6)
+  private BigDecimal priceFinal = BigDecimal.ZERO;
+
+  @Column(name = "sale_price_id")
+  private Long salePriceId;
+
+  @Column(name = "resolved_variant_id")
+  private Long resolvedVariantId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "source", nullable = false, length = 40)
+  private SalePriceSource source;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(Long tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public Long getPriceBookId() {
+    return priceBookId;
+  }
+
+  public void setPriceBookId(Long priceBookId) {
+    this.priceBookId = priceBookId;
+  }
+
+  public Long getVariantKey() {
+    return variantKey;
+  }
+
+  public void setVariantKey(Long variantKey) {
+    this.variantKey = variantKey;
+  }
+
+  public CatalogConfigurationType getCatalogType() {
+    return catalogType;
+  }
+
+  public void setCatalogType(CatalogConfigurationType catalogType) {
+    this.catalogType = catalogType;
+  }
+
+  public Long getCatalogItemId() {
+    return catalogItemId;
+  }
+
+  public void setCatalogItemId(Long catalogItemId) {
+    this.catalogItemId = catalogItemId;
+  }
+
+  public UUID getTenantUnitKey() {
+    return tenantUnitKey;
+  }
+
+  public void setTenantUnitKey(UUID tenantUnitKey) {
+    this.tenantUnitKey = tenantUnitKey;
+  }
+
+  public BigDecimal getPriceFinal() {
+    return priceFinal;
+  }
+
+  public void setPriceFinal(BigDecimal priceFinal) {
+    this.priceFinal = priceFinal;
+  }
+
+  public Long getSalePriceId() {
+    return salePriceId;
+  }
+
+  public void setSalePriceId(Long salePriceId) {
+    this.salePriceId = salePriceId;
+  }
+
+  public Long getResolvedVariantId() {
+    return resolvedVariantId;
+  }
+
+  public void setResolvedVariantId(Long resolvedVariantId) {
+    this.resolvedVariantId = resolvedVariantId;
+  }
+
+  public SalePriceSource getSource() {
+    return source;
+  }
+
+  public void setSource(SalePriceSource source) {
+    this.source = source;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
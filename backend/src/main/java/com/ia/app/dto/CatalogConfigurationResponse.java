@@ -9,6 +9,7 @@ public record CatalogConfigurationResponse(
   CatalogConfigurationType type,
   CatalogNumberingMode numberingMode,
   boolean active,
+  boolean stockEscrowEnabled,
   Long version,
   Instant createdAt,
   Instant updatedAt
@@ -4,5 +4,6 @@ import com.ia.app.domain.CatalogNumberingMode;
 import jakarta.validation.constraints.NotNull;
 
 public record CatalogConfigurationUpdateRequest(
-  @NotNull CatalogNumberingMode numberingMode
+  @NotNull CatalogNumberingMode numberingMode,
+  Boolean stockEscrowEnabled
 ) {}
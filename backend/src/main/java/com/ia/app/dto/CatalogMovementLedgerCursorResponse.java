@@ -0,0 +1,10 @@
+package com.ia.app.dto;
+
+import java.util.List;
+
+public record CatalogMovementLedgerCursorResponse(
+  List<CatalogMovementResponse> content,
+  int size,
+  boolean hasMore,
+  String nextCursor
+) {}
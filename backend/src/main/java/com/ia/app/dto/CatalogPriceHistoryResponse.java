@@ -19,6 +19,7 @@ public record CatalogPriceHistoryResponse(
   Long priceBookId,
   String priceBookName,
   Long variantId,
+  String variantName,
   String changedBy,
   Instant changedAt
 ) {}
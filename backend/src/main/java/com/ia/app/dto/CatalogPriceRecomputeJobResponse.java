@@ -0,0 +1,18 @@
+package com.ia.app.dto;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import java.time.Instant;
+
+public record CatalogPriceRecomputeJobResponse(
+  Long id,
+  CatalogConfigurationType catalogType,
+  Long agrupadorId,
+  String status,
+  Long totalItems,
+  long itemsProcessed,
+  long pricesChanged,
+  String errorMessage,
+  Instant createdAt,
+  Instant startedAt,
+  Instant finishedAt
+) {}
@@ -0,0 +1,9 @@
+package com.ia.app.dto;
+
+import java.math.BigDecimal;
+
+public record CatalogStockMatrixCellResponse(
+  Long estoqueTipoId,
+  Long filialId,
+  BigDecimal quantidade
+) {}
@@ -0,0 +1,10 @@
+package com.ia.app.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CatalogStockMatrixItemResponse(
+  Long catalogoId,
+  BigDecimal quantidadeTotal,
+  List<CatalogStockMatrixCellResponse> cells
+) {}
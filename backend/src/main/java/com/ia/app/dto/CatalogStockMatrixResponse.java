@@ -0,0 +1,8 @@
+package com.ia.app.dto;
+
+import java.util.List;
+
+public record CatalogStockMatrixResponse(
+  Long agrupadorEmpresaId,
+  List<CatalogStockMatrixItemResponse> items
+) {}
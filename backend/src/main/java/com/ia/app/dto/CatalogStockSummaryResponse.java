@@ -0,0 +1,8 @@
+package com.ia.app.dto;
+
+import java.util.List;
+
+public record CatalogStockSummaryResponse(
+  Long agrupadorEmpresaId,
+  List<CatalogStockConsolidatedResponse> consolidado
+) {}
@@ -0,0 +1,19 @@
+package com.ia.app.dto;
+
+import com.ia.app.domain.ExportFormat;
+import java.time.Instant;
+
+public record ExportJobResponse(
+  Long id,
+  String source,
+  ExportFormat format,
+  String status,
+  long rowsWritten,
+  String fileName,
+  Long fileSize,
+  String errorMessage,
+  Instant createdAt,
+  Instant startedAt,
+  Instant finishedAt,
+  Instant expiresAt
+) {}
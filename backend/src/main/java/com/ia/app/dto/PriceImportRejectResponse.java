@@ -0,0 +1,8 @@
+package com.ia.app.dto;
+
+public record PriceImportRejectResponse(
+  int lineNumber,
+  String catalogType,
+  Long catalogItemId,
+  String reason
+) {}
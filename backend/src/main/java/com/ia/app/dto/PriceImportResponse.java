@@ -0,0 +1,14 @@
+package com.ia.app.dto;
+
+import java.util.List;
+
+public record PriceImportResponse(
+  int totalRows,
+  int createdItems,
+  int updatedItems,
+  int unchangedItems,
+  int ignoredWithoutPrice,
+  int rejectedRows,
+  int dependentPricesChanged,
+  List<PriceImportRejectResponse> rejects
+) {}
@@ -12,5 +12,7 @@ public interface CatalogConfigurationRepository extends JpaRepository<CatalogCon
 
   boolean existsByIdAndTenantId(Long id, Long tenantId);
 
+  boolean existsByIdAndTenantIdAndStockEscrowEnabledTrue(Long id, Long tenantId);
+
   boolean existsByTenantIdAndType(Long tenantId, CatalogConfigurationType type);
 }
@@ -0,0 +1,42 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.PriceAdjustmentKind;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CatalogItemPriceBulkWriteRepository {
+
+  record RecomputedPrice(
+    Long id,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    CatalogPriceType priceType,
+    BigDecimal oldPriceFinal,
+    BigDecimal priceFinal,
+    PriceAdjustmentKind adjustmentKind,
+    BigDecimal adjustmentValue
+  ) {}
+
+  // Preco importado que mudou; o agrupador guia o recalculo dos tipos que dependem dele.
+  record ImportedPrice(
+    Long catalogItemId,
+    Long catalogConfigurationByGroupId,
+    BigDecimal oldPriceFinal,
+    BigDecimal priceFinal
+  ) {}
+
+  record ImportResult(int totalItems, int created, int updated, List<ImportedPrice> changed) {}
+
+  // Grava o recalculo em lote e registra em price_change_log as linhas cujo preco final mudou; devolve quantas.
+  // As linhas precisam ter sido lidas com trava (CatalogItemPriceRepository.findAllWithLock...) na mesma transacao.
+  int applyRecomputed(Long tenantId, String changedBy, List<RecomputedPrice> prices);
+
+  // Linhas validas da tabela temporaria de PriceImportStagingRepository: cria ou atualiza o tipo de preco e registra o historico.
+  ImportResult applyImport(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    CatalogPriceType priceType,
+    String changedBy);
+}
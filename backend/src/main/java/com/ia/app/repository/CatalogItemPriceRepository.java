@@ -3,10 +3,12 @@ package com.ia.app.repository;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogItemPrice;
 import com.ia.app.domain.CatalogPriceType;
+import jakarta.persistence.LockModeType;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
 public interface CatalogItemPriceRepository extends JpaRepository<CatalogItemPrice, Long> {
 
@@ -21,9 +23,21 @@ public interface CatalogItemPriceRepository extends JpaRepository<CatalogItemPri
     Long catalogItemId,
     CatalogPriceType priceType);
 
+  // Recalculo em lote: trava as linhas do lote (em ordem de id) ate gravar, para nao sobrescrever edicao concorrente.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<CatalogItemPrice> findAllWithLockByTenantIdAndCatalogTypeAndCatalogItemIdInOrderByIdAsc(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Collection<Long> catalogItemIds);
+
   List<CatalogItemPrice> findAllByTenantIdAndCatalogTypeAndPriceTypeAndCatalogItemIdIn(
     Long tenantId,
     CatalogConfigurationType catalogType,
     CatalogPriceType priceType,
     Collection<Long> catalogItemIds);
+
+  List<CatalogItemPrice> findAllByTenantIdAndPriceTypeAndCatalogItemIdIn(
+    Long tenantId,
+    CatalogPriceType priceType,
+    Collection<Long> catalogItemIds);
 }
@@ -1,15 +1,196 @@
 package com.ia.app.repository;
 
+import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogMovementLine;
+import com.ia.app.domain.CatalogMovementMetricType;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CatalogMovementLineRepository extends JpaRepository<CatalogMovementLine, Long> {
 
+  interface PendingEscrowDeltaRow {
+    Long getEstoqueTipoId();
+
+    Long getFilialId();
+
+    CatalogMovementMetricType getMetricType();
+
+    BigDecimal getDeltaTotal();
+  }
+
+  interface LedgerDeltaRow {
+    Long getTenantId();
+
+    CatalogConfigurationType getCatalogType();
+
+    Long getCatalogoId();
+
+    Long getAgrupadorEmpresaId();
+
+    Long getEstoqueTipoId();
+
+    Long getFilialId();
+
+    CatalogMovementMetricType getMetricType();
+
+    BigDecimal getDeltaTotal();
+  }
+
   List<CatalogMovementLine> findAllByTenantIdAndMovementIdInOrderByMovementIdAscIdAsc(
     Long tenantId,
     Collection<Long> movementIds);
 
   List<CatalogMovementLine> findAllByTenantIdAndMovementIdOrderByIdAsc(Long tenantId, Long movementId);
+
+  @Query("""
+    select
+      l.estoqueTipoId as estoqueTipoId,
+      l.filialId as filialId,
+      l.metricType as metricType,
+      sum(l.delta) as deltaTotal
+    from CatalogMovementLine l, CatalogMovement m
+    where m.id = l.movementId
+      and m.dataHoraMovimentacao = l.dataHoraMovimentacao
+      and l.tenantId = :tenantId
+      and l.escrowPending = true
+      and m.catalogType = :catalogType
+      and m.catalogoId = :catalogoId
+      and l.agrupadorEmpresaId = :agrupadorEmpresaId
+      and (:estoqueTipoId is null or l.estoqueTipoId = :estoqueTipoId)
+    group by l.estoqueTipoId, l.filialId, l.metricType
+    """)
+  List<PendingEscrowDeltaRow> sumPendingEscrowDeltas(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogoId") Long catalogoId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId);
+
+  @Query("""
+    select
+      l.estoqueTipoId as estoqueTipoId,
+      l.filialId as filialId,
+      l.metricType as metricType,
+      sum(l.delta) as deltaTotal
+    from CatalogMovementLine l, CatalogMovement m
+    where m.id = l.movementId
+      and m.dataHoraMovimentacao = l.dataHoraMovimentacao
+      and l.tenantId = :tenantId
+      and l.escrowPending = true
+      and m.catalogType = :catalogType
+      and l.agrupadorEmpresaId = :agrupadorEmpresaId
+      and (:estoqueTipoId is null or l.estoqueTipoId = :estoqueTipoId)
+    group by l.estoqueTipoId, l.filialId, l.metricType
+    """)
+  List<PendingEscrowDeltaRow> sumPendingEscrowDeltasByAgrupador(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId);
+
+  // Linhas do fechamento: ate o fim do dia e gravadas antes do corte, sem repetir o que o fechamento anterior ja contou.
+  // Dois ramos disjuntos: o do dia fechado, podado pela particao mensal, e o das linhas de dias ja fechados
+  // confirmadas depois do corte anterior, pelo indice de created_at.
+  @Query(
+    value = """
+      SELECT
+        x.tenant_id AS tenantId,
+        x.catalog_type AS catalogType,
+        x.catalogo_id AS catalogoId,
+        x.agrupador_empresa_id AS agrupadorEmpresaId,
+        x.estoque_tipo_id AS estoqueTipoId,
+        x.filial_id AS filialId,
+        x.metric_type AS metricType,
+        SUM(x.delta) AS deltaTotal
+      FROM (
+        SELECT l.tenant_id, m.catalog_type, m.catalogo_id, l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id,
+               l.metric_type, l.delta
+        FROM catalog_movement_line l
+        JOIN catalog_movement m
+          ON m.id = l.movement_id
+         AND m.data_hora_movimentacao = l.data_hora_movimentacao
+        WHERE l.data_hora_movimentacao >= :previousDayEnd
+          AND l.data_hora_movimentacao < :dayEnd
+          AND l.created_at < :lineCutoff
+        UNION ALL
+        SELECT l.tenant_id, m.catalog_type, m.catalogo_id, l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id,
+               l.metric_type, l.delta
+        FROM catalog_movement_line l
+        JOIN catalog_movement m
+          ON m.id = l.movement_id
+         AND m.data_hora_movimentacao = l.data_hora_movimentacao
+        WHERE l.created_at >= :previousLineCutoff
+          AND l.created_at < :lineCutoff
+          AND l.data_hora_movimentacao < :previousDayEnd
+      ) x
+      GROUP BY x.tenant_id, x.catalog_type, x.catalogo_id, x.agrupador_empresa_id, x.estoque_tipo_id, x.filial_id,
+               x.metric_type
+      """,
+    nativeQuery = true)
+  List<LedgerDeltaRow> sumSnapshotDeltas(
+    @Param("dayEnd") Instant dayEnd,
+    @Param("lineCutoff") Instant lineCutoff,
+    @Param("previousDayEnd") Instant previousDayEnd,
+    @Param("previousLineCutoff") Instant previousLineCutoff);
+
+  // Mesma divisao do fechamento: linhas depois do dia do snapshot e linhas de dias ja fechados gravadas apos o corte.
+  @Query(
+    value = """
+      SELECT
+        x.tenant_id AS tenantId,
+        x.catalog_type AS catalogType,
+        x.catalogo_id AS catalogoId,
+        x.agrupador_empresa_id AS agrupadorEmpresaId,
+        x.estoque_tipo_id AS estoqueTipoId,
+        x.filial_id AS filialId,
+        x.metric_type AS metricType,
+        SUM(x.delta) AS deltaTotal
+      FROM (
+        SELECT l.tenant_id, m.catalog_type, m.catalogo_id, l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id,
+               l.metric_type, l.delta
+        FROM catalog_movement_line l
+        JOIN catalog_movement m
+          ON m.id = l.movement_id
+         AND m.data_hora_movimentacao = l.data_hora_movimentacao
+        WHERE l.tenant_id = :tenantId
+          AND l.agrupador_empresa_id = :agrupadorEmpresaId
+          AND (:estoqueTipoId IS NULL OR l.estoque_tipo_id = :estoqueTipoId)
+          AND m.catalog_type = :catalogType
+          AND m.catalogo_id = :catalogoId
+          AND l.data_hora_movimentacao >= :snapshotDayEnd
+          AND l.data_hora_movimentacao <= :asOf
+        UNION ALL
+        SELECT l.tenant_id, m.catalog_type, m.catalogo_id, l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id,
+               l.metric_type, l.delta
+        FROM catalog_movement_line l
+        JOIN catalog_movement m
+          ON m.id = l.movement_id
+         AND m.data_hora_movimentacao = l.data_hora_movimentacao
+        WHERE l.tenant_id = :tenantId
+          AND l.agrupador_empresa_id = :agrupadorEmpresaId
+          AND (:estoqueTipoId IS NULL OR l.estoque_tipo_id = :estoqueTipoId)
+          AND m.catalog_type = :catalogType
+          AND m.catalogo_id = :catalogoId
+          AND l.created_at >= :snapshotLineCutoff
+          AND l.data_hora_movimentacao < :snapshotDayEnd
+          AND l.data_hora_movimentacao <= :asOf
+      ) x
+      GROUP BY x.tenant_id, x.catalog_type, x.catalogo_id, x.agrupador_empresa_id, x.estoque_tipo_id, x.filial_id,
+               x.metric_type
+      """,
+    nativeQuery = true)
+  List<LedgerDeltaRow> sumDeltasSinceSnapshot(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") String catalogType,
+    @Param("catalogoId") Long catalogoId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId,
+    @Param("asOf") Instant asOf,
+    @Param("snapshotDayEnd") Instant snapshotDayEnd,
+    @Param("snapshotLineCutoff") Instant snapshotLineCutoff);
 }
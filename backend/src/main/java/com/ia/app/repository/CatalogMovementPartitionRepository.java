@@ -0,0 +1,15 @@
+package com.ia.app.repository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface CatalogMovementPartitionRepository {
+
+  boolean isPartitioned();
+
+  List<YearMonth> findMonthlyPartitions();
+
+  boolean createMonthlyPartitions(YearMonth month);
+
+  void detachMonthlyPartitions(YearMonth month);
+}
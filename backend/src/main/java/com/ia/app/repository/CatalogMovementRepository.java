@@ -5,6 +5,8 @@ import com.ia.app.domain.CatalogMovement;
 import com.ia.app.domain.CatalogMovementMetricType;
 import com.ia.app.domain.CatalogMovementOriginType;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +21,8 @@ public interface CatalogMovementRepository extends JpaRepository<CatalogMovement
 
   Optional<CatalogMovement> findByTenantIdAndIdempotencyKey(Long tenantId, String idempotencyKey);
 
+  List<CatalogMovement> findAllByTenantIdAndIdempotencyKeyIn(Long tenantId, Collection<String> idempotencyKeys);
+
   boolean existsByTenantIdAndCatalogTypeAndCatalogoId(Long tenantId, CatalogConfigurationType catalogType, Long catalogoId);
 
   @Query(
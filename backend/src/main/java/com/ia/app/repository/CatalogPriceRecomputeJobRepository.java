@@ -0,0 +1,50 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogPriceRecomputeJob;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CatalogPriceRecomputeJobRepository extends JpaRepository<CatalogPriceRecomputeJob, Long> {
+
+  Optional<CatalogPriceRecomputeJob> findFirstByTenantIdAndCatalogConfigurationByGroupIdOrderByIdDesc(
+    Long tenantId,
+    Long catalogConfigurationByGroupId);
+
+  List<CatalogPriceRecomputeJob> findAllByTenantIdAndCatalogConfigurationByGroupIdAndStatusIn(
+    Long tenantId,
+    Long catalogConfigurationByGroupId,
+    Collection<String> statuses);
+
+  @Query("""
+    select j.id
+    from CatalogPriceRecomputeJob j
+    where j.status in :statuses
+      and coalesce(j.heartbeatAt, j.createdAt) < :staleBefore
+    order by j.id
+    """)
+  List<Long> findStaleIds(
+    @Param("statuses") Collection<String> statuses,
+    @Param("staleBefore") Instant staleBefore);
+
+  // Reivindica o job para este no; so um no consegue passar da condicao com o mesmo heartbeat antigo.
+  @Modifying
+  @Query("""
+    update CatalogPriceRecomputeJob j
+    set j.heartbeatAt = :now,
+        j.version = j.version + 1
+    where j.id = :id
+      and j.status in :statuses
+      and coalesce(j.heartbeatAt, j.createdAt) < :staleBefore
+    """)
+  int claimStale(
+    @Param("id") Long id,
+    @Param("statuses") Collection<String> statuses,
+    @Param("staleBefore") Instant staleBefore,
+    @Param("now") Instant now);
+}
@@ -1,12 +1,31 @@
 package com.ia.app.repository;
 
 import com.ia.app.domain.CatalogPriceRuleByGroup;
+import java.time.Instant;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CatalogPriceRuleByGroupRepository extends JpaRepository<CatalogPriceRuleByGroup, Long> {
 
+  interface CatalogPriceRuleStampProjection {
+    long getRuleCount();
+    Instant getLastUpdatedAt();
+  }
+
   List<CatalogPriceRuleByGroup> findAllByTenantIdAndCatalogConfigurationByGroupIdAndActiveTrueOrderByPriceTypeAsc(
     Long tenantId,
     Long catalogConfigurationByGroupId);
+
+  @Query("""
+    select count(r) as ruleCount,
+           max(r.updatedAt) as lastUpdatedAt
+      from CatalogPriceRuleByGroup r
+     where r.tenantId = :tenantId
+       and r.catalogConfigurationByGroupId = :catalogConfigurationByGroupId
+    """)
+  CatalogPriceRuleStampProjection findRuleStamp(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogConfigurationByGroupId") Long catalogConfigurationByGroupId);
 }
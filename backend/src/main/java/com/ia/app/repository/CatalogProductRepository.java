@@ -139,4 +139,24 @@ public interface CatalogProductRepository extends JpaRepository<CatalogProduct,
     @Param("tenantId") Long tenantId,
     @Param("catalogConfigurationId") Long catalogConfigurationId,
     @Param("catalogGroupIds") Collection<Long> catalogGroupIds);
+
+  // Paginacao por chave (id > afterId) para o recalculo de precos percorrer o agrupador inteiro.
+  @Query("""
+    select cp.id
+    from CatalogProduct cp
+    where cp.tenantId = :tenantId
+      and cp.catalogConfigurationId = :catalogConfigurationId
+      and cp.agrupadorEmpresaId = :agrupadorEmpresaId
+      and cp.id > :afterId
+    order by cp.id
+    """)
+  List<Long> findIdsAfter(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogConfigurationId") Long catalogConfigurationId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("afterId") Long afterId,
+    Pageable pageable);
+
+  long countByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaId(
+    Long tenantId, Long catalogConfigurationId, Long agrupadorEmpresaId);
 }
@@ -139,4 +139,24 @@ public interface CatalogServiceItemRepository extends JpaRepository<CatalogServi
     @Param("tenantId") Long tenantId,
     @Param("catalogConfigurationId") Long catalogConfigurationId,
     @Param("catalogGroupIds") Collection<Long> catalogGroupIds);
+
+  // Paginacao por chave (id > afterId) para o recalculo de precos percorrer o agrupador inteiro.
+  @Query("""
+    select cs.id
+    from CatalogServiceItem cs
+    where cs.tenantId = :tenantId
+      and cs.catalogConfigurationId = :catalogConfigurationId
+      and cs.agrupadorEmpresaId = :agrupadorEmpresaId
+      and cs.id > :afterId
+    order by cs.id
+    """)
+  List<Long> findIdsAfter(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogConfigurationId") Long catalogConfigurationId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("afterId") Long afterId,
+    Pageable pageable);
+
+  long countByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaId(
+    Long tenantId, Long catalogConfigurationId, Long agrupadorEmpresaId);
 }
@@ -3,6 +3,7 @@ package com.ia.app.repository;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogStockBalance;
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,12 +13,36 @@ import org.springframework.data.repository.query.Param;
 
 public interface CatalogStockBalanceRepository extends JpaRepository<CatalogStockBalance, Long> {
 
-  interface StockTypeConsolidatedRow {
+  interface StockMatrixCellRow {
+    Long getCatalogoId();
+
     Long getEstoqueTipoId();
 
+    Long getFilialId();
+
+    java.math.BigDecimal getQuantidade();
+  }
+
+  interface BalanceGridRow {
+    Long getEstoqueTipoId();
+
+    String getEstoqueTipoCodigo();
+
+    String getEstoqueTipoNome();
+
+    Long getFilialId();
+
+    String getFilialNome();
+
+    java.math.BigDecimal getQuantidade();
+
+    java.math.BigDecimal getPreco();
+
     java.math.BigDecimal getQuantidadeTotal();
 
     java.math.BigDecimal getPrecoTotal();
+
+    Boolean getConfigurado();
   }
 
   @Lock(LockModeType.PESSIMISTIC_WRITE)
@@ -55,23 +80,143 @@ public interface CatalogStockBalanceRepository extends JpaRepository<CatalogStoc
     @Param("estoqueTipoId") Long estoqueTipoId,
     @Param("filialId") Long filialId);
 
-  @Query("""
-    select
-      b.estoqueTipoId as estoqueTipoId,
-      sum(b.quantidadeAtual) as quantidadeTotal,
-      sum(b.precoAtual) as precoTotal
-    from CatalogStockBalance b
-    where b.tenantId = :tenantId
-      and b.catalogType = :catalogType
-      and b.catalogoId = :catalogoId
-      and b.agrupadorEmpresaId = :agrupadorEmpresaId
-      and (:estoqueTipoId is null or b.estoqueTipoId = :estoqueTipoId)
-    group by b.estoqueTipoId
-    """)
-  List<StockTypeConsolidatedRow> consolidatedByStockType(
+  // Saldo consolidado mais as linhas de escrow ainda nao dobradas, numa unica agregacao para varios itens.
+  @Query(
+    value = """
+      SELECT
+        x.catalogo_id AS catalogoId,
+        x.estoque_tipo_id AS estoqueTipoId,
+        x.filial_id AS filialId,
+        SUM(x.quantidade) AS quantidade
+      FROM (
+        SELECT b.catalogo_id, b.estoque_tipo_id, b.filial_id, b.quantidade_atual AS quantidade
+        FROM catalog_stock_balance b
+        WHERE b.tenant_id = :tenantId
+          AND b.catalog_type = :catalogType
+          AND b.agrupador_empresa_id = :agrupadorEmpresaId
+          AND b.catalogo_id IN (:catalogoIds)
+          AND (:estoqueTipoId IS NULL OR b.estoque_tipo_id = :estoqueTipoId)
+          AND (:filialId IS NULL OR b.filial_id = :filialId)
+        UNION ALL
+        SELECT m.catalogo_id, l.estoque_tipo_id, l.filial_id, l.delta
+        FROM catalog_movement_line l
+        JOIN catalog_movement m
+          ON m.id = l.movement_id
+         AND m.data_hora_movimentacao = l.data_hora_movimentacao
+        WHERE l.tenant_id = :tenantId
+          AND l.escrow_pending = true
+          AND l.metric_type = 'QUANTIDADE'
+          AND l.agrupador_empresa_id = :agrupadorEmpresaId
+          AND m.catalog_type = :catalogType
+          AND m.catalogo_id IN (:catalogoIds)
+          AND (:estoqueTipoId IS NULL OR l.estoque_tipo_id = :estoqueTipoId)
+          AND (:filialId IS NULL OR l.filial_id = :filialId)
+      ) x
+      GROUP BY x.catalogo_id, x.estoque_tipo_id, x.filial_id
+      ORDER BY x.catalogo_id, x.estoque_tipo_id, x.filial_id
+      """,
+    nativeQuery = true)
+  List<StockMatrixCellRow> sumStockMatrix(
     @Param("tenantId") Long tenantId,
-    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogType") String catalogType,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("catalogoIds") Collection<Long> catalogoIds,
+    @Param("estoqueTipoId") Long estoqueTipoId,
+    @Param("filialId") Long filialId);
+
+  // Grade do item numa ida ao banco: tipos ativos x filiais do agrupador somados ao saldo e ao escrow
+  // pendente; chaves com saldo fora da grade vem depois. Tipo sem filial vinculada volta com filial nula.
+  // O total do tipo vem do saldo consolidado mais o escrow pendente, sem somar de novo o saldo por filial.
+  @Query(
+    value = """
+      SELECT
+        linhas.estoque_tipo_id AS estoqueTipoId,
+        st.codigo AS estoqueTipoCodigo,
+        st.nome AS estoqueTipoNome,
+        linhas.filial_id AS filialId,
+        CASE
+          WHEN e.nome_fantasia IS NOT NULL AND TRIM(e.nome_fantasia) <> '' THEN e.nome_fantasia
+          ELSE e.razao_social
+        END AS filialNome,
+        linhas.quantidade AS quantidade,
+        linhas.preco AS preco,
+        COALESCE(c.quantidade_total, 0)
+          + SUM(linhas.pendente_quantidade) OVER (PARTITION BY linhas.estoque_tipo_id) AS quantidadeTotal,
+        COALESCE(c.preco_total, 0)
+          + SUM(linhas.pendente_preco) OVER (PARTITION BY linhas.estoque_tipo_id) AS precoTotal,
+        CASE WHEN linhas.configurado = 1 THEN TRUE ELSE FALSE END AS configurado
+      FROM (
+        SELECT
+          k.estoque_tipo_id,
+          k.filial_id,
+          MAX(k.configurado) AS configurado,
+          MAX(k.ordem) AS ordem,
+          MAX(k.nome) AS nome,
+          SUM(k.quantidade) AS quantidade,
+          SUM(k.preco) AS preco,
+          SUM(k.pendente_quantidade) AS pendente_quantidade,
+          SUM(k.pendente_preco) AS pendente_preco
+        FROM (
+          SELECT t.id AS estoque_tipo_id, i.empresa_id AS filial_id, 1 AS configurado, t.ordem, t.nome,
+                 CAST(0 AS NUMERIC(19,6)) AS quantidade, CAST(0 AS NUMERIC(19,6)) AS preco,
+                 CAST(0 AS NUMERIC(19,6)) AS pendente_quantidade, CAST(0 AS NUMERIC(19,6)) AS pendente_preco
+          FROM catalog_stock_type t
+          LEFT JOIN agrupador_empresa_item i
+            ON i.tenant_id = :tenantId
+           AND i.agrupador_id = :agrupadorEmpresaId
+          WHERE t.tenant_id = :tenantId
+            AND t.catalog_configuration_id = :catalogConfigurationId
+            AND t.agrupador_empresa_id = :agrupadorEmpresaId
+            AND t.active = true
+            AND (:estoqueTipoId IS NULL OR t.id = :estoqueTipoId)
+          UNION ALL
+          SELECT b.estoque_tipo_id, b.filial_id, 0, NULL, NULL, b.quantidade_atual, b.preco_atual, 0, 0
+          FROM catalog_stock_balance b
+          WHERE b.tenant_id = :tenantId
+            AND b.catalog_type = :catalogType
+            AND b.catalogo_id = :catalogoId
+            AND b.agrupador_empresa_id = :agrupadorEmpresaId
+            AND (:estoqueTipoId IS NULL OR b.estoque_tipo_id = :estoqueTipoId)
+          UNION ALL
+          SELECT p.estoque_tipo_id, p.filial_id, 0, NULL, NULL, p.quantidade, p.preco, p.quantidade, p.preco
+          FROM (
+            SELECT l.estoque_tipo_id, l.filial_id,
+                   CASE WHEN l.metric_type = 'QUANTIDADE' THEN l.delta ELSE 0 END AS quantidade,
+                   CASE WHEN l.metric_type = 'PRECO' THEN l.delta ELSE 0 END AS preco
+            FROM catalog_movement_line l
+            JOIN catalog_movement m
+              ON m.id = l.movement_id
+             AND m.data_hora_movimentacao = l.data_hora_movimentacao
+            WHERE l.tenant_id = :tenantId
+              AND l.escrow_pending = true
+              AND l.agrupador_empresa_id = :agrupadorEmpresaId
+              AND m.catalog_type = :catalogType
+              AND m.catalogo_id = :catalogoId
+              AND (:estoqueTipoId IS NULL OR l.estoque_tipo_id = :estoqueTipoId)
+          ) p
+        ) k
+        GROUP BY k.estoque_tipo_id, k.filial_id
+      ) linhas
+      LEFT JOIN catalog_stock_consolidated_balance c
+        ON c.tenant_id = :tenantId
+       AND c.catalog_type = :catalogType
+       AND c.catalogo_id = :catalogoId
+       AND c.agrupador_empresa_id = :agrupadorEmpresaId
+       AND c.estoque_tipo_id = linhas.estoque_tipo_id
+      LEFT JOIN catalog_stock_type st
+        ON st.id = linhas.estoque_tipo_id
+       AND st.tenant_id = :tenantId
+      LEFT JOIN empresa e
+        ON e.id = linhas.filial_id
+       AND e.tenant_id = :tenantId
+      ORDER BY linhas.configurado DESC, linhas.ordem, linhas.nome, linhas.estoque_tipo_id, linhas.filial_id
+      """,
+    nativeQuery = true)
+  List<BalanceGridRow> loadBalanceGrid(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") String catalogType,
     @Param("catalogoId") Long catalogoId,
+    @Param("catalogConfigurationId") Long catalogConfigurationId,
     @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
     @Param("estoqueTipoId") Long estoqueTipoId);
 }
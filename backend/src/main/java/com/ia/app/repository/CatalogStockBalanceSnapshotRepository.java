@@ -0,0 +1,62 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogStockBalanceSnapshot;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CatalogStockBalanceSnapshotRepository extends JpaRepository<CatalogStockBalanceSnapshot, Long> {
+
+  @Query("""
+    select s
+    from CatalogStockBalanceSnapshot s
+    where s.tenantId = :tenantId
+      and s.catalogType = :catalogType
+      and s.catalogoId = :catalogoId
+      and s.agrupadorEmpresaId = :agrupadorEmpresaId
+      and (:estoqueTipoId is null or s.estoqueTipoId = :estoqueTipoId)
+      and s.snapshotDate = (
+        select max(s2.snapshotDate)
+        from CatalogStockBalanceSnapshot s2
+        where s2.tenantId = s.tenantId
+          and s2.catalogType = s.catalogType
+          and s2.catalogoId = s.catalogoId
+          and s2.agrupadorEmpresaId = s.agrupadorEmpresaId
+          and s2.estoqueTipoId = s.estoqueTipoId
+          and s2.filialId = s.filialId
+          and s2.snapshotDate <= :snapshotDate)
+    order by s.estoqueTipoId asc, s.filialId asc
+    """)
+  List<CatalogStockBalanceSnapshot> findLatestForItem(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogoId") Long catalogoId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId,
+    @Param("snapshotDate") LocalDate snapshotDate);
+
+  @Query("""
+    select s
+    from CatalogStockBalanceSnapshot s
+    where s.tenantId = :tenantId
+      and s.catalogoId in :catalogoIds
+      and s.snapshotDate = (
+        select max(s2.snapshotDate)
+        from CatalogStockBalanceSnapshot s2
+        where s2.tenantId = s.tenantId
+          and s2.catalogType = s.catalogType
+          and s2.catalogoId = s.catalogoId
+          and s2.agrupadorEmpresaId = s.agrupadorEmpresaId
+          and s2.estoqueTipoId = s.estoqueTipoId
+          and s2.filialId = s.filialId
+          and s2.snapshotDate <= :snapshotDate)
+    """)
+  List<CatalogStockBalanceSnapshot> findLatestForCatalogos(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogoIds") Collection<Long> catalogoIds,
+    @Param("snapshotDate") LocalDate snapshotDate);
+}
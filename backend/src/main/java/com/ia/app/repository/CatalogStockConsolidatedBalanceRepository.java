@@ -0,0 +1,58 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogStockConsolidatedBalance;
+import java.math.BigDecimal;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CatalogStockConsolidatedBalanceRepository extends JpaRepository<CatalogStockConsolidatedBalance, Long> {
+
+  interface StockTypeConsolidatedRow {
+    Long getEstoqueTipoId();
+
+    BigDecimal getQuantidadeTotal();
+
+    BigDecimal getPrecoTotal();
+  }
+
+  @Query("""
+    select
+      c.estoqueTipoId as estoqueTipoId,
+      c.quantidadeTotal as quantidadeTotal,
+      c.precoTotal as precoTotal
+    from CatalogStockConsolidatedBalance c
+    where c.tenantId = :tenantId
+      and c.catalogType = :catalogType
+      and c.catalogoId = :catalogoId
+      and c.agrupadorEmpresaId = :agrupadorEmpresaId
+      and (:estoqueTipoId is null or c.estoqueTipoId = :estoqueTipoId)
+    order by c.estoqueTipoId asc
+    """)
+  List<StockTypeConsolidatedRow> listByItem(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogoId") Long catalogoId,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId);
+
+  @Query("""
+    select
+      c.estoqueTipoId as estoqueTipoId,
+      sum(c.quantidadeTotal) as quantidadeTotal,
+      sum(c.precoTotal) as precoTotal
+    from CatalogStockConsolidatedBalance c
+    where c.tenantId = :tenantId
+      and c.catalogType = :catalogType
+      and c.agrupadorEmpresaId = :agrupadorEmpresaId
+      and (:estoqueTipoId is null or c.estoqueTipoId = :estoqueTipoId)
+    group by c.estoqueTipoId
+    """)
+  List<StockTypeConsolidatedRow> summarizeByStockType(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("agrupadorEmpresaId") Long agrupadorEmpresaId,
+    @Param("estoqueTipoId") Long estoqueTipoId);
+}
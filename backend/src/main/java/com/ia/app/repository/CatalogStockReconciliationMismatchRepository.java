@@ -0,0 +1,12 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogStockReconciliationMismatch;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogStockReconciliationMismatchRepository extends JpaRepository<CatalogStockReconciliationMismatch, Long> {
+
+  List<CatalogStockReconciliationMismatch> findAllByRunIdOrderByIdAsc(Long runId);
+
+  List<CatalogStockReconciliationMismatch> findAllByRunIdAndTenantIdOrderByIdAsc(Long runId, Long tenantId);
+}
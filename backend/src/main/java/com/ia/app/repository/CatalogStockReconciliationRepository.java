@@ -0,0 +1,27 @@
+package com.ia.app.repository;
+
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceScope;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface CatalogStockReconciliationRepository {
+
+  record ReconciliationUnit(Long tenantId, Long catalogConfigurationId) {}
+
+  record LedgerBalanceRow(
+    BalanceScope scope,
+    Long catalogConfigurationId,
+    Long balanceId,
+    BigDecimal ledgerQuantidade,
+    BigDecimal balanceQuantidade,
+    BigDecimal ledgerPreco,
+    BigDecimal balancePreco
+  ) {}
+
+  List<ReconciliationUnit> findUnits();
+
+  void streamMismatches(ReconciliationUnit unit, int fetchSize, Consumer<LedgerBalanceRow> consumer);
+
+  LedgerBalanceRow loadLedgerBalance(BalanceScope scope, Long catalogConfigurationId);
+}
@@ -0,0 +1,7 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogStockReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogStockReconciliationRunRepository extends JpaRepository<CatalogStockReconciliationRun, Long> {
+}
@@ -0,0 +1,13 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogStockSnapshotRun;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogStockSnapshotRunRepository extends JpaRepository<CatalogStockSnapshotRun, LocalDate> {
+
+  Optional<CatalogStockSnapshotRun> findTopByOrderBySnapshotDateDesc();
+
+  Optional<CatalogStockSnapshotRun> findTopBySnapshotDateLessThanOrderBySnapshotDateDesc(LocalDate snapshotDate);
+}
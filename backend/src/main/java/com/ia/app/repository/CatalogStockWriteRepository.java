@@ -0,0 +1,105 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovement;
+import com.ia.app.domain.CatalogMovementLine;
+import com.ia.app.domain.CatalogMovementMetricType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CatalogStockWriteRepository {
+
+  record BalanceScope(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Long catalogoId,
+    Long agrupadorEmpresaId,
+    Long estoqueTipoId,
+    Long filialId
+  ) {}
+
+  record NewBalance(BalanceScope scope, Long catalogConfigurationId) {}
+
+  record BalanceRow(
+    Long id,
+    BalanceScope scope,
+    BigDecimal quantidadeAtual,
+    BigDecimal precoAtual
+  ) {}
+
+  record PendingEscrowLine(
+    Long id,
+    BalanceScope scope,
+    Long catalogConfigurationId,
+    CatalogMovementMetricType metricType,
+    BigDecimal delta
+  ) {}
+
+  record SettledEscrowLine(Long id, BigDecimal beforeValue, BigDecimal afterValue) {}
+
+  record ConsolidatedScope(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Long catalogoId,
+    Long agrupadorEmpresaId,
+    Long estoqueTipoId
+  ) {
+    public static ConsolidatedScope of(BalanceScope scope) {
+      return new ConsolidatedScope(
+        scope.tenantId(),
+        scope.catalogType(),
+        scope.catalogoId(),
+        scope.agrupadorEmpresaId(),
+        scope.estoqueTipoId());
+    }
+  }
+
+  record ConsolidatedDelta(
+    ConsolidatedScope scope,
+    Long catalogConfigurationId,
+    BigDecimal quantidadeDelta,
+    BigDecimal precoDelta
+  ) {
+    public static ConsolidatedDelta of(
+        BalanceScope scope,
+        Long catalogConfigurationId,
+        CatalogMovementMetricType metricType,
+        BigDecimal delta) {
+      boolean quantidade = metricType == CatalogMovementMetricType.QUANTIDADE;
+      return new ConsolidatedDelta(
+        ConsolidatedScope.of(scope),
+        catalogConfigurationId,
+        quantidade ? delta : BigDecimal.ZERO,
+        quantidade ? BigDecimal.ZERO : delta);
+    }
+  }
+
+  List<BalanceRow> lockBalances(Collection<BalanceScope> scopes);
+
+  List<BalanceRow> lockOrCreateBalances(Collection<NewBalance> balances);
+
+  void insertBalancesIfAbsent(List<NewBalance> balances);
+
+  void updateBalances(List<BalanceRow> balances);
+
+  BalanceRow applyDelta(NewBalance balance, BigDecimal quantidadeDelta, BigDecimal precoDelta);
+
+  List<Long> insertMovements(List<CatalogMovement> movements);
+
+  Optional<Long> insertMovementIfAbsent(CatalogMovement movement);
+
+  void insertLines(List<CatalogMovementLine> lines);
+
+  List<PendingEscrowLine> lockPendingEscrowLines(int limit);
+
+  void settleEscrowLines(List<SettledEscrowLine> lines);
+
+  void applyConsolidatedDeltas(Collection<ConsolidatedDelta> deltas);
+
+  int rebuildConsolidatedBalances(Long tenantId, CatalogConfigurationType catalogType);
+
+  Instant lineCutoff(long commitLagSeconds);
+}
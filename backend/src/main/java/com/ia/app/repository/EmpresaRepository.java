@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface EmpresaRepository extends JpaRepository<Empresa, Long>, JpaSpecificationExecutor<Empresa> {
   Optional<Empresa> findByIdAndTenantId(Long id, Long tenantId);
@@ -16,4 +18,7 @@ public interface EmpresaRepository extends JpaRepository<Empresa, Long>, JpaSpec
   Optional<Empresa> findByTenantIdAndCnpj(Long tenantId, String cnpj);
   List<Empresa> findAllByTenantIdAndMatrizIdOrderByRazaoSocialAsc(Long tenantId, Long matrizId);
   boolean existsByTenantIdAndMatrizId(Long tenantId, Long matrizId);
+
+  @Query("select e.id from Empresa e where e.tenantId = :tenantId")
+  List<Long> findIdsByTenantId(@Param("tenantId") Long tenantId);
 }
@@ -0,0 +1,18 @@
+package com.ia.app.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+public interface ExportJobFileRepository {
+
+  // Copia o arquivo local para export_job_chunk; deve rodar dentro de transacao.
+  void save(Long jobId, Path file) throws IOException;
+
+  boolean exists(Long jobId);
+
+  // Le um bloco por consulta, sem segurar conexao durante toda a escrita da resposta.
+  void writeTo(Long jobId, OutputStream out) throws IOException;
+
+  void delete(Long jobId);
+}
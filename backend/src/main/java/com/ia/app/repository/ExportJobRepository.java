@@ -0,0 +1,35 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.ExportJob;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+  Optional<ExportJob> findByIdAndTenantId(Long id, Long tenantId);
+
+  List<ExportJob> findAllByStatusAndExpiresAtBefore(String status, Instant expiresAt);
+
+  List<ExportJob> findAllByStatusInAndHeartbeatAtBefore(Collection<String> statuses, Instant heartbeatAt);
+
+  // Heartbeat do no que roda o job, com o progresso visivel para os demais nos.
+  @Modifying
+  @Query("""
+    update ExportJob j
+    set j.rowsWritten = :rowsWritten,
+        j.heartbeatAt = :now
+    where j.id = :id
+      and j.status in :statuses
+    """)
+  int touch(
+    @Param("id") Long id,
+    @Param("rowsWritten") long rowsWritten,
+    @Param("statuses") Collection<String> statuses,
+    @Param("now") Instant now);
+}
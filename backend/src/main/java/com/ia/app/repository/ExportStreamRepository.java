@@ -0,0 +1,91 @@
+package com.ia.app.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ExportStreamRepository {
+
+  List<String> LEDGER_HEADERS = List.of(
+    "data_hora_movimentacao",
+    "movimentacao_id",
+    "movimento_tipo",
+    "origem_tipo",
+    "origem_codigo",
+    "origem_id",
+    "usuario",
+    "agrupador_empresa_id",
+    "estoque_tipo",
+    "filial",
+    "metrica",
+    "valor_anterior",
+    "delta",
+    "valor_posterior",
+    "escrow_pendente");
+
+  List<String> SALE_PRICE_GRID_HEADERS = List.of(
+    "catalog_type",
+    "catalog_item_id",
+    "catalog_item_name",
+    "catalog_group_name",
+    "catalog_base_price",
+    "price_final");
+
+  List<String> ENTITY_HEADERS = List.of(
+    "codigo",
+    "nome",
+    "apelido",
+    "tipo_registro",
+    "registro_federal",
+    "tipo_pessoa",
+    "grupo",
+    "codigo_barras",
+    "tratamento",
+    "ativo");
+
+  record LedgerExportFilter(
+    Long tenantId,
+    String catalogType,
+    Long catalogoId,
+    Long agrupadorEmpresaId,
+    String origemTipo,
+    String origemCodigo,
+    Long origemId,
+    String movimentoTipo,
+    String usuario,
+    Instant fromDate,
+    Instant toDate,
+    String metricType,
+    Long estoqueTipoId,
+    Long filialId
+  ) {}
+
+  record SalePriceGridExportFilter(
+    Long tenantId,
+    Long priceBookId,
+    Long variantId,
+    String catalogType,
+    String text,
+    Long catalogItemId,
+    Long catalogGroupId,
+    boolean includeGroupChildren
+  ) {}
+
+  record EntityExportFilter(
+    Long tenantId,
+    Long empresaId,
+    Long tipoEntidadeConfigAgrupadorId,
+    Long codigo,
+    String pessoaNome,
+    String registroFederalNorm,
+    Long grupoId,
+    Boolean ativo
+  ) {}
+
+  // Cada linha chega na ordem de LEDGER_HEADERS / SALE_PRICE_GRID_HEADERS / ENTITY_HEADERS.
+  void streamLedger(LedgerExportFilter filter, int fetchSize, Consumer<Object[]> consumer);
+
+  void streamSalePriceGrid(SalePriceGridExportFilter filter, int fetchSize, Consumer<Object[]> consumer);
+
+  void streamEntities(EntityExportFilter filter, int fetchSize, Consumer<Object[]> consumer);
+}
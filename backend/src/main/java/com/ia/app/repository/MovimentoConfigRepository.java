@@ -13,6 +13,12 @@ import org.springframework.data.repository.query.Param;
 
 public interface MovimentoConfigRepository extends JpaRepository<MovimentoConfig, Long> {
 
+  interface GlobalCoverageRow {
+    MovimentoTipo getTipoMovimento();
+
+    Long getEmpresaId();
+  }
+
   Page<MovimentoConfig> findAllByTenantIdAndTipoMovimentoOrderByUpdatedAtDescIdDesc(
     Long tenantId,
     MovimentoTipo tipoMovimento,
@@ -37,6 +43,16 @@ public interface MovimentoConfigRepository extends JpaRepository<MovimentoConfig
     @Param("tipoMovimento") MovimentoTipo tipoMovimento,
     @Param("empresaId") Long empresaId);
 
+  @Query("""
+    select distinct c.tipoMovimento as tipoMovimento, e.empresaId as empresaId
+    from MovimentoConfig c
+    join c.empresas e
+    where c.tenantId = :tenantId
+      and c.ativo = true
+      and c.contextoKey is null
+    """)
+  List<GlobalCoverageRow> findActiveGlobalCoverageByTenant(@Param("tenantId") Long tenantId);
+
   @Query("""
     select count(distinct c.id)
     from MovimentoConfig c
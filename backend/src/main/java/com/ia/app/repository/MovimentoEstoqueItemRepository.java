@@ -3,6 +3,7 @@ package com.ia.app.repository;
 import com.ia.app.domain.MovimentoEstoqueItem;
 import com.ia.app.domain.CatalogConfigurationType;
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,6 +13,10 @@ public interface MovimentoEstoqueItemRepository extends JpaRepository<MovimentoE
 
   List<MovimentoEstoqueItem> findAllByTenantIdAndMovimentoEstoqueIdOrderByOrdemAscIdAsc(Long tenantId, Long movimentoEstoqueId);
 
+  List<MovimentoEstoqueItem> findAllByTenantIdAndMovimentoEstoqueIdInOrderByMovimentoEstoqueIdAscOrdemAscIdAsc(
+    Long tenantId,
+    Collection<Long> movimentoEstoqueIds);
+
   void deleteAllByTenantIdAndMovimentoEstoqueId(Long tenantId, Long movimentoEstoqueId);
 
   Optional<MovimentoEstoqueItem> findByIdAndTenantId(Long id, Long tenantId);
@@ -2,6 +2,8 @@ package com.ia.app.repository;
 
 import com.ia.app.domain.MovimentoEstoque;
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -12,6 +14,8 @@ public interface MovimentoEstoqueRepository
 
   Optional<MovimentoEstoque> findByIdAndTenantId(Long id, Long tenantId);
 
+  List<MovimentoEstoque> findAllByTenantIdAndIdIn(Long tenantId, Collection<Long> ids);
+
   @Lock(LockModeType.PESSIMISTIC_WRITE)
   Optional<MovimentoEstoque> findWithLockByIdAndTenantId(Long id, Long tenantId);
 }
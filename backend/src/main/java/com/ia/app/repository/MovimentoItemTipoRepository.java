@@ -1,6 +1,8 @@
 package com.ia.app.repository;
 
 import com.ia.app.domain.MovimentoItemTipo;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -10,6 +12,8 @@ public interface MovimentoItemTipoRepository
 
   Optional<MovimentoItemTipo> findByIdAndTenantId(Long id, Long tenantId);
 
+  List<MovimentoItemTipo> findAllByTenantIdAndIdIn(Long tenantId, Collection<Long> ids);
+
   boolean existsByTenantIdAndNomeIgnoreCaseAndIdNot(Long tenantId, String nome, Long id);
 
   boolean existsByTenantIdAndNomeIgnoreCase(Long tenantId, String nome);
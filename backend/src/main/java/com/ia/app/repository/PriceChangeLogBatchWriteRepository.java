@@ -0,0 +1,13 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.PriceChangeLog;
+import java.util.List;
+
+public interface PriceChangeLogBatchWriteRepository {
+
+  // Insert em lote via JDBC; as entidades nao entram no contexto de persistencia (id continua nulo).
+  void insertAll(List<PriceChangeLog> logs);
+
+  // Chama o callback no inicio de cada flush do Hibernate na sessao corrente, antes de qualquer consulta JPA.
+  void beforeSessionFlush(Runnable callback);
+}
@@ -0,0 +1,47 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogPriceType;
+import java.math.BigDecimal;
+import java.util.List;
+
+// Tabela temporaria da importacao de precos: existe so na transacao corrente (on commit drop).
+public interface PriceImportStagingRepository {
+
+  String TABLE = "price_import_staging";
+
+  // rejectReason preenchido na leitura do arquivo (valor invalido); as demais recusas saem das validacoes abaixo.
+  record StagedRow(
+    int lineNumber,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    BigDecimal priceFinal,
+    String rejectReason
+  ) {}
+
+  record RejectedRow(int lineNumber, String catalogType, Long catalogItemId, String reason) {}
+
+  interface Loader extends AutoCloseable {
+    void add(StagedRow row);
+
+    // Conclui a carga: fim do COPY ou ultimo lote.
+    @Override
+    void close();
+  }
+
+  Loader open();
+
+  int rejectUnknownItems(Long tenantId);
+
+  // Mesmo item em mais de uma linha: vale a ultima, as anteriores sao recusadas.
+  int rejectDuplicates();
+
+  // Importacao em catalog_item_price: preenche o agrupador de cada item e recusa tipo de preco calculado pela regra.
+  int resolveCatalogPriceGroups(Long tenantId, CatalogPriceType priceType);
+
+  long countValid(CatalogConfigurationType catalogType);
+
+  long countRejected();
+
+  List<RejectedRow> findRejects(int limit);
+}
@@ -0,0 +1,71 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.ResolvedSalePrice;
+import com.ia.app.domain.SalePriceSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ResolvedSalePriceRepository extends JpaRepository<ResolvedSalePrice, Long> {
+
+  // Busca pela chave unica: no maximo a linha da unidade pedida e a de "qualquer unidade".
+  @Query("""
+      select r from ResolvedSalePrice r
+       where r.tenantId = :tenantId
+         and r.priceBookId = :priceBookId
+         and r.variantKey = :variantKey
+         and r.catalogType = :catalogType
+         and r.catalogItemId = :catalogItemId
+         and r.tenantUnitKey in :tenantUnitKeys
+      """)
+  List<ResolvedSalePrice> findLookup(
+    @Param("tenantId") Long tenantId,
+    @Param("priceBookId") Long priceBookId,
+    @Param("variantKey") Long variantKey,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogItemId") Long catalogItemId,
+    @Param("tenantUnitKeys") Collection<UUID> tenantUnitKeys);
+
+  @Modifying
+  @Query("""
+      delete from ResolvedSalePrice r
+       where r.tenantId = :tenantId
+         and r.priceBookId = :priceBookId
+         and r.catalogType = :catalogType
+         and r.catalogItemId in :catalogItemIds
+      """)
+  int deleteItems(
+    @Param("tenantId") Long tenantId,
+    @Param("priceBookId") Long priceBookId,
+    @Param("catalogType") CatalogConfigurationType catalogType,
+    @Param("catalogItemIds") Collection<Long> catalogItemIds);
+
+  @Modifying
+  @Query("delete from ResolvedSalePrice r where r.tenantId = :tenantId and r.priceBookId = :priceBookId")
+  int deleteByBook(@Param("tenantId") Long tenantId, @Param("priceBookId") Long priceBookId);
+
+  @Modifying
+  @Query("delete from ResolvedSalePrice r where r.tenantId = :tenantId and r.variantKey = :variantKey")
+  int deleteByVariantKey(@Param("tenantId") Long tenantId, @Param("variantKey") Long variantKey);
+
+  @Modifying
+  @Query("delete from ResolvedSalePrice r where r.tenantId = :tenantId")
+  int deleteByTenant(@Param("tenantId") Long tenantId);
+
+  List<ResolvedSalePrice> findAllByTenantIdAndCatalogTypeAndCatalogItemIdAndSource(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    SalePriceSource source);
+
+  List<ResolvedSalePrice> findAllByTenantIdAndCatalogTypeAndSourceAndCatalogItemIdIn(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    SalePriceSource source,
+    Collection<Long> catalogItemIds);
+}
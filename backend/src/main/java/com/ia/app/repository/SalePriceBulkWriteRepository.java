@@ -0,0 +1,49 @@
+package com.ia.app.repository;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface SalePriceBulkWriteRepository {
+
+  // Preco alvo = round(coalesce(base, 0) * multiplier + addend, 6); requireBasePrice pula itens sem SALE_BASE.
+  record ApplyByGroupCommand(
+    Long tenantId,
+    Long priceBookId,
+    String priceBookName,
+    Long variantId,
+    CatalogConfigurationType catalogType,
+    String text,
+    Long catalogItemId,
+    Long catalogGroupId,
+    boolean includeChildren,
+    BigDecimal multiplier,
+    BigDecimal addend,
+    boolean requireBasePrice,
+    boolean overwriteExisting,
+    String changedBy
+  ) {}
+
+  record ApplyByGroupResult(
+    int totalItems,
+    int created,
+    int updated,
+    int skippedWithoutBasePrice,
+    int skippedExisting,
+    List<Long> changedItemIds
+  ) {}
+
+  // Linhas validas da tabela temporaria de PriceImportStagingRepository; os contadores de pulo voltam zerados.
+  record ApplyImportCommand(
+    Long tenantId,
+    Long priceBookId,
+    String priceBookName,
+    Long variantId,
+    CatalogConfigurationType catalogType,
+    String changedBy
+  ) {}
+
+  ApplyByGroupResult applyByGroup(ApplyByGroupCommand command);
+
+  ApplyByGroupResult applyImport(ApplyImportCommand command);
+}
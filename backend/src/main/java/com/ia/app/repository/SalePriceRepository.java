@@ -3,6 +3,8 @@ package com.ia.app.repository;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.SalePrice;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
@@ -28,8 +30,8 @@ public interface SalePriceRepository extends JpaRepository<SalePrice, Long> {
 
   Optional<SalePrice> findByIdAndTenantId(Long id, Long tenantId);
 
-  @Query(
-    value = """
+  // Compartilhada com a exportacao em stream (ExportStreamRepositoryImpl), que usa os mesmos parametros nomeados.
+  String GRID_SQL = """
       SELECT
         sp.id AS id,
         CAST(:priceBookId AS bigint) AS priceBookId,
@@ -129,7 +131,10 @@ public interface SalePriceRepository extends JpaRepository<SalePrice, Long> {
        AND sp.catalog_item_id = base.catalog_item_id
        AND sp.tenant_unit_id IS NULL
       ORDER BY base.catalog_type, base.catalog_item_name, base.catalog_item_id
-      """,
+      """;
+
+  @Query(
+    value = GRID_SQL,
     countQuery = """
       SELECT COUNT(1)
       FROM (
@@ -202,6 +207,108 @@ public interface SalePriceRepository extends JpaRepository<SalePrice, Long> {
     @Param("includeGroupChildren") Boolean includeGroupChildren,
     Pageable pageable);
 
+  interface SalePriceScopeItemProjection {
+    String getCatalogType();
+    Long getCatalogItemId();
+    BigDecimal getSaleBasePrice();
+  }
+
+  // Mesmos filtros de GRID_SQL, so ids e preco base, em paginas por chave (catalog_type, id) em vez de OFFSET.
+  @Query(
+    value = """
+      SELECT base.catalog_type AS catalogType,
+             base.catalog_item_id AS catalogItemId,
+             base.sale_base_price AS saleBasePrice
+      FROM (
+        SELECT
+          'PRODUCTS' AS catalog_type,
+          cp.id AS catalog_item_id,
+          cip.price_final AS sale_base_price
+        FROM catalog_product cp
+        LEFT JOIN catalog_group cpg
+          ON cpg.id = cp.catalog_group_id
+         AND cpg.tenant_id = cp.tenant_id
+        LEFT JOIN catalog_group cpg_root
+          ON cpg_root.id = :catalogGroupId
+         AND cpg_root.tenant_id = cp.tenant_id
+        LEFT JOIN catalog_item_price cip
+          ON cip.tenant_id = cp.tenant_id
+         AND cip.catalog_type = 'PRODUCTS'
+         AND cip.catalog_item_id = cp.id
+         AND cip.price_type = 'SALE_BASE'
+        WHERE cp.tenant_id = :tenantId
+          AND cp.ativo = true
+          AND (:catalogType IS NULL OR :catalogType = 'PRODUCTS')
+          AND ('PRODUCTS' > :afterCatalogType OR ('PRODUCTS' = :afterCatalogType AND cp.id > :afterId))
+          AND (
+            (:catalogItemId IS NULL AND :text IS NULL)
+            OR (:catalogItemId IS NOT NULL AND cp.id = :catalogItemId)
+            OR (
+              :text IS NOT NULL
+              AND lower(COALESCE(cp.nome, '')) LIKE lower(concat('%', :text, '%'))
+            )
+          )
+          AND (
+            :catalogGroupId IS NULL
+            OR cp.catalog_group_id = :catalogGroupId
+            OR (
+              :includeGroupChildren = true
+              AND cpg.path LIKE concat(cpg_root.path, '/%')
+            )
+          )
+        UNION ALL
+        SELECT
+          'SERVICES' AS catalog_type,
+          cs.id AS catalog_item_id,
+          cis.price_final AS sale_base_price
+        FROM catalog_service_item cs
+        LEFT JOIN catalog_group csg
+          ON csg.id = cs.catalog_group_id
+         AND csg.tenant_id = cs.tenant_id
+        LEFT JOIN catalog_group csg_root
+          ON csg_root.id = :catalogGroupId
+         AND csg_root.tenant_id = cs.tenant_id
+        LEFT JOIN catalog_item_price cis
+          ON cis.tenant_id = cs.tenant_id
+         AND cis.catalog_type = 'SERVICES'
+         AND cis.catalog_item_id = cs.id
+         AND cis.price_type = 'SALE_BASE'
+        WHERE cs.tenant_id = :tenantId
+          AND cs.ativo = true
+          AND (:catalogType IS NULL OR :catalogType = 'SERVICES')
+          AND ('SERVICES' > :afterCatalogType OR ('SERVICES' = :afterCatalogType AND cs.id > :afterId))
+          AND (
+            (:catalogItemId IS NULL AND :text IS NULL)
+            OR (:catalogItemId IS NOT NULL AND cs.id = :catalogItemId)
+            OR (
+              :text IS NOT NULL
+              AND lower(COALESCE(cs.nome, '')) LIKE lower(concat('%', :text, '%'))
+            )
+          )
+          AND (
+            :catalogGroupId IS NULL
+            OR cs.catalog_group_id = :catalogGroupId
+            OR (
+              :includeGroupChildren = true
+              AND csg.path LIKE concat(csg_root.path, '/%')
+            )
+          )
+      ) base
+      ORDER BY base.catalog_type, base.catalog_item_id
+      LIMIT :limit
+      """,
+    nativeQuery = true)
+  List<SalePriceScopeItemProjection> findScopeItemsAfter(
+    @Param("tenantId") Long tenantId,
+    @Param("catalogType") String catalogType,
+    @Param("text") String text,
+    @Param("catalogItemId") Long catalogItemId,
+    @Param("catalogGroupId") Long catalogGroupId,
+    @Param("includeGroupChildren") Boolean includeGroupChildren,
+    @Param("afterCatalogType") String afterCatalogType,
+    @Param("afterId") Long afterId,
+    @Param("limit") int limit);
+
   Optional<SalePrice> findByTenantIdAndPriceBookIdAndVariantIdAndCatalogTypeAndCatalogItemIdAndTenantUnitId(
     Long tenantId,
     Long priceBookId,
@@ -230,6 +337,44 @@ public interface SalePriceRepository extends JpaRepository<SalePrice, Long> {
     CatalogConfigurationType catalogType,
     Long catalogItemId);
 
+  List<SalePrice> findAllByTenantIdAndCatalogTypeAndCatalogItemId(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId);
+
+  List<SalePrice> findAllByTenantIdAndPriceBookIdAndCatalogTypeAndCatalogItemIdIn(
+    Long tenantId,
+    Long priceBookId,
+    CatalogConfigurationType catalogType,
+    Collection<Long> catalogItemIds);
+
+  interface SalePriceItemScopeProjection {
+    Long getPriceBookId();
+    CatalogConfigurationType getCatalogType();
+    Long getCatalogItemId();
+  }
+
+  @Query("""
+      select distinct s.priceBookId as priceBookId, s.catalogType as catalogType, s.catalogItemId as catalogItemId
+        from SalePrice s
+       where s.tenantId = :tenantId
+      """)
+  List<SalePriceItemScopeProjection> findItemScopesByTenantId(@Param("tenantId") Long tenantId);
+
+  // Candidatos de resolveMany: linhas base da tabela e da variacao pedida para todos os itens de uma vez.
+  @Query("""
+      select s from SalePrice s
+       where s.tenantId = :tenantId
+         and s.priceBookId = :priceBookId
+         and (s.variantId is null or s.variantId = :variantId)
+         and s.catalogItemId in :catalogItemIds
+      """)
+  List<SalePrice> findResolveCandidates(
+    @Param("tenantId") Long tenantId,
+    @Param("priceBookId") Long priceBookId,
+    @Param("variantId") Long variantId,
+    @Param("catalogItemIds") Collection<Long> catalogItemIds);
+
   void deleteByTenantIdAndPriceBookIdAndVariantIdAndCatalogTypeAndCatalogItemIdAndTenantUnitId(
     Long tenantId,
     Long priceBookId,
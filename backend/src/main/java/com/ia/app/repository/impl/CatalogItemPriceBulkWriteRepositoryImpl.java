@@ -0,0 +1,248 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class CatalogItemPriceBulkWriteRepositoryImpl implements CatalogItemPriceBulkWriteRepository {
+
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String UPDATE_PRICE_SQL = """
+    update catalog_item_price
+       set price_final = ?,
+           adjustment_kind = ?,
+           adjustment_value = ?,
+           updated_at = ?,
+           updated_by = ?
+     where id = ?
+       and tenant_id = ?
+    """;
+
+  private static final String INSERT_PRICE_SQL = """
+    insert into catalog_item_price (
+      tenant_id, catalog_type, catalog_item_id, price_type, price_final, adjustment_kind, adjustment_value,
+      created_at, created_by, updated_at, updated_by
+    ) values (?, ?, ?, ?, ?, 'FIXED', 0, ?, ?, ?, ?)
+    """;
+
+  private static final String UPDATE_IMPORTED_PRICE_SQL = """
+    update catalog_item_price
+       set price_final = ?,
+           updated_at = ?,
+           updated_by = ?
+     where id = ?
+    """;
+
+  private static final String INSERT_LOG_SQL = """
+    insert into price_change_log (
+      tenant_id, sale_price_id, action, source_type, origin_type, origin_id, old_price_final, new_price_final,
+      price_book_id, price_book_name, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_type,
+      changed_by, changed_at, created_at, created_by, updated_at, updated_by
+    ) values (?, null, ?, 'CATALOG_ITEM_PRICE', 'ALTERACAO_PRECO_BASE', ?, ?, ?, null, null, null, ?, ?, null, ?,
+      ?, ?, ?, ?, ?, ?)
+    """;
+
+  private static final String IMPORT_CANDIDATES_SQL = """
+    select s.catalog_item_id,
+           s.catalog_configuration_by_group_id,
+           s.price_final,
+           cip.id as price_id,
+           cip.price_final as old_price
+      from price_import_staging s
+      left join catalog_item_price cip
+        on cip.tenant_id = ?
+       and cip.catalog_type = s.catalog_type
+       and cip.catalog_item_id = s.catalog_item_id
+       and cip.price_type = ?
+     where s.reject_reason is null
+       and s.catalog_type = ?
+    """;
+
+  private record ImportCandidate(
+    Long catalogItemId,
+    Long catalogConfigurationByGroupId,
+    Long priceId,
+    BigDecimal oldPrice,
+    BigDecimal newPrice
+  ) {}
+
+  private record LogEntry(
+    String action,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    CatalogPriceType priceType,
+    BigDecimal oldPrice,
+    BigDecimal newPrice
+  ) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditorAware<String> auditorAware;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public CatalogItemPriceBulkWriteRepositoryImpl(JdbcTemplate jdbcTemplate, AuditorAware<String> auditorAware) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.auditorAware = auditorAware;
+  }
+
+  @Override
+  public int applyRecomputed(Long tenantId, String changedBy, List<RecomputedPrice> prices) {
+    if (prices.isEmpty()) {
+      return 0;
+    }
+    // O JDBC nao passa pelo contexto de persistencia: o que estiver pendente precisa estar no banco.
+    entityManager.flush();
+    OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    String username = auditorAware.getCurrentAuditor().orElse(null);
+
+    jdbcTemplate.batchUpdate(UPDATE_PRICE_SQL, prices, MAX_ROWS_PER_STATEMENT, (ps, price) -> {
+      ps.setBigDecimal(1, price.priceFinal());
+      ps.setString(2, price.adjustmentKind().name());
+      ps.setBigDecimal(3, price.adjustmentValue());
+      ps.setObject(4, now);
+      ps.setString(5, username);
+      ps.setLong(6, price.id());
+      ps.setLong(7, tenantId);
+    });
+
+    // Troca so de ajuste (mesmo preco final) nao entra no historico, igual a edicao item a item.
+    List<LogEntry> logged = prices.stream()
+      .filter(price -> price.oldPriceFinal() == null || price.oldPriceFinal().compareTo(price.priceFinal()) != 0)
+      .map(price -> new LogEntry(
+        "UPDATE",
+        price.catalogType(),
+        price.catalogItemId(),
+        price.priceType(),
+        price.oldPriceFinal(),
+        price.priceFinal()))
+      .toList();
+    insertLogs(tenantId, changedBy, now, username, logged);
+
+    detachManagedPrices(prices.stream().map(RecomputedPrice::id).toList());
+    return logged.size();
+  }
+
+  @Override
+  public ImportResult applyImport(
+      Long tenantId,
+      CatalogConfigurationType catalogType,
+      CatalogPriceType priceType,
+      String changedBy) {
+    entityManager.flush();
+    OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    String username = auditorAware.getCurrentAuditor().orElse(null);
+    List<ImportCandidate> candidates = jdbcTemplate.query(IMPORT_CANDIDATES_SQL, (rs, rowNum) -> new ImportCandidate(
+      rs.getLong("catalog_item_id"),
+      rs.getLong("catalog_configuration_by_group_id"),
+      rs.getObject("price_id", Long.class),
+      rs.getBigDecimal("old_price"),
+      rs.getBigDecimal("price_final")), tenantId, priceType.name(), catalogType.name());
+
+    List<ImportCandidate> toInsert = new ArrayList<>();
+    List<ImportCandidate> toUpdate = new ArrayList<>();
+    for (ImportCandidate candidate : candidates) {
+      if (candidate.priceId() == null) {
+        toInsert.add(candidate);
+      } else if (candidate.oldPrice().compareTo(candidate.newPrice()) != 0) {
+        toUpdate.add(candidate);
+      }
+    }
+
+    jdbcTemplate.batchUpdate(INSERT_PRICE_SQL, toInsert, MAX_ROWS_PER_STATEMENT, (ps, candidate) -> {
+      ps.setLong(1, tenantId);
+      ps.setString(2, catalogType.name());
+      ps.setLong(3, candidate.catalogItemId());
+      ps.setString(4, priceType.name());
+      ps.setBigDecimal(5, candidate.newPrice());
+      ps.setObject(6, now);
+      ps.setString(7, username);
+      ps.setObject(8, now);
+      ps.setString(9, username);
+    });
+    jdbcTemplate.batchUpdate(UPDATE_IMPORTED_PRICE_SQL, toUpdate, MAX_ROWS_PER_STATEMENT, (ps, candidate) -> {
+      ps.setBigDecimal(1, candidate.newPrice());
+      ps.setObject(2, now);
+      ps.setString(3, username);
+      ps.setLong(4, candidate.priceId());
+    });
+
+    List<ImportedPrice> changed = new ArrayList<>(toInsert.size() + toUpdate.size());
+    List<LogEntry> logged = new ArrayList<>(toInsert.size() + toUpdate.size());
+    for (List<ImportCandidate> group : List.of(toInsert, toUpdate)) {
+      for (ImportCandidate candidate : group) {
+        changed.add(new ImportedPrice(
+          candidate.catalogItemId(),
+          candidate.catalogConfigurationByGroupId(),
+          candidate.oldPrice(),
+          candidate.newPrice()));
+        logged.add(new LogEntry(
+          candidate.priceId() == null ? "CREATE" : "UPDATE",
+          catalogType,
+          candidate.catalogItemId(),
+          priceType,
+          candidate.oldPrice(),
+          candidate.newPrice()));
+      }
+    }
+    insertLogs(tenantId, changedBy, now, username, logged);
+
+    detachManagedPrices(toUpdate.stream().map(ImportCandidate::priceId).toList());
+    return new ImportResult(candidates.size(), toInsert.size(), toUpdate.size(), changed);
+  }
+
+  private void insertLogs(
+      Long tenantId,
+      String changedBy,
+      OffsetDateTime now,
+      String username,
+      List<LogEntry> entries) {
+    jdbcTemplate.batchUpdate(INSERT_LOG_SQL, entries, MAX_ROWS_PER_STATEMENT, (ps, entry) -> {
+      ps.setLong(1, tenantId);
+      ps.setString(2, entry.action());
+      ps.setLong(3, entry.catalogItemId());
+      ps.setBigDecimal(4, entry.oldPrice());
+      ps.setBigDecimal(5, entry.newPrice());
+      ps.setString(6, entry.catalogType().name());
+      ps.setLong(7, entry.catalogItemId());
+      ps.setString(8, entry.priceType().name());
+      ps.setString(9, changedBy);
+      ps.setObject(10, now);
+      ps.setObject(11, now);
+      ps.setString(12, username);
+      ps.setObject(13, now);
+      ps.setString(14, username);
+    });
+  }
+
+  // Lotes grandes: desanexar sai mais barato que refresh linha a linha; a proxima leitura busca do banco.
+  private void detachManagedPrices(List<Long> ids) {
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    EntityPersister persister = session.getFactory()
+      .getMappingMetamodel()
+      .getEntityDescriptor(CatalogItemPrice.class);
+    for (Long id : ids) {
+      Object managed = session.getPersistenceContextInternal()
+        .getEntity(session.generateEntityKey(id, persister));
+      if (managed != null) {
+        entityManager.detach(managed);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.repository.CatalogMovementPartitionRepository;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class CatalogMovementPartitionRepositoryImpl implements CatalogMovementPartitionRepository {
+
+  private static final String MOVEMENT_TABLE = "catalog_movement";
+  private static final String LINE_TABLE = "catalog_movement_line";
+  private static final String IDEMPOTENCY_TABLE = "catalog_movement_idempotency";
+  private static final String PARKED_SUFFIX = "_parked";
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+  private static final Pattern MOVEMENT_PARTITION = Pattern.compile("catalog_movement_(\\d{6})");
+
+  private static final String PARTITIONS_SQL = """
+    select c.relname
+      from pg_inherits i
+      join pg_class c on c.oid = i.inhrelid
+      join pg_class p on p.oid = i.inhparent
+     where p.relname = ?
+       and pg_table_is_visible(p.oid)
+     order by c.relname
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabaseDialect databaseDialect;
+
+  private volatile Boolean partitioned;
+
+  public CatalogMovementPartitionRepositoryImpl(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databaseDialect = databaseDialect;
+  }
+
+  @Override
+  public boolean isPartitioned() {
+    Boolean cached = partitioned;
+    if (cached != null) {
+      return cached;
+    }
+    synchronized (this) {
+      if (partitioned == null) {
+        partitioned = databaseDialect.isPostgres()
+          && !jdbcTemplate.queryForList(
+              "select 1 from pg_class where relname = ? and relkind = 'p' and pg_table_is_visible(oid)",
+              Integer.class,
+              MOVEMENT_TABLE).isEmpty();
+      }
+      return partitioned;
+    }
+  }
+
+  @Override
+  public List<YearMonth> findMonthlyPartitions() {
+    return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, MOVEMENT_TABLE).stream()
+      .map(name -> {
+        Matcher matcher = MOVEMENT_PARTITION.matcher(name);
+        return matcher.matches() ? YearMonth.parse(matcher.group(1), SUFFIX) : null;
+      })
+      .filter(Objects::nonNull)
+      .toList();
+  }
+
+  @Override
+  public boolean createMonthlyPartitions(YearMonth month) {
+    if (findMonthlyPartitions().contains(month)) {
+      return false;
+    }
+    // Sem particao do mes, as linhas daquele mes caem na DEFAULT e o create falharia na verificacao
+    // dela: saem antes (com a reserva de idempotencia, que a FK apagaria em cascata) e voltam depois.
+    boolean parked = parkDefaultRows(month);
+    // O movimento vem antes: a FK da linha referencia a tabela de movimentos.
+    createPartition(MOVEMENT_TABLE, month);
+    createPartition(LINE_TABLE, month);
+    if (parked) {
+      restoreParkedRows();
+    }
+    return true;
+  }
+
+  @Override
+  public void detachMonthlyPartitions(YearMonth month) {
+    // A linha sai primeiro e a reserva de idempotencia e liberada para o detach do movimento passar na FK.
+    jdbcTemplate.execute("alter table " + LINE_TABLE + " detach partition " + partitionName(LINE_TABLE, month));
+    jdbcTemplate.update(
+      "delete from catalog_movement_idempotency where data_hora_movimentacao >= ? and data_hora_movimentacao < ?",
+      start(month),
+      start(month.plusMonths(1)));
+    jdbcTemplate.execute("alter table " + MOVEMENT_TABLE + " detach partition " + partitionName(MOVEMENT_TABLE, month));
+  }
+
+  private boolean parkDefaultRows(YearMonth month) {
+    Boolean exists = jdbcTemplate.queryForObject(
+      "select exists (select 1 from " + MOVEMENT_TABLE
+        + " where data_hora_movimentacao >= ? and data_hora_movimentacao < ?)",
+      Boolean.class,
+      start(month),
+      start(month.plusMonths(1)));
+    if (!Boolean.TRUE.equals(exists)) {
+      return false;
+    }
+    for (String table : List.of(MOVEMENT_TABLE, LINE_TABLE, IDEMPOTENCY_TABLE)) {
+      jdbcTemplate.execute("create temp table " + table + PARKED_SUFFIX + " (like " + table + ") on commit drop");
+      jdbcTemplate.update(
+        "insert into " + table + PARKED_SUFFIX + " select * from " + table
+          + " where data_hora_movimentacao >= ? and data_hora_movimentacao < ?",
+        start(month),
+        start(month.plusMonths(1)));
+    }
+    for (String table : List.of(LINE_TABLE, MOVEMENT_TABLE)) {
+      jdbcTemplate.update(
+        "delete from " + table + " where data_hora_movimentacao >= ? and data_hora_movimentacao < ?",
+        start(month),
+        start(month.plusMonths(1)));
+    }
+    return true;
+  }
+
+  private void restoreParkedRows() {
+    for (String table : List.of(MOVEMENT_TABLE, LINE_TABLE, IDEMPOTENCY_TABLE)) {
+      jdbcTemplate.update("insert into " + table + " select * from " + table + PARKED_SUFFIX);
+    }
+  }
+
+  private void createPartition(String table, YearMonth month) {
+    jdbcTemplate.execute("create table if not exists " + partitionName(table, month)
+      + " partition of " + table
+      + " for values from ('" + start(month) + "') to ('" + start(month.plusMonths(1)) + "')");
+  }
+
+  private String partitionName(String table, YearMonth month) {
+    return table + "_" + month.format(SUFFIX);
+  }
+
+  private LocalDateTime start(YearMonth month) {
+    return month.atDay(1).atStartOfDay();
+  }
+}
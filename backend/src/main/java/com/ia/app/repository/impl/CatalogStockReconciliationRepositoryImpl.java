@@ -0,0 +1,155 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.repository.CatalogStockReconciliationRepository;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceScope;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class CatalogStockReconciliationRepositoryImpl implements CatalogStockReconciliationRepository {
+
+  private static final String LEDGER_BALANCE_SQL = """
+    select tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id,
+           max(balance_id) as balance_id,
+           sum(ledger_quantidade) as ledger_quantidade,
+           sum(balance_quantidade) as balance_quantidade,
+           sum(ledger_preco) as ledger_preco,
+           sum(balance_preco) as balance_preco
+      from (
+        select l.tenant_id, m.catalog_type, m.catalogo_id, l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id,
+               cast(null as bigint) as balance_id,
+               case when l.metric_type = 'QUANTIDADE' then l.delta else cast(0 as numeric(19,6)) end as ledger_quantidade,
+               cast(0 as numeric(19,6)) as balance_quantidade,
+               case when l.metric_type = 'PRECO' then l.delta else cast(0 as numeric(19,6)) end as ledger_preco,
+               cast(0 as numeric(19,6)) as balance_preco
+          from catalog_movement_line l
+          join catalog_movement m
+            on m.id = l.movement_id
+           and m.data_hora_movimentacao = l.data_hora_movimentacao
+         where m.tenant_id = ?
+           and m.catalog_configuration_id = ?
+           and l.escrow_pending = false
+           %1$s
+        union all
+        select b.tenant_id, b.catalog_type, b.catalogo_id, b.agrupador_empresa_id, b.estoque_tipo_id, b.filial_id,
+               b.id,
+               cast(0 as numeric(19,6)),
+               b.quantidade_atual,
+               cast(0 as numeric(19,6)),
+               b.preco_atual
+          from catalog_stock_balance b
+         where b.tenant_id = ?
+           and b.catalog_configuration_id = ?
+           %2$s
+      ) x
+     group by tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id
+    """;
+
+  // Linhas em escrow ainda nao foram dobradas no saldo e ficam fora da comparacao.
+  private static final String MISMATCH_SQL = LEDGER_BALANCE_SQL.formatted("", "") + """
+    having sum(ledger_quantidade) <> sum(balance_quantidade)
+        or sum(ledger_preco) <> sum(balance_preco)
+    """;
+
+  private static final String KEY_LEDGER_BALANCE_SQL = LEDGER_BALANCE_SQL.formatted(
+    """
+    and m.catalog_type = ?
+           and m.catalogo_id = ?
+           and l.agrupador_empresa_id = ?
+           and l.estoque_tipo_id = ?
+           and l.filial_id = ?
+    """,
+    """
+    and b.catalog_type = ?
+           and b.catalogo_id = ?
+           and b.agrupador_empresa_id = ?
+           and b.estoque_tipo_id = ?
+           and b.filial_id = ?
+    """);
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public CatalogStockReconciliationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<ReconciliationUnit> findUnits() {
+    return jdbcTemplate.query(
+      "select tenant_id, id from catalog_configuration order by tenant_id, id",
+      (rs, rowNum) -> new ReconciliationUnit(rs.getLong("tenant_id"), rs.getLong("id")));
+  }
+
+  @Override
+  public void streamMismatches(ReconciliationUnit unit, int fetchSize, Consumer<LedgerBalanceRow> consumer) {
+    // Cursor no servidor: o Postgres so respeita o fetch size dentro de uma transacao.
+    jdbcTemplate.query(
+      connection -> {
+        PreparedStatement ps = connection.prepareStatement(
+          MISMATCH_SQL,
+          ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Math.max(fetchSize, 1));
+        ps.setLong(1, unit.tenantId());
+        ps.setLong(2, unit.catalogConfigurationId());
+        ps.setLong(3, unit.tenantId());
+        ps.setLong(4, unit.catalogConfigurationId());
+        return ps;
+      },
+      (RowCallbackHandler) rs -> consumer.accept(toRow(rs, unit.catalogConfigurationId())));
+  }
+
+  @Override
+  public LedgerBalanceRow loadLedgerBalance(BalanceScope scope, Long catalogConfigurationId) {
+    List<Object> params = new ArrayList<>(14);
+    for (int side = 0; side < 2; side++) {
+      params.add(scope.tenantId());
+      params.add(catalogConfigurationId);
+      params.add(scope.catalogType().name());
+      params.add(scope.catalogoId());
+      params.add(scope.agrupadorEmpresaId());
+      params.add(scope.estoqueTipoId());
+      params.add(scope.filialId());
+    }
+    List<LedgerBalanceRow> rows = jdbcTemplate.query(
+      KEY_LEDGER_BALANCE_SQL,
+      (rs, rowNum) -> toRow(rs, catalogConfigurationId),
+      params.toArray());
+    if (rows.isEmpty()) {
+      return new LedgerBalanceRow(scope, catalogConfigurationId, null, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+    return rows.get(0);
+  }
+
+  private LedgerBalanceRow toRow(ResultSet rs, Long catalogConfigurationId) throws SQLException {
+    long rawBalanceId = rs.getLong("balance_id");
+    Long balanceId = rs.wasNull() ? null : rawBalanceId;
+    return new LedgerBalanceRow(
+      new BalanceScope(
+        rs.getLong("tenant_id"),
+        CatalogConfigurationType.valueOf(rs.getString("catalog_type")),
+        rs.getLong("catalogo_id"),
+        rs.getLong("agrupador_empresa_id"),
+        rs.getLong("estoque_tipo_id"),
+        rs.getLong("filial_id")),
+      catalogConfigurationId,
+      balanceId,
+      amount(rs.getBigDecimal("ledger_quantidade")),
+      amount(rs.getBigDecimal("balance_quantidade")),
+      amount(rs.getBigDecimal("ledger_preco")),
+      amount(rs.getBigDecimal("balance_preco")));
+  }
+
+  private BigDecimal amount(BigDecimal value) {
+    return value == null ? BigDecimal.ZERO : value;
+  }
+}
@@ -0,0 +1,758 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovement;
+import com.ia.app.domain.CatalogMovementLine;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogStockBalance;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class CatalogStockWriteRepositoryImpl implements CatalogStockWriteRepository {
+
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(6, RoundingMode.HALF_UP);
+
+  private static final Comparator<BalanceScope> SCOPE_ORDER = Comparator
+    .comparing(BalanceScope::tenantId)
+    .thenComparing(scope -> scope.catalogType().name())
+    .thenComparing(BalanceScope::catalogoId)
+    .thenComparing(BalanceScope::agrupadorEmpresaId)
+    .thenComparing(BalanceScope::estoqueTipoId)
+    .thenComparing(BalanceScope::filialId);
+
+  private static final String BALANCE_COLUMNS = """
+    id, tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id,
+    quantidade_atual, preco_atual
+    """;
+
+  private static final String MOVEMENT_COLUMNS = """
+    tenant_id, catalogo_id, catalog_type, catalog_configuration_id, agrupador_empresa_id,
+    origem_movimentacao_tipo, origem_movimentacao_codigo, origem_movimentacao_id, movimento_tipo,
+    origem_movimento_item_codigo, workflow_origin, workflow_entity_id, workflow_transition_key,
+    data_hora_movimentacao, observacao, idempotency_key, tenant_unit_id,
+    unidade_base_catalogo_tenant_unit_id, quantidade_informada, quantidade_convertida_base,
+    fator_aplicado, fator_fonte, created_at, created_by, updated_at, updated_by
+    """;
+
+  private static final String INSERT_MOVEMENT_SQL = "insert into catalog_movement (" + MOVEMENT_COLUMNS + """
+    ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+  private static final String INSERT_MOVEMENT_WITH_ID_SQL = "insert into catalog_movement (id, " + MOVEMENT_COLUMNS + """
+    ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+  // catalog_movement e particionada por data: a unicidade da chave fica em catalog_movement_idempotency.
+  private static final String INSERT_MOVEMENT_IF_ABSENT_SQL = """
+    with claimed as (
+      insert into catalog_movement_idempotency (tenant_id, idempotency_key, movement_id, data_hora_movimentacao)
+      values (?, ?, nextval('catalog_movement_id_seq'), ?)
+      on conflict do nothing
+      returning movement_id
+    )
+    insert into catalog_movement (id, """ + MOVEMENT_COLUMNS + """
+    )
+    select claimed.movement_id,
+           cast(? as bigint), cast(? as bigint), cast(? as varchar), cast(? as bigint), cast(? as bigint),
+           cast(? as varchar), cast(? as varchar), cast(? as bigint), cast(? as varchar),
+           cast(? as varchar), cast(? as varchar), cast(? as bigint), cast(? as varchar),
+           cast(? as timestamptz), cast(? as varchar), cast(? as varchar), cast(? as uuid),
+           cast(? as uuid), cast(? as numeric), cast(? as numeric),
+           cast(? as numeric), cast(? as varchar), cast(? as timestamptz), cast(? as varchar),
+           cast(? as timestamptz), cast(? as varchar)
+      from claimed
+    returning id
+    """;
+
+  private static final String INSERT_IDEMPOTENCY_SQL = """
+    insert into catalog_movement_idempotency (tenant_id, idempotency_key, movement_id, data_hora_movimentacao)
+    values (?, ?, ?, ?)
+    """;
+
+  private static final String INSERT_LINE_SQL = """
+    insert into catalog_movement_line (
+      movement_id, tenant_id, agrupador_empresa_id, metric_type, estoque_tipo_id, filial_id,
+      before_value, delta, after_value, escrow_pending, data_hora_movimentacao
+    ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+  private static final String PENDING_ESCROW_SQL = """
+    select l.id, l.tenant_id, m.catalog_type, m.catalogo_id, m.catalog_configuration_id,
+           l.agrupador_empresa_id, l.estoque_tipo_id, l.filial_id, l.metric_type, l.delta
+      from catalog_movement_line l
+      join catalog_movement m
+        on m.id = l.movement_id
+       and m.data_hora_movimentacao = l.data_hora_movimentacao
+     where l.escrow_pending = true
+     order by l.id
+     limit ?
+    """;
+
+  private static final String SETTLE_ESCROW_SQL = """
+    update catalog_movement_line
+       set before_value = ?,
+           after_value = ?,
+           escrow_pending = false
+     where id = ?
+       and escrow_pending = true
+    """;
+
+  private static final String UPDATE_BALANCE_SQL = """
+    update catalog_stock_balance
+       set quantidade_atual = ?,
+           preco_atual = ?,
+           version = version + 1,
+           updated_at = ?,
+           updated_by = ?
+     where id = ?
+    """;
+
+  private static final String SCOPE_PREDICATE = """
+    tenant_id = ?
+      and catalog_type = ?
+      and catalogo_id = ?
+      and agrupador_empresa_id = ?
+      and estoque_tipo_id = ?
+      and filial_id = ?
+    """;
+
+  private static final String APPLY_DELTA_SQL = """
+    update catalog_stock_balance
+       set quantidade_atual = quantidade_atual + ?,
+           preco_atual = preco_atual + ?,
+           version = version + 1,
+           updated_at = ?,
+           updated_by = ?
+     where
+    """ + SCOPE_PREDICATE;
+
+  private static final String UPSERT_DELTA_SQL = """
+    insert into catalog_stock_balance (
+      tenant_id, catalog_type, catalogo_id, catalog_configuration_id, agrupador_empresa_id,
+      estoque_tipo_id, filial_id, quantidade_atual, preco_atual, version,
+      created_at, created_by, updated_at, updated_by
+    ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)
+    on conflict (tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id)
+    do update set
+      quantidade_atual = catalog_stock_balance.quantidade_atual + excluded.quantidade_atual,
+      preco_atual = catalog_stock_balance.preco_atual + excluded.preco_atual,
+      version = catalog_stock_balance.version + 1,
+      updated_at = excluded.updated_at,
+      updated_by = excluded.updated_by
+    returning id, quantidade_atual, preco_atual
+    """;
+
+  private static final Comparator<ConsolidatedScope> CONSOLIDATED_ORDER = Comparator
+    .comparing(ConsolidatedScope::tenantId)
+    .thenComparing(scope -> scope.catalogType().name())
+    .thenComparing(ConsolidatedScope::catalogoId)
+    .thenComparing(ConsolidatedScope::agrupadorEmpresaId)
+    .thenComparing(ConsolidatedScope::estoqueTipoId);
+
+  private static final String CONSOLIDATED_SCOPE_PREDICATE = """
+    tenant_id = ?
+      and catalog_type = ?
+      and catalogo_id = ?
+      and agrupador_empresa_id = ?
+      and estoque_tipo_id = ?
+    """;
+
+  private static final String APPLY_CONSOLIDATED_DELTA_SQL = """
+    update catalog_stock_consolidated_balance
+       set quantidade_total = quantidade_total + ?,
+           preco_total = preco_total + ?,
+           updated_at = ?
+     where
+    """ + CONSOLIDATED_SCOPE_PREDICATE;
+
+  private static final String INSERT_CONSOLIDATED_SQL = """
+    insert into catalog_stock_consolidated_balance (
+      tenant_id, catalog_type, catalogo_id, catalog_configuration_id, agrupador_empresa_id,
+      estoque_tipo_id, quantidade_total, preco_total, updated_at
+    ) values
+    """;
+
+  private static final String REBUILD_CONSOLIDATED_SQL = """
+    insert into catalog_stock_consolidated_balance (
+      tenant_id, catalog_type, catalogo_id, catalog_configuration_id, agrupador_empresa_id,
+      estoque_tipo_id, quantidade_total, preco_total, updated_at
+    )
+    select tenant_id, catalog_type, catalogo_id, min(catalog_configuration_id), agrupador_empresa_id,
+           estoque_tipo_id, sum(quantidade_atual), sum(preco_atual), ?
+      from catalog_stock_balance
+     where tenant_id = ?
+       and catalog_type = ?
+     group by tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id
+    """;
+
+  // created_at e o now() da transacao que gravou a linha: enquanto ela estiver aberta, o corte nao passa
+  // do inicio dela, e toda linha abaixo do corte ja esta confirmada quando o fechamento soma.
+  private static final String LINE_CUTOFF_SQL = """
+    select least(
+             clock_timestamp() - make_interval(secs => ?),
+             coalesce(min(a.xact_start), clock_timestamp()))
+      from pg_stat_activity a
+     where a.datname = current_database()
+       and a.backend_type = 'client backend'
+       and a.pid <> pg_backend_pid()
+       and a.xact_start is not null
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditorAware<String> auditorAware;
+  private final DatabaseDialect databaseDialect;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public CatalogStockWriteRepositoryImpl(
+      JdbcTemplate jdbcTemplate,
+      AuditorAware<String> auditorAware,
+      DatabaseDialect databaseDialect) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.auditorAware = auditorAware;
+    this.databaseDialect = databaseDialect;
+  }
+
+  @Override
+  public List<BalanceRow> lockBalances(Collection<BalanceScope> scopes) {
+    if (scopes == null || scopes.isEmpty()) {
+      return List.of();
+    }
+    List<BalanceScope> ordered = scopes.stream().distinct().sorted(SCOPE_ORDER).toList();
+    List<BalanceRow> rows = new ArrayList<>(ordered.size());
+    for (List<BalanceScope> chunk : chunks(ordered)) {
+      StringBuilder sql = new StringBuilder("select ")
+        .append(BALANCE_COLUMNS)
+        .append(" from catalog_stock_balance where (tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id) in (");
+      List<Object> params = new ArrayList<>(chunk.size() * 6);
+      for (int i = 0; i < chunk.size(); i++) {
+        BalanceScope scope = chunk.get(i);
+        sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?)");
+        params.add(scope.tenantId());
+        params.add(scope.catalogType().name());
+        params.add(scope.catalogoId());
+        params.add(scope.agrupadorEmpresaId());
+        params.add(scope.estoqueTipoId());
+        params.add(scope.filialId());
+      }
+      sql.append(")")
+        .append(" order by tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id")
+        .append(" for update");
+      rows.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new BalanceRow(
+        rs.getLong("id"),
+        new BalanceScope(
+          rs.getLong("tenant_id"),
+          CatalogConfigurationType.valueOf(rs.getString("catalog_type")),
+          rs.getLong("catalogo_id"),
+          rs.getLong("agrupador_empresa_id"),
+          rs.getLong("estoque_tipo_id"),
+          rs.getLong("filial_id")),
+        rs.getBigDecimal("quantidade_atual"),
+        rs.getBigDecimal("preco_atual")), params.toArray()));
+    }
+    return rows;
+  }
+
+  @Override
+  public List<BalanceRow> lockOrCreateBalances(Collection<NewBalance> balances) {
+    if (balances == null || balances.isEmpty()) {
+      return List.of();
+    }
+    List<BalanceRow> rows = new ArrayList<>(lockBalances(balances.stream().map(NewBalance::scope).toList()));
+    Set<BalanceScope> found = new HashSet<>();
+    rows.forEach(row -> found.add(row.scope()));
+    List<NewBalance> missing = balances.stream()
+      .filter(balance -> found.add(balance.scope()))
+      .toList();
+    if (!missing.isEmpty()) {
+      insertBalancesIfAbsent(missing);
+      rows.addAll(lockBalances(missing.stream().map(NewBalance::scope).toList()));
+    }
+    return rows;
+  }
+
+  @Override
+  public void insertBalancesIfAbsent(List<NewBalance> balances) {
+    if (balances == null || balances.isEmpty()) {
+      return;
+    }
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    List<NewBalance> ordered = balances.stream()
+      .sorted((left, right) -> SCOPE_ORDER.compare(left.scope(), right.scope()))
+      .toList();
+    for (List<NewBalance> chunk : chunks(ordered)) {
+      StringBuilder sql = new StringBuilder("""
+        insert into catalog_stock_balance (
+          tenant_id, catalog_type, catalogo_id, catalog_configuration_id, agrupador_empresa_id,
+          estoque_tipo_id, filial_id, quantidade_atual, preco_atual, version,
+          created_at, created_by, updated_at, updated_by
+        ) values
+        """);
+      List<Object> params = new ArrayList<>(chunk.size() * 14);
+      for (int i = 0; i < chunk.size(); i++) {
+        NewBalance balance = chunk.get(i);
+        BalanceScope scope = balance.scope();
+        sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        params.add(scope.tenantId());
+        params.add(scope.catalogType().name());
+        params.add(scope.catalogoId());
+        params.add(balance.catalogConfigurationId());
+        params.add(scope.agrupadorEmpresaId());
+        params.add(scope.estoqueTipoId());
+        params.add(scope.filialId());
+        params.add(ZERO);
+        params.add(ZERO);
+        params.add(0L);
+        params.add(now);
+        params.add(username);
+        params.add(now);
+        params.add(username);
+      }
+      if (databaseDialect.isPostgres()) {
+        sql.append(" on conflict do nothing");
+      }
+      jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+  }
+
+  @Override
+  public void updateBalances(List<BalanceRow> balances) {
+    if (balances == null || balances.isEmpty()) {
+      return;
+    }
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, balances, MAX_ROWS_PER_STATEMENT, (ps, balance) -> {
+      ps.setBigDecimal(1, balance.quantidadeAtual());
+      ps.setBigDecimal(2, balance.precoAtual());
+      ps.setObject(3, now);
+      ps.setString(4, username);
+      ps.setLong(5, balance.id());
+    });
+    refreshManagedBalances(balances);
+  }
+
+  @Override
+  public BalanceRow applyDelta(NewBalance balance, BigDecimal quantidadeDelta, BigDecimal precoDelta) {
+    BalanceScope scope = balance.scope();
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    BalanceRow row;
+    if (databaseDialect.isPostgres()) {
+      row = jdbcTemplate.query(
+          APPLY_DELTA_SQL + " returning id, quantidade_atual, preco_atual",
+          (rs, rowNum) -> toBalanceRow(rs, scope),
+          quantidadeDelta, precoDelta, now, username,
+          scope.tenantId(), scope.catalogType().name(), scope.catalogoId(),
+          scope.agrupadorEmpresaId(), scope.estoqueTipoId(), scope.filialId())
+        .stream()
+        .findFirst()
+        .orElseGet(() -> jdbcTemplate.queryForObject(
+          UPSERT_DELTA_SQL,
+          (rs, rowNum) -> toBalanceRow(rs, scope),
+          scope.tenantId(), scope.catalogType().name(), scope.catalogoId(), balance.catalogConfigurationId(),
+          scope.agrupadorEmpresaId(), scope.estoqueTipoId(), scope.filialId(),
+          quantidadeDelta, precoDelta, now, username, now, username));
+    } else {
+      row = applyDeltaPortable(balance, quantidadeDelta, precoDelta, now, username);
+    }
+    refreshManagedBalances(List.of(row));
+    return row;
+  }
+
+  private BalanceRow applyDeltaPortable(
+      NewBalance balance,
+      BigDecimal quantidadeDelta,
+      BigDecimal precoDelta,
+      OffsetDateTime now,
+      String username) {
+    BalanceScope scope = balance.scope();
+    Object[] params = {
+      quantidadeDelta, precoDelta, now, username,
+      scope.tenantId(), scope.catalogType().name(), scope.catalogoId(),
+      scope.agrupadorEmpresaId(), scope.estoqueTipoId(), scope.filialId()
+    };
+    if (jdbcTemplate.update(APPLY_DELTA_SQL, params) == 0) {
+      insertBalancesIfAbsent(List.of(balance));
+      jdbcTemplate.update(APPLY_DELTA_SQL, params);
+    }
+    return jdbcTemplate.queryForObject(
+      "select id, quantidade_atual, preco_atual from catalog_stock_balance where " + SCOPE_PREDICATE,
+      (rs, rowNum) -> toBalanceRow(rs, scope),
+      Arrays.copyOfRange(params, 4, params.length));
+  }
+
+  private BalanceRow toBalanceRow(ResultSet rs, BalanceScope scope) throws SQLException {
+    return new BalanceRow(rs.getLong("id"), scope, rs.getBigDecimal("quantidade_atual"), rs.getBigDecimal("preco_atual"));
+  }
+
+  @Override
+  public List<Long> insertMovements(List<CatalogMovement> movements) {
+    if (movements == null || movements.isEmpty()) {
+      return List.of();
+    }
+    if (databaseDialect.isPostgres()) {
+      return insertPartitionedMovements(movements);
+    }
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    List<Long> ids = new ArrayList<>(movements.size());
+    for (List<CatalogMovement> chunk : chunks(movements)) {
+      GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+      jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(INSERT_MOVEMENT_SQL, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            bindMovement(ps, 1, chunk.get(i), now, username);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return chunk.size();
+          }
+        },
+        keyHolder);
+      for (Map<String, Object> key : keyHolder.getKeyList()) {
+        Object id = key.size() == 1 ? key.values().iterator().next() : key.get("id");
+        ids.add(((Number) id).longValue());
+      }
+    }
+    if (ids.size() != movements.size()) {
+      throw new IllegalStateException("catalog_movement_batch_keys_mismatch");
+    }
+    return ids;
+  }
+
+  private List<Long> insertPartitionedMovements(List<CatalogMovement> movements) {
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    List<Long> ids = jdbcTemplate.queryForList(
+      "select nextval('catalog_movement_id_seq') from generate_series(1, ?)",
+      Long.class,
+      movements.size());
+    if (ids.size() != movements.size()) {
+      throw new IllegalStateException("catalog_movement_batch_keys_mismatch");
+    }
+    // Chave repetida falha aqui com DuplicateKeyException, como o antigo indice unico.
+    jdbcTemplate.batchUpdate(INSERT_IDEMPOTENCY_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        CatalogMovement movement = movements.get(i);
+        ps.setLong(1, movement.getTenantId());
+        ps.setString(2, movement.getIdempotencyKey());
+        ps.setLong(3, ids.get(i));
+        ps.setObject(4, toOffsetDateTime(movement.getDataHoraMovimentacao()));
+      }
+
+      @Override
+      public int getBatchSize() {
+        return movements.size();
+      }
+    });
+    jdbcTemplate.batchUpdate(INSERT_MOVEMENT_WITH_ID_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        ps.setLong(1, ids.get(i));
+        bindMovement(ps, 2, movements.get(i), now, username);
+      }
+
+      @Override
+      public int getBatchSize() {
+        return movements.size();
+      }
+    });
+    return ids;
+  }
+
+  @Override
+  public Optional<Long> insertMovementIfAbsent(CatalogMovement movement) {
+    OffsetDateTime now = now();
+    String username = currentUsername();
+    if (databaseDialect.isPostgres()) {
+      return jdbcTemplate.query(
+          INSERT_MOVEMENT_IF_ABSENT_SQL,
+          ps -> {
+            ps.setLong(1, movement.getTenantId());
+            ps.setString(2, movement.getIdempotencyKey());
+            ps.setObject(3, toOffsetDateTime(movement.getDataHoraMovimentacao()));
+            bindMovement(ps, 4, movement, now, username);
+          },
+          (rs, rowNum) -> rs.getLong("id"))
+        .stream()
+        .findFirst();
+    }
+    boolean exists = !jdbcTemplate.queryForList(
+        "select id from catalog_movement where tenant_id = ? and idempotency_key = ?",
+        Long.class,
+        movement.getTenantId(),
+        movement.getIdempotencyKey())
+      .isEmpty();
+    if (exists) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(insertMovements(List.of(movement)).get(0));
+    } catch (DuplicateKeyException ex) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void insertLines(List<CatalogMovementLine> lines) {
+    if (lines == null || lines.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(INSERT_LINE_SQL, lines, MAX_ROWS_PER_STATEMENT, (ps, line) -> {
+      ps.setLong(1, line.getMovementId());
+      ps.setLong(2, line.getTenantId());
+      ps.setLong(3, line.getAgrupadorEmpresaId());
+      ps.setString(4, line.getMetricType().name());
+      ps.setLong(5, line.getEstoqueTipoId());
+      ps.setLong(6, line.getFilialId());
+      ps.setBigDecimal(7, line.getBeforeValue());
+      ps.setBigDecimal(8, line.getDelta());
+      ps.setBigDecimal(9, line.getAfterValue());
+      ps.setBoolean(10, line.isEscrowPending());
+      ps.setObject(11, toOffsetDateTime(line.getDataHoraMovimentacao()));
+    });
+  }
+
+  @Override
+  public List<PendingEscrowLine> lockPendingEscrowLines(int limit) {
+    // Sem skip locked: com um unico compactador por vez (advisory lock), as linhas de cada chave
+    // sao aplicadas em ordem de id e o before/after do razao forma uma sequencia.
+    String sql = databaseDialect.isPostgres() ? PENDING_ESCROW_SQL + " for update of l" : PENDING_ESCROW_SQL;
+    return jdbcTemplate.query(sql, (rs, rowNum) -> new PendingEscrowLine(
+      rs.getLong("id"),
+      new BalanceScope(
+        rs.getLong("tenant_id"),
+        CatalogConfigurationType.valueOf(rs.getString("catalog_type")),
+        rs.getLong("catalogo_id"),
+        rs.getLong("agrupador_empresa_id"),
+        rs.getLong("estoque_tipo_id"),
+        rs.getLong("filial_id")),
+      rs.getLong("catalog_configuration_id"),
+      CatalogMovementMetricType.valueOf(rs.getString("metric_type")),
+      rs.getBigDecimal("delta")), Math.max(limit, 1));
+  }
+
+  @Override
+  public void settleEscrowLines(List<SettledEscrowLine> lines) {
+    if (lines == null || lines.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(SETTLE_ESCROW_SQL, lines, MAX_ROWS_PER_STATEMENT, (ps, line) -> {
+      ps.setBigDecimal(1, line.beforeValue());
+      ps.setBigDecimal(2, line.afterValue());
+      ps.setLong(3, line.id());
+    });
+  }
+
+  @Override
+  public void applyConsolidatedDeltas(Collection<ConsolidatedDelta> deltas) {
+    if (deltas == null || deltas.isEmpty()) {
+      return;
+    }
+    // Um registro por chave: o upsert em lote nao aceita a mesma chave duas vezes no mesmo comando.
+    Map<ConsolidatedScope, ConsolidatedDelta> merged = new HashMap<>();
+    for (ConsolidatedDelta delta : deltas) {
+      merged.merge(delta.scope(), delta, (left, right) -> new ConsolidatedDelta(
+        left.scope(),
+        left.catalogConfigurationId(),
+        left.quantidadeDelta().add(right.quantidadeDelta()),
+        left.precoDelta().add(right.precoDelta())));
+    }
+    List<ConsolidatedDelta> ordered = merged.values().stream()
+      .filter(delta -> delta.quantidadeDelta().signum() != 0 || delta.precoDelta().signum() != 0)
+      .sorted((left, right) -> CONSOLIDATED_ORDER.compare(left.scope(), right.scope()))
+      .toList();
+    if (ordered.isEmpty()) {
+      return;
+    }
+    OffsetDateTime now = now();
+    if (!databaseDialect.isPostgres()) {
+      ordered.forEach(delta -> applyConsolidatedDeltaPortable(delta, now));
+      return;
+    }
+    for (List<ConsolidatedDelta> chunk : chunks(ordered)) {
+      StringBuilder sql = new StringBuilder(INSERT_CONSOLIDATED_SQL);
+      List<Object> params = new ArrayList<>(chunk.size() * 9);
+      for (int i = 0; i < chunk.size(); i++) {
+        sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        addConsolidatedParams(params, chunk.get(i), now);
+      }
+      sql.append("""
+        on conflict (tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id)
+        do update set
+          quantidade_total = catalog_stock_consolidated_balance.quantidade_total + excluded.quantidade_total,
+          preco_total = catalog_stock_consolidated_balance.preco_total + excluded.preco_total,
+          updated_at = excluded.updated_at
+        """);
+      jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+  }
+
+  private void applyConsolidatedDeltaPortable(ConsolidatedDelta delta, OffsetDateTime now) {
+    ConsolidatedScope scope = delta.scope();
+    int updated = jdbcTemplate.update(
+      APPLY_CONSOLIDATED_DELTA_SQL,
+      delta.quantidadeDelta(), delta.precoDelta(), now,
+      scope.tenantId(), scope.catalogType().name(), scope.catalogoId(),
+      scope.agrupadorEmpresaId(), scope.estoqueTipoId());
+    if (updated == 0) {
+      List<Object> params = new ArrayList<>(9);
+      addConsolidatedParams(params, delta, now);
+      jdbcTemplate.update(INSERT_CONSOLIDATED_SQL + " (?, ?, ?, ?, ?, ?, ?, ?, ?)", params.toArray());
+    }
+  }
+
+  private void addConsolidatedParams(List<Object> params, ConsolidatedDelta delta, OffsetDateTime now) {
+    ConsolidatedScope scope = delta.scope();
+    params.add(scope.tenantId());
+    params.add(scope.catalogType().name());
+    params.add(scope.catalogoId());
+    params.add(delta.catalogConfigurationId());
+    params.add(scope.agrupadorEmpresaId());
+    params.add(scope.estoqueTipoId());
+    params.add(delta.quantidadeDelta().setScale(6, RoundingMode.HALF_UP));
+    params.add(delta.precoDelta().setScale(6, RoundingMode.HALF_UP));
+    params.add(now);
+  }
+
+  @Override
+  public int rebuildConsolidatedBalances(Long tenantId, CatalogConfigurationType catalogType) {
+    if (databaseDialect.isPostgres()) {
+      // Espera as transacoes que ja tocaram o consolidado e segura as novas ate o fim da reconstrucao;
+      // quem alterou o saldo e ainda nao chegou ao consolidado aplica o delta depois, sobre a base nova.
+      jdbcTemplate.execute("lock table catalog_stock_consolidated_balance in share row exclusive mode");
+    }
+    jdbcTemplate.update(
+      "delete from catalog_stock_consolidated_balance where tenant_id = ? and catalog_type = ?",
+      tenantId,
+      catalogType.name());
+    return jdbcTemplate.update(REBUILD_CONSOLIDATED_SQL, now(), tenantId, catalogType.name());
+  }
+
+  @Override
+  public Instant lineCutoff(long commitLagSeconds) {
+    long lag = Math.max(commitLagSeconds, 0);
+    if (!databaseDialect.isPostgres()) {
+      return Instant.now().minusSeconds(lag);
+    }
+    // pg_stat_activity fica em cache ate o fim da transacao; o corte precisa das transacoes abertas agora.
+    jdbcTemplate.execute("select pg_stat_clear_snapshot()");
+    return jdbcTemplate.queryForObject(LINE_CUTOFF_SQL, OffsetDateTime.class, lag).toInstant();
+  }
+
+  private void bindMovement(
+      PreparedStatement ps,
+      int firstIndex,
+      CatalogMovement movement,
+      OffsetDateTime now,
+      String username) throws SQLException {
+    int index = firstIndex;
+    ps.setLong(index++, movement.getTenantId());
+    ps.setLong(index++, movement.getCatalogoId());
+    ps.setString(index++, movement.getCatalogType().name());
+    ps.setLong(index++, movement.getCatalogConfigurationId());
+    ps.setLong(index++, movement.getAgrupadorEmpresaId());
+    ps.setString(index++, movement.getOrigemMovimentacaoTipo().name());
+    ps.setString(index++, movement.getOrigemMovimentacaoCodigo());
+    setNullableLong(ps, index++, movement.getOrigemMovimentacaoId());
+    ps.setString(index++, movement.getMovimentoTipo());
+    ps.setString(index++, movement.getOrigemMovimentoItemCodigo());
+    ps.setString(index++, movement.getWorkflowOrigin());
+    setNullableLong(ps, index++, movement.getWorkflowEntityId());
+    ps.setString(index++, movement.getWorkflowTransitionKey());
+    ps.setObject(index++, toOffsetDateTime(movement.getDataHoraMovimentacao()));
+    ps.setString(index++, movement.getObservacao());
+    ps.setString(index++, movement.getIdempotencyKey());
+    ps.setObject(index++, movement.getTenantUnitId());
+    ps.setObject(index++, movement.getUnidadeBaseCatalogoTenantUnitId());
+    ps.setBigDecimal(index++, movement.getQuantidadeInformada());
+    ps.setBigDecimal(index++, movement.getQuantidadeConvertidaBase());
+    ps.setBigDecimal(index++, movement.getFatorAplicado());
+    ps.setString(index++, movement.getFatorFonte() == null ? null : movement.getFatorFonte().name());
+    ps.setObject(index++, now);
+    ps.setString(index++, username);
+    ps.setObject(index++, now);
+    ps.setString(index, username);
+  }
+
+  private void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+    if (value == null) {
+      ps.setNull(index, Types.BIGINT);
+    } else {
+      ps.setLong(index, value);
+    }
+  }
+
+  private void refreshManagedBalances(List<BalanceRow> balances) {
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    EntityPersister persister = session.getFactory()
+      .getMappingMetamodel()
+      .getEntityDescriptor(CatalogStockBalance.class);
+    for (BalanceRow balance : balances) {
+      Object managed = session.getPersistenceContextInternal()
+        .getEntity(session.generateEntityKey(balance.id(), persister));
+      if (managed != null) {
+        entityManager.refresh(managed);
+      }
+    }
+  }
+
+  private OffsetDateTime now() {
+    return toOffsetDateTime(Instant.now());
+  }
+
+  private OffsetDateTime toOffsetDateTime(Instant value) {
+    return value == null ? null : value.atOffset(ZoneOffset.UTC);
+  }
+
+  private String currentUsername() {
+    return auditorAware.getCurrentAuditor().orElse(null);
+  }
+
+  private static <T> List<List<T>> chunks(List<T> values) {
+    List<List<T>> chunks = new ArrayList<>();
+    for (int start = 0; start < values.size(); start += MAX_ROWS_PER_STATEMENT) {
+      chunks.add(values.subList(start, Math.min(values.size(), start + MAX_ROWS_PER_STATEMENT)));
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,67 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.repository.ExportJobFileRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ExportJobFileRepositoryImpl implements ExportJobFileRepository {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private static final String INSERT_SQL = "insert into export_job_chunk (job_id, chunk_no, data) values (?, ?, ?)";
+  private static final String COUNT_SQL = "select count(*) from export_job_chunk where job_id = ?";
+  private static final String SELECT_SQL = "select data from export_job_chunk where job_id = ? and chunk_no = ?";
+  private static final String DELETE_SQL = "delete from export_job_chunk where job_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ExportJobFileRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void save(Long jobId, Path file) throws IOException {
+    jdbcTemplate.update(DELETE_SQL, jobId);
+    try (InputStream in = Files.newInputStream(file)) {
+      int chunkNo = 0;
+      byte[] chunk = in.readNBytes(CHUNK_SIZE);
+      while (chunk.length > 0) {
+        jdbcTemplate.update(INSERT_SQL, jobId, chunkNo++, chunk);
+        chunk = in.readNBytes(CHUNK_SIZE);
+      }
+    }
+  }
+
+  @Override
+  public boolean exists(Long jobId) {
+    return chunkCount(jobId) > 0;
+  }
+
+  @Override
+  public void writeTo(Long jobId, OutputStream out) throws IOException {
+    int chunks = chunkCount(jobId);
+    for (int chunkNo = 0; chunkNo < chunks; chunkNo++) {
+      byte[] data = jdbcTemplate.queryForObject(SELECT_SQL, byte[].class, jobId, chunkNo);
+      if (data != null) {
+        out.write(data);
+      }
+    }
+    out.flush();
+  }
+
+  @Override
+  public void delete(Long jobId) {
+    jdbcTemplate.update(DELETE_SQL, jobId);
+  }
+
+  private int chunkCount(Long jobId) {
+    Integer count = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, jobId);
+    return count == null ? 0 : count;
+  }
+}
@@ -0,0 +1,200 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.repository.ExportStreamRepository;
+import com.ia.app.repository.SalePriceRepository;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ExportStreamRepositoryImpl implements ExportStreamRepository {
+
+  private static final String LEDGER_SQL = """
+    select l.data_hora_movimentacao,
+           m.id,
+           m.movimento_tipo,
+           m.origem_movimentacao_tipo,
+           m.origem_movimentacao_codigo,
+           m.origem_movimentacao_id,
+           m.created_by,
+           l.agrupador_empresa_id,
+           st.nome,
+           case
+             when e.nome_fantasia is not null and trim(e.nome_fantasia) <> '' then e.nome_fantasia
+             else e.razao_social
+           end,
+           l.metric_type,
+           l.before_value,
+           l.delta,
+           l.after_value,
+           l.escrow_pending
+      from catalog_movement m
+      join catalog_movement_line l
+        on l.movement_id = m.id
+       and l.data_hora_movimentacao = m.data_hora_movimentacao
+       and l.tenant_id = m.tenant_id
+      left join catalog_stock_type st
+        on st.id = l.estoque_tipo_id
+      left join empresa e
+        on e.id = l.filial_id
+     where m.tenant_id = :tenantId
+       and m.catalog_type = :catalogType
+       and m.catalogo_id = :catalogoId
+       and m.data_hora_movimentacao >= :fromDate
+       and m.data_hora_movimentacao <= :toDate
+       and l.data_hora_movimentacao >= :fromDate
+       and l.data_hora_movimentacao <= :toDate
+       and l.agrupador_empresa_id = :agrupadorEmpresaId
+       and (:origemTipo is null or m.origem_movimentacao_tipo = :origemTipo)
+       and (:origemCodigoLike is null or lower(m.origem_movimentacao_codigo) like :origemCodigoLike)
+       and (:origemId is null or m.origem_movimentacao_id = :origemId)
+       and (:movimentoTipo is null or upper(m.movimento_tipo) = :movimentoTipo)
+       and (:usuarioLike is null or lower(m.created_by) like :usuarioLike)
+       and (:metricType is null or l.metric_type = :metricType)
+       and (:estoqueTipoId is null or l.estoque_tipo_id = :estoqueTipoId)
+       and (:filialId is null or l.filial_id = :filialId)
+     order by l.data_hora_movimentacao desc, m.id desc, l.id
+    """;
+
+  private static final String SALE_PRICE_GRID_SQL = """
+    select grid.catalogType, grid.catalogItemId, grid.catalogItemName, grid.catalogGroupName,
+           grid.catalogBasePrice, grid.priceFinal
+      from (
+    """ + SalePriceRepository.GRID_SQL + """
+      ) grid
+     order by grid.catalogType, grid.catalogItemName, grid.catalogItemId
+    """;
+
+  private static final String ENTITY_SQL = """
+    select re.codigo,
+           p.nome,
+           p.apelido,
+           p.tipo_registro,
+           p.registro_federal,
+           p.tipo_pessoa,
+           g.nome,
+           re.codigo_barras,
+           re.tratamento,
+           re.ativo
+      from registro_entidade re
+      join pessoa p
+        on p.id = re.pessoa_id
+       and p.tenant_id = re.tenant_id
+      left join grupo_entidade g
+        on g.id = re.grupo_entidade_id
+       and g.tenant_id = re.tenant_id
+     where re.tenant_id = :tenantId
+       and re.empresa_id = :empresaId
+       and re.tipo_entidade_config_agrupador_id = :configId
+       and (
+         (:codigo is null and :pessoaNome is null and :registroFederalNorm is null)
+         or (:codigo is not null and re.codigo = :codigo)
+         or (:pessoaNome is not null and lower(p.nome) like lower(concat('%', :pessoaNome, '%')))
+         or (:registroFederalNorm is not null and p.registro_federal_normalizado = :registroFederalNorm)
+       )
+       and (:grupoId is null or re.grupo_entidade_id = :grupoId)
+       and (:ativo is null or re.ativo = :ativo)
+     order by re.codigo
+    """;
+
+  private final DataSource dataSource;
+
+  public ExportStreamRepositoryImpl(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void streamLedger(LedgerExportFilter filter, int fetchSize, Consumer<Object[]> consumer) {
+    MapSqlParameterSource params = new MapSqlParameterSource()
+      .addValue("tenantId", filter.tenantId(), Types.BIGINT)
+      .addValue("catalogType", filter.catalogType(), Types.VARCHAR)
+      .addValue("catalogoId", filter.catalogoId(), Types.BIGINT)
+      .addValue("agrupadorEmpresaId", filter.agrupadorEmpresaId(), Types.BIGINT)
+      .addValue("fromDate", Timestamp.from(filter.fromDate()), Types.TIMESTAMP)
+      .addValue("toDate", Timestamp.from(filter.toDate()), Types.TIMESTAMP)
+      .addValue("origemTipo", filter.origemTipo(), Types.VARCHAR)
+      .addValue("origemCodigoLike", likePattern(filter.origemCodigo()), Types.VARCHAR)
+      .addValue("origemId", filter.origemId(), Types.BIGINT)
+      .addValue("movimentoTipo", upper(filter.movimentoTipo()), Types.VARCHAR)
+      .addValue("usuarioLike", likePattern(filter.usuario()), Types.VARCHAR)
+      .addValue("metricType", filter.metricType(), Types.VARCHAR)
+      .addValue("estoqueTipoId", positiveOrNull(filter.estoqueTipoId()), Types.BIGINT)
+      .addValue("filialId", positiveOrNull(filter.filialId()), Types.BIGINT);
+    stream(LEDGER_SQL, params, fetchSize, consumer);
+  }
+
+  @Override
+  public void streamSalePriceGrid(SalePriceGridExportFilter filter, int fetchSize, Consumer<Object[]> consumer) {
+    MapSqlParameterSource params = new MapSqlParameterSource()
+      .addValue("tenantId", filter.tenantId(), Types.BIGINT)
+      .addValue("priceBookId", filter.priceBookId(), Types.BIGINT)
+      .addValue("variantId", filter.variantId(), Types.BIGINT)
+      .addValue("catalogType", filter.catalogType(), Types.VARCHAR)
+      .addValue("text", filter.text(), Types.VARCHAR)
+      .addValue("catalogItemId", filter.catalogItemId(), Types.BIGINT)
+      .addValue("catalogGroupId", filter.catalogGroupId(), Types.BIGINT)
+      .addValue("includeGroupChildren", filter.includeGroupChildren(), Types.BOOLEAN);
+    stream(SALE_PRICE_GRID_SQL, params, fetchSize, consumer);
+  }
+
+  @Override
+  public void streamEntities(EntityExportFilter filter, int fetchSize, Consumer<Object[]> consumer) {
+    MapSqlParameterSource params = new MapSqlParameterSource()
+      .addValue("tenantId", filter.tenantId(), Types.BIGINT)
+      .addValue("empresaId", filter.empresaId(), Types.BIGINT)
+      .addValue("configId", filter.tipoEntidadeConfigAgrupadorId(), Types.BIGINT)
+      .addValue("codigo", filter.codigo(), Types.BIGINT)
+      .addValue("pessoaNome", filter.pessoaNome(), Types.VARCHAR)
+      .addValue("registroFederalNorm", filter.registroFederalNorm(), Types.VARCHAR)
+      .addValue("grupoId", filter.grupoId(), Types.BIGINT)
+      .addValue("ativo", filter.ativo(), Types.BOOLEAN);
+    stream(ENTITY_SQL, params, fetchSize, consumer);
+  }
+
+  private void stream(String sql, MapSqlParameterSource params, int fetchSize, Consumer<Object[]> consumer) {
+    // Cursor forward-only: o Postgres so respeita o fetch size dentro de uma transacao (o chamador abre uma read-only).
+    JdbcTemplate streaming = new JdbcTemplate(dataSource);
+    streaming.setFetchSize(Math.max(fetchSize, 1));
+    new NamedParameterJdbcTemplate(streaming).query(
+      sql,
+      params,
+      (RowCallbackHandler) rs -> consumer.accept(readRow(rs)));
+  }
+
+  private Object[] readRow(ResultSet rs) throws SQLException {
+    int columns = rs.getMetaData().getColumnCount();
+    Object[] row = new Object[columns];
+    for (int i = 0; i < columns; i++) {
+      Object value = rs.getObject(i + 1);
+      if (value instanceof Timestamp timestamp) {
+        value = timestamp.toInstant();
+      } else if (value instanceof OffsetDateTime offsetDateTime) {
+        value = offsetDateTime.toInstant();
+      }
+      row[i] = value;
+    }
+    return row;
+  }
+
+  private String likePattern(String value) {
+    return value == null ? null : "%" + value.toLowerCase(Locale.ROOT) + "%";
+  }
+
+  private String upper(String value) {
+    return value == null ? null : value.toUpperCase(Locale.ROOT);
+  }
+
+  private Long positiveOrNull(Long value) {
+    return value != null && value > 0 ? value : null;
+  }
+}
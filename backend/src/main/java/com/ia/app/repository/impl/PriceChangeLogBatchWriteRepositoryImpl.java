@@ -0,0 +1,89 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.domain.PriceChangeLog;
+import com.ia.app.repository.PriceChangeLogBatchWriteRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class PriceChangeLogBatchWriteRepositoryImpl implements PriceChangeLogBatchWriteRepository {
+
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String INSERT_SQL = """
+    insert into price_change_log (
+      tenant_id, sale_price_id, action, source_type, origin_type, origin_id, old_price_final, new_price_final,
+      price_book_id, price_book_name, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_type,
+      changed_by, changed_at, created_at, created_by, updated_at, updated_by
+    ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditorAware<String> auditorAware;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public PriceChangeLogBatchWriteRepositoryImpl(JdbcTemplate jdbcTemplate, AuditorAware<String> auditorAware) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.auditorAware = auditorAware;
+  }
+
+  @Override
+  public void insertAll(List<PriceChangeLog> logs) {
+    if (logs.isEmpty()) {
+      return;
+    }
+    OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    String username = auditorAware.getCurrentAuditor().orElse(null);
+    jdbcTemplate.batchUpdate(INSERT_SQL, logs, MAX_ROWS_PER_STATEMENT, (ps, log) -> {
+      ps.setLong(1, log.getTenantId());
+      ps.setObject(2, log.getSalePriceId(), Types.BIGINT);
+      ps.setString(3, log.getAction().name());
+      ps.setString(4, log.getSourceType().name());
+      ps.setString(5, log.getOriginType().name());
+      ps.setObject(6, log.getOriginId(), Types.BIGINT);
+      ps.setBigDecimal(7, log.getOldPriceFinal());
+      ps.setBigDecimal(8, log.getNewPriceFinal());
+      ps.setObject(9, log.getPriceBookId(), Types.BIGINT);
+      ps.setString(10, log.getPriceBookName());
+      ps.setObject(11, log.getVariantId(), Types.BIGINT);
+      ps.setString(12, log.getCatalogType().name());
+      ps.setLong(13, log.getCatalogItemId());
+      ps.setObject(14, log.getTenantUnitId());
+      ps.setString(15, log.getPriceType() == null ? null : log.getPriceType().name());
+      ps.setString(16, log.getChangedBy());
+      ps.setObject(17, OffsetDateTime.ofInstant(log.getChangedAt(), ZoneOffset.UTC));
+      ps.setObject(18, now);
+      ps.setString(19, username);
+      ps.setObject(20, now);
+      ps.setString(21, username);
+    });
+  }
+
+  @Override
+  public void beforeSessionFlush(Runnable callback) {
+    // partialFlushStart vem do auto-flush que antecede cada consulta; flushStart do flush explicito e do commit.
+    entityManager.unwrap(Session.class).addEventListeners(new SessionEventListener() {
+      @Override
+      public void flushStart() {
+        callback.run();
+      }
+
+      @Override
+      public void partialFlushStart() {
+        callback.run();
+      }
+    });
+  }
+}
@@ -0,0 +1,294 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.repository.PriceImportStagingRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class PriceImportStagingRepositoryImpl implements PriceImportStagingRepository {
+
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+  private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+  private static final String COLUMNS = """
+      line_number integer not null,
+      catalog_type varchar(20),
+      catalog_item_id bigint,
+      price_final numeric(19,6),
+      catalog_configuration_by_group_id bigint,
+      reject_reason varchar(60)
+    """;
+
+  private static final String CREATE_POSTGRES_SQL =
+    "create temporary table if not exists " + TABLE + " (" + COLUMNS + ") on commit drop";
+
+  // H2 (testes): TRANSACTIONAL evita o commit implicito do DDL no meio da transacao.
+  private static final String CREATE_PORTABLE_SQL =
+    "create local temporary table if not exists " + TABLE + " (" + COLUMNS + ") on commit drop transactional";
+
+  private static final String COPY_SQL = "copy " + TABLE
+    + " (line_number, catalog_type, catalog_item_id, price_final, reject_reason) from stdin with (format csv)";
+
+  private static final String INSERT_SQL = "insert into " + TABLE
+    + " (line_number, catalog_type, catalog_item_id, price_final, reject_reason) values (?, ?, ?, ?, ?)";
+
+  private static final String REJECT_DUPLICATES_SQL = """
+    update price_import_staging s
+       set reject_reason = 'price_import_duplicated_row'
+     where s.reject_reason is null
+       and exists (
+         select 1
+           from price_import_staging d
+          where d.catalog_type = s.catalog_type
+            and d.catalog_item_id = s.catalog_item_id
+            and d.line_number > s.line_number)
+    """;
+
+  private static final String REJECT_UNKNOWN_ITEMS_SQL = """
+    update price_import_staging s
+       set reject_reason = 'catalog_item_not_found'
+     where s.reject_reason is null
+       and not exists (
+         select 1
+           from catalog_product c
+          where s.catalog_type = 'PRODUCTS'
+            and c.id = s.catalog_item_id
+            and c.tenant_id = ?)
+       and not exists (
+         select 1
+           from catalog_service_item c
+          where s.catalog_type = 'SERVICES'
+            and c.id = s.catalog_item_id
+            and c.tenant_id = ?)
+    """;
+
+  private static final String RESOLVE_GROUPS_SQL = """
+    update price_import_staging s
+       set catalog_configuration_by_group_id = COALESCE(
+         (select g.id
+            from catalog_product c
+            join catalog_configuration_by_group g
+              on g.tenant_id = c.tenant_id
+             and g.catalog_configuration_id = c.catalog_configuration_id
+             and g.agrupador_id = c.agrupador_empresa_id
+             and g.active = true
+           where s.catalog_type = 'PRODUCTS'
+             and c.id = s.catalog_item_id
+             and c.tenant_id = ?),
+         (select g.id
+            from catalog_service_item c
+            join catalog_configuration_by_group g
+              on g.tenant_id = c.tenant_id
+             and g.catalog_configuration_id = c.catalog_configuration_id
+             and g.agrupador_id = c.agrupador_empresa_id
+             and g.active = true
+           where s.catalog_type = 'SERVICES'
+             and c.id = s.catalog_item_id
+             and c.tenant_id = ?))
+     where s.reject_reason is null
+    """;
+
+  private static final String REJECT_WITHOUT_GROUP_SQL = """
+    update price_import_staging s
+       set reject_reason = 'catalog_configuration_group_not_found'
+     where s.reject_reason is null
+       and s.catalog_configuration_by_group_id is null
+    """;
+
+  // Sem regra gravada vale o default de CatalogPriceRuleService (so PURCHASE nasce em modo II).
+  private static final String REJECT_LOCKED_MODE_SQL = """
+    update price_import_staging s
+       set reject_reason = 'catalog_item_price_mode_locked'
+     where s.reject_reason is null
+       and COALESCE(
+         (select r.ui_lock_mode
+            from catalog_price_rule_by_group r
+           where r.tenant_id = ?
+             and r.catalog_configuration_by_group_id = s.catalog_configuration_by_group_id
+             and r.price_type = ?
+             and r.active = true),
+         ?) <> 'II'
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabaseDialect databaseDialect;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public PriceImportStagingRepositoryImpl(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.databaseDialect = databaseDialect;
+  }
+
+  @Override
+  public Loader open() {
+    // As validacoes sao JDBC contra catalogo e regras: o que estiver pendente precisa estar no banco.
+    entityManager.flush();
+    if (databaseDialect.isPostgres()) {
+      jdbcTemplate.execute(CREATE_POSTGRES_SQL);
+      jdbcTemplate.update("delete from " + TABLE);
+      return new CopyLoader();
+    }
+    jdbcTemplate.execute(CREATE_PORTABLE_SQL);
+    jdbcTemplate.update("delete from " + TABLE);
+    return new BatchLoader();
+  }
+
+  @Override
+  public int rejectUnknownItems(Long tenantId) {
+    return jdbcTemplate.update(REJECT_UNKNOWN_ITEMS_SQL, tenantId, tenantId);
+  }
+
+  @Override
+  public int rejectDuplicates() {
+    return jdbcTemplate.update(REJECT_DUPLICATES_SQL);
+  }
+
+  @Override
+  public int resolveCatalogPriceGroups(Long tenantId, CatalogPriceType priceType) {
+    jdbcTemplate.update(RESOLVE_GROUPS_SQL, tenantId, tenantId);
+    int rejected = jdbcTemplate.update(REJECT_WITHOUT_GROUP_SQL);
+    String defaultMode = priceType == CatalogPriceType.PURCHASE ? "II" : "IV";
+    return rejected + jdbcTemplate.update(REJECT_LOCKED_MODE_SQL, tenantId, priceType.name(), defaultMode);
+  }
+
+  @Override
+  public long countValid(CatalogConfigurationType catalogType) {
+    Long count = jdbcTemplate.queryForObject(
+      "select count(*) from " + TABLE + " where reject_reason is null and catalog_type = ?",
+      Long.class,
+      catalogType.name());
+    return count == null ? 0L : count;
+  }
+
+  @Override
+  public long countRejected() {
+    Long count = jdbcTemplate.queryForObject(
+      "select count(*) from " + TABLE + " where reject_reason is not null",
+      Long.class);
+    return count == null ? 0L : count;
+  }
+
+  @Override
+  public List<RejectedRow> findRejects(int limit) {
+    return jdbcTemplate.query(
+      "select line_number, catalog_type, catalog_item_id, reject_reason from " + TABLE
+        + " where reject_reason is not null order by line_number limit ?",
+      (rs, rowNum) -> new RejectedRow(
+        rs.getInt("line_number"),
+        rs.getString("catalog_type"),
+        rs.getObject("catalog_item_id", Long.class),
+        rs.getString("reject_reason")),
+      limit);
+  }
+
+  // COPY ... FROM STDIN em CSV, empurrado em blocos enquanto o arquivo e lido.
+  private final class CopyLoader implements Loader {
+
+    private final DataSource dataSource;
+    private final Connection connection;
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 256);
+
+    private CopyLoader() {
+      this.dataSource = jdbcTemplate.getDataSource();
+      // Conexao da transacao corrente: a tabela temporaria so existe nela.
+      this.connection = DataSourceUtils.getConnection(dataSource);
+      try {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+      } catch (SQLException ex) {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+        throw new IllegalStateException("price_import_staging_failed", ex);
+      }
+    }
+
+    @Override
+    public void add(StagedRow row) {
+      buffer.append(row.lineNumber()).append(',')
+        .append(row.catalogType() == null ? "" : row.catalogType().name()).append(',')
+        .append(row.catalogItemId() == null ? "" : row.catalogItemId().toString()).append(',')
+        .append(row.priceFinal() == null ? "" : row.priceFinal().toPlainString()).append(',')
+        .append(row.rejectReason() == null ? "" : row.rejectReason()).append('\n');
+      if (buffer.length() >= COPY_BUFFER_CHARS) {
+        flush();
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        flush();
+        copyIn.endCopy();
+      } catch (SQLException ex) {
+        throw new IllegalStateException("price_import_staging_failed", ex);
+      } finally {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+      }
+      // Tabela temporaria nao passa pelo autovacuum: sem estatisticas o planejador erra os joins de validacao.
+      jdbcTemplate.execute("create index on " + TABLE + " (catalog_type, catalog_item_id, line_number)");
+      jdbcTemplate.execute("analyze " + TABLE);
+    }
+
+    private void flush() {
+      if (buffer.isEmpty()) {
+        return;
+      }
+      byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+      buffer.setLength(0);
+      try {
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+      } catch (SQLException ex) {
+        throw new IllegalStateException("price_import_staging_failed", ex);
+      }
+    }
+  }
+
+  private final class BatchLoader implements Loader {
+
+    private final List<StagedRow> pending = new ArrayList<>(MAX_ROWS_PER_STATEMENT);
+
+    @Override
+    public void add(StagedRow row) {
+      pending.add(row);
+      if (pending.size() >= MAX_ROWS_PER_STATEMENT) {
+        flush();
+      }
+    }
+
+    @Override
+    public void close() {
+      flush();
+    }
+
+    private void flush() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      jdbcTemplate.batchUpdate(INSERT_SQL, pending, MAX_ROWS_PER_STATEMENT, (ps, row) -> {
+        ps.setInt(1, row.lineNumber());
+        ps.setString(2, row.catalogType() == null ? null : row.catalogType().name());
+        ps.setObject(3, row.catalogItemId(), Types.BIGINT);
+        ps.setBigDecimal(4, row.priceFinal());
+        ps.setString(5, row.rejectReason());
+      });
+      pending.clear();
+    }
+  }
+
+}
@@ -0,0 +1,515 @@
+package com.ia.app.repository.impl;
+
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.repository.PriceImportStagingRepository;
+import com.ia.app.repository.SalePriceBulkWriteRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class SalePriceBulkWriteRepositoryImpl implements SalePriceBulkWriteRepository {
+
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String CREATED = "CREATED";
+  private static final String UPDATED = "UPDATED";
+  private static final String SKIPPED_EXISTING = "SKIPPED_EXISTING";
+  private static final String SKIPPED_WITHOUT_BASE = "SKIPPED_WITHOUT_BASE";
+
+  // Postgres: upsert e historico num unico comando; o resultado traz os contadores e os itens gravados.
+  private static final String APPLY_SQL = """
+    , upserted as (
+      insert into sale_price (
+        tenant_id, price_book_id, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_final,
+        created_at, created_by, updated_at, updated_by
+      )
+      select cast(? as bigint), cast(? as bigint), cast(? as bigint), cast(? as varchar), c.catalog_item_id,
+             cast(null as uuid), c.new_price,
+             cast(? as timestamptz), cast(? as varchar), cast(? as timestamptz), cast(? as varchar)
+        from candidates c
+       where c.outcome in ('CREATED', 'UPDATED')
+         and (c.old_price is null or c.old_price <> c.new_price)
+      on conflict (
+        tenant_id, price_book_id, (COALESCE(variant_id, 0)), catalog_type, catalog_item_id,
+        (COALESCE(tenant_unit_id, '00000000-0000-0000-0000-000000000000'::UUID))
+      )
+      do update set
+        price_final = excluded.price_final,
+        updated_at = excluded.updated_at,
+        updated_by = excluded.updated_by
+      returning id, catalog_item_id, price_final, (xmax = 0) as inserted
+    ), logged as (
+      insert into price_change_log (
+        tenant_id, sale_price_id, action, source_type, origin_type, origin_id, old_price_final, new_price_final,
+        price_book_id, price_book_name, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_type,
+        changed_by, changed_at, created_at, created_by, updated_at, updated_by
+      )
+      select cast(? as bigint), u.id, case when u.inserted then 'CREATE' else 'UPDATE' end,
+             'SALE_PRICE', 'ALTERACAO_TABELA_PRECO', u.catalog_item_id,
+             case when u.inserted then null else c.old_price end, u.price_final,
+             cast(? as bigint), cast(? as varchar), cast(? as bigint), cast(? as varchar), u.catalog_item_id,
+             cast(null as uuid), cast(null as varchar),
+             cast(? as varchar), cast(? as timestamptz),
+             cast(? as timestamptz), cast(? as varchar), cast(? as timestamptz), cast(? as varchar)
+        from upserted u
+        join candidates c
+          on c.catalog_item_id = u.catalog_item_id
+      returning id
+    )
+    select count(*) as total_items,
+           count(*) filter (where outcome = 'CREATED') as created,
+           count(*) filter (where outcome = 'UPDATED') as updated,
+           count(*) filter (where outcome = 'SKIPPED_WITHOUT_BASE') as skipped_without_base,
+           count(*) filter (where outcome = 'SKIPPED_EXISTING') as skipped_existing,
+           (select array_agg(catalog_item_id) from upserted) as changed_item_ids,
+           (select array_agg(id) from upserted) as changed_ids,
+           (select count(*) from logged) as logged_rows
+      from candidates
+    """;
+
+  private static final String INSERT_SALE_PRICE_SQL = """
+    insert into sale_price (
+      tenant_id, price_book_id, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_final,
+      created_at, created_by, updated_at, updated_by
+    ) values (?, ?, ?, ?, ?, null, ?, ?, ?, ?, ?)
+    """;
+
+  private static final String UPDATE_SALE_PRICE_SQL = """
+    update sale_price
+       set price_final = ?,
+           updated_at = ?,
+           updated_by = ?
+     where id = ?
+    """;
+
+  private static final String INSERT_LOG_SQL = """
+    insert into price_change_log (
+      tenant_id, sale_price_id, action, source_type, origin_type, origin_id, old_price_final, new_price_final,
+      price_book_id, price_book_name, variant_id, catalog_type, catalog_item_id, tenant_unit_id, price_type,
+      changed_by, changed_at, created_at, created_by, updated_at, updated_by
+    ) values (?, ?, ?, 'SALE_PRICE', 'ALTERACAO_TABELA_PRECO', ?, ?, ?, ?, ?, ?, ?, ?, null, null, ?, ?, ?, ?, ?, ?)
+    """;
+
+  private record Candidate(Long catalogItemId, Long salePriceId, BigDecimal oldPrice, BigDecimal newPrice, String outcome) {}
+
+  private record Written(Long salePriceId, Candidate candidate) {}
+
+  // Destino comum da aplicacao por grupo e da importacao.
+  private record Target(
+    Long tenantId,
+    Long priceBookId,
+    String priceBookName,
+    Long variantId,
+    CatalogConfigurationType catalogType,
+    String changedBy
+  ) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditorAware<String> auditorAware;
+  private final DatabaseDialect databaseDialect;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public SalePriceBulkWriteRepositoryImpl(
+      JdbcTemplate jdbcTemplate,
+      AuditorAware<String> auditorAware,
+      DatabaseDialect databaseDialect) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.auditorAware = auditorAware;
+    this.databaseDialect = databaseDialect;
+  }
+
+  @Override
+  public ApplyByGroupResult applyByGroup(ApplyByGroupCommand command) {
+    List<Object> params = new ArrayList<>();
+    String candidatesSql = candidatesSql(command, params);
+    return apply(
+      new Target(
+        command.tenantId(),
+        command.priceBookId(),
+        command.priceBookName(),
+        command.variantId(),
+        command.catalogType(),
+        command.changedBy()),
+      candidatesSql,
+      params);
+  }
+
+  @Override
+  public ApplyByGroupResult applyImport(ApplyImportCommand command) {
+    List<Object> params = new ArrayList<>();
+    String candidatesSql = importCandidatesSql(command, params);
+    return apply(
+      new Target(
+        command.tenantId(),
+        command.priceBookId(),
+        command.priceBookName(),
+        command.variantId(),
+        command.catalogType(),
+        command.changedBy()),
+      candidatesSql,
+      params);
+  }
+
+  private ApplyByGroupResult apply(Target command, String candidatesSql, List<Object> params) {
+    // O JDBC nao passa pelo contexto de persistencia: o que estiver pendente precisa estar no banco.
+    entityManager.flush();
+    OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    String username = auditorAware.getCurrentAuditor().orElse(null);
+    ApplyByGroupResult result;
+    List<Long> changedIds = new ArrayList<>();
+    if (databaseDialect.isPostgres()) {
+      result = applyPostgres(command, candidatesSql, params, now, username, changedIds);
+    } else {
+      result = applyPortable(command, candidatesSql, params, now, username, changedIds);
+    }
+    refreshManagedSalePrices(changedIds);
+    return result;
+  }
+
+  private ApplyByGroupResult applyPostgres(
+      Target command,
+      String candidatesSql,
+      List<Object> candidateParams,
+      OffsetDateTime now,
+      String username,
+      List<Long> changedIds) {
+    List<Object> params = new ArrayList<>(candidateParams);
+    params.addAll(Arrays.asList(
+      command.tenantId(), command.priceBookId(), command.variantId(), command.catalogType().name(),
+      now, username, now, username));
+    params.addAll(Arrays.asList(
+      command.tenantId(), command.priceBookId(), command.priceBookName(), command.variantId(),
+      command.catalogType().name(), command.changedBy(), now,
+      now, username, now, username));
+    try {
+      return jdbcTemplate.queryForObject(
+        "with candidates as (" + candidatesSql + ")" + APPLY_SQL,
+        (rs, rowNum) -> {
+          changedIds.addAll(longs(rs.getArray("changed_ids")));
+          return new ApplyByGroupResult(
+            rs.getInt("total_items"),
+            rs.getInt("created"),
+            rs.getInt("updated"),
+            rs.getInt("skipped_without_base"),
+            rs.getInt("skipped_existing"),
+            longs(rs.getArray("changed_item_ids")));
+        },
+        params.toArray());
+    } catch (DataIntegrityViolationException ex) {
+      String message = ex.getMostSpecificCause() == null ? "" : String.valueOf(ex.getMostSpecificCause().getMessage());
+      if (message.toLowerCase().contains("ck_sale_price_non_negative")) {
+        throw new IllegalArgumentException("sale_price_negative");
+      }
+      throw ex;
+    }
+  }
+
+  private ApplyByGroupResult applyPortable(
+      Target command,
+      String candidatesSql,
+      List<Object> params,
+      OffsetDateTime now,
+      String username,
+      List<Long> changedIds) {
+    List<Candidate> candidates = jdbcTemplate.query(candidatesSql, (rs, rowNum) -> new Candidate(
+      rs.getLong("catalog_item_id"),
+      rs.getObject("sale_price_id", Long.class),
+      rs.getBigDecimal("old_price"),
+      rs.getBigDecimal("new_price"),
+      rs.getString("outcome")), params.toArray());
+
+    int created = 0;
+    int updated = 0;
+    int skippedWithoutBase = 0;
+    int skippedExisting = 0;
+    List<Candidate> toInsert = new ArrayList<>();
+    List<Candidate> toUpdate = new ArrayList<>();
+    for (Candidate candidate : candidates) {
+      switch (candidate.outcome()) {
+        case SKIPPED_EXISTING -> skippedExisting++;
+        case SKIPPED_WITHOUT_BASE -> skippedWithoutBase++;
+        case CREATED -> {
+          created++;
+          toInsert.add(requireNonNegative(candidate));
+        }
+        case UPDATED -> {
+          updated++;
+          if (candidate.oldPrice().compareTo(candidate.newPrice()) != 0) {
+            toUpdate.add(requireNonNegative(candidate));
+          }
+        }
+      }
+    }
+
+    List<Written> written = new ArrayList<>();
+    for (List<Candidate> chunk : chunks(toInsert)) {
+      GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+      jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(INSERT_SALE_PRICE_SQL, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            Candidate candidate = chunk.get(i);
+            ps.setLong(1, command.tenantId());
+            ps.setLong(2, command.priceBookId());
+            ps.setObject(3, command.variantId(), Types.BIGINT);
+            ps.setString(4, command.catalogType().name());
+            ps.setLong(5, candidate.catalogItemId());
+            ps.setBigDecimal(6, candidate.newPrice());
+            ps.setObject(7, now);
+            ps.setString(8, username);
+            ps.setObject(9, now);
+            ps.setString(10, username);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return chunk.size();
+          }
+        },
+        keyHolder);
+      List<Map<String, Object>> keys = keyHolder.getKeyList();
+      if (keys.size() != chunk.size()) {
+        throw new IllegalStateException("sale_price_batch_keys_mismatch");
+      }
+      for (int i = 0; i < chunk.size(); i++) {
+        Map<String, Object> key = keys.get(i);
+        Object id = key.size() == 1 ? key.values().iterator().next() : key.get("id");
+        written.add(new Written(((Number) id).longValue(), chunk.get(i)));
+      }
+    }
+    jdbcTemplate.batchUpdate(UPDATE_SALE_PRICE_SQL, toUpdate, MAX_ROWS_PER_STATEMENT, (ps, candidate) -> {
+      ps.setBigDecimal(1, candidate.newPrice());
+      ps.setObject(2, now);
+      ps.setString(3, username);
+      ps.setLong(4, candidate.salePriceId());
+    });
+    toUpdate.forEach(candidate -> written.add(new Written(candidate.salePriceId(), candidate)));
+
+    jdbcTemplate.batchUpdate(INSERT_LOG_SQL, written, MAX_ROWS_PER_STATEMENT, (ps, row) -> {
+      Candidate candidate = row.candidate();
+      boolean inserted = candidate.salePriceId() == null;
+      ps.setLong(1, command.tenantId());
+      ps.setLong(2, row.salePriceId());
+      ps.setString(3, inserted ? "CREATE" : "UPDATE");
+      ps.setLong(4, candidate.catalogItemId());
+      ps.setBigDecimal(5, inserted ? null : candidate.oldPrice());
+      ps.setBigDecimal(6, candidate.newPrice());
+      ps.setLong(7, command.priceBookId());
+      ps.setString(8, command.priceBookName());
+      ps.setObject(9, command.variantId(), Types.BIGINT);
+      ps.setString(10, command.catalogType().name());
+      ps.setLong(11, candidate.catalogItemId());
+      ps.setString(12, command.changedBy());
+      ps.setObject(13, now);
+      ps.setObject(14, now);
+      ps.setString(15, username);
+      ps.setObject(16, now);
+      ps.setString(17, username);
+    });
+
+    written.forEach(row -> changedIds.add(row.salePriceId()));
+    return new ApplyByGroupResult(
+      candidates.size(),
+      created,
+      updated,
+      skippedWithoutBase,
+      skippedExisting,
+      written.stream().map(row -> row.candidate().catalogItemId()).toList());
+  }
+
+  // Mesmo filtro de SalePriceRepository.GRID_SQL para um tipo de catalogo, com o preco alvo e o desfecho por item.
+  private String candidatesSql(ApplyByGroupCommand command, List<Object> params) {
+    String table = switch (command.catalogType()) {
+      case PRODUCTS -> "catalog_product";
+      case SERVICES -> "catalog_service_item";
+    };
+    boolean groupChildren = command.catalogGroupId() != null && command.includeChildren();
+
+    StringBuilder sql = new StringBuilder("""
+      select s.catalog_item_id,
+             sp.id as sale_price_id,
+             sp.price_final as old_price,
+             round(COALESCE(cip.price_final, 0) * ? + ?, 6) as new_price,
+             case
+      """);
+    params.add(command.multiplier());
+    params.add(command.addend());
+    if (!command.overwriteExisting()) {
+      sql.append("    when sp.id is not null then 'SKIPPED_EXISTING'\n");
+    }
+    if (command.requireBasePrice()) {
+      sql.append("    when cip.price_final is null then 'SKIPPED_WITHOUT_BASE'\n");
+    }
+    sql.append("""
+               when sp.id is null then 'CREATED'
+               else 'UPDATED'
+             end as outcome
+        from (
+          select c.id as catalog_item_id
+            from\s""").append(table).append(" c\n");
+    if (groupChildren) {
+      sql.append("""
+            left join catalog_group g
+              on g.id = c.catalog_group_id
+             and g.tenant_id = c.tenant_id
+            left join catalog_group g_root
+              on g_root.id = ?
+             and g_root.tenant_id = c.tenant_id
+        """);
+      params.add(command.catalogGroupId());
+    }
+    sql.append("""
+           where c.tenant_id = ?
+             and c.ativo = true
+        """);
+    params.add(command.tenantId());
+    if (command.catalogItemId() != null || command.text() != null) {
+      List<String> matches = new ArrayList<>();
+      if (command.catalogItemId() != null) {
+        matches.add("c.id = ?");
+        params.add(command.catalogItemId());
+      }
+      if (command.text() != null) {
+        matches.add("lower(COALESCE(c.nome, '')) like lower(?)");
+        params.add("%" + command.text() + "%");
+      }
+      sql.append("         and (").append(String.join(" or ", matches)).append(")\n");
+    }
+    if (command.catalogGroupId() != null) {
+      sql.append("         and (c.catalog_group_id = ?");
+      params.add(command.catalogGroupId());
+      if (groupChildren) {
+        sql.append(" or g.path like concat(g_root.path, '/%')");
+      }
+      sql.append(")\n");
+    }
+    sql.append("""
+        ) s
+        left join sale_price sp
+          on sp.tenant_id = ?
+         and sp.price_book_id = ?
+        """);
+    params.add(command.tenantId());
+    params.add(command.priceBookId());
+    if (command.variantId() == null) {
+      sql.append("   and sp.variant_id is null\n");
+    } else {
+      sql.append("   and sp.variant_id = ?\n");
+      params.add(command.variantId());
+    }
+    sql.append("""
+         and sp.catalog_type = ?
+         and sp.catalog_item_id = s.catalog_item_id
+         and sp.tenant_unit_id is null
+        left join catalog_item_price cip
+          on cip.tenant_id = ?
+         and cip.catalog_type = ?
+         and cip.catalog_item_id = s.catalog_item_id
+         and cip.price_type = 'SALE_BASE'
+        """);
+    params.add(command.catalogType().name());
+    params.add(command.tenantId());
+    params.add(command.catalogType().name());
+    return sql.toString();
+  }
+
+  // Linhas validas da tabela temporaria da importacao (uma por item, ja sem duplicadas) para um tipo de catalogo.
+  private String importCandidatesSql(ApplyImportCommand command, List<Object> params) {
+    StringBuilder sql = new StringBuilder("""
+      select s.catalog_item_id,
+             sp.id as sale_price_id,
+             sp.price_final as old_price,
+             s.price_final as new_price,
+             case when sp.id is null then 'CREATED' else 'UPDATED' end as outcome
+        from\s""").append(PriceImportStagingRepository.TABLE).append(" s\n").append("""
+        left join sale_price sp
+          on sp.tenant_id = ?
+         and sp.price_book_id = ?
+      """);
+    params.add(command.tenantId());
+    params.add(command.priceBookId());
+    if (command.variantId() == null) {
+      sql.append("   and sp.variant_id is null\n");
+    } else {
+      sql.append("   and sp.variant_id = ?\n");
+      params.add(command.variantId());
+    }
+    sql.append("""
+         and sp.catalog_type = s.catalog_type
+         and sp.catalog_item_id = s.catalog_item_id
+         and sp.tenant_unit_id is null
+       where s.reject_reason is null
+         and s.catalog_type = ?
+      """);
+    params.add(command.catalogType().name());
+    return sql.toString();
+  }
+
+  private Candidate requireNonNegative(Candidate candidate) {
+    if (candidate.newPrice().signum() < 0) {
+      throw new IllegalArgumentException("sale_price_negative");
+    }
+    return candidate;
+  }
+
+  private void refreshManagedSalePrices(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    EntityPersister persister = session.getFactory()
+      .getMappingMetamodel()
+      .getEntityDescriptor(SalePrice.class);
+    for (Long id : ids) {
+      Object managed = session.getPersistenceContextInternal()
+        .getEntity(session.generateEntityKey(id, persister));
+      if (managed != null) {
+        entityManager.refresh(managed);
+      }
+    }
+  }
+
+  private static List<Long> longs(Array array) throws SQLException {
+    if (array == null) {
+      return List.of();
+    }
+    List<Long> values = new ArrayList<>();
+    for (Object value : (Object[]) array.getArray()) {
+      values.add(((Number) value).longValue());
+    }
+    return values;
+  }
+
+  private static <T> List<List<T>> chunks(List<T> values) {
+    List<List<T>> chunks = new ArrayList<>();
+    for (int start = 0; start < values.size(); start += MAX_ROWS_PER_STATEMENT) {
+      chunks.add(values.subList(start, Math.min(values.size(), start + MAX_ROWS_PER_STATEMENT)));
+    }
+    return chunks;
+  }
+}
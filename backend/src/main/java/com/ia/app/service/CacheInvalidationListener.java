@@ -0,0 +1,155 @@
+package com.ia.app.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// Recebe as invalidacoes publicadas via CacheInvalidationNotifier em qualquer no (LISTEN/NOTIFY do Postgres)
+// e entrega ao cache dono do canal. Usa conexao propria, de um pool de uma conexao montado com as mesmas
+// propriedades do datasource principal, testada periodicamente: uma conexao morta em silencio so pararia
+// de receber avisos, e getNotifications nao acusa isso.
+@Service
+public class CacheInvalidationListener implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+  private final DataSourceProperties dataSourceProperties;
+  private final DataSource applicationDataSource;
+  private final CacheInvalidationNotifier notifier;
+  private final Map<String, ClusterInvalidatedCache> cachesByChannel = new HashMap<>();
+  private final int pollMillis;
+  private final long reconnectDelayMillis;
+  private final long probeIntervalMillis;
+  private volatile boolean running;
+  private Thread thread;
+  private HikariDataSource listenerDataSource;
+
+  public CacheInvalidationListener(
+      DataSourceProperties dataSourceProperties,
+      DataSource applicationDataSource,
+      CacheInvalidationNotifier notifier,
+      List<ClusterInvalidatedCache> caches,
+      @Value("${cache.cluster-invalidation.listen-poll-ms:500}") int pollMillis,
+      @Value("${cache.cluster-invalidation.reconnect-delay-ms:5000}") long reconnectDelayMillis,
+      @Value("${cache.cluster-invalidation.probe-interval-ms:30000}") long probeIntervalMillis) {
+    this.dataSourceProperties = dataSourceProperties;
+    this.applicationDataSource = applicationDataSource;
+    this.notifier = notifier;
+    for (ClusterInvalidatedCache cache : caches) {
+      cachesByChannel.put(cache.channel(), cache);
+    }
+    this.pollMillis = Math.max(pollMillis, 50);
+    this.reconnectDelayMillis = Math.max(reconnectDelayMillis, 100);
+    this.probeIntervalMillis = Math.max(probeIntervalMillis, this.pollMillis);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (running || cachesByChannel.isEmpty() || !notifier.isActive()) {
+      return;
+    }
+    listenerDataSource = createListenerDataSource();
+    running = true;
+    thread = new Thread(this::listen, "cache-invalidation-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void destroy() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    if (listenerDataSource != null) {
+      listenerDataSource.close();
+    }
+  }
+
+  private HikariDataSource createListenerDataSource() {
+    HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+      .type(HikariDataSource.class)
+      .build();
+    // Propriedades do driver (ssl, timeouts) configuradas no pool principal valem tambem aqui.
+    if (applicationDataSource instanceof HikariDataSource application) {
+      dataSource.setDataSourceProperties(application.getDataSourceProperties());
+    }
+    dataSource.setPoolName("cache-invalidation-listener");
+    dataSource.setMaximumPoolSize(1);
+    dataSource.setMinimumIdle(0);
+    // Sem falhar a subida: o laco de escuta tenta de novo a cada reconnect-delay-ms.
+    dataSource.setInitializationFailTimeout(-1);
+    return dataSource;
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = listenerDataSource.getConnection()) {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+          for (String channel : cachesByChannel.keySet()) {
+            statement.execute("LISTEN " + channel);
+          }
+        }
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        // Avisos enviados enquanto estava desconectado se perderam: comeca do zero.
+        invalidateAllLocal();
+        long nextProbeAt = System.currentTimeMillis() + probeIntervalMillis;
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+          if (System.currentTimeMillis() >= nextProbeAt) {
+            if (!connection.isValid(probeTimeoutSeconds())) {
+              listenerDataSource.evictConnection(connection);
+              throw new SQLException("cache_invalidation_listener_probe_failed");
+            }
+            nextProbeAt = System.currentTimeMillis() + probeIntervalMillis;
+          }
+          if (notifications == null) {
+            continue;
+          }
+          for (PGNotification notification : notifications) {
+            ClusterInvalidatedCache cache = cachesByChannel.get(notification.getName());
+            if (cache != null) {
+              cache.applyRemote(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException ex) {
+        if (!running) {
+          return;
+        }
+        log.warn("Cache invalidation listener disconnected: {}", ex.getMessage());
+        invalidateAllLocal();
+        try {
+          Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private int probeTimeoutSeconds() {
+    return (int) Math.max(1L, Math.min(probeIntervalMillis / 1000L, 10L));
+  }
+
+  private void invalidateAllLocal() {
+    cachesByChannel.values().forEach(ClusterInvalidatedCache::invalidateAllLocal);
+  }
+}
@@ -0,0 +1,40 @@
+package com.ia.app.service;
+
+import com.ia.app.config.DatabaseDialect;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+// Publica avisos de invalidacao para os outros nos via pg_notify (so Postgres).
+@Service
+public class CacheInvalidationNotifier {
+
+  private static final RowCallbackHandler IGNORE_ROW = rs -> { };
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean enabled;
+  private final DatabaseDialect databaseDialect;
+
+  public CacheInvalidationNotifier(
+      DataSource dataSource,
+      DatabaseDialect databaseDialect,
+      @Value("${cache.cluster-invalidation.enabled:true}") boolean enabled) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.databaseDialect = databaseDialect;
+    this.enabled = enabled;
+  }
+
+  public boolean isActive() {
+    return enabled && databaseDialect.isPostgres();
+  }
+
+  // pg_notify e transacional: dentro de uma transacao, os outros nos so recebem depois do commit.
+  public void publish(String channel, String payload) {
+    if (!isActive()) {
+      return;
+    }
+    jdbcTemplate.query("select pg_notify(?, ?)", IGNORE_ROW, channel, payload);
+  }
+}
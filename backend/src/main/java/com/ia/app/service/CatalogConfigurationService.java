@@ -32,18 +32,31 @@ public class CatalogConfigurationService {
 
   @Transactional
   public CatalogConfigurationResponse update(CatalogConfigurationType type, CatalogNumberingMode numberingMode) {
+    return update(type, numberingMode, null);
+  }
+
+  @Transactional
+  public CatalogConfigurationResponse update(
+      CatalogConfigurationType type,
+      CatalogNumberingMode numberingMode,
+      Boolean stockEscrowEnabled) {
     if (numberingMode == null) {
       throw new IllegalArgumentException("catalog_configuration_numbering_required");
     }
     Long tenantId = requireTenant();
     CatalogConfiguration entity = getEntityOrCreate(type);
     entity.setNumberingMode(numberingMode);
+    if (stockEscrowEnabled != null) {
+      entity.setStockEscrowEnabled(stockEscrowEnabled);
+    }
     CatalogConfiguration saved = repository.save(entity);
     auditService.log(tenantId,
       "CATALOG_CONFIGURATION_UPDATED",
       "catalog_configuration",
       String.valueOf(saved.getId()),
-      "type=" + saved.getType() + ";numberingMode=" + saved.getNumberingMode());
+      "type=" + saved.getType()
+        + ";numberingMode=" + saved.getNumberingMode()
+        + ";stockEscrowEnabled=" + saved.isStockEscrowEnabled());
     return toResponse(saved);
   }
 
@@ -86,6 +99,7 @@ public class CatalogConfigurationService {
       entity.getType(),
       entity.getNumberingMode(),
       entity.isActive(),
+      entity.isStockEscrowEnabled(),
       entity.getVersion(),
       entity.getCreatedAt(),
       entity.getUpdatedAt());
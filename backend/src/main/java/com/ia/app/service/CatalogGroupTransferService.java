@@ -101,6 +101,9 @@ public class CatalogGroupTransferService {
     Map<Long, List<CatalogStockBalance>> byCatalogo = sourceBalances.stream()
       .collect(Collectors.groupingBy(CatalogStockBalance::getCatalogoId));
 
+    // Um comando por item, aplicados juntos: um lock ordenado por chave de saldo e inserts em lote.
+    List<Long> catalogoIds = new ArrayList<>();
+    List<CatalogMovementEngine.Command> commands = new ArrayList<>();
     for (Map.Entry<Long, List<CatalogStockBalance>> entry : byCatalogo.entrySet()) {
       Long catalogoId = entry.getKey();
       List<CatalogMovementEngine.Impact> impacts = buildImpacts(
@@ -148,8 +151,14 @@ public class CatalogGroupTransferService {
         null,
         null,
         impacts);
+      catalogoIds.add(catalogoId);
+      commands.add(command);
+    }
 
-      CatalogMovementEngine.Result result = movementEngine.apply(command);
+    List<CatalogMovementEngine.Result> results = movementEngine.applyBatch(commands);
+    for (int i = 0; i < results.size(); i++) {
+      Long catalogoId = catalogoIds.get(i);
+      CatalogMovementEngine.Result result = results.get(i);
       auditService.log(
         tenantId,
         "CATALOG_STOCK_GROUP_TRANSFER",
@@ -2,21 +2,19 @@ package com.ia.app.service;
 
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogItemPrice;
-import com.ia.app.domain.CatalogPriceRuleByGroup;
 import com.ia.app.domain.CatalogPriceType;
 import com.ia.app.domain.PriceChangeAction;
-import com.ia.app.domain.PriceAdjustmentKind;
-import com.ia.app.domain.PriceBaseMode;
-import com.ia.app.domain.PriceUiLockMode;
 import com.ia.app.dto.CatalogItemPriceInput;
 import com.ia.app.dto.CatalogItemPriceResponse;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository.RecomputedPrice;
 import com.ia.app.repository.CatalogItemPriceRepository;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.springframework.stereotype.Service;
@@ -25,19 +23,20 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CatalogItemPriceService {
 
-  private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
-
   private final CatalogItemPriceRepository repository;
   private final CatalogPriceRuleService ruleService;
   private final PriceChangeLogService priceChangeLogService;
+  private final ResolvedSalePriceService resolvedSalePriceService;
 
   public CatalogItemPriceService(
       CatalogItemPriceRepository repository,
       CatalogPriceRuleService ruleService,
-      PriceChangeLogService priceChangeLogService) {
+      PriceChangeLogService priceChangeLogService,
+      ResolvedSalePriceService resolvedSalePriceService) {
     this.repository = repository;
     this.ruleService = ruleService;
     this.priceChangeLogService = priceChangeLogService;
+    this.resolvedSalePriceService = resolvedSalePriceService;
   }
 
   @Transactional
@@ -104,56 +103,30 @@ public class CatalogItemPriceService {
       boolean applyInputs,
       boolean persist) {
 
-    Map<CatalogPriceType, CatalogPriceRuleByGroup> rules = ruleService.loadRuleMap(tenantId, catalogConfigurationByGroupId);
-    List<CatalogPriceType> order = ruleService.topologicalOrder(rules);
-    Map<CatalogPriceType, CatalogItemPrice> existing = catalogItemId == null
-      ? new EnumMap<>(CatalogPriceType.class)
+    CatalogPriceRuleEvaluator evaluator = ruleService.evaluator(tenantId, catalogConfigurationByGroupId);
+    CatalogItemPrice[] existing = catalogItemId == null
+      ? new CatalogItemPrice[CatalogPriceType.values().length]
       : loadExisting(tenantId, catalogType, catalogItemId);
-    Map<CatalogPriceType, CatalogItemPriceInput> inputByType = indexInputs(inputs);
-    Map<CatalogPriceType, MutablePriceState> states = new EnumMap<>(CatalogPriceType.class);
-
-    for (CatalogPriceType type : CatalogPriceType.values()) {
-      CatalogItemPrice row = existing.get(type);
-      CatalogPriceRuleByGroup rule = rules.get(type);
-      if (rule == null) {
-        throw new IllegalArgumentException("catalog_price_rule_missing_type");
-      }
-      states.put(type, rowToState(row, rule));
-    }
-
-    for (CatalogPriceType type : order) {
-      CatalogPriceRuleByGroup rule = rules.get(type);
-      MutablePriceState state = states.get(type);
-      CatalogItemPriceInput input = inputByType.get(type);
-      BigDecimal baseValue = resolveBaseValue(rule, states);
-
-      switch (rule.getUiLockMode()) {
-        case II -> applyModeII(state, input, applyInputs);
-        case I -> applyModeI(state, input, baseValue, applyInputs);
-        case III -> applyModeIII(state, input, baseValue, applyInputs);
-        case IV -> applyModeIV(state, rule, baseValue, applyInputs || refreshModeIv);
-        default -> throw new IllegalArgumentException("catalog_item_price_mode_invalid");
-      }
-
-      state.priceFinal = normalizePrice(state.priceFinal);
-      state.adjustmentValue = normalizeScale(state.adjustmentValue);
-      if (state.adjustmentKind == null) {
-        state.adjustmentKind = PriceAdjustmentKind.FIXED;
-      }
-    }
+    CatalogPriceRuleEvaluator.Prices prices = evaluator.evaluate(
+      existing,
+      indexInputs(inputs),
+      refreshModeIv,
+      applyInputs);
 
     if (!persist) {
-      return states.entrySet().stream()
-        .sorted(Map.Entry.comparingByKey())
-        .map(entry -> toResponse(entry.getKey(), entry.getValue()))
+      return Arrays.stream(CatalogPriceType.values())
+        .map(type -> new CatalogItemPriceResponse(
+          type,
+          prices.priceFinal(type),
+          prices.adjustmentKind(type),
+          prices.adjustmentValue(type)))
         .toList();
     }
 
     List<CatalogItemPrice> toSave = new ArrayList<>();
     Map<CatalogPriceType, BigDecimal> oldValues = new EnumMap<>(CatalogPriceType.class);
     for (CatalogPriceType type : CatalogPriceType.values()) {
-      MutablePriceState state = states.get(type);
-      CatalogItemPrice row = existing.get(type);
+      CatalogItemPrice row = existing[type.ordinal()];
       oldValues.put(type, row == null ? null : normalizePrice(row.getPriceFinal()));
       if (row == null) {
         row = new CatalogItemPrice();
@@ -162,13 +135,18 @@ public class CatalogItemPriceService {
         row.setCatalogItemId(catalogItemId);
         row.setPriceType(type);
       }
-      row.setPriceFinal(state.priceFinal);
-      row.setAdjustmentKind(state.adjustmentKind);
-      row.setAdjustmentValue(state.adjustmentValue);
+      row.setPriceFinal(prices.priceFinal(type));
+      row.setAdjustmentKind(prices.adjustmentKind(type));
+      row.setAdjustmentValue(prices.adjustmentValue(type));
       toSave.add(row);
     }
 
     List<CatalogItemPrice> saved = repository.saveAll(toSave);
+    BigDecimal oldSaleBase = oldValues.get(CatalogPriceType.SALE_BASE);
+    BigDecimal newSaleBase = prices.priceFinal(CatalogPriceType.SALE_BASE);
+    if (oldSaleBase == null || oldSaleBase.compareTo(newSaleBase) != 0) {
+      resolvedSalePriceService.refreshCatalogBase(tenantId, catalogType, catalogItemId, newSaleBase);
+    }
 
     if (applyInputs) {
       for (CatalogItemPrice row : saved) {
@@ -192,137 +170,71 @@ public class CatalogItemPriceService {
       .toList();
   }
 
-  private void applyModeII(MutablePriceState state, CatalogItemPriceInput input, boolean applyInputs) {
-    if (applyInputs && input != null && input.priceFinal() != null) {
-      state.priceFinal = input.priceFinal();
+  // Recalculo em cascata de um item com as regras atuais, sem IO; o job de recalculo chama em paralelo.
+  // Devolve so as linhas gravadas que mudaram; tipos sem linha entram com o default da regra.
+  public List<RecomputedPrice> recomputeExisting(CatalogPriceRuleEvaluator evaluator, Collection<CatalogItemPrice> rows) {
+    CatalogItemPrice[] existing = new CatalogItemPrice[CatalogPriceType.values().length];
+    for (CatalogItemPrice row : rows) {
+      existing[row.getPriceType().ordinal()] = row;
     }
-  }
+    CatalogPriceRuleEvaluator.Prices prices = evaluator.evaluate(
+      existing,
+      new CatalogItemPriceInput[existing.length],
+      true,
+      false);
 
-  private void applyModeI(MutablePriceState state, CatalogItemPriceInput input, BigDecimal baseValue, boolean applyInputs) {
-    if (applyInputs && input != null) {
-      if (input.adjustmentKind() != null) {
-        state.adjustmentKind = input.adjustmentKind();
-      }
-      if (input.adjustmentValue() != null) {
-        state.adjustmentValue = input.adjustmentValue();
+    List<RecomputedPrice> changed = new ArrayList<>();
+    for (CatalogItemPrice row : existing) {
+      if (row == null) {
+        continue;
       }
-    }
-    state.priceFinal = calculatePrice(baseValue, state.adjustmentKind, state.adjustmentValue);
-  }
-
-  private void applyModeIII(MutablePriceState state, CatalogItemPriceInput input, BigDecimal baseValue, boolean applyInputs) {
-    if (!applyInputs || input == null) {
-      return;
-    }
-
-    if (input.adjustmentKind() != null) {
-      state.adjustmentKind = input.adjustmentKind();
-    }
-
-    if (input.lastEditedField() == com.ia.app.domain.CatalogPriceEditedField.PRICE) {
-      BigDecimal targetPrice = input.priceFinal() == null ? state.priceFinal : input.priceFinal();
-      state.priceFinal = targetPrice;
-      state.adjustmentValue = deriveAdjustment(baseValue, targetPrice, state.adjustmentKind);
-      return;
-    }
-
-    if (input.adjustmentValue() != null) {
-      state.adjustmentValue = input.adjustmentValue();
-    }
-    state.priceFinal = calculatePrice(baseValue, state.adjustmentKind, state.adjustmentValue);
-  }
-
-  private void applyModeIV(MutablePriceState state, CatalogPriceRuleByGroup rule, BigDecimal baseValue, boolean recalculate) {
-    // Mode IV is fully driven by the group rule; item-level adjustment must not override it.
-    state.adjustmentKind = rule.getAdjustmentKindDefault() == null ? PriceAdjustmentKind.FIXED : rule.getAdjustmentKindDefault();
-    state.adjustmentValue = normalizeScale(rule.getAdjustmentDefault());
-    if (recalculate) {
-      state.priceFinal = calculatePrice(baseValue, state.adjustmentKind, state.adjustmentValue);
-    }
-  }
-
-  private BigDecimal resolveBaseValue(CatalogPriceRuleByGroup rule, Map<CatalogPriceType, MutablePriceState> states) {
-    if (rule.getBaseMode() == PriceBaseMode.NONE) {
-      return BigDecimal.ZERO;
-    }
-    CatalogPriceType baseType = rule.getBasePriceType();
-    if (baseType == null) {
-      throw new IllegalArgumentException("catalog_price_rule_base_required");
-    }
-    MutablePriceState base = states.get(baseType);
-    return base == null || base.priceFinal == null ? BigDecimal.ZERO : base.priceFinal;
-  }
-
-  private BigDecimal calculatePrice(BigDecimal baseValue, PriceAdjustmentKind kind, BigDecimal adjustment) {
-    BigDecimal base = baseValue == null ? BigDecimal.ZERO : baseValue;
-    BigDecimal adj = adjustment == null ? BigDecimal.ZERO : adjustment;
-    if (kind == PriceAdjustmentKind.PERCENT) {
-      BigDecimal factor = BigDecimal.ONE.add(adj.divide(ONE_HUNDRED, CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP));
-      return base.multiply(factor).setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
-    }
-    return base.add(adj).setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
-  }
-
-  private BigDecimal deriveAdjustment(BigDecimal baseValue, BigDecimal priceValue, PriceAdjustmentKind kind) {
-    BigDecimal base = baseValue == null ? BigDecimal.ZERO : baseValue;
-    BigDecimal price = priceValue == null ? BigDecimal.ZERO : priceValue;
-
-    if (kind == PriceAdjustmentKind.PERCENT) {
-      if (base.compareTo(BigDecimal.ZERO) == 0) {
-        return BigDecimal.ZERO.setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
+      CatalogPriceType type = row.getPriceType();
+      BigDecimal oldPrice = normalizePrice(row.getPriceFinal());
+      boolean same = oldPrice.compareTo(prices.priceFinal(type)) == 0
+        && row.getAdjustmentKind() == prices.adjustmentKind(type)
+        && normalizeScale(row.getAdjustmentValue()).compareTo(prices.adjustmentValue(type)) == 0;
+      if (same) {
+        continue;
       }
-      return price
-        .divide(base, CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP)
-        .subtract(BigDecimal.ONE)
-        .multiply(ONE_HUNDRED)
-        .setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
+      changed.add(new RecomputedPrice(
+        row.getId(),
+        row.getCatalogType(),
+        row.getCatalogItemId(),
+        type,
+        oldPrice,
+        prices.priceFinal(type),
+        prices.adjustmentKind(type),
+        prices.adjustmentValue(type)));
     }
-
-    return price.subtract(base).setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
+    return changed;
   }
 
-  private Map<CatalogPriceType, CatalogItemPrice> loadExisting(
+  private CatalogItemPrice[] loadExisting(
       Long tenantId,
       CatalogConfigurationType catalogType,
       Long catalogItemId) {
-    Map<CatalogPriceType, CatalogItemPrice> map = new EnumMap<>(CatalogPriceType.class);
+    CatalogItemPrice[] rows = new CatalogItemPrice[CatalogPriceType.values().length];
     for (CatalogItemPrice row : repository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByPriceTypeAsc(
       tenantId,
       catalogType,
       catalogItemId)) {
-      map.put(row.getPriceType(), row);
+      rows[row.getPriceType().ordinal()] = row;
     }
-    return map;
+    return rows;
   }
 
-  private Map<CatalogPriceType, CatalogItemPriceInput> indexInputs(List<CatalogItemPriceInput> inputs) {
-    Map<CatalogPriceType, CatalogItemPriceInput> map = new HashMap<>();
+  private CatalogItemPriceInput[] indexInputs(List<CatalogItemPriceInput> inputs) {
+    CatalogItemPriceInput[] indexed = new CatalogItemPriceInput[CatalogPriceType.values().length];
     for (CatalogItemPriceInput input : inputs) {
       if (input == null || input.priceType() == null) {
         continue;
       }
-      if (map.put(input.priceType(), input) != null) {
+      if (indexed[input.priceType().ordinal()] != null) {
         throw new IllegalArgumentException("catalog_item_price_duplicated_type_input");
       }
+      indexed[input.priceType().ordinal()] = input;
     }
-    return map;
-  }
-
-  private MutablePriceState rowToState(CatalogItemPrice row, CatalogPriceRuleByGroup rule) {
-    MutablePriceState state = new MutablePriceState();
-    if (row != null) {
-      state.priceFinal = normalizePrice(row.getPriceFinal());
-      state.adjustmentKind = row.getAdjustmentKind() == null
-        ? (rule.getAdjustmentKindDefault() == null ? PriceAdjustmentKind.FIXED : rule.getAdjustmentKindDefault())
-        : row.getAdjustmentKind();
-      state.adjustmentValue = normalizeScale(row.getAdjustmentValue());
-      return state;
-    }
-
-    state.adjustmentKind = rule.getAdjustmentKindDefault() == null ? PriceAdjustmentKind.FIXED : rule.getAdjustmentKindDefault();
-    state.adjustmentValue = normalizeScale(rule.getAdjustmentDefault());
-    state.priceFinal = BigDecimal.ZERO.setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
-    return state;
+    return indexed;
   }
 
   private CatalogItemPriceResponse toResponse(CatalogItemPrice row) {
@@ -333,14 +245,6 @@ public class CatalogItemPriceService {
       normalizeScale(row.getAdjustmentValue()));
   }
 
-  private CatalogItemPriceResponse toResponse(CatalogPriceType type, MutablePriceState state) {
-    return new CatalogItemPriceResponse(
-      type,
-      normalizePrice(state.priceFinal),
-      state.adjustmentKind == null ? PriceAdjustmentKind.FIXED : state.adjustmentKind,
-      normalizeScale(state.adjustmentValue));
-  }
-
   private BigDecimal normalizeScale(BigDecimal value) {
     BigDecimal resolved = value == null ? BigDecimal.ZERO : value;
     return resolved.setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
@@ -353,10 +257,4 @@ public class CatalogItemPriceService {
     }
     return resolved;
   }
-
-  private static final class MutablePriceState {
-    private BigDecimal priceFinal;
-    private PriceAdjustmentKind adjustmentKind;
-    private BigDecimal adjustmentValue;
-  }
 }
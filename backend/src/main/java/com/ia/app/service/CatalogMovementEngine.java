@@ -8,18 +8,24 @@ import com.ia.app.domain.CatalogMovementOriginType;
 import com.ia.app.domain.CatalogStockBalance;
 import com.ia.app.domain.ConversionFactorSource;
 import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.repository.CatalogConfigurationRepository;
 import com.ia.app.repository.CatalogMovementLineRepository;
 import com.ia.app.repository.CatalogMovementRepository;
 import com.ia.app.repository.CatalogStockBalanceRepository;
-import com.ia.app.repository.CatalogStockTypeRepository;
-import com.ia.app.repository.EmpresaRepository;
-import com.ia.app.repository.MovimentoConfigRepository;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceRow;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceScope;
+import com.ia.app.repository.CatalogStockWriteRepository.ConsolidatedDelta;
+import com.ia.app.repository.CatalogStockWriteRepository.NewBalance;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -71,73 +77,95 @@ public class CatalogMovementEngine {
 
   private record BalanceKey(Long agrupadorEmpresaId, Long estoqueTipoId, Long filialId) {}
 
+  private record IdempotencyRef(Long tenantId, String idempotencyKey) {}
+
+  private static final class BatchBalance {
+    private final Long id;
+    private BigDecimal quantidadeAtual;
+    private BigDecimal precoAtual;
+    private boolean touched;
+
+    private BatchBalance(BalanceRow row) {
+      this.id = row.id();
+      this.quantidadeAtual = row.quantidadeAtual();
+      this.precoAtual = row.precoAtual();
+    }
+  }
+
   private final CatalogMovementRepository movementRepository;
   private final CatalogMovementLineRepository lineRepository;
   private final CatalogStockBalanceRepository balanceRepository;
-  private final CatalogStockTypeRepository stockTypeRepository;
-  private final EmpresaRepository empresaRepository;
-  private final MovimentoConfigRepository movimentoConfigRepository;
+  private final MovimentoValidationCacheService validationCache;
+  private final CatalogStockWriteRepository stockWriteRepository;
+  private final CatalogConfigurationRepository configurationRepository;
 
   @Value("${movimento.config.enabled:true}")
   private boolean movimentoConfigEnabled;
 
+  @Value("${catalog.stock.atomic-delta-enabled:false}")
+  private boolean atomicDeltaEnabled;
+
   public CatalogMovementEngine(
       CatalogMovementRepository movementRepository,
       CatalogMovementLineRepository lineRepository,
       CatalogStockBalanceRepository balanceRepository,
-      CatalogStockTypeRepository stockTypeRepository,
-      EmpresaRepository empresaRepository,
-      MovimentoConfigRepository movimentoConfigRepository) {
+      MovimentoValidationCacheService validationCache,
+      CatalogStockWriteRepository stockWriteRepository,
+      CatalogConfigurationRepository configurationRepository) {
     this.movementRepository = movementRepository;
     this.lineRepository = lineRepository;
     this.balanceRepository = balanceRepository;
-    this.stockTypeRepository = stockTypeRepository;
-    this.empresaRepository = empresaRepository;
-    this.movimentoConfigRepository = movimentoConfigRepository;
+    this.validationCache = validationCache;
+    this.stockWriteRepository = stockWriteRepository;
+    this.configurationRepository = configurationRepository;
   }
 
   @Transactional
   public Result apply(Command command) {
     Command normalized = normalizeCommand(command);
+    List<Impact> orderedImpacts = orderImpacts(normalized.impacts());
 
-    Optional<CatalogMovement> existing = movementRepository.findByTenantIdAndIdempotencyKey(
-      normalized.tenantId(),
-      normalized.idempotencyKey());
-    if (existing.isPresent()) {
-      return new Result(existing.get().getId(), true);
-    }
-
-    validateMovimentoConfigCoverage(normalized);
-
-    CatalogMovement movement = buildMovementHeader(normalized);
+    // Valida antes do insert: comando invalido nao custa cabecalho nem deixa orfao para quem captura a excecao.
     try {
-      movement = movementRepository.saveAndFlush(movement);
-    } catch (DataIntegrityViolationException ex) {
-      Optional<CatalogMovement> duplicated = movementRepository.findByTenantIdAndIdempotencyKey(
+      validateMovimentoConfigCoverage(normalized);
+      validateImpacts(normalized, orderedImpacts);
+    } catch (IllegalArgumentException ex) {
+      // Replay de comando ja aplicado devolve o movimento original, mesmo que a configuracao tenha mudado depois.
+      Optional<CatalogMovement> existing = movementRepository.findByTenantIdAndIdempotencyKey(
         normalized.tenantId(),
         normalized.idempotencyKey());
-      if (duplicated.isPresent()) {
-        return new Result(duplicated.get().getId(), true);
+      if (existing.isPresent()) {
+        return new Result(existing.get().getId(), true);
       }
       throw ex;
     }
 
+    // Alteracoes JPA pendentes precisam chegar ao banco antes do insert via JDBC.
+    movementRepository.flush();
+    Optional<Long> inserted = stockWriteRepository.insertMovementIfAbsent(buildMovementHeader(normalized));
+    if (inserted.isEmpty()) {
+      return movementRepository.findByTenantIdAndIdempotencyKey(normalized.tenantId(), normalized.idempotencyKey())
+        .map(existing -> new Result(existing.getId(), true))
+        .orElseThrow(() -> new IllegalStateException("catalog_movement_idempotency_conflict"));
+    }
+    Long movementId = inserted.get();
+
+    if (isEscrowEnabled(normalized, new HashMap<>())) {
+      stockWriteRepository.insertLines(orderedImpacts.stream()
+        .map(impact -> buildEscrowLine(movementId, normalized, impact))
+        .toList());
+      return new Result(movementId, false);
+    }
+    if (atomicDeltaEnabled) {
+      stockWriteRepository.insertLines(applyAtomicDeltas(normalized, movementId, orderedImpacts));
+      applyConsolidatedDeltas(normalized, orderedImpacts);
+      return new Result(movementId, false);
+    }
+
     Map<BalanceKey, CatalogStockBalance> balances = new LinkedHashMap<>();
     List<CatalogMovementLine> lines = new ArrayList<>();
-    Map<String, Boolean> stockTypeCache = new HashMap<>();
-    Map<Long, Boolean> filialCache = new HashMap<>();
-
-    List<Impact> orderedImpacts = normalized.impacts().stream()
-      .sorted(Comparator
-        .comparing(Impact::agrupadorEmpresaId)
-        .thenComparing(Impact::estoqueTipoId)
-        .thenComparing(Impact::filialId)
-        .thenComparing(impact -> impact.metricType().name()))
-      .toList();
 
     for (Impact impact : orderedImpacts) {
-      validateImpact(normalized, impact, stockTypeCache, filialCache);
-
       BalanceKey key = new BalanceKey(impact.agrupadorEmpresaId(), impact.estoqueTipoId(), impact.filialId());
       CatalogStockBalance balance = balances.computeIfAbsent(key, ignored -> findOrCreateBalanceWithLock(normalized, key));
 
@@ -145,17 +173,7 @@ public class CatalogMovementEngine {
       BigDecimal after = before.add(impact.delta());
       applyMetric(balance, impact.metricType(), after);
 
-      CatalogMovementLine line = new CatalogMovementLine();
-      line.setMovementId(movement.getId());
-      line.setTenantId(normalized.tenantId());
-      line.setAgrupadorEmpresaId(impact.agrupadorEmpresaId());
-      line.setMetricType(impact.metricType());
-      line.setEstoqueTipoId(impact.estoqueTipoId());
-      line.setFilialId(impact.filialId());
-      line.setBeforeValue(before);
-      line.setDelta(impact.delta());
-      line.setAfterValue(after);
-      lines.add(line);
+      lines.add(buildLine(movementId, normalized, impact, before, after));
     }
 
     if (!lines.isEmpty()) {
@@ -164,26 +182,276 @@ public class CatalogMovementEngine {
     if (!balances.isEmpty()) {
       balanceRepository.saveAll(balances.values());
     }
+    applyConsolidatedDeltas(normalized, orderedImpacts);
 
-    return new Result(movement.getId(), false);
+    return new Result(movementId, false);
+  }
+
+  @Transactional
+  public List<Result> applyBatch(List<Command> commands) {
+    if (commands == null || commands.isEmpty()) {
+      return List.of();
+    }
+    List<Command> normalized = commands.stream().map(this::normalizeCommand).toList();
+
+    Map<IdempotencyRef, Long> existing = findExistingMovementIds(normalized);
+    Map<IdempotencyRef, Command> pending = new LinkedHashMap<>();
+    for (Command command : normalized) {
+      IdempotencyRef ref = new IdempotencyRef(command.tenantId(), command.idempotencyKey());
+      if (!existing.containsKey(ref)) {
+        pending.putIfAbsent(ref, command);
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      Map<String, Boolean> escrowCache = new HashMap<>();
+      Set<IdempotencyRef> escrowRefs = new HashSet<>();
+      for (Map.Entry<IdempotencyRef, Command> entry : pending.entrySet()) {
+        Command command = entry.getValue();
+        if (isEscrowEnabled(command, escrowCache)) {
+          escrowRefs.add(entry.getKey());
+        }
+        validateMovimentoConfigCoverage(command);
+        for (Impact impact : command.impacts()) {
+          validateImpact(command, impact);
+        }
+      }
+
+      // Saldos carregados via JPA nesta transacao precisam estar no banco antes do lock via JDBC.
+      balanceRepository.flush();
+      Map<BalanceScope, BatchBalance> balances = lockBatchBalances(pending.entrySet().stream()
+        .filter(entry -> !escrowRefs.contains(entry.getKey()))
+        .map(Map.Entry::getValue)
+        .toList());
+
+      Map<IdempotencyRef, Long> concurrent = findExistingMovementIds(List.copyOf(pending.values()));
+      existing.putAll(concurrent);
+      concurrent.keySet().forEach(pending::remove);
+
+      if (!pending.isEmpty()) {
+        existing.putAll(writeBatch(List.copyOf(pending.values()), balances, escrowRefs));
+      }
+    }
+
+    Set<IdempotencyRef> created = new HashSet<>(pending.keySet());
+    List<Result> results = new ArrayList<>(normalized.size());
+    for (Command command : normalized) {
+      IdempotencyRef ref = new IdempotencyRef(command.tenantId(), command.idempotencyKey());
+      results.add(new Result(existing.get(ref), !created.remove(ref)));
+    }
+    return results;
+  }
+
+  private Map<IdempotencyRef, Long> findExistingMovementIds(List<Command> commands) {
+    Map<Long, Set<String>> keysByTenant = new LinkedHashMap<>();
+    for (Command command : commands) {
+      keysByTenant.computeIfAbsent(command.tenantId(), ignored -> new LinkedHashSet<>()).add(command.idempotencyKey());
+    }
+    Map<IdempotencyRef, Long> found = new HashMap<>();
+    keysByTenant.forEach((tenantId, keys) -> movementRepository
+      .findAllByTenantIdAndIdempotencyKeyIn(tenantId, keys)
+      .forEach(movement -> found.put(new IdempotencyRef(tenantId, movement.getIdempotencyKey()), movement.getId())));
+    return found;
+  }
+
+  private Map<BalanceScope, BatchBalance> lockBatchBalances(Collection<Command> commands) {
+    Map<BalanceScope, Long> configurationByScope = new LinkedHashMap<>();
+    for (Command command : commands) {
+      for (Impact impact : command.impacts()) {
+        configurationByScope.putIfAbsent(balanceScope(command, impact), command.catalogConfigurationId());
+      }
+    }
+
+    Map<BalanceScope, BatchBalance> balances = new HashMap<>();
+    stockWriteRepository.lockOrCreateBalances(configurationByScope.entrySet().stream()
+        .map(entry -> new NewBalance(entry.getKey(), entry.getValue()))
+        .toList())
+      .forEach(row -> balances.put(row.scope(), new BatchBalance(row)));
+    return balances;
+  }
+
+  private Map<IdempotencyRef, Long> writeBatch(
+      List<Command> commands,
+      Map<BalanceScope, BatchBalance> balances,
+      Set<IdempotencyRef> escrowRefs) {
+    List<Long> movementIds = stockWriteRepository.insertMovements(
+      commands.stream().map(this::buildMovementHeader).toList());
+
+    Map<IdempotencyRef, Long> created = new HashMap<>();
+    List<CatalogMovementLine> lines = new ArrayList<>();
+    List<ConsolidatedDelta> consolidatedDeltas = new ArrayList<>();
+    for (int i = 0; i < commands.size(); i++) {
+      Command command = commands.get(i);
+      Long movementId = movementIds.get(i);
+      IdempotencyRef ref = new IdempotencyRef(command.tenantId(), command.idempotencyKey());
+      created.put(ref, movementId);
+
+      if (escrowRefs.contains(ref)) {
+        for (Impact impact : orderImpacts(command.impacts())) {
+          lines.add(buildEscrowLine(movementId, command, impact));
+        }
+        continue;
+      }
+
+      for (Impact impact : orderImpacts(command.impacts())) {
+        BatchBalance balance = balances.get(balanceScope(command, impact));
+        if (balance == null) {
+          throw new IllegalStateException("catalog_stock_balance_not_locked");
+        }
+        boolean quantidade = impact.metricType() == CatalogMovementMetricType.QUANTIDADE;
+        BigDecimal before = quantidade ? balance.quantidadeAtual : balance.precoAtual;
+        BigDecimal after = before.add(impact.delta()).setScale(6, java.math.RoundingMode.HALF_UP);
+        if (quantidade) {
+          balance.quantidadeAtual = after;
+        } else {
+          balance.precoAtual = after;
+        }
+        balance.touched = true;
+        lines.add(buildLine(movementId, command, impact, before, after));
+        consolidatedDeltas.add(consolidatedDelta(command, impact));
+      }
+    }
+
+    stockWriteRepository.insertLines(lines);
+    stockWriteRepository.updateBalances(balances.entrySet().stream()
+      .filter(entry -> entry.getValue().touched)
+      .map(entry -> new BalanceRow(
+        entry.getValue().id,
+        entry.getKey(),
+        entry.getValue().quantidadeAtual,
+        entry.getValue().precoAtual))
+      .toList());
+    stockWriteRepository.applyConsolidatedDeltas(consolidatedDeltas);
+    return created;
+  }
+
+  private void validateImpacts(Command command, List<Impact> impacts) {
+    for (Impact impact : impacts) {
+      validateImpact(command, impact);
+    }
+  }
+
+  private List<CatalogMovementLine> applyAtomicDeltas(Command command, Long movementId, List<Impact> orderedImpacts) {
+    Map<BalanceScope, List<Impact>> impactsByScope = new LinkedHashMap<>();
+    for (Impact impact : orderedImpacts) {
+      impactsByScope.computeIfAbsent(balanceScope(command, impact), ignored -> new ArrayList<>()).add(impact);
+    }
+
+    List<CatalogMovementLine> lines = new ArrayList<>(orderedImpacts.size());
+    impactsByScope.forEach((scope, impacts) -> {
+      BigDecimal quantidadeDelta = sumDeltas(impacts, CatalogMovementMetricType.QUANTIDADE);
+      BigDecimal precoDelta = sumDeltas(impacts, CatalogMovementMetricType.PRECO);
+      BalanceRow after = stockWriteRepository.applyDelta(
+        new NewBalance(scope, command.catalogConfigurationId()),
+        quantidadeDelta,
+        precoDelta);
+
+      BigDecimal quantidade = after.quantidadeAtual().subtract(quantidadeDelta);
+      BigDecimal preco = after.precoAtual().subtract(precoDelta);
+      for (Impact impact : impacts) {
+        boolean isQuantidade = impact.metricType() == CatalogMovementMetricType.QUANTIDADE;
+        BigDecimal before = isQuantidade ? quantidade : preco;
+        BigDecimal value = before.add(impact.delta());
+        if (isQuantidade) {
+          quantidade = value;
+        } else {
+          preco = value;
+        }
+        lines.add(buildLine(movementId, command, impact, before, value));
+      }
+    });
+    return lines;
+  }
+
+  // Consolidado por tipo de estoque acompanha o saldo por filial na mesma transacao.
+  private void applyConsolidatedDeltas(Command command, List<Impact> impacts) {
+    stockWriteRepository.applyConsolidatedDeltas(impacts.stream()
+      .map(impact -> consolidatedDelta(command, impact))
+      .toList());
+  }
+
+  private ConsolidatedDelta consolidatedDelta(Command command, Impact impact) {
+    return ConsolidatedDelta.of(
+      balanceScope(command, impact),
+      command.catalogConfigurationId(),
+      impact.metricType(),
+      impact.delta());
+  }
+
+  private BigDecimal sumDeltas(List<Impact> impacts, CatalogMovementMetricType metricType) {
+    return impacts.stream()
+      .filter(impact -> impact.metricType() == metricType)
+      .map(Impact::delta)
+      .reduce(BigDecimal.ZERO.setScale(6, java.math.RoundingMode.HALF_UP), BigDecimal::add);
+  }
+
+  private BalanceScope balanceScope(Command command, Impact impact) {
+    return new BalanceScope(
+      command.tenantId(),
+      command.catalogType(),
+      command.catalogoId(),
+      impact.agrupadorEmpresaId(),
+      impact.estoqueTipoId(),
+      impact.filialId());
+  }
+
+  private List<Impact> orderImpacts(List<Impact> impacts) {
+    return impacts.stream()
+      .sorted(Comparator
+        .comparing(Impact::agrupadorEmpresaId)
+        .thenComparing(Impact::estoqueTipoId)
+        .thenComparing(Impact::filialId)
+        .thenComparing(impact -> impact.metricType().name()))
+      .toList();
+  }
+
+  private CatalogMovementLine buildLine(
+      Long movementId,
+      Command command,
+      Impact impact,
+      BigDecimal before,
+      BigDecimal after) {
+    CatalogMovementLine line = new CatalogMovementLine();
+    line.setMovementId(movementId);
+    line.setTenantId(command.tenantId());
+    line.setAgrupadorEmpresaId(impact.agrupadorEmpresaId());
+    line.setMetricType(impact.metricType());
+    line.setEstoqueTipoId(impact.estoqueTipoId());
+    line.setFilialId(impact.filialId());
+    line.setBeforeValue(before);
+    line.setDelta(impact.delta());
+    line.setAfterValue(after);
+    line.setDataHoraMovimentacao(command.dataHoraMovimentacao());
+    return line;
+  }
+
+  private CatalogMovementLine buildEscrowLine(Long movementId, Command command, Impact impact) {
+    BigDecimal zero = BigDecimal.ZERO.setScale(6, java.math.RoundingMode.HALF_UP);
+    CatalogMovementLine line = buildLine(movementId, command, impact, zero, zero);
+    line.setEscrowPending(true);
+    return line;
+  }
+
+  private boolean isEscrowEnabled(Command command, Map<String, Boolean> escrowCache) {
+    return escrowCache.computeIfAbsent(
+      command.tenantId() + "|" + command.catalogConfigurationId(),
+      ignored -> configurationRepository.existsByIdAndTenantIdAndStockEscrowEnabledTrue(
+        command.catalogConfigurationId(),
+        command.tenantId()));
   }
 
   private void validateMovimentoConfigCoverage(Command command) {
     if (!movimentoConfigEnabled) {
       return;
     }
-    Set<Long> empresaIds = command.impacts().stream()
+    Set<Long> coveredEmpresas = validationCache.globalCoverage(command.tenantId())
+      .getOrDefault(MovimentoTipo.MOVIMENTO_ESTOQUE, Set.of());
+    boolean covered = command.impacts().stream()
       .map(Impact::filialId)
       .filter(value -> value != null && value > 0)
-      .collect(java.util.stream.Collectors.toCollection(java.util.LinkedHashSet::new));
-    for (Long empresaId : empresaIds) {
-      boolean covered = movimentoConfigRepository.existsActiveGlobalByTenantAndTipoAndEmpresa(
-        command.tenantId(),
-        MovimentoTipo.MOVIMENTO_ESTOQUE,
-        empresaId);
-      if (!covered) {
-        throw new IllegalArgumentException("movimento_config_nao_encontrada");
-      }
+      .allMatch(coveredEmpresas::contains);
+    if (!covered) {
+      throw new IllegalArgumentException("movimento_config_nao_encontrada");
     }
   }
 
@@ -354,34 +622,15 @@ public class CatalogMovementEngine {
     return movement;
   }
 
-  private void validateImpact(
-      Command command,
-      Impact impact,
-      Map<String, Boolean> stockTypeCache,
-      Map<Long, Boolean> filialCache) {
-    String stockTypeKey = impact.estoqueTipoId()
-      + "|" + command.tenantId()
-      + "|" + command.catalogConfigurationId()
-      + "|" + impact.agrupadorEmpresaId();
-
-    if (!stockTypeCache.containsKey(stockTypeKey)) {
-      boolean validStockType = stockTypeRepository
-        .findByIdAndTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaIdAndActiveTrue(
-          impact.estoqueTipoId(),
-          command.tenantId(),
-          command.catalogConfigurationId(),
-          impact.agrupadorEmpresaId())
-        .isPresent();
-      stockTypeCache.put(stockTypeKey, validStockType);
-    }
-    if (!Boolean.TRUE.equals(stockTypeCache.get(stockTypeKey))) {
+  private void validateImpact(Command command, Impact impact) {
+    Set<Long> stockTypeIds = validationCache.activeStockTypeIds(
+      command.tenantId(),
+      command.catalogConfigurationId(),
+      impact.agrupadorEmpresaId());
+    if (!stockTypeIds.contains(impact.estoqueTipoId())) {
       throw new IllegalArgumentException("catalog_stock_type_not_found");
     }
-
-    if (!filialCache.containsKey(impact.filialId())) {
-      filialCache.put(impact.filialId(), empresaRepository.existsByIdAndTenantId(impact.filialId(), command.tenantId()));
-    }
-    if (!Boolean.TRUE.equals(filialCache.get(impact.filialId()))) {
+    if (!validationCache.empresaIds(command.tenantId()).contains(impact.filialId())) {
       throw new IllegalArgumentException("catalog_stock_filial_not_found");
     }
   }
@@ -0,0 +1,110 @@
+package com.ia.app.service;
+
+import com.ia.app.repository.CatalogMovementPartitionRepository;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class CatalogMovementPartitionMaintenanceService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogMovementPartitionMaintenanceService.class);
+
+  private final CatalogMovementPartitionRepository partitionRepository;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+  private final Clock clock = Clock.systemUTC();
+
+  @Value("${catalog.stock.partitions.maintenance-enabled:true}")
+  private boolean maintenanceEnabled;
+
+  @Value("${catalog.stock.partitions.months-ahead:3}")
+  private int monthsAhead;
+
+  @Value("${catalog.stock.partitions.retention-months:0}")
+  private int retentionMonths;
+
+  // Enquanto um cliente pode repetir um comando, a chave de idempotencia dele tem que existir;
+  // o detach de um mes apaga as chaves daquele mes junto com os movimentos.
+  @Value("${catalog.stock.partitions.idempotency-window-months:12}")
+  private int idempotencyWindowMonths;
+
+  public CatalogMovementPartitionMaintenanceService(
+      CatalogMovementPartitionRepository partitionRepository,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager) {
+    this.partitionRepository = partitionRepository;
+    this.jobLockService = jobLockService;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+  }
+
+  @Scheduled(cron = "${catalog.stock.partitions.maintenance-cron:0 30 2 * * *}", zone = "UTC")
+  public void maintainScheduled() {
+    if (!maintenanceEnabled) {
+      return;
+    }
+    try {
+      jobLockService.runExclusive("catalog-movement-partitions", () -> {
+        List<YearMonth> created = ensureFuturePartitions();
+        if (!created.isEmpty()) {
+          log.info("Catalog movement partitions created for {}", created);
+        }
+        if (retentionMonths > 0) {
+          List<YearMonth> detached = detachOlderThan(retentionMonths);
+          if (!detached.isEmpty()) {
+            log.info("Catalog movement partitions detached for {}", detached);
+          }
+        }
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Catalog movement partition maintenance failed: {}", ex.getMessage());
+    }
+  }
+
+  public List<YearMonth> ensureFuturePartitions() {
+    if (!partitionRepository.isPartitioned()) {
+      return List.of();
+    }
+    YearMonth current = YearMonth.now(clock);
+    List<YearMonth> created = new ArrayList<>();
+    for (int offset = 0; offset <= Math.max(monthsAhead, 0); offset++) {
+      YearMonth month = current.plusMonths(offset);
+      Boolean done = transactionTemplate.execute(status -> partitionRepository.createMonthlyPartitions(month));
+      if (Boolean.TRUE.equals(done)) {
+        created.add(month);
+      }
+    }
+    return created;
+  }
+
+  public List<YearMonth> detachOlderThan(int months) {
+    if (months <= 0) {
+      throw new IllegalArgumentException("catalog_movement_partition_retention_invalid");
+    }
+    if (months < idempotencyWindowMonths) {
+      throw new IllegalArgumentException("catalog_movement_partition_retention_below_idempotency_window");
+    }
+    if (!partitionRepository.isPartitioned()) {
+      return List.of();
+    }
+    YearMonth cutoff = YearMonth.now(clock).minusMonths(months);
+    List<YearMonth> detached = new ArrayList<>();
+    for (YearMonth month : partitionRepository.findMonthlyPartitions()) {
+      if (!month.isBefore(cutoff)) {
+        continue;
+      }
+      // Cada mes em sua transacao: uma falha nao desfaz os detaches anteriores.
+      transactionTemplate.executeWithoutResult(status -> partitionRepository.detachMonthlyPartitions(month));
+      detached.add(month);
+    }
+    return detached;
+  }
+}
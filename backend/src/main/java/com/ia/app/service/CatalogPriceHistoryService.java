@@ -4,11 +4,15 @@ import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogPriceType;
 import com.ia.app.domain.PriceChangeLog;
 import com.ia.app.domain.PriceChangeSourceType;
+import com.ia.app.dto.CatalogPriceHistoryCursorResponse;
 import com.ia.app.dto.CatalogPriceHistoryResponse;
 import com.ia.app.repository.PriceChangeLogRepository;
 import com.ia.app.tenant.TenantContext;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,10 +25,16 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CatalogPriceHistoryService {
 
+  private record HistoryCursor(Instant changedAt, Long id) {}
+
   private final PriceChangeLogRepository repository;
+  private final PriceNameCacheService nameCacheService;
 
-  public CatalogPriceHistoryService(PriceChangeLogRepository repository) {
+  public CatalogPriceHistoryService(
+      PriceChangeLogRepository repository,
+      PriceNameCacheService nameCacheService) {
     this.repository = repository;
+    this.nameCacheService = nameCacheService;
   }
 
   @Transactional(readOnly = true)
@@ -38,17 +48,85 @@ public class CatalogPriceHistoryService {
       Instant fromDate,
       Instant toDate,
       Pageable pageable) {
-    if (catalogType == null) {
-      throw new IllegalArgumentException("sale_price_catalog_type_required");
-    }
-    if (catalogItemId == null || catalogItemId <= 0) {
-      throw new IllegalArgumentException("sale_price_catalog_item_required");
-    }
+    validateItem(catalogType, catalogItemId);
     Long tenantId = requireTenant();
-    String normalizedText = normalizeOptionalText(text);
     Pageable effectivePageable = normalizePageable(pageable);
+    Specification<PriceChangeLog> specification = buildSpecification(
+      tenantId,
+      catalogType,
+      catalogItemId,
+      sourceType,
+      priceType,
+      priceBookId,
+      normalizeOptionalText(text),
+      fromDate,
+      toDate);
+
+    return repository.findAll(specification, effectivePageable).map(item -> toResponse(tenantId, item));
+  }
+
+  // Paginacao por chave (changed_at, id): custo constante em qualquer profundidade e sem count.
+  @Transactional(readOnly = true)
+  public CatalogPriceHistoryCursorResponse listByItemByCursor(
+      CatalogConfigurationType catalogType,
+      Long catalogItemId,
+      PriceChangeSourceType sourceType,
+      CatalogPriceType priceType,
+      Long priceBookId,
+      String text,
+      Instant fromDate,
+      Instant toDate,
+      String cursor,
+      Integer size) {
+    validateItem(catalogType, catalogItemId);
+    Long tenantId = requireTenant();
+    int effectiveSize = size == null ? 20 : Math.min(Math.max(size, 1), 200);
+    HistoryCursor after = decodeCursor(cursor);
+
+    Specification<PriceChangeLog> specification = buildSpecification(
+      tenantId,
+      catalogType,
+      catalogItemId,
+      sourceType,
+      priceType,
+      priceBookId,
+      normalizeOptionalText(text),
+      fromDate,
+      toDate);
+    if (after != null) {
+      specification = specification.and((root, query, cb) -> cb.or(
+        cb.lessThan(root.get("changedAt"), after.changedAt()),
+        cb.and(
+          cb.equal(root.get("changedAt"), after.changedAt()),
+          cb.lessThan(root.get("id"), after.id()))));
+    }
+
+    // Busca um registro a mais para saber se existe proxima pagina sem executar count.
+    List<PriceChangeLog> fetched = repository.findBy(specification, query -> query
+      .sortBy(Sort.by(Sort.Order.desc("changedAt"), Sort.Order.desc("id")))
+      .limit(effectiveSize + 1)
+      .all());
+    boolean hasMore = fetched.size() > effectiveSize;
+    List<PriceChangeLog> rows = hasMore ? fetched.subList(0, effectiveSize) : fetched;
+    PriceChangeLog last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+    return new CatalogPriceHistoryCursorResponse(
+      rows.stream().map(item -> toResponse(tenantId, item)).toList(),
+      effectiveSize,
+      hasMore,
+      hasMore ? encodeCursor(last) : null);
+  }
 
-    Specification<PriceChangeLog> specification = (root, query, cb) -> {
+  private Specification<PriceChangeLog> buildSpecification(
+      Long tenantId,
+      CatalogConfigurationType catalogType,
+      Long catalogItemId,
+      PriceChangeSourceType sourceType,
+      CatalogPriceType priceType,
+      Long priceBookId,
+      String normalizedText,
+      Instant fromDate,
+      Instant toDate) {
+    return (root, query, cb) -> {
       List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
       predicates.add(cb.equal(root.get("tenantId"), tenantId));
       predicates.add(cb.equal(root.get("catalogType"), catalogType));
@@ -76,22 +154,57 @@ public class CatalogPriceHistoryService {
       }
       return cb.and(predicates.toArray(jakarta.persistence.criteria.Predicate[]::new));
     };
+  }
+
+  // priceBookName e o nome gravado na alteracao; a variacao sai do cache de nomes com o nome atual.
+  private CatalogPriceHistoryResponse toResponse(Long tenantId, PriceChangeLog item) {
+    return new CatalogPriceHistoryResponse(
+      item.getId(),
+      item.getAction(),
+      item.getSourceType(),
+      item.getOriginType(),
+      item.getOriginId(),
+      item.getPriceType(),
+      item.getOldPriceFinal(),
+      item.getNewPriceFinal(),
+      item.getPriceBookId(),
+      item.getPriceBookName(),
+      item.getVariantId(),
+      nameCacheService.variantName(tenantId, item.getVariantId()),
+      item.getChangedBy(),
+      item.getChangedAt());
+  }
+
+  private void validateItem(CatalogConfigurationType catalogType, Long catalogItemId) {
+    if (catalogType == null) {
+      throw new IllegalArgumentException("sale_price_catalog_type_required");
+    }
+    if (catalogItemId == null || catalogItemId <= 0) {
+      throw new IllegalArgumentException("sale_price_catalog_item_required");
+    }
+  }
+
+  private HistoryCursor decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('|');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("catalog_price_history_cursor_invalid");
+      }
+      return new HistoryCursor(
+        Instant.parse(decoded.substring(0, separator)),
+        Long.parseLong(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      throw new IllegalArgumentException("catalog_price_history_cursor_invalid");
+    }
+  }
 
-    return repository.findAll(specification, effectivePageable)
-      .map(item -> new CatalogPriceHistoryResponse(
-        item.getId(),
-        item.getAction(),
-        item.getSourceType(),
-        item.getOriginType(),
-        item.getOriginId(),
-        item.getPriceType(),
-        item.getOldPriceFinal(),
-        item.getNewPriceFinal(),
-        item.getPriceBookId(),
-        item.getPriceBookName(),
-        item.getVariantId(),
-        item.getChangedBy(),
-        item.getChangedAt()));
+  private String encodeCursor(PriceChangeLog item) {
+    String raw = item.getChangedAt() + "|" + item.getId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
   }
 
   private Pageable normalizePageable(Pageable pageable) {
@@ -0,0 +1,389 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceRecomputeJob;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.dto.CatalogPriceRecomputeJobResponse;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository.RecomputedPrice;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.CatalogPriceRecomputeJobRepository;
+import com.ia.app.repository.CatalogProductRepository;
+import com.ia.app.repository.CatalogServiceItemRepository;
+import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Recalcula os precos gravados de todos os itens do agrupador depois que uma regra muda.
+// Cada lote grava precos, historico e checkpoint (last_item_id) na mesma transacao, entao um restart
+// retoma do ultimo lote confirmado quando a varredura encontra o job sem heartbeat recente.
+@Service
+public class CatalogPriceRecomputeJobService implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogPriceRecomputeJobService.class);
+
+  public static final String STATUS_PENDING = "PENDING";
+  public static final String STATUS_RUNNING = "RUNNING";
+  public static final String STATUS_COMPLETED = "COMPLETED";
+  public static final String STATUS_FAILED = "FAILED";
+  public static final String STATUS_SUPERSEDED = "SUPERSEDED";
+
+  private static final List<String> ACTIVE_STATUSES = List.of(STATUS_PENDING, STATUS_RUNNING);
+  private static final int MAX_ERROR_LENGTH = 255;
+
+  private record ChunkResult(List<RecomputedPrice> prices, int skippedItems) {}
+
+  private final CatalogPriceRecomputeJobRepository jobRepository;
+  private final CatalogProductRepository productRepository;
+  private final CatalogServiceItemRepository serviceItemRepository;
+  private final CatalogItemPriceRepository itemPriceRepository;
+  private final CatalogItemPriceBulkWriteRepository bulkWriteRepository;
+  private final CatalogPriceRuleService ruleService;
+  private final CatalogItemPriceService itemPriceService;
+  private final ResolvedSalePriceService resolvedSalePriceService;
+  private final PriceChangeLogService priceChangeLogService;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+  private final ThreadPoolExecutor executor;
+  private final ForkJoinPool computePool;
+  private final Set<Long> runningJobIds = ConcurrentHashMap.newKeySet();
+
+  @Value("${catalog.price-recompute.chunk-size:500}")
+  private int chunkSize;
+
+  @Value("${catalog.price-recompute.stale-after-minutes:10}")
+  private long staleAfterMinutes;
+
+  public CatalogPriceRecomputeJobService(
+      CatalogPriceRecomputeJobRepository jobRepository,
+      CatalogProductRepository productRepository,
+      CatalogServiceItemRepository serviceItemRepository,
+      CatalogItemPriceRepository itemPriceRepository,
+      CatalogItemPriceBulkWriteRepository bulkWriteRepository,
+      CatalogPriceRuleService ruleService,
+      CatalogItemPriceService itemPriceService,
+      ResolvedSalePriceService resolvedSalePriceService,
+      PriceChangeLogService priceChangeLogService,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager,
+      @Value("${catalog.price-recompute.workers:1}") int workers,
+      @Value("${catalog.price-recompute.queue-capacity:50}") int queueCapacity,
+      @Value("${catalog.price-recompute.parallelism:0}") int parallelism) {
+    this.jobRepository = jobRepository;
+    this.productRepository = productRepository;
+    this.serviceItemRepository = serviceItemRepository;
+    this.itemPriceRepository = itemPriceRepository;
+    this.bulkWriteRepository = bulkWriteRepository;
+    this.ruleService = ruleService;
+    this.itemPriceService = itemPriceService;
+    this.resolvedSalePriceService = resolvedSalePriceService;
+    this.priceChangeLogService = priceChangeLogService;
+    this.jobLockService = jobLockService;
+    // O evento chega depois do commit da regra; o job precisa da propria transacao.
+    this.transactionTemplate = new TransactionTemplate(txManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    int poolSize = Math.max(workers, 1);
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+      poolSize,
+      poolSize,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+      runnable -> {
+        Thread thread = new Thread(runnable, "price-recompute-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    this.computePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onRulesChanged(CatalogPriceRulesChangedEvent event) {
+    submit(event);
+  }
+
+  public CatalogPriceRecomputeJobResponse submit(CatalogPriceRulesChangedEvent event) {
+    String requestedBy = priceChangeLogService.resolveChangedBy();
+    CatalogPriceRecomputeJob job = transactionTemplate.execute(status -> {
+      // Um job anterior do mesmo agrupador usaria regras velhas; o novo cobre todos os itens de novo.
+      for (CatalogPriceRecomputeJob active : jobRepository.findAllByTenantIdAndCatalogConfigurationByGroupIdAndStatusIn(
+          event.tenantId(),
+          event.catalogConfigurationByGroupId(),
+          ACTIVE_STATUSES)) {
+        active.setStatus(STATUS_SUPERSEDED);
+        active.setFinishedAt(Instant.now());
+        jobRepository.save(active);
+      }
+      CatalogPriceRecomputeJob created = new CatalogPriceRecomputeJob();
+      created.setTenantId(event.tenantId());
+      created.setCatalogConfigurationByGroupId(event.catalogConfigurationByGroupId());
+      created.setCatalogConfigurationId(event.catalogConfigurationId());
+      created.setAgrupadorId(event.agrupadorId());
+      created.setCatalogType(event.catalogType());
+      created.setStatus(STATUS_PENDING);
+      created.setRequestedBy(requestedBy);
+      created.setCreatedAt(Instant.now());
+      return jobRepository.save(created);
+    });
+    dispatch(job.getId());
+    return toResponse(job);
+  }
+
+  public CatalogPriceRecomputeJobResponse latest(Long catalogConfigurationByGroupId) {
+    Long tenantId = requireTenant();
+    return jobRepository.findFirstByTenantIdAndCatalogConfigurationByGroupIdOrderByIdDesc(tenantId, catalogConfigurationByGroupId)
+      .map(this::toResponse)
+      .orElseThrow(() -> new EntityNotFoundException("catalog_price_recompute_job_not_found"));
+  }
+
+  @Scheduled(
+    fixedDelayString = "${catalog.price-recompute.resume-interval-ms:60000}",
+    initialDelayString = "${catalog.price-recompute.resume-interval-ms:60000}")
+  public void resumeStaleScheduled() {
+    try {
+      jobLockService.runExclusive("catalog-price-recompute-resume", () -> {
+        int resumed = resumeStale(Instant.now());
+        if (resumed > 0) {
+          log.info("Resumed {} catalog price recompute jobs", resumed);
+        }
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Catalog price recompute resume failed: {}", ex.getMessage());
+    }
+  }
+
+  // Jobs sem heartbeat recente ficaram orfaos (restart ou fila cheia); o claim condicional evita dois nos no mesmo job.
+  public int resumeStale(Instant now) {
+    Instant staleBefore = now.minus(Duration.ofMinutes(staleAfterMinutes));
+    int resumed = 0;
+    for (Long jobId : jobRepository.findStaleIds(ACTIVE_STATUSES, staleBefore)) {
+      if (runningJobIds.contains(jobId)) {
+        continue;
+      }
+      Integer claimed = transactionTemplate.execute(status ->
+        jobRepository.claimStale(jobId, ACTIVE_STATUSES, staleBefore, now));
+      if (claimed != null && claimed == 1) {
+        dispatch(jobId);
+        resumed++;
+      }
+    }
+    return resumed;
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+    computePool.shutdownNow();
+  }
+
+  private void dispatch(Long jobId) {
+    try {
+      executor.execute(() -> run(jobId));
+    } catch (RejectedExecutionException ex) {
+      // Fica PENDING; a varredura de jobs parados pega depois.
+      log.warn("Catalog price recompute job {} queued for later: executor is full", jobId);
+    }
+  }
+
+  private void run(Long jobId) {
+    if (!runningJobIds.add(jobId)) {
+      return;
+    }
+    try {
+      Boolean started = transactionTemplate.execute(status -> start(jobId));
+      if (!Boolean.TRUE.equals(started)) {
+        return;
+      }
+      boolean more = true;
+      while (more) {
+        more = Boolean.TRUE.equals(transactionTemplate.execute(status -> processNextChunk(jobId)));
+      }
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      // Outro job do mesmo agrupador substituiu este no meio do lote; o lote foi desfeito.
+      log.debug("Catalog price recompute job {} superseded while running", jobId);
+    } catch (RuntimeException ex) {
+      log.warn("Catalog price recompute job {} failed: {}", jobId, ex.getMessage());
+      fail(jobId, ex.getMessage());
+    } finally {
+      runningJobIds.remove(jobId);
+    }
+  }
+
+  private boolean start(Long jobId) {
+    CatalogPriceRecomputeJob job = jobRepository.findById(jobId).orElse(null);
+    if (job == null || !ACTIVE_STATUSES.contains(job.getStatus())) {
+      return false;
+    }
+    Instant now = Instant.now();
+    job.setStatus(STATUS_RUNNING);
+    job.setHeartbeatAt(now);
+    if (job.getStartedAt() == null) {
+      job.setStartedAt(now);
+    }
+    if (job.getTotalItems() == null) {
+      job.setTotalItems(countItems(job));
+    }
+    jobRepository.save(job);
+    return true;
+  }
+
+  private boolean processNextChunk(Long jobId) {
+    CatalogPriceRecomputeJob job = jobRepository.findById(jobId).orElse(null);
+    if (job == null || !STATUS_RUNNING.equals(job.getStatus())) {
+      return false;
+    }
+    List<Long> itemIds = findItemIds(job);
+    if (itemIds.isEmpty()) {
+      job.setStatus(STATUS_COMPLETED);
+      job.setFinishedAt(Instant.now());
+      job.setHeartbeatAt(job.getFinishedAt());
+      jobRepository.save(job);
+      return false;
+    }
+
+    // Regras conferidas a cada lote: uma troca no meio do job gera outro job, mas o lote atual ja usa a mais nova.
+    CatalogPriceRuleEvaluator evaluator = ruleService.evaluator(job.getTenantId(), job.getCatalogConfigurationByGroupId());
+    Map<Long, List<CatalogItemPrice>> rowsByItemId = new LinkedHashMap<>();
+    for (CatalogItemPrice row : itemPriceRepository.findAllWithLockByTenantIdAndCatalogTypeAndCatalogItemIdInOrderByIdAsc(
+        job.getTenantId(),
+        job.getCatalogType(),
+        itemIds)) {
+      rowsByItemId.computeIfAbsent(row.getCatalogItemId(), ignored -> new ArrayList<>()).add(row);
+    }
+
+    ChunkResult result = recompute(evaluator, rowsByItemId.values());
+    int logged = bulkWriteRepository.applyRecomputed(job.getTenantId(), job.getRequestedBy(), result.prices());
+    Map<Long, BigDecimal> saleBaseByItemId = new LinkedHashMap<>();
+    for (RecomputedPrice price : result.prices()) {
+      if (price.priceType() == CatalogPriceType.SALE_BASE && price.oldPriceFinal().compareTo(price.priceFinal()) != 0) {
+        saleBaseByItemId.put(price.catalogItemId(), price.priceFinal());
+      }
+    }
+    resolvedSalePriceService.refreshCatalogBases(job.getTenantId(), job.getCatalogType(), saleBaseByItemId);
+
+    job.setLastItemId(itemIds.get(itemIds.size() - 1));
+    job.setItemsProcessed(job.getItemsProcessed() + itemIds.size());
+    job.setPricesChanged(job.getPricesChanged() + logged);
+    job.setHeartbeatAt(Instant.now());
+    if (result.skippedItems() > 0) {
+      log.warn("Catalog price recompute job {} skipped {} items with invalid prices", jobId, result.skippedItems());
+    }
+    jobRepository.save(job);
+    return true;
+  }
+
+  // Calculo puro por item no pool limitado; itens com preco invalido (ex.: negativo) ficam como estao.
+  private ChunkResult recompute(CatalogPriceRuleEvaluator evaluator, Collection<List<CatalogItemPrice>> items) {
+    AtomicInteger skipped = new AtomicInteger();
+    try {
+      List<RecomputedPrice> prices = computePool.submit(() -> items.parallelStream()
+          .flatMap(rows -> {
+            try {
+              return itemPriceService.recomputeExisting(evaluator, rows).stream();
+            } catch (IllegalArgumentException ex) {
+              skipped.incrementAndGet();
+              return Stream.<RecomputedPrice>empty();
+            }
+          })
+          .toList())
+        .get();
+      return new ChunkResult(prices, skipped.get());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("catalog_price_recompute_interrupted", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("catalog_price_recompute_failed", cause);
+    }
+  }
+
+  private List<Long> findItemIds(CatalogPriceRecomputeJob job) {
+    PageRequest page = PageRequest.of(0, Math.max(chunkSize, 1));
+    return job.getCatalogType() == CatalogConfigurationType.PRODUCTS
+      ? productRepository.findIdsAfter(
+        job.getTenantId(), job.getCatalogConfigurationId(), job.getAgrupadorId(), job.getLastItemId(), page)
+      : serviceItemRepository.findIdsAfter(
+        job.getTenantId(), job.getCatalogConfigurationId(), job.getAgrupadorId(), job.getLastItemId(), page);
+  }
+
+  private long countItems(CatalogPriceRecomputeJob job) {
+    return job.getCatalogType() == CatalogConfigurationType.PRODUCTS
+      ? productRepository.countByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaId(
+        job.getTenantId(), job.getCatalogConfigurationId(), job.getAgrupadorId())
+      : serviceItemRepository.countByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaId(
+        job.getTenantId(), job.getCatalogConfigurationId(), job.getAgrupadorId());
+  }
+
+  private void fail(Long jobId, String errorMessage) {
+    transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId)
+      .filter(job -> ACTIVE_STATUSES.contains(job.getStatus()))
+      .ifPresent(job -> {
+        job.setStatus(STATUS_FAILED);
+        job.setFinishedAt(Instant.now());
+        if (errorMessage != null) {
+          job.setErrorMessage(errorMessage.length() > MAX_ERROR_LENGTH
+            ? errorMessage.substring(0, MAX_ERROR_LENGTH)
+            : errorMessage);
+        }
+        jobRepository.save(job);
+      }));
+  }
+
+  private CatalogPriceRecomputeJobResponse toResponse(CatalogPriceRecomputeJob job) {
+    return new CatalogPriceRecomputeJobResponse(
+      job.getId(),
+      job.getCatalogType(),
+      job.getAgrupadorId(),
+      job.getStatus(),
+      job.getTotalItems(),
+      job.getItemsProcessed(),
+      job.getPricesChanged(),
+      job.getErrorMessage(),
+      job.getCreatedAt(),
+      job.getStartedAt(),
+      job.getFinishedAt());
+  }
+
+  private Long requireTenant() {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    return tenantId;
+  }
+}
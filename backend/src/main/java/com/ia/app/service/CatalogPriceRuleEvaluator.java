@@ -0,0 +1,268 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceEditedField;
+import com.ia.app.domain.CatalogPriceRuleByGroup;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.PriceAdjustmentKind;
+import com.ia.app.domain.PriceBaseMode;
+import com.ia.app.domain.PriceUiLockMode;
+import com.ia.app.dto.CatalogItemPriceInput;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+// Regras de um grupo compiladas num plano imutavel: ordem topologica e defaults resolvidos uma vez,
+// estado do item em arrays pelo ordinal de CatalogPriceType. Seguro para uso concorrente.
+public final class CatalogPriceRuleEvaluator {
+
+  private static final CatalogPriceType[] TYPES = CatalogPriceType.values();
+  private static final int SCALE = CatalogPriceRuleService.PRICE_SCALE;
+  private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+  private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(SCALE, RoundingMode.HALF_UP);
+  private static final int NO_BASE = -1;
+
+  private record Step(int type, int base, PriceUiLockMode mode) {}
+
+  private final Step[] plan;
+  private final PriceAdjustmentKind[] defaultKinds;
+  private final BigDecimal[] defaultAdjustments;
+  // Fator do percentual default (1 + ajuste/100), usado no modo IV.
+  private final BigDecimal[] defaultFactors;
+
+  private CatalogPriceRuleEvaluator(
+      Step[] plan,
+      PriceAdjustmentKind[] defaultKinds,
+      BigDecimal[] defaultAdjustments,
+      BigDecimal[] defaultFactors) {
+    this.plan = plan;
+    this.defaultKinds = defaultKinds;
+    this.defaultAdjustments = defaultAdjustments;
+    this.defaultFactors = defaultFactors;
+  }
+
+  public static CatalogPriceRuleEvaluator compile(Map<CatalogPriceType, CatalogPriceRuleByGroup> rules) {
+    int size = TYPES.length;
+    int[] bases = new int[size];
+    PriceUiLockMode[] modes = new PriceUiLockMode[size];
+    PriceAdjustmentKind[] defaultKinds = new PriceAdjustmentKind[size];
+    BigDecimal[] defaultAdjustments = new BigDecimal[size];
+    BigDecimal[] defaultFactors = new BigDecimal[size];
+
+    for (CatalogPriceType type : TYPES) {
+      CatalogPriceRuleByGroup rule = rules.get(type);
+      if (rule == null) {
+        throw new IllegalArgumentException("catalog_price_rule_missing_type");
+      }
+      if (rule.getUiLockMode() == null) {
+        throw new IllegalArgumentException("catalog_item_price_mode_invalid");
+      }
+      int index = type.ordinal();
+      if (rule.getBaseMode() == PriceBaseMode.NONE) {
+        bases[index] = NO_BASE;
+      } else if (rule.getBasePriceType() == null) {
+        throw new IllegalArgumentException("catalog_price_rule_base_required");
+      } else {
+        bases[index] = rule.getBasePriceType().ordinal();
+      }
+      modes[index] = rule.getUiLockMode();
+      defaultKinds[index] = rule.getAdjustmentKindDefault() == null
+        ? PriceAdjustmentKind.FIXED
+        : rule.getAdjustmentKindDefault();
+      defaultAdjustments[index] = scale(rule.getAdjustmentDefault());
+      defaultFactors[index] = percentFactor(defaultAdjustments[index]);
+    }
+
+    int[] order = topologicalOrder(bases);
+    Step[] plan = new Step[size];
+    for (int i = 0; i < size; i++) {
+      int index = order[i];
+      plan[i] = new Step(index, bases[index], modes[index]);
+    }
+    return new CatalogPriceRuleEvaluator(plan, defaultKinds, defaultAdjustments, defaultFactors);
+  }
+
+  // existing e inputs indexados pelo ordinal do tipo; posicoes nulas valem linha/entrada ausente.
+  public Prices evaluate(
+      CatalogItemPrice[] existing,
+      CatalogItemPriceInput[] inputs,
+      boolean refreshModeIv,
+      boolean applyInputs) {
+    int size = TYPES.length;
+    BigDecimal[] prices = new BigDecimal[size];
+    PriceAdjustmentKind[] kinds = new PriceAdjustmentKind[size];
+    BigDecimal[] adjustments = new BigDecimal[size];
+
+    for (int index = 0; index < size; index++) {
+      CatalogItemPrice row = existing[index];
+      if (row == null) {
+        prices[index] = ZERO;
+        kinds[index] = defaultKinds[index];
+        adjustments[index] = defaultAdjustments[index];
+        continue;
+      }
+      prices[index] = nonNegative(scale(row.getPriceFinal()));
+      kinds[index] = row.getAdjustmentKind() == null ? defaultKinds[index] : row.getAdjustmentKind();
+      adjustments[index] = scale(row.getAdjustmentValue());
+    }
+
+    for (Step step : plan) {
+      int index = step.type();
+      CatalogItemPriceInput input = applyInputs ? inputs[index] : null;
+      BigDecimal baseValue = step.base() == NO_BASE ? BigDecimal.ZERO : prices[step.base()];
+
+      switch (step.mode()) {
+        case II -> {
+          if (input != null && input.priceFinal() != null) {
+            prices[index] = input.priceFinal();
+          }
+        }
+        case I -> {
+          if (input != null) {
+            if (input.adjustmentKind() != null) {
+              kinds[index] = input.adjustmentKind();
+            }
+            if (input.adjustmentValue() != null) {
+              adjustments[index] = input.adjustmentValue();
+            }
+          }
+          prices[index] = calculatePrice(baseValue, kinds[index], adjustments[index]);
+        }
+        case III -> {
+          if (input != null) {
+            if (input.adjustmentKind() != null) {
+              kinds[index] = input.adjustmentKind();
+            }
+            if (input.lastEditedField() == CatalogPriceEditedField.PRICE) {
+              BigDecimal targetPrice = input.priceFinal() == null ? prices[index] : input.priceFinal();
+              prices[index] = targetPrice;
+              adjustments[index] = deriveAdjustment(baseValue, targetPrice, kinds[index]);
+            } else {
+              if (input.adjustmentValue() != null) {
+                adjustments[index] = input.adjustmentValue();
+              }
+              prices[index] = calculatePrice(baseValue, kinds[index], adjustments[index]);
+            }
+          }
+        }
+        case IV -> {
+          // Modo IV e todo da regra do grupo; ajuste do item nao vale.
+          kinds[index] = defaultKinds[index];
+          adjustments[index] = defaultAdjustments[index];
+          if (applyInputs || refreshModeIv) {
+            prices[index] = kinds[index] == PriceAdjustmentKind.PERCENT
+              ? baseValue.multiply(defaultFactors[index]).setScale(SCALE, RoundingMode.HALF_UP)
+              : baseValue.add(adjustments[index]).setScale(SCALE, RoundingMode.HALF_UP);
+          }
+        }
+        default -> throw new IllegalArgumentException("catalog_item_price_mode_invalid");
+      }
+
+      prices[index] = nonNegative(scale(prices[index]));
+      adjustments[index] = scale(adjustments[index]);
+      if (kinds[index] == null) {
+        kinds[index] = PriceAdjustmentKind.FIXED;
+      }
+    }
+    return new Prices(prices, kinds, adjustments);
+  }
+
+  public static final class Prices {
+    private final BigDecimal[] priceFinal;
+    private final PriceAdjustmentKind[] adjustmentKind;
+    private final BigDecimal[] adjustmentValue;
+
+    private Prices(BigDecimal[] priceFinal, PriceAdjustmentKind[] adjustmentKind, BigDecimal[] adjustmentValue) {
+      this.priceFinal = priceFinal;
+      this.adjustmentKind = adjustmentKind;
+      this.adjustmentValue = adjustmentValue;
+    }
+
+    public BigDecimal priceFinal(CatalogPriceType type) {
+      return priceFinal[type.ordinal()];
+    }
+
+    public PriceAdjustmentKind adjustmentKind(CatalogPriceType type) {
+      return adjustmentKind[type.ordinal()];
+    }
+
+    public BigDecimal adjustmentValue(CatalogPriceType type) {
+      return adjustmentValue[type.ordinal()];
+    }
+  }
+
+  private static int[] topologicalOrder(int[] bases) {
+    int size = bases.length;
+    int[] indegree = new int[size];
+    for (int index = 0; index < size; index++) {
+      if (bases[index] != NO_BASE) {
+        indegree[index]++;
+      }
+    }
+
+    // Fila em array: cada tipo entra uma vez; mesma ordem de saida da versao com ArrayDeque.
+    int[] order = new int[size];
+    int head = 0;
+    int tail = 0;
+    for (int index = 0; index < size; index++) {
+      if (indegree[index] == 0) {
+        order[tail++] = index;
+      }
+    }
+    while (head < tail) {
+      int current = order[head++];
+      for (int dependent = 0; dependent < size; dependent++) {
+        if (bases[dependent] == current && --indegree[dependent] == 0) {
+          order[tail++] = dependent;
+        }
+      }
+    }
+
+    if (tail != size) {
+      throw new IllegalArgumentException("catalog_price_rule_cycle_detected");
+    }
+    return order;
+  }
+
+  private static BigDecimal calculatePrice(BigDecimal baseValue, PriceAdjustmentKind kind, BigDecimal adjustment) {
+    BigDecimal adj = adjustment == null ? BigDecimal.ZERO : adjustment;
+    if (kind == PriceAdjustmentKind.PERCENT) {
+      return baseValue.multiply(percentFactor(adj)).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+    return baseValue.add(adj).setScale(SCALE, RoundingMode.HALF_UP);
+  }
+
+  private static BigDecimal percentFactor(BigDecimal adjustment) {
+    return BigDecimal.ONE.add(adjustment.divide(ONE_HUNDRED, SCALE, RoundingMode.HALF_UP));
+  }
+
+  private static BigDecimal deriveAdjustment(BigDecimal baseValue, BigDecimal priceValue, PriceAdjustmentKind kind) {
+    BigDecimal price = priceValue == null ? BigDecimal.ZERO : priceValue;
+    if (kind == PriceAdjustmentKind.PERCENT) {
+      if (baseValue.compareTo(BigDecimal.ZERO) == 0) {
+        return ZERO;
+      }
+      return price
+        .divide(baseValue, SCALE, RoundingMode.HALF_UP)
+        .subtract(BigDecimal.ONE)
+        .multiply(ONE_HUNDRED)
+        .setScale(SCALE, RoundingMode.HALF_UP);
+    }
+    return price.subtract(baseValue).setScale(SCALE, RoundingMode.HALF_UP);
+  }
+
+  // Valores ja na escala (o caso comum) saem sem nova alocacao.
+  private static BigDecimal scale(BigDecimal value) {
+    if (value == null) {
+      return ZERO;
+    }
+    return value.scale() == SCALE ? value : value.setScale(SCALE, RoundingMode.HALF_UP);
+  }
+
+  private static BigDecimal nonNegative(BigDecimal value) {
+    if (value.signum() < 0) {
+      throw new IllegalArgumentException("catalog_item_price_negative");
+    }
+    return value;
+  }
+}
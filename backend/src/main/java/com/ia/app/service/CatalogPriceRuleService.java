@@ -15,11 +15,15 @@ import com.ia.app.dto.CatalogPriceRuleUpsertRequest;
 import com.ia.app.repository.AgrupadorEmpresaRepository;
 import com.ia.app.repository.CatalogConfigurationByGroupRepository;
 import com.ia.app.repository.CatalogPriceRuleByGroupRepository;
+import com.ia.app.repository.CatalogPriceRuleByGroupRepository.CatalogPriceRuleStampProjection;
 import com.ia.app.tenant.TenantContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayDeque;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumMap;
@@ -28,31 +32,55 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class CatalogPriceRuleService {
 
   public static final int PRICE_SCALE = 6;
 
+  private record EvaluatorKey(Long tenantId, Long catalogConfigurationByGroupId) {}
+
+  // Carimbo das regras gravadas: qualquer gravacao (inclusive de outro no) muda o updated_at ou a contagem.
+  private record RuleStamp(long ruleCount, Instant lastUpdatedAt) {}
+
+  private record CompiledRules(RuleStamp stamp, CatalogPriceRuleEvaluator evaluator) {}
+
   private final CatalogConfigurationService catalogConfigurationService;
   private final CatalogConfigurationByGroupRepository byGroupRepository;
   private final CatalogConfigurationGroupSyncService syncService;
   private final AgrupadorEmpresaRepository agrupadorEmpresaRepository;
   private final CatalogPriceRuleByGroupRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Cache<EvaluatorKey, CompiledRules> evaluators;
+  private final boolean evaluatorCacheEnabled;
 
   public CatalogPriceRuleService(
       CatalogConfigurationService catalogConfigurationService,
       CatalogConfigurationByGroupRepository byGroupRepository,
       CatalogConfigurationGroupSyncService syncService,
       AgrupadorEmpresaRepository agrupadorEmpresaRepository,
-      CatalogPriceRuleByGroupRepository repository) {
+      CatalogPriceRuleByGroupRepository repository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${catalog.price-rules.evaluator-cache.enabled:true}") boolean evaluatorCacheEnabled,
+      @Value("${catalog.price-rules.evaluator-cache.maximum-size:2000}") long evaluatorCacheMaximumSize,
+      @Value("${catalog.price-rules.evaluator-cache.expire-after-access-minutes:30}") long evaluatorCacheExpireMinutes) {
     this.catalogConfigurationService = catalogConfigurationService;
     this.byGroupRepository = byGroupRepository;
     this.syncService = syncService;
     this.agrupadorEmpresaRepository = agrupadorEmpresaRepository;
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
+    this.evaluatorCacheEnabled = evaluatorCacheEnabled;
+    this.evaluators = Caffeine.newBuilder()
+      .maximumSize(Math.max(evaluatorCacheMaximumSize, 1))
+      .expireAfterAccess(Duration.ofMinutes(Math.max(evaluatorCacheExpireMinutes, 1)))
+      .build();
   }
 
   @Transactional
@@ -77,6 +105,7 @@ public class CatalogPriceRuleService {
     ensureDefaults(tenantId, byGroup.getId());
 
     Map<CatalogPriceType, CatalogPriceRuleByGroup> current = loadRuleMap(tenantId, byGroup.getId());
+    Map<CatalogPriceType, RuleSignature> before = signatures(current);
     for (CatalogPriceRuleUpsertRequest item : request.rules()) {
       CatalogPriceRuleByGroup entity = current.computeIfAbsent(item.priceType(), ignored -> defaultRule(tenantId, byGroup.getId(), item.priceType()));
       applyRequest(entity, item);
@@ -86,6 +115,16 @@ public class CatalogPriceRuleService {
     validateRules(current);
 
     repository.saveAll(current.values());
+    invalidateEvaluator(tenantId, byGroup.getId());
+    if (!before.equals(signatures(current))) {
+      // Precos ja gravados so seriam recalculados na proxima edicao de cada item.
+      eventPublisher.publishEvent(new CatalogPriceRulesChangedEvent(
+        tenantId,
+        type,
+        byGroup.getId(),
+        byGroup.getCatalogConfigurationId(),
+        byGroup.getAgrupadorId()));
+    }
     return current.values().stream()
       .sorted(Comparator.comparing(CatalogPriceRuleByGroup::getPriceType))
       .map(this::toResponse)
@@ -114,6 +153,69 @@ public class CatalogPriceRuleService {
     return map;
   }
 
+  // Avaliador compilado das regras do grupo. Acerto no cache custa so a consulta do carimbo,
+  // no lugar de ensureDefaults + leitura das regras + validacao + ordenacao a cada chamada.
+  @Transactional
+  public CatalogPriceRuleEvaluator evaluator(Long tenantId, Long catalogConfigurationByGroupId) {
+    if (!evaluatorCacheEnabled) {
+      return CatalogPriceRuleEvaluator.compile(loadRuleMap(tenantId, catalogConfigurationByGroupId));
+    }
+    EvaluatorKey key = new EvaluatorKey(tenantId, catalogConfigurationByGroupId);
+    // Carimbo lido antes das regras: uma troca concorrente no meio so forca nova compilacao depois.
+    RuleStamp stamp = loadStamp(tenantId, catalogConfigurationByGroupId);
+    CompiledRules cached = evaluators.getIfPresent(key);
+    if (cached != null && cached.stamp().equals(stamp)) {
+      return cached.evaluator();
+    }
+    CatalogPriceRuleEvaluator evaluator = CatalogPriceRuleEvaluator.compile(
+      loadRuleMap(tenantId, catalogConfigurationByGroupId));
+    evaluators.put(key, new CompiledRules(stamp, evaluator));
+    return evaluator;
+  }
+
+  private RuleStamp loadStamp(Long tenantId, Long catalogConfigurationByGroupId) {
+    CatalogPriceRuleStampProjection projection = repository.findRuleStamp(tenantId, catalogConfigurationByGroupId);
+    return projection == null
+      ? new RuleStamp(0L, null)
+      : new RuleStamp(projection.getRuleCount(), projection.getLastUpdatedAt());
+  }
+
+  private void invalidateEvaluator(Long tenantId, Long catalogConfigurationByGroupId) {
+    EvaluatorKey key = new EvaluatorKey(tenantId, catalogConfigurationByGroupId);
+    evaluators.invalidate(key);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      // Descarta tambem o que foi compilado por leituras concorrentes antes do commit.
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          evaluators.invalidate(key);
+        }
+      });
+    }
+  }
+
+  // Campos que entram no calculo do preco; nome customizado nao dispara recalculo.
+  private record RuleSignature(
+    PriceBaseMode baseMode,
+    CatalogPriceType basePriceType,
+    PriceAdjustmentKind adjustmentKind,
+    BigDecimal adjustmentDefault,
+    PriceUiLockMode uiLockMode,
+    boolean active
+  ) {}
+
+  private Map<CatalogPriceType, RuleSignature> signatures(Map<CatalogPriceType, CatalogPriceRuleByGroup> rules) {
+    Map<CatalogPriceType, RuleSignature> map = new EnumMap<>(CatalogPriceType.class);
+    rules.forEach((type, rule) -> map.put(type, new RuleSignature(
+      rule.getBaseMode(),
+      rule.getBasePriceType(),
+      rule.getAdjustmentKindDefault(),
+      normalizeScale(rule.getAdjustmentDefault()),
+      rule.getUiLockMode(),
+      rule.isActive())));
+    return map;
+  }
+
   private void applyRequest(CatalogPriceRuleByGroup entity, CatalogPriceRuleUpsertRequest request) {
     entity.setCustomName(normalizeOptionalName(request.customName()));
     entity.setBaseMode(request.baseMode());
@@ -275,50 +377,6 @@ public class CatalogPriceRuleService {
     return false;
   }
 
-  public List<CatalogPriceType> topologicalOrder(Map<CatalogPriceType, CatalogPriceRuleByGroup> rules) {
-    Map<CatalogPriceType, Integer> indegree = new EnumMap<>(CatalogPriceType.class);
-    Map<CatalogPriceType, List<CatalogPriceType>> reverseEdges = new EnumMap<>(CatalogPriceType.class);
-
-    for (CatalogPriceType type : CatalogPriceType.values()) {
-      indegree.put(type, 0);
-      reverseEdges.put(type, new ArrayList<>());
-    }
-
-    for (CatalogPriceType type : CatalogPriceType.values()) {
-      CatalogPriceRuleByGroup row = rules.get(type);
-      if (row != null && row.getBaseMode() == PriceBaseMode.BASE_PRICE && row.getBasePriceType() != null) {
-        indegree.put(type, indegree.get(type) + 1);
-        reverseEdges.get(row.getBasePriceType()).add(type);
-      }
-    }
-
-    ArrayDeque<CatalogPriceType> queue = new ArrayDeque<>();
-    for (CatalogPriceType type : CatalogPriceType.values()) {
-      if (indegree.get(type) == 0) {
-        queue.add(type);
-      }
-    }
-
-    List<CatalogPriceType> order = new ArrayList<>(CatalogPriceType.values().length);
-    while (!queue.isEmpty()) {
-      CatalogPriceType current = queue.removeFirst();
-      order.add(current);
-      for (CatalogPriceType dependent : reverseEdges.get(current)) {
-        int next = indegree.get(dependent) - 1;
-        indegree.put(dependent, next);
-        if (next == 0) {
-          queue.add(dependent);
-        }
-      }
-    }
-
-    if (order.size() != CatalogPriceType.values().length) {
-      throw new IllegalArgumentException("catalog_price_rule_cycle_detected");
-    }
-
-    return order;
-  }
-
   private CatalogPriceRuleResponse toResponse(CatalogPriceRuleByGroup entity) {
     return new CatalogPriceRuleResponse(
       entity.getId(),
@@ -0,0 +1,12 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+
+// Publicado por CatalogPriceRuleService quando uma regra muda o calculo; consumido apos o commit pelo job de recalculo.
+public record CatalogPriceRulesChangedEvent(
+  Long tenantId,
+  CatalogConfigurationType catalogType,
+  Long catalogConfigurationByGroupId,
+  Long catalogConfigurationId,
+  Long agrupadorId
+) {}
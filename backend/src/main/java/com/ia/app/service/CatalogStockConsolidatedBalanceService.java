@@ -0,0 +1,29 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import com.ia.app.tenant.TenantContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class CatalogStockConsolidatedBalanceService {
+
+  public record RebuildResult(Long tenantId, CatalogConfigurationType catalogType, int rows) {}
+
+  private final CatalogStockWriteRepository stockWriteRepository;
+
+  public CatalogStockConsolidatedBalanceService(CatalogStockWriteRepository stockWriteRepository) {
+    this.stockWriteRepository = stockWriteRepository;
+  }
+
+  // Backfill/reparo: recalcula o consolidado do tenant a partir de catalog_stock_balance.
+  @Transactional
+  public RebuildResult rebuildCurrentTenant(CatalogConfigurationType type) {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    return new RebuildResult(tenantId, type, stockWriteRepository.rebuildConsolidatedBalances(tenantId, type));
+  }
+}
@@ -0,0 +1,131 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceRow;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceScope;
+import com.ia.app.repository.CatalogStockWriteRepository.ConsolidatedDelta;
+import com.ia.app.repository.CatalogStockWriteRepository.NewBalance;
+import com.ia.app.repository.CatalogStockWriteRepository.PendingEscrowLine;
+import com.ia.app.repository.CatalogStockWriteRepository.SettledEscrowLine;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class CatalogStockEscrowCompactionService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogStockEscrowCompactionService.class);
+
+  private static final String JOB_LOCK_NAME = "catalog-stock-escrow-compaction";
+
+  private final CatalogStockWriteRepository stockWriteRepository;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${catalog.stock.escrow.compaction-enabled:true}")
+  private boolean compactionEnabled;
+
+  @Value("${catalog.stock.escrow.compaction-batch-size:500}")
+  private int batchSize;
+
+  public CatalogStockEscrowCompactionService(
+      CatalogStockWriteRepository stockWriteRepository,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager) {
+    this.stockWriteRepository = stockWriteRepository;
+    this.jobLockService = jobLockService;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+  }
+
+  @Scheduled(
+    fixedDelayString = "${catalog.stock.escrow.compaction-interval-ms:1000}",
+    initialDelayString = "${catalog.stock.escrow.compaction-interval-ms:1000}")
+  public void compactScheduled() {
+    if (!compactionEnabled) {
+      return;
+    }
+    try {
+      int compacted = compactPending();
+      if (compacted > 0) {
+        log.debug("Catalog stock escrow compaction folded {} lines", compacted);
+      }
+    } catch (RuntimeException ex) {
+      log.warn("Catalog stock escrow compaction failed: {}", ex.getMessage());
+    }
+  }
+
+  public int compactPending() {
+    int total = 0;
+    int compacted;
+    do {
+      compacted = compactBatch();
+      total += compacted;
+    } while (compacted >= effectiveBatchSize());
+    return total;
+  }
+
+  public int compactBatch() {
+    Integer compacted = transactionTemplate.execute(status -> compactBatchInTransaction());
+    return compacted == null ? 0 : compacted;
+  }
+
+  private int compactBatchInTransaction() {
+    // Um compactador por vez no cluster; os demais nos desistem desta rodada.
+    if (!jobLockService.tryLockForTransaction(JOB_LOCK_NAME)) {
+      return 0;
+    }
+    List<PendingEscrowLine> lines = stockWriteRepository.lockPendingEscrowLines(effectiveBatchSize());
+    if (lines.isEmpty()) {
+      return 0;
+    }
+
+    Map<BalanceScope, Long> configurationByScope = new LinkedHashMap<>();
+    for (PendingEscrowLine line : lines) {
+      configurationByScope.putIfAbsent(line.scope(), line.catalogConfigurationId());
+    }
+    Map<BalanceScope, BalanceRow> balances = new LinkedHashMap<>();
+    stockWriteRepository.lockOrCreateBalances(configurationByScope.entrySet().stream()
+        .map(entry -> new NewBalance(entry.getKey(), entry.getValue()))
+        .toList())
+      .forEach(row -> balances.put(row.scope(), row));
+
+    List<SettledEscrowLine> settled = new ArrayList<>(lines.size());
+    List<ConsolidatedDelta> consolidatedDeltas = new ArrayList<>(lines.size());
+    for (PendingEscrowLine line : lines) {
+      BalanceRow balance = balances.get(line.scope());
+      if (balance == null) {
+        throw new IllegalStateException("catalog_stock_balance_not_locked");
+      }
+      boolean quantidade = line.metricType() == CatalogMovementMetricType.QUANTIDADE;
+      BigDecimal before = quantidade ? balance.quantidadeAtual() : balance.precoAtual();
+      BigDecimal after = before.add(line.delta()).setScale(6, RoundingMode.HALF_UP);
+      balances.put(line.scope(), new BalanceRow(
+        balance.id(),
+        balance.scope(),
+        quantidade ? after : balance.quantidadeAtual(),
+        quantidade ? balance.precoAtual() : after));
+      settled.add(new SettledEscrowLine(line.id(), before, after));
+      consolidatedDeltas.add(ConsolidatedDelta.of(line.scope(), line.catalogConfigurationId(), line.metricType(), line.delta()));
+    }
+
+    stockWriteRepository.settleEscrowLines(settled);
+    stockWriteRepository.updateBalances(List.copyOf(balances.values()));
+    stockWriteRepository.applyConsolidatedDeltas(consolidatedDeltas);
+    return lines.size();
+  }
+
+  private int effectiveBatchSize() {
+    return Math.max(batchSize, 1);
+  }
+}
@@ -8,26 +8,42 @@ import com.ia.app.domain.CatalogMovementMetricType;
 import com.ia.app.domain.CatalogMovementOriginType;
 import com.ia.app.domain.CatalogProduct;
 import com.ia.app.domain.CatalogServiceItem;
-import com.ia.app.domain.CatalogStockBalance;
+import com.ia.app.domain.CatalogStockBalanceSnapshot;
+import com.ia.app.domain.CatalogStockSnapshotRun;
 import com.ia.app.domain.CatalogStockType;
 import com.ia.app.domain.Empresa;
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.dto.CatalogMovementLedgerCursorResponse;
 import com.ia.app.dto.CatalogMovementLineResponse;
 import com.ia.app.dto.CatalogMovementResponse;
 import com.ia.app.dto.CatalogStockBalanceRowResponse;
 import com.ia.app.dto.CatalogStockBalanceViewResponse;
 import com.ia.app.dto.CatalogStockConsolidatedResponse;
+import com.ia.app.dto.CatalogStockMatrixCellResponse;
+import com.ia.app.dto.CatalogStockMatrixItemResponse;
+import com.ia.app.dto.CatalogStockMatrixResponse;
+import com.ia.app.dto.CatalogStockSummaryResponse;
+import com.ia.app.dto.ExportJobResponse;
 import com.ia.app.repository.AgrupadorEmpresaItemRepository;
 import com.ia.app.repository.CatalogMovementLineRepository;
 import com.ia.app.repository.CatalogMovementRepository;
 import com.ia.app.repository.CatalogProductRepository;
 import com.ia.app.repository.CatalogServiceItemRepository;
 import com.ia.app.repository.CatalogStockBalanceRepository;
+import com.ia.app.repository.CatalogStockBalanceSnapshotRepository;
+import com.ia.app.repository.CatalogStockConsolidatedBalanceRepository;
+import com.ia.app.repository.CatalogStockSnapshotRunRepository;
 import com.ia.app.repository.CatalogStockTypeRepository;
 import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.ExportStreamRepository;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -51,6 +67,7 @@ public class CatalogStockQueryService {
 
   private static final Instant MIN_LEDGER_DATE = Instant.parse("1900-01-01T00:00:00Z");
   private static final Instant MAX_LEDGER_DATE = Instant.parse("2999-12-31T23:59:59Z");
+  private static final int MAX_MATRIX_ITEMS = 200;
 
   private final CatalogItemContextService contextService;
   private final CatalogProductRepository productRepository;
@@ -61,6 +78,11 @@ public class CatalogStockQueryService {
   private final AgrupadorEmpresaItemRepository agrupadorEmpresaItemRepository;
   private final CatalogStockTypeRepository stockTypeRepository;
   private final EmpresaRepository empresaRepository;
+  private final CatalogStockSnapshotRunRepository snapshotRunRepository;
+  private final CatalogStockBalanceSnapshotRepository balanceSnapshotRepository;
+  private final CatalogStockConsolidatedBalanceRepository consolidatedBalanceRepository;
+  private final ExportStreamRepository exportStreamRepository;
+  private final ExportJobService exportJobService;
 
   public CatalogStockQueryService(
       CatalogItemContextService contextService,
@@ -71,7 +93,12 @@ public class CatalogStockQueryService {
       CatalogMovementLineRepository lineRepository,
       AgrupadorEmpresaItemRepository agrupadorEmpresaItemRepository,
       CatalogStockTypeRepository stockTypeRepository,
-      EmpresaRepository empresaRepository) {
+      EmpresaRepository empresaRepository,
+      CatalogStockSnapshotRunRepository snapshotRunRepository,
+      CatalogStockBalanceSnapshotRepository balanceSnapshotRepository,
+      CatalogStockConsolidatedBalanceRepository consolidatedBalanceRepository,
+      ExportStreamRepository exportStreamRepository,
+      ExportJobService exportJobService) {
     this.contextService = contextService;
     this.productRepository = productRepository;
     this.serviceItemRepository = serviceItemRepository;
@@ -81,6 +108,11 @@ public class CatalogStockQueryService {
     this.agrupadorEmpresaItemRepository = agrupadorEmpresaItemRepository;
     this.stockTypeRepository = stockTypeRepository;
     this.empresaRepository = empresaRepository;
+    this.snapshotRunRepository = snapshotRunRepository;
+    this.balanceSnapshotRepository = balanceSnapshotRepository;
+    this.consolidatedBalanceRepository = consolidatedBalanceRepository;
+    this.exportStreamRepository = exportStreamRepository;
+    this.exportJobService = exportJobService;
   }
 
   @Transactional(readOnly = true)
@@ -95,20 +127,198 @@ public class CatalogStockQueryService {
 
     Long effectiveAgrupadorId = normalizeAgrupador(scope, agrupadorEmpresaId);
 
-    List<CatalogStockBalance> rows = balanceRepository.listByFilters(
-      scope.tenantId(),
-      type,
+    // Consolidado vem do saldo consolidado de todas as filiais; o filtro de filial so recorta o detalhe.
+    List<CatalogStockBalanceRowResponse> rowResponses = new ArrayList<>();
+    Map<Long, CatalogStockConsolidatedResponse> consolidatedByStockTypeId = new LinkedHashMap<>();
+    for (CatalogStockBalanceRepository.BalanceGridRow row : balanceRepository.loadBalanceGrid(
+        scope.tenantId(),
+        type.name(),
+        catalogoId,
+        scope.catalogConfigurationId(),
+        effectiveAgrupadorId,
+        estoqueTipoId)) {
+      BigDecimal quantidade = normalizeAmount(row.getQuantidade());
+      BigDecimal preco = normalizeAmount(row.getPreco());
+      consolidatedByStockTypeId.putIfAbsent(
+        row.getEstoqueTipoId(),
+        new CatalogStockConsolidatedResponse(
+          row.getEstoqueTipoId(),
+          row.getEstoqueTipoCodigo(),
+          row.getEstoqueTipoNome(),
+          normalizeAmount(row.getQuantidadeTotal()),
+          normalizeAmount(row.getPrecoTotal())));
+      if (row.getFilialId() == null || (filialId != null && !Objects.equals(row.getFilialId(), filialId))) {
+        continue;
+      }
+      rowResponses.add(new CatalogStockBalanceRowResponse(
+        row.getEstoqueTipoId(),
+        row.getEstoqueTipoCodigo(),
+        row.getEstoqueTipoNome(),
+        row.getFilialId(),
+        row.getFilialNome(),
+        quantidade,
+        preco));
+    }
+    List<CatalogStockConsolidatedResponse> consolidatedResponses = new ArrayList<>(consolidatedByStockTypeId.values());
+
+    return new CatalogStockBalanceViewResponse(
       catalogoId,
       effectiveAgrupadorId,
-      estoqueTipoId,
-      filialId);
+      rowResponses,
+      consolidatedResponses);
+  }
 
-    List<CatalogStockBalanceRepository.StockTypeConsolidatedRow> consolidatedRows = balanceRepository.consolidatedByStockType(
+  @Transactional(readOnly = true)
+  public CatalogStockSummaryResponse loadStockSummary(
+      CatalogConfigurationType type,
+      Long agrupadorEmpresaId,
+      Long estoqueTipoId) {
+    CatalogItemContextService.CatalogItemScope scope = contextService.resolveObrigatorio(type);
+    Long effectiveAgrupadorId = normalizeAgrupador(scope, agrupadorEmpresaId);
+
+    List<StockTypeAmounts> consolidatedAmounts = consolidatePendingDeltas(
+      consolidatedBalanceRepository.summarizeByStockType(scope.tenantId(), type, effectiveAgrupadorId, estoqueTipoId),
+      lineRepository.sumPendingEscrowDeltasByAgrupador(scope.tenantId(), type, effectiveAgrupadorId, estoqueTipoId));
+    List<CatalogStockType> configuredStockTypes = loadConfiguredStockTypes(
       scope.tenantId(),
-      type,
-      catalogoId,
+      scope.catalogConfigurationId(),
       effectiveAgrupadorId,
       estoqueTipoId);
+    Map<Long, CatalogStockType> stockTypeById = loadStockTypes(
+      scope.tenantId(),
+      collectStockTypeIds(List.of(), consolidatedAmounts, configuredStockTypes));
+
+    return new CatalogStockSummaryResponse(
+      effectiveAgrupadorId,
+      buildConsolidatedResponses(consolidatedAmounts, configuredStockTypes, stockTypeById));
+  }
+
+  @Transactional(readOnly = true)
+  public CatalogStockMatrixResponse loadStockMatrix(
+      CatalogConfigurationType type,
+      Collection<Long> catalogoIds,
+      Long agrupadorEmpresaId,
+      Long estoqueTipoId,
+      Long filialId) {
+    CatalogItemContextService.CatalogItemScope scope = contextService.resolveObrigatorio(type);
+    Set<Long> ids = catalogoIds == null
+      ? Set.of()
+      : catalogoIds.stream()
+        .filter(id -> id != null && id > 0)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    if (ids.isEmpty()) {
+      throw new IllegalArgumentException("catalog_stock_matrix_items_required");
+    }
+    if (ids.size() > MAX_MATRIX_ITEMS) {
+      throw new IllegalArgumentException("catalog_stock_matrix_items_limit");
+    }
+
+    Long effectiveAgrupadorId = normalizeAgrupador(scope, agrupadorEmpresaId);
+
+    // Itens de outro tenant ou configuracao nao tem saldo no escopo e voltam zerados.
+    Map<Long, List<CatalogStockMatrixCellResponse>> cellsByItem = new LinkedHashMap<>();
+    ids.forEach(id -> cellsByItem.put(id, new ArrayList<>()));
+    for (CatalogStockBalanceRepository.StockMatrixCellRow row : balanceRepository.sumStockMatrix(
+        scope.tenantId(),
+        type.name(),
+        effectiveAgrupadorId,
+        ids,
+        estoqueTipoId,
+        filialId)) {
+      List<CatalogStockMatrixCellResponse> cells = cellsByItem.get(row.getCatalogoId());
+      if (cells != null) {
+        cells.add(new CatalogStockMatrixCellResponse(
+          row.getEstoqueTipoId(),
+          row.getFilialId(),
+          normalizeAmount(row.getQuantidade())));
+      }
+    }
+
+    List<CatalogStockMatrixItemResponse> items = cellsByItem.entrySet().stream()
+      .map(entry -> new CatalogStockMatrixItemResponse(
+        entry.getKey(),
+        entry.getValue().stream()
+          .map(CatalogStockMatrixCellResponse::quantidade)
+          .reduce(BigDecimal.ZERO, BigDecimal::add),
+        entry.getValue()))
+      .toList();
+    return new CatalogStockMatrixResponse(effectiveAgrupadorId, items);
+  }
+
+  @Transactional(readOnly = true)
+  public CatalogStockBalanceViewResponse balanceAsOf(
+      CatalogConfigurationType type,
+      Long catalogoId,
+      Long agrupadorEmpresaId,
+      Long estoqueTipoId,
+      Long filialId,
+      Instant asOf) {
+    if (asOf == null) {
+      throw new IllegalArgumentException("catalog_stock_as_of_required");
+    }
+    CatalogItemContextService.CatalogItemScope scope = contextService.resolveObrigatorio(type);
+    validateCatalogItem(scope, catalogoId);
+
+    Long effectiveAgrupadorId = normalizeAgrupador(scope, agrupadorEmpresaId);
+
+    // Parte do ultimo fechamento diario anterior a data e reaplica apenas as linhas posteriores a ele.
+    CatalogStockSnapshotRun run = snapshotRunRepository
+      .findTopBySnapshotDateLessThanOrderBySnapshotDateDesc(asOf.atZone(ZoneOffset.UTC).toLocalDate())
+      .orElse(null);
+    List<CatalogStockBalanceSnapshot> snapshots = run == null
+      ? List.of()
+      : balanceSnapshotRepository.findLatestForItem(
+        scope.tenantId(),
+        type,
+        catalogoId,
+        effectiveAgrupadorId,
+        estoqueTipoId,
+        run.getSnapshotDate());
+    List<CatalogMovementLineRepository.LedgerDeltaRow> deltas = lineRepository.sumDeltasSinceSnapshot(
+      scope.tenantId(),
+      type.name(),
+      catalogoId,
+      effectiveAgrupadorId,
+      estoqueTipoId,
+      asOf,
+      run == null ? CatalogStockSnapshotService.LEDGER_START : CatalogStockSnapshotService.dayEnd(run.getSnapshotDate()),
+      run == null ? CatalogStockSnapshotService.LEDGER_START : run.getLineCutoff());
+
+    Map<DetailRowKey, BalanceAmounts> amountsByKey = new LinkedHashMap<>();
+    for (CatalogStockBalanceSnapshot snapshot : snapshots) {
+      amountsByKey.put(
+        new DetailRowKey(snapshot.getEstoqueTipoId(), snapshot.getFilialId()),
+        new BalanceAmounts(
+          snapshot.getEstoqueTipoId(),
+          snapshot.getFilialId(),
+          normalizeAmount(snapshot.getQuantidade()),
+          normalizeAmount(snapshot.getPreco())));
+    }
+    for (CatalogMovementLineRepository.LedgerDeltaRow delta : deltas) {
+      DetailRowKey key = new DetailRowKey(delta.getEstoqueTipoId(), delta.getFilialId());
+      BalanceAmounts current = amountsByKey.getOrDefault(
+        key,
+        new BalanceAmounts(key.estoqueTipoId(), key.filialId(), BigDecimal.ZERO, BigDecimal.ZERO));
+      BigDecimal value = normalizeAmount(delta.getDeltaTotal());
+      amountsByKey.put(key, delta.getMetricType() == CatalogMovementMetricType.QUANTIDADE
+        ? new BalanceAmounts(current.estoqueTipoId(), current.filialId(), current.quantidade().add(value), current.preco())
+        : new BalanceAmounts(current.estoqueTipoId(), current.filialId(), current.quantidade(), current.preco().add(value)));
+    }
+
+    Map<Long, StockTypeAmounts> consolidatedByStockTypeId = new LinkedHashMap<>();
+    for (BalanceAmounts amounts : amountsByKey.values()) {
+      StockTypeAmounts current = consolidatedByStockTypeId.getOrDefault(
+        amounts.estoqueTipoId(),
+        new StockTypeAmounts(amounts.estoqueTipoId(), BigDecimal.ZERO, BigDecimal.ZERO));
+      consolidatedByStockTypeId.put(amounts.estoqueTipoId(), new StockTypeAmounts(
+        amounts.estoqueTipoId(),
+        current.quantidade().add(amounts.quantidade()),
+        current.preco().add(amounts.preco())));
+    }
+    List<BalanceAmounts> balanceAmounts = amountsByKey.values().stream()
+      .filter(amounts -> filialId == null || Objects.equals(amounts.filialId(), filialId))
+      .toList();
+    List<StockTypeAmounts> consolidatedAmounts = new ArrayList<>(consolidatedByStockTypeId.values());
 
     List<CatalogStockType> configuredStockTypes = loadConfiguredStockTypes(
       scope.tenantId(),
@@ -122,28 +332,16 @@ public class CatalogStockQueryService {
 
     Map<Long, CatalogStockType> stockTypeById = loadStockTypes(
       scope.tenantId(),
-      collectStockTypeIds(rows, consolidatedRows, configuredStockTypes));
+      collectStockTypeIds(balanceAmounts, consolidatedAmounts, configuredStockTypes));
     Set<Long> detailFilialIds = new LinkedHashSet<>(groupedFilialIds);
-    detailFilialIds.addAll(rows.stream().map(CatalogStockBalance::getFilialId).toList());
+    detailFilialIds.addAll(balanceAmounts.stream().map(BalanceAmounts::filialId).toList());
     Map<Long, String> filialNameById = loadFilialNames(scope.tenantId(), detailFilialIds);
 
-    List<CatalogStockBalanceRowResponse> rowResponses = buildDetailRows(
-      rows,
-      configuredStockTypes,
-      groupedFilialIds,
-      stockTypeById,
-      filialNameById);
-
-    List<CatalogStockConsolidatedResponse> consolidatedResponses = buildConsolidatedResponses(
-      consolidatedRows,
-      configuredStockTypes,
-      stockTypeById);
-
     return new CatalogStockBalanceViewResponse(
       catalogoId,
       effectiveAgrupadorId,
-      rowResponses,
-      consolidatedResponses);
+      buildDetailRows(balanceAmounts, configuredStockTypes, groupedFilialIds, stockTypeById, filialNameById),
+      buildConsolidatedResponses(consolidatedAmounts, configuredStockTypes, stockTypeById));
   }
 
   @Transactional(readOnly = true)
@@ -195,9 +393,139 @@ public class CatalogStockQueryService {
       return new PageImpl<>(List.of(), effectivePageable, 0);
     }
 
-    List<Long> movementIds = page.getContent().stream().map(CatalogMovement::getId).toList();
-    List<CatalogMovementLine> lines = lineRepository.findAllByTenantIdAndMovementIdInOrderByMovementIdAscIdAsc(
+    Map<Long, CatalogMovementResponse> responseById = toLedgerResponses(
       scope.tenantId(),
+      page.getContent(),
+      metricType,
+      estoqueTipoId,
+      filialId);
+    return page.map(movement -> responseById.get(movement.getId()));
+  }
+
+  @Transactional(readOnly = true)
+  public ExportJobResponse exportLedger(
+      CatalogConfigurationType type,
+      Long catalogoId,
+      Long agrupadorEmpresaId,
+      CatalogMovementOriginType origemTipo,
+      String origemCodigo,
+      Long origemId,
+      String movimentoTipo,
+      String usuario,
+      Instant fromDate,
+      Instant toDate,
+      CatalogMovementMetricType metricType,
+      Long estoqueTipoId,
+      Long filialId,
+      ExportFormat format) {
+    CatalogItemContextService.CatalogItemScope scope = contextService.resolveObrigatorio(type);
+    validateCatalogItem(scope, catalogoId);
+
+    // Uma linha por linha de razao (nao por movimentacao): os filtros de metrica/tipo/filial recortam as linhas.
+    ExportStreamRepository.LedgerExportFilter filter = new ExportStreamRepository.LedgerExportFilter(
+      scope.tenantId(),
+      type.name(),
+      catalogoId,
+      normalizeAgrupador(scope, agrupadorEmpresaId),
+      origemTipo == null ? null : origemTipo.name(),
+      normalizeOptionalText(origemCodigo),
+      origemId != null && origemId > 0 ? origemId : null,
+      normalizeOptionalText(movimentoTipo),
+      normalizeOptionalText(usuario),
+      fromDate == null ? MIN_LEDGER_DATE : fromDate,
+      toDate == null ? MAX_LEDGER_DATE : toDate,
+      metricType == null ? null : metricType.name(),
+      estoqueTipoId,
+      filialId);
+    return exportJobService.submit(
+      "STOCK_LEDGER",
+      format,
+      "razao-estoque-" + type.name().toLowerCase() + "-" + catalogoId,
+      ExportStreamRepository.LEDGER_HEADERS,
+      (fetchSize, rows) -> exportStreamRepository.streamLedger(filter, fetchSize, rows));
+  }
+
+  @Transactional(readOnly = true)
+  public CatalogMovementLedgerCursorResponse loadLedgerByCursor(
+      CatalogConfigurationType type,
+      Long catalogoId,
+      Long agrupadorEmpresaId,
+      CatalogMovementOriginType origemTipo,
+      String origemCodigo,
+      Long origemId,
+      String movimentoTipo,
+      String usuario,
+      Instant fromDate,
+      Instant toDate,
+      CatalogMovementMetricType metricType,
+      Long estoqueTipoId,
+      Long filialId,
+      String cursor,
+      Integer size) {
+    CatalogItemContextService.CatalogItemScope scope = contextService.resolveObrigatorio(type);
+    validateCatalogItem(scope, catalogoId);
+
+    Long effectiveAgrupadorId = normalizeAgrupador(scope, agrupadorEmpresaId);
+    int effectiveSize = size == null ? 20 : Math.min(Math.max(size, 1), 200);
+    LedgerCursor after = decodeLedgerCursor(cursor);
+
+    Specification<CatalogMovement> spec = buildLedgerSpecification(
+      scope.tenantId(),
+      type,
+      catalogoId,
+      effectiveAgrupadorId,
+      origemTipo,
+      normalizeOptionalText(origemCodigo),
+      origemId,
+      normalizeOptionalText(movimentoTipo),
+      normalizeOptionalText(usuario),
+      fromDate == null ? MIN_LEDGER_DATE : fromDate,
+      toDate == null ? MAX_LEDGER_DATE : toDate,
+      metricType,
+      estoqueTipoId,
+      filialId);
+    if (after != null) {
+      spec = spec.and((root, query, cb) -> cb.or(
+        cb.lessThan(root.get("dataHoraMovimentacao"), after.dataHoraMovimentacao()),
+        cb.and(
+          cb.equal(root.get("dataHoraMovimentacao"), after.dataHoraMovimentacao()),
+          cb.lessThan(root.get("id"), after.id()))));
+    }
+
+    // Busca um registro a mais para saber se existe proxima pagina sem executar count.
+    List<CatalogMovement> fetched = movementRepository.findBy(spec, query -> query
+      .sortBy(Sort.by(Sort.Order.desc("dataHoraMovimentacao"), Sort.Order.desc("id")))
+      .limit(effectiveSize + 1)
+      .all());
+    boolean hasMore = fetched.size() > effectiveSize;
+    List<CatalogMovement> movements = hasMore ? fetched.subList(0, effectiveSize) : fetched;
+
+    Map<Long, CatalogMovementResponse> responseById = toLedgerResponses(
+      scope.tenantId(),
+      movements,
+      metricType,
+      estoqueTipoId,
+      filialId);
+    CatalogMovement last = movements.isEmpty() ? null : movements.get(movements.size() - 1);
+    return new CatalogMovementLedgerCursorResponse(
+      movements.stream().map(movement -> responseById.get(movement.getId())).toList(),
+      effectiveSize,
+      hasMore,
+      hasMore ? encodeLedgerCursor(last) : null);
+  }
+
+  private Map<Long, CatalogMovementResponse> toLedgerResponses(
+      Long tenantId,
+      List<CatalogMovement> movements,
+      CatalogMovementMetricType metricType,
+      Long estoqueTipoId,
+      Long filialId) {
+    if (movements.isEmpty()) {
+      return Map.of();
+    }
+    List<Long> movementIds = movements.stream().map(CatalogMovement::getId).toList();
+    List<CatalogMovementLine> lines = lineRepository.findAllByTenantIdAndMovementIdInOrderByMovementIdAscIdAsc(
+      tenantId,
       movementIds);
     List<CatalogMovementLine> filteredLines = lines.stream()
       .filter(line -> matchesLedgerLineFilters(line, metricType, estoqueTipoId, filialId))
@@ -217,10 +545,11 @@ public class CatalogStockQueryService {
       linesByMovementId.computeIfAbsent(line.getMovementId(), ignored -> new ArrayList<>()).add(line);
     }
 
-    Map<Long, CatalogStockType> stockTypeById = loadStockTypes(scope.tenantId(), stockTypeIds);
-    Map<Long, String> filialNameById = loadFilialNames(scope.tenantId(), filialIds);
+    Map<Long, CatalogStockType> stockTypeById = loadStockTypes(tenantId, stockTypeIds);
+    Map<Long, String> filialNameById = loadFilialNames(tenantId, filialIds);
 
-    return page.map(movement -> {
+    Map<Long, CatalogMovementResponse> responseById = new HashMap<>();
+    for (CatalogMovement movement : movements) {
       List<CatalogMovementLineResponse> lineResponses = linesByMovementId
         .getOrDefault(movement.getId(), List.of())
         .stream()
@@ -241,7 +570,7 @@ public class CatalogStockQueryService {
         })
         .toList();
 
-      return new CatalogMovementResponse(
+      responseById.put(movement.getId(), new CatalogMovementResponse(
         movement.getId(),
         movement.getCatalogoId(),
         movement.getAgrupadorEmpresaId(),
@@ -261,8 +590,32 @@ public class CatalogStockQueryService {
         movement.getQuantidadeConvertidaBase(),
         movement.getFatorAplicado(),
         movement.getFatorFonte(),
-        lineResponses);
-    });
+        lineResponses));
+    }
+    return responseById;
+  }
+
+  private LedgerCursor decodeLedgerCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('|');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("catalog_stock_ledger_cursor_invalid");
+      }
+      return new LedgerCursor(
+        Instant.parse(decoded.substring(0, separator)),
+        Long.parseLong(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      throw new IllegalArgumentException("catalog_stock_ledger_cursor_invalid");
+    }
+  }
+
+  private String encodeLedgerCursor(CatalogMovement movement) {
+    String raw = movement.getDataHoraMovimentacao() + "|" + movement.getId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
   }
 
   private Specification<CatalogMovement> buildLedgerSpecification(
@@ -386,12 +739,42 @@ public class CatalogStockQueryService {
     return value;
   }
 
+  private List<StockTypeAmounts> consolidatePendingDeltas(
+      List<CatalogStockConsolidatedBalanceRepository.StockTypeConsolidatedRow> consolidatedRows,
+      List<CatalogMovementLineRepository.PendingEscrowDeltaRow> pendingDeltas) {
+    Map<Long, StockTypeAmounts> amountsByStockTypeId = new LinkedHashMap<>();
+    for (CatalogStockConsolidatedBalanceRepository.StockTypeConsolidatedRow row : consolidatedRows) {
+      if (row == null || row.getEstoqueTipoId() == null) {
+        continue;
+      }
+      amountsByStockTypeId.putIfAbsent(
+        row.getEstoqueTipoId(),
+        new StockTypeAmounts(
+          row.getEstoqueTipoId(),
+          normalizeAmount(row.getQuantidadeTotal()),
+          normalizeAmount(row.getPrecoTotal())));
+    }
+    for (CatalogMovementLineRepository.PendingEscrowDeltaRow pending : pendingDeltas) {
+      if (pending == null || pending.getEstoqueTipoId() == null) {
+        continue;
+      }
+      StockTypeAmounts current = amountsByStockTypeId.getOrDefault(
+        pending.getEstoqueTipoId(),
+        new StockTypeAmounts(pending.getEstoqueTipoId(), BigDecimal.ZERO, BigDecimal.ZERO));
+      BigDecimal delta = normalizeAmount(pending.getDeltaTotal());
+      amountsByStockTypeId.put(pending.getEstoqueTipoId(), pending.getMetricType() == CatalogMovementMetricType.QUANTIDADE
+        ? new StockTypeAmounts(current.estoqueTipoId(), current.quantidade().add(delta), current.preco())
+        : new StockTypeAmounts(current.estoqueTipoId(), current.quantidade(), current.preco().add(delta)));
+    }
+    return new ArrayList<>(amountsByStockTypeId.values());
+  }
+
   private Set<Long> collectStockTypeIds(
-      List<CatalogStockBalance> rows,
-      List<CatalogStockBalanceRepository.StockTypeConsolidatedRow> consolidatedRows,
+      List<BalanceAmounts> rows,
+      List<StockTypeAmounts> consolidatedRows,
       List<CatalogStockType> configuredStockTypes) {
-    Set<Long> ids = rows.stream().map(CatalogStockBalance::getEstoqueTipoId).collect(Collectors.toSet());
-    ids.addAll(consolidatedRows.stream().map(CatalogStockBalanceRepository.StockTypeConsolidatedRow::getEstoqueTipoId).toList());
+    Set<Long> ids = rows.stream().map(BalanceAmounts::estoqueTipoId).collect(Collectors.toSet());
+    ids.addAll(consolidatedRows.stream().map(StockTypeAmounts::estoqueTipoId).toList());
     ids.addAll(configuredStockTypes.stream().map(CatalogStockType::getId).toList());
     return ids;
   }
@@ -423,34 +806,31 @@ public class CatalogStockQueryService {
   }
 
   private List<CatalogStockConsolidatedResponse> buildConsolidatedResponses(
-      List<CatalogStockBalanceRepository.StockTypeConsolidatedRow> consolidatedRows,
+      List<StockTypeAmounts> consolidatedRows,
       List<CatalogStockType> configuredStockTypes,
       Map<Long, CatalogStockType> stockTypeById) {
-    Map<Long, CatalogStockBalanceRepository.StockTypeConsolidatedRow> consolidatedByStockTypeId = new LinkedHashMap<>();
-    for (CatalogStockBalanceRepository.StockTypeConsolidatedRow row : consolidatedRows) {
-      if (row == null || row.getEstoqueTipoId() == null) {
-        continue;
-      }
-      consolidatedByStockTypeId.putIfAbsent(row.getEstoqueTipoId(), row);
+    Map<Long, StockTypeAmounts> consolidatedByStockTypeId = new LinkedHashMap<>();
+    for (StockTypeAmounts row : consolidatedRows) {
+      consolidatedByStockTypeId.putIfAbsent(row.estoqueTipoId(), row);
     }
 
     List<CatalogStockConsolidatedResponse> response = new ArrayList<>();
     Set<Long> includedStockTypeIds = new LinkedHashSet<>();
 
     for (CatalogStockType configured : configuredStockTypes) {
-      CatalogStockBalanceRepository.StockTypeConsolidatedRow consolidated = consolidatedByStockTypeId.get(configured.getId());
+      StockTypeAmounts consolidated = consolidatedByStockTypeId.get(configured.getId());
       response.add(new CatalogStockConsolidatedResponse(
         configured.getId(),
         configured.getCodigo(),
         configured.getNome(),
-        consolidated == null ? BigDecimal.ZERO : normalizeAmount(consolidated.getQuantidadeTotal()),
-        consolidated == null ? BigDecimal.ZERO : normalizeAmount(consolidated.getPrecoTotal())));
+        consolidated == null ? BigDecimal.ZERO : consolidated.quantidade(),
+        consolidated == null ? BigDecimal.ZERO : consolidated.preco()));
       includedStockTypeIds.add(configured.getId());
     }
 
-    for (CatalogStockBalanceRepository.StockTypeConsolidatedRow row : consolidatedRows) {
-      Long stockTypeId = row == null ? null : row.getEstoqueTipoId();
-      if (stockTypeId == null || includedStockTypeIds.contains(stockTypeId)) {
+    for (StockTypeAmounts row : consolidatedRows) {
+      Long stockTypeId = row.estoqueTipoId();
+      if (includedStockTypeIds.contains(stockTypeId)) {
         continue;
       }
       CatalogStockType stockType = stockTypeById.get(stockTypeId);
@@ -458,25 +838,22 @@ public class CatalogStockQueryService {
         stockTypeId,
         stockType == null ? null : stockType.getCodigo(),
         stockType == null ? null : stockType.getNome(),
-        normalizeAmount(row.getQuantidadeTotal()),
-        normalizeAmount(row.getPrecoTotal())));
+        row.quantidade(),
+        row.preco()));
     }
 
     return response;
   }
 
   private List<CatalogStockBalanceRowResponse> buildDetailRows(
-      List<CatalogStockBalance> rows,
+      List<BalanceAmounts> rows,
       List<CatalogStockType> configuredStockTypes,
       Collection<Long> groupedFilialIds,
       Map<Long, CatalogStockType> stockTypeById,
       Map<Long, String> filialNameById) {
-    Map<DetailRowKey, CatalogStockBalance> rowByKey = new LinkedHashMap<>();
-    for (CatalogStockBalance row : rows) {
-      if (row == null || row.getEstoqueTipoId() == null || row.getFilialId() == null) {
-        continue;
-      }
-      rowByKey.putIfAbsent(new DetailRowKey(row.getEstoqueTipoId(), row.getFilialId()), row);
+    Map<DetailRowKey, BalanceAmounts> rowByKey = new LinkedHashMap<>();
+    for (BalanceAmounts row : rows) {
+      rowByKey.putIfAbsent(new DetailRowKey(row.estoqueTipoId(), row.filialId()), row);
     }
 
     List<CatalogStockBalanceRowResponse> response = new ArrayList<>();
@@ -485,36 +862,33 @@ public class CatalogStockQueryService {
     for (CatalogStockType configuredStockType : configuredStockTypes) {
       for (Long filialItemId : groupedFilialIds) {
         DetailRowKey key = new DetailRowKey(configuredStockType.getId(), filialItemId);
-        CatalogStockBalance row = rowByKey.get(key);
+        BalanceAmounts row = rowByKey.get(key);
         response.add(new CatalogStockBalanceRowResponse(
           configuredStockType.getId(),
           configuredStockType.getCodigo(),
           configuredStockType.getNome(),
           filialItemId,
           filialNameById.get(filialItemId),
-          row == null ? BigDecimal.ZERO : normalizeAmount(row.getQuantidadeAtual()),
-          row == null ? BigDecimal.ZERO : normalizeAmount(row.getPrecoAtual())));
+          row == null ? BigDecimal.ZERO : row.quantidade(),
+          row == null ? BigDecimal.ZERO : row.preco()));
         includedKeys.add(key);
       }
     }
 
-    for (CatalogStockBalance row : rows) {
-      if (row == null || row.getEstoqueTipoId() == null || row.getFilialId() == null) {
-        continue;
-      }
-      DetailRowKey key = new DetailRowKey(row.getEstoqueTipoId(), row.getFilialId());
+    for (BalanceAmounts row : rows) {
+      DetailRowKey key = new DetailRowKey(row.estoqueTipoId(), row.filialId());
       if (includedKeys.contains(key)) {
         continue;
       }
-      CatalogStockType stockType = stockTypeById.get(row.getEstoqueTipoId());
+      CatalogStockType stockType = stockTypeById.get(row.estoqueTipoId());
       response.add(new CatalogStockBalanceRowResponse(
-        row.getEstoqueTipoId(),
+        row.estoqueTipoId(),
         stockType == null ? null : stockType.getCodigo(),
         stockType == null ? null : stockType.getNome(),
-        row.getFilialId(),
-        filialNameById.get(row.getFilialId()),
-        normalizeAmount(row.getQuantidadeAtual()),
-        normalizeAmount(row.getPrecoAtual())));
+        row.filialId(),
+        filialNameById.get(row.filialId()),
+        row.quantidade(),
+        row.preco()));
       includedKeys.add(key);
     }
 
@@ -542,6 +916,12 @@ public class CatalogStockQueryService {
 
   private record DetailRowKey(Long estoqueTipoId, Long filialId) {}
 
+  private record LedgerCursor(Instant dataHoraMovimentacao, Long id) {}
+
+  private record BalanceAmounts(Long estoqueTipoId, Long filialId, BigDecimal quantidade, BigDecimal preco) {}
+
+  private record StockTypeAmounts(Long estoqueTipoId, BigDecimal quantidade, BigDecimal preco) {}
+
   private Map<Long, String> loadFilialNames(Long tenantId, Collection<Long> filialIds) {
     if (filialIds == null || filialIds.isEmpty()) {
       return Map.of();
@@ -0,0 +1,303 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.CatalogStockReconciliationMismatch;
+import com.ia.app.domain.CatalogStockReconciliationRun;
+import com.ia.app.repository.CatalogStockReconciliationMismatchRepository;
+import com.ia.app.repository.CatalogStockReconciliationRepository;
+import com.ia.app.repository.CatalogStockReconciliationRepository.LedgerBalanceRow;
+import com.ia.app.repository.CatalogStockReconciliationRepository.ReconciliationUnit;
+import com.ia.app.repository.CatalogStockReconciliationRunRepository;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceRow;
+import com.ia.app.repository.CatalogStockWriteRepository.BalanceScope;
+import com.ia.app.repository.CatalogStockWriteRepository.ConsolidatedDelta;
+import com.ia.app.repository.CatalogStockWriteRepository.ConsolidatedScope;
+import com.ia.app.repository.CatalogStockWriteRepository.NewBalance;
+import jakarta.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class CatalogStockReconciliationService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogStockReconciliationService.class);
+
+  public static final String STATUS_RUNNING = "RUNNING";
+  public static final String STATUS_COMPLETED = "COMPLETED";
+  public static final String STATUS_FAILED = "FAILED";
+
+  private final CatalogStockReconciliationRepository reconciliationRepository;
+  private final CatalogStockReconciliationRunRepository runRepository;
+  private final CatalogStockReconciliationMismatchRepository mismatchRepository;
+  private final CatalogStockWriteRepository stockWriteRepository;
+  private final CatalogMovementEngine movementEngine;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${catalog.stock.reconciliation.enabled:false}")
+  private boolean scheduledEnabled;
+
+  @Value("${catalog.stock.reconciliation.repair-enabled:false}")
+  private boolean scheduledRepair;
+
+  @Value("${catalog.stock.reconciliation.parallelism:0}")
+  private int parallelism;
+
+  @Value("${catalog.stock.reconciliation.fetch-size:1000}")
+  private int fetchSize;
+
+  public CatalogStockReconciliationService(
+      CatalogStockReconciliationRepository reconciliationRepository,
+      CatalogStockReconciliationRunRepository runRepository,
+      CatalogStockReconciliationMismatchRepository mismatchRepository,
+      CatalogStockWriteRepository stockWriteRepository,
+      CatalogMovementEngine movementEngine,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager) {
+    this.reconciliationRepository = reconciliationRepository;
+    this.runRepository = runRepository;
+    this.mismatchRepository = mismatchRepository;
+    this.stockWriteRepository = stockWriteRepository;
+    this.movementEngine = movementEngine;
+    this.jobLockService = jobLockService;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  @Scheduled(cron = "${catalog.stock.reconciliation.cron:0 0 3 * * *}", zone = "UTC")
+  public void reconcileScheduled() {
+    if (!scheduledEnabled) {
+      return;
+    }
+    try {
+      jobLockService.runExclusive("catalog-stock-reconciliation", () -> {
+        CatalogStockReconciliationRun run = reconcile(scheduledRepair);
+        log.info(
+          "Catalog stock reconciliation {} finished with {} mismatches ({} repaired)",
+          run.getId(),
+          run.getMismatchCount(),
+          run.getRepairedCount());
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Catalog stock reconciliation failed: {}", ex.getMessage());
+    }
+  }
+
+  public CatalogStockReconciliationRun reconcile(boolean repair) {
+    List<ReconciliationUnit> units = reconciliationRepository.findUnits();
+    CatalogStockReconciliationRun run = transactionTemplate.execute(status -> {
+      CatalogStockReconciliationRun created = new CatalogStockReconciliationRun();
+      created.setRepairMode(repair);
+      created.setStatus(STATUS_RUNNING);
+      created.setUnitsTotal(units.size());
+      created.setStartedAt(Instant.now());
+      return runRepository.save(created);
+    });
+    Long runId = run.getId();
+
+    // Cada unidade (locatario + configuracao de catalogo) e independente; o pool limita o paralelismo.
+    ForkJoinPool pool = new ForkJoinPool(effectiveParallelism());
+    try {
+      List<UnitResult> results = pool.submit(() -> units.parallelStream()
+          .map(unit -> reconcileUnit(runId, unit, repair))
+          .toList())
+        .get();
+      int mismatches = results.stream().mapToInt(UnitResult::mismatches).sum();
+      int repaired = results.stream().mapToInt(UnitResult::repaired).sum();
+      return finishRun(runId, STATUS_COMPLETED, mismatches, repaired, null);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      finishRun(runId, STATUS_FAILED, 0, 0, "interrupted");
+      throw new IllegalStateException("catalog_stock_reconciliation_interrupted", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+      finishRun(runId, STATUS_FAILED, 0, 0, cause.getMessage());
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("catalog_stock_reconciliation_failed", cause);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  public List<CatalogStockReconciliationMismatch> listMismatches(Long runId) {
+    if (!runRepository.existsById(runId)) {
+      throw new EntityNotFoundException("catalog_stock_reconciliation_run_not_found");
+    }
+    return mismatchRepository.findAllByRunIdOrderByIdAsc(runId);
+  }
+
+  private UnitResult reconcileUnit(Long runId, ReconciliationUnit unit, boolean repair) {
+    List<CatalogStockReconciliationMismatch> mismatches = transactionTemplate.execute(status -> {
+      List<CatalogStockReconciliationMismatch> detected = new ArrayList<>();
+      reconciliationRepository.streamMismatches(unit, fetchSize, row -> detected.add(toMismatch(runId, row)));
+      return mismatchRepository.saveAll(detected);
+    });
+    if (mismatches == null || mismatches.isEmpty()) {
+      return new UnitResult(0, 0);
+    }
+    int repaired = 0;
+    if (repair) {
+      for (CatalogStockReconciliationMismatch mismatch : mismatches) {
+        if (repairMismatch(runId, mismatch)) {
+          repaired++;
+        }
+      }
+    }
+    return new UnitResult(mismatches.size(), repaired);
+  }
+
+  private boolean repairMismatch(Long runId, CatalogStockReconciliationMismatch mismatch) {
+    try {
+      Long movementId = transactionTemplate.execute(status -> applyCorrection(runId, mismatch));
+      mismatch.setRepaired(movementId != null);
+      mismatch.setRepairMovementId(movementId);
+      mismatch.setRepairError(null);
+    } catch (RuntimeException ex) {
+      mismatch.setRepaired(false);
+      mismatch.setRepairError(truncate(ex.getMessage()));
+    }
+    transactionTemplate.executeWithoutResult(status -> mismatchRepository.save(mismatch));
+    return mismatch.isRepaired();
+  }
+
+  private Long applyCorrection(Long runId, CatalogStockReconciliationMismatch mismatch) {
+    BalanceScope scope = new BalanceScope(
+      mismatch.getTenantId(),
+      mismatch.getCatalogType(),
+      mismatch.getCatalogoId(),
+      mismatch.getAgrupadorEmpresaId(),
+      mismatch.getEstoqueTipoId(),
+      mismatch.getFilialId());
+    BalanceRow locked = stockWriteRepository.lockOrCreateBalances(
+        List.of(new NewBalance(scope, mismatch.getCatalogConfigurationId())))
+      .get(0);
+    // Reavalia com o saldo travado: movimentos concorrentes alteram razao e saldo pelo mesmo delta.
+    LedgerBalanceRow current = reconciliationRepository.loadLedgerBalance(scope, mismatch.getCatalogConfigurationId());
+    BigDecimal quantidadeDiff = locked.quantidadeAtual().subtract(current.ledgerQuantidade());
+    BigDecimal precoDiff = locked.precoAtual().subtract(current.ledgerPreco());
+    if (quantidadeDiff.signum() == 0 && precoDiff.signum() == 0) {
+      return null;
+    }
+
+    // O saldo visivel e preservado: ele volta ao valor do razao e o movimento corretivo o leva de volta,
+    // deixando no razao o lancamento que explica a diferenca.
+    stockWriteRepository.updateBalances(List.of(new BalanceRow(
+      locked.id(),
+      scope,
+      current.ledgerQuantidade(),
+      current.ledgerPreco())));
+    stockWriteRepository.applyConsolidatedDeltas(List.of(new ConsolidatedDelta(
+      ConsolidatedScope.of(scope),
+      mismatch.getCatalogConfigurationId(),
+      quantidadeDiff.negate(),
+      precoDiff.negate())));
+
+    List<CatalogMovementEngine.Impact> impacts = new ArrayList<>(2);
+    if (quantidadeDiff.signum() != 0) {
+      impacts.add(new CatalogMovementEngine.Impact(
+        scope.agrupadorEmpresaId(),
+        CatalogMovementMetricType.QUANTIDADE,
+        scope.estoqueTipoId(),
+        scope.filialId(),
+        quantidadeDiff));
+    }
+    if (precoDiff.signum() != 0) {
+      impacts.add(new CatalogMovementEngine.Impact(
+        scope.agrupadorEmpresaId(),
+        CatalogMovementMetricType.PRECO,
+        scope.estoqueTipoId(),
+        scope.filialId(),
+        precoDiff));
+    }
+    return movementEngine.apply(new CatalogMovementEngine.Command(
+      scope.tenantId(),
+      scope.catalogType(),
+      scope.catalogoId(),
+      mismatch.getCatalogConfigurationId(),
+      scope.agrupadorEmpresaId(),
+      CatalogMovementOriginType.SYSTEM,
+      "RECONCILIACAO:" + runId,
+      runId,
+      "RECONCILIACAO",
+      "ITEM:" + scope.catalogoId(),
+      null,
+      null,
+      null,
+      "Ajuste automatico da conciliacao entre razao e saldo de estoque.",
+      "catalog-stock-reconciliation:" + mismatch.getId(),
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      impacts)).movementId();
+  }
+
+  private CatalogStockReconciliationRun finishRun(
+      Long runId,
+      String status,
+      int mismatches,
+      int repaired,
+      String errorMessage) {
+    return transactionTemplate.execute(tx -> {
+      CatalogStockReconciliationRun run = runRepository.findById(runId)
+        .orElseThrow(() -> new EntityNotFoundException("catalog_stock_reconciliation_run_not_found"));
+      run.setStatus(status);
+      run.setMismatchCount(mismatches);
+      run.setRepairedCount(repaired);
+      run.setErrorMessage(errorMessage == null ? null : errorMessage.substring(0, Math.min(errorMessage.length(), 255)));
+      run.setFinishedAt(Instant.now());
+      return runRepository.save(run);
+    });
+  }
+
+  private CatalogStockReconciliationMismatch toMismatch(Long runId, LedgerBalanceRow row) {
+    CatalogStockReconciliationMismatch mismatch = new CatalogStockReconciliationMismatch();
+    mismatch.setRunId(runId);
+    mismatch.setTenantId(row.scope().tenantId());
+    mismatch.setCatalogType(row.scope().catalogType());
+    mismatch.setCatalogoId(row.scope().catalogoId());
+    mismatch.setCatalogConfigurationId(row.catalogConfigurationId());
+    mismatch.setAgrupadorEmpresaId(row.scope().agrupadorEmpresaId());
+    mismatch.setEstoqueTipoId(row.scope().estoqueTipoId());
+    mismatch.setFilialId(row.scope().filialId());
+    mismatch.setBalanceId(row.balanceId());
+    mismatch.setLedgerQuantidade(row.ledgerQuantidade());
+    mismatch.setBalanceQuantidade(row.balanceQuantidade());
+    mismatch.setLedgerPreco(row.ledgerPreco());
+    mismatch.setBalancePreco(row.balancePreco());
+    mismatch.setDetectedAt(Instant.now());
+    return mismatch;
+  }
+
+  private int effectiveParallelism() {
+    return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+  }
+
+  private String truncate(String value) {
+    if (value == null) {
+      return null;
+    }
+    return value.length() <= 120 ? value : value.substring(0, 120);
+  }
+
+  private record UnitResult(int mismatches, int repaired) {}
+}
@@ -0,0 +1,210 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogStockBalanceSnapshot;
+import com.ia.app.domain.CatalogStockSnapshotRun;
+import com.ia.app.repository.CatalogMovementLineRepository;
+import com.ia.app.repository.CatalogStockBalanceSnapshotRepository;
+import com.ia.app.repository.CatalogStockSnapshotRunRepository;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class CatalogStockSnapshotService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogStockSnapshotService.class);
+
+  static final Instant LEDGER_START = Instant.parse("1900-01-01T00:00:00Z");
+
+  private final CatalogStockSnapshotRunRepository runRepository;
+  private final CatalogStockBalanceSnapshotRepository snapshotRepository;
+  private final CatalogMovementLineRepository lineRepository;
+  private final CatalogStockWriteRepository stockWriteRepository;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${catalog.stock.snapshots.enabled:true}")
+  private boolean snapshotsEnabled;
+
+  // Folga extra antes do corte. No Postgres o corte ja para no inicio da transacao aberta mais antiga;
+  // sem isso (H2), a folga tem que passar da transacao mais longa.
+  @Value("${catalog.stock.snapshots.commit-lag-seconds:0}")
+  private long commitLagSeconds;
+
+  public CatalogStockSnapshotService(
+      CatalogStockSnapshotRunRepository runRepository,
+      CatalogStockBalanceSnapshotRepository snapshotRepository,
+      CatalogMovementLineRepository lineRepository,
+      CatalogStockWriteRepository stockWriteRepository,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager) {
+    this.runRepository = runRepository;
+    this.snapshotRepository = snapshotRepository;
+    this.lineRepository = lineRepository;
+    this.stockWriteRepository = stockWriteRepository;
+    this.jobLockService = jobLockService;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+  }
+
+  @Scheduled(cron = "${catalog.stock.snapshots.cron:0 15 0 * * *}", zone = "UTC")
+  public void snapshotScheduled() {
+    if (!snapshotsEnabled) {
+      return;
+    }
+    try {
+      jobLockService.runExclusive("catalog-stock-snapshots", () -> {
+        List<LocalDate> days = snapshotThrough(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+        if (!days.isEmpty()) {
+          log.info("Catalog stock snapshots closed for {}", days);
+        }
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Catalog stock snapshot failed: {}", ex.getMessage());
+    }
+  }
+
+  public List<LocalDate> snapshotThrough(LocalDate lastDay) {
+    LocalDate first = runRepository.findTopByOrderBySnapshotDateDesc()
+      .map(run -> run.getSnapshotDate().plusDays(1))
+      .orElse(lastDay);
+    List<LocalDate> closed = new ArrayList<>();
+    for (LocalDate day = first; !day.isAfter(lastDay); day = day.plusDays(1)) {
+      LocalDate current = day;
+      transactionTemplate.executeWithoutResult(status -> snapshotDay(current));
+      closed.add(current);
+    }
+    return closed;
+  }
+
+  private void snapshotDay(LocalDate day) {
+    Instant dayEnd = dayEnd(day);
+    if (dayEnd.isAfter(Instant.now())) {
+      throw new IllegalArgumentException("catalog_stock_snapshot_day_open");
+    }
+    CatalogStockSnapshotRun previous = runRepository.findTopByOrderBySnapshotDateDesc().orElse(null);
+    if (previous != null && !previous.getSnapshotDate().isBefore(day)) {
+      throw new IllegalArgumentException("catalog_stock_snapshot_day_closed");
+    }
+
+    // Corte por created_at no relogio do banco: uma linha ainda nao confirmada agora foi gravada depois
+    // do corte e entra no proximo fechamento. Nunca recua, para nao contar de novo o que o anterior ja contou.
+    Instant now = Instant.now();
+    Instant lineCutoff = stockWriteRepository.lineCutoff(commitLagSeconds);
+    if (previous != null && previous.getLineCutoff().isAfter(lineCutoff)) {
+      lineCutoff = previous.getLineCutoff();
+    }
+    CatalogStockSnapshotRun run = new CatalogStockSnapshotRun();
+    run.setSnapshotDate(day);
+    run.setLineCutoff(lineCutoff);
+    run.setCreatedAt(now);
+    runRepository.save(run);
+
+    List<CatalogMovementLineRepository.LedgerDeltaRow> deltas = lineRepository.sumSnapshotDeltas(
+      dayEnd,
+      lineCutoff,
+      previous == null ? LEDGER_START : dayEnd(previous.getSnapshotDate()),
+      previous == null ? LEDGER_START : previous.getLineCutoff());
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    // Somente chaves com movimento ganham linha nova; as demais seguem valendo pelo ultimo fechamento.
+    Map<SnapshotKey, CatalogStockBalanceSnapshot> snapshots = new LinkedHashMap<>();
+    Map<Long, Set<Long>> catalogoIdsByTenant = new LinkedHashMap<>();
+    for (CatalogMovementLineRepository.LedgerDeltaRow delta : deltas) {
+      SnapshotKey key = SnapshotKey.of(delta);
+      snapshots.computeIfAbsent(key, ignored -> key.newSnapshot(day));
+      catalogoIdsByTenant.computeIfAbsent(delta.getTenantId(), ignored -> new LinkedHashSet<>()).add(delta.getCatalogoId());
+    }
+    if (previous != null) {
+      catalogoIdsByTenant.forEach((tenantId, catalogoIds) -> snapshotRepository
+        .findLatestForCatalogos(tenantId, catalogoIds, previous.getSnapshotDate())
+        .forEach(base -> {
+          CatalogStockBalanceSnapshot snapshot = snapshots.get(SnapshotKey.of(base));
+          if (snapshot != null) {
+            snapshot.setQuantidade(base.getQuantidade());
+            snapshot.setPreco(base.getPreco());
+          }
+        }));
+    }
+    for (CatalogMovementLineRepository.LedgerDeltaRow delta : deltas) {
+      CatalogStockBalanceSnapshot snapshot = snapshots.get(SnapshotKey.of(delta));
+      BigDecimal value = delta.getDeltaTotal() == null ? BigDecimal.ZERO : delta.getDeltaTotal();
+      if (delta.getMetricType() == CatalogMovementMetricType.QUANTIDADE) {
+        snapshot.setQuantidade(scale(snapshot.getQuantidade().add(value)));
+      } else {
+        snapshot.setPreco(scale(snapshot.getPreco().add(value)));
+      }
+    }
+    snapshotRepository.saveAll(snapshots.values());
+  }
+
+  static Instant dayEnd(LocalDate day) {
+    return day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  private static BigDecimal scale(BigDecimal value) {
+    return value.setScale(6, RoundingMode.HALF_UP);
+  }
+
+  private record SnapshotKey(
+    Long tenantId,
+    CatalogConfigurationType catalogType,
+    Long catalogoId,
+    Long agrupadorEmpresaId,
+    Long estoqueTipoId,
+    Long filialId
+  ) {
+    static SnapshotKey of(CatalogMovementLineRepository.LedgerDeltaRow row) {
+      return new SnapshotKey(
+        row.getTenantId(),
+        row.getCatalogType(),
+        row.getCatalogoId(),
+        row.getAgrupadorEmpresaId(),
+        row.getEstoqueTipoId(),
+        row.getFilialId());
+    }
+
+    static SnapshotKey of(CatalogStockBalanceSnapshot snapshot) {
+      return new SnapshotKey(
+        snapshot.getTenantId(),
+        snapshot.getCatalogType(),
+        snapshot.getCatalogoId(),
+        snapshot.getAgrupadorEmpresaId(),
+        snapshot.getEstoqueTipoId(),
+        snapshot.getFilialId());
+    }
+
+    CatalogStockBalanceSnapshot newSnapshot(LocalDate day) {
+      CatalogStockBalanceSnapshot snapshot = new CatalogStockBalanceSnapshot();
+      snapshot.setTenantId(tenantId);
+      snapshot.setCatalogType(catalogType);
+      snapshot.setCatalogoId(catalogoId);
+      snapshot.setAgrupadorEmpresaId(agrupadorEmpresaId);
+      snapshot.setEstoqueTipoId(estoqueTipoId);
+      snapshot.setFilialId(filialId);
+      snapshot.setSnapshotDate(day);
+      snapshot.setQuantidade(scale(BigDecimal.ZERO));
+      snapshot.setPreco(scale(BigDecimal.ZERO));
+      return snapshot;
+    }
+  }
+}
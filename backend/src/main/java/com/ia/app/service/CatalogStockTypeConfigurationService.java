@@ -23,6 +23,7 @@ public class CatalogStockTypeConfigurationService {
   private final CatalogStockTypeRepository stockTypeRepository;
   private final AgrupadorEmpresaRepository agrupadorEmpresaRepository;
   private final CatalogStockTypeSyncService stockTypeSyncService;
+  private final MovimentoValidationCacheService validationCache;
   private final AuditService auditService;
 
   public CatalogStockTypeConfigurationService(
@@ -30,11 +31,13 @@ public class CatalogStockTypeConfigurationService {
       CatalogStockTypeRepository stockTypeRepository,
       AgrupadorEmpresaRepository agrupadorEmpresaRepository,
       CatalogStockTypeSyncService stockTypeSyncService,
+      MovimentoValidationCacheService validationCache,
       AuditService auditService) {
     this.catalogConfigurationService = catalogConfigurationService;
     this.stockTypeRepository = stockTypeRepository;
     this.agrupadorEmpresaRepository = agrupadorEmpresaRepository;
     this.stockTypeSyncService = stockTypeSyncService;
+    this.validationCache = validationCache;
     this.auditService = auditService;
   }
 
@@ -74,6 +77,7 @@ public class CatalogStockTypeConfigurationService {
 
     try {
       CatalogStockType saved = stockTypeRepository.saveAndFlush(entity);
+      validationCache.evictStockTypes(scope.tenantId());
       auditService.log(
         scope.tenantId(),
         "CATALOG_STOCK_TYPE_CREATED",
@@ -123,6 +127,7 @@ public class CatalogStockTypeConfigurationService {
 
     try {
       CatalogStockType saved = stockTypeRepository.saveAndFlush(entity);
+      validationCache.evictStockTypes(scope.tenantId());
       auditService.log(
         scope.tenantId(),
         "CATALOG_STOCK_TYPE_UPDATED",
@@ -14,9 +14,13 @@ public class CatalogStockTypeSyncService {
   private static final String DEFAULT_NAME = "Estoque Geral";
 
   private final CatalogStockTypeRepository repository;
+  private final MovimentoValidationCacheService validationCache;
 
-  public CatalogStockTypeSyncService(CatalogStockTypeRepository repository) {
+  public CatalogStockTypeSyncService(
+      CatalogStockTypeRepository repository,
+      MovimentoValidationCacheService validationCache) {
     this.repository = repository;
+    this.validationCache = validationCache;
   }
 
   @Transactional
@@ -60,6 +64,7 @@ public class CatalogStockTypeSyncService {
         catalogConfigurationId,
         agrupadorEmpresaId)
       .forEach(stockType -> stockType.setActive(false));
+    validationCache.evictStockTypes(tenantId);
   }
 
   private CatalogStockType createStockType(
@@ -78,7 +83,9 @@ public class CatalogStockTypeSyncService {
     entity.setOrdem(order);
     entity.setActive(true);
     try {
-      return repository.saveAndFlush(entity);
+      CatalogStockType saved = repository.saveAndFlush(entity);
+      validationCache.evictStockTypes(tenantId);
+      return saved;
     } catch (DataIntegrityViolationException ex) {
       return repository.findByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaIdAndCodigoAndActiveTrue(
           tenantId,
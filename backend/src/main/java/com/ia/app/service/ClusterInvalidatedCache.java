@@ -0,0 +1,11 @@
+package com.ia.app.service;
+
+// Cache local invalidado entre nos: CacheInvalidationNotifier publica, CacheInvalidationListener entrega.
+public interface ClusterInvalidatedCache {
+
+  String channel();
+
+  void applyRemote(String payload);
+
+  void invalidateAllLocal();
+}
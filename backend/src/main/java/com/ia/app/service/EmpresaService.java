@@ -20,10 +20,15 @@ public class EmpresaService {
 
   private final EmpresaRepository repository;
   private final AuthorizationService authorizationService;
+  private final MovimentoValidationCacheService validationCache;
 
-  public EmpresaService(EmpresaRepository repository, AuthorizationService authorizationService) {
+  public EmpresaService(
+      EmpresaRepository repository,
+      AuthorizationService authorizationService,
+      MovimentoValidationCacheService validationCache) {
     this.repository = repository;
     this.authorizationService = authorizationService;
+    this.validationCache = validationCache;
   }
 
   public Page<Empresa> findAll(String nome, String cnpj, String tipo, Long matrizId, Boolean ativo, Pageable pageable) {
@@ -62,7 +67,9 @@ public class EmpresaService {
     empresa.setNomeFantasia(clean(request.nomeFantasia()));
     empresa.setCnpj(request.cnpj().trim());
     empresa.setAtivo(request.ativo());
-    return repository.save(empresa);
+    Empresa saved = repository.save(empresa);
+    validationCache.evictEmpresas(tenantId);
+    return saved;
   }
 
   public Empresa createFilial(EmpresaFilialRequest request) {
@@ -83,7 +90,9 @@ public class EmpresaService {
     empresa.setNomeFantasia(clean(request.nomeFantasia()));
     empresa.setCnpj(request.cnpj().trim());
     empresa.setAtivo(request.ativo());
-    return repository.save(empresa);
+    Empresa saved = repository.save(empresa);
+    validationCache.evictEmpresas(tenantId);
+    return saved;
   }
 
   public Empresa update(Long id, EmpresaUpdateRequest request) {
@@ -113,6 +122,7 @@ public class EmpresaService {
       throw new IllegalArgumentException("empresa_matriz_com_filiais");
     }
     repository.delete(empresa);
+    validationCache.evictEmpresas(tenantId);
   }
 
   public List<Empresa> listFiliais(Long matrizId) {
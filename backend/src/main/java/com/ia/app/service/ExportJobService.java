@@ -0,0 +1,490 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.domain.ExportJob;
+import com.ia.app.dto.ExportJobResponse;
+import com.ia.app.repository.ExportJobFileRepository;
+import com.ia.app.repository.ExportJobRepository;
+import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ExportJobService implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+  public static final String STATUS_PENDING = "PENDING";
+  public static final String STATUS_RUNNING = "RUNNING";
+  public static final String STATUS_COMPLETED = "COMPLETED";
+  public static final String STATUS_FAILED = "FAILED";
+  public static final String STATUS_EXPIRED = "EXPIRED";
+
+  private static final List<String> ACTIVE_STATUSES = List.of(STATUS_PENDING, STATUS_RUNNING);
+
+  // Limite do formato xlsx (1.048.576 linhas) descontado o cabecalho de cada aba.
+  private static final int XLSX_MAX_ROWS_PER_SHEET = 1_048_575;
+  private static final int XLSX_ROW_WINDOW = 100;
+  private static final int MAX_ERROR_LENGTH = 255;
+
+  @FunctionalInterface
+  public interface ExportProducer {
+    void produce(int fetchSize, Consumer<Object[]> rows);
+  }
+
+  public record ExportDownload(Long jobId, String fileName, String contentType, long size) {}
+
+  private final ExportJobRepository jobRepository;
+  private final ExportJobFileRepository fileRepository;
+  private final ScheduledJobLockService jobLockService;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTemplate;
+  private final ThreadPoolExecutor executor;
+  private final Map<Long, AtomicLong> progressByJobId = new ConcurrentHashMap<>();
+
+  @Value("${exports.directory:${java.io.tmpdir}/ia-exports}")
+  private String directory;
+
+  @Value("${exports.fetch-size:1000}")
+  private int fetchSize;
+
+  @Value("${exports.retention-hours:24}")
+  private long retentionHours;
+
+  @Value("${exports.stale-after-minutes:10}")
+  private long staleAfterMinutes;
+
+  public ExportJobService(
+      ExportJobRepository jobRepository,
+      ExportJobFileRepository fileRepository,
+      ScheduledJobLockService jobLockService,
+      PlatformTransactionManager txManager,
+      @Value("${exports.workers:2}") int workers,
+      @Value("${exports.queue-capacity:20}") int queueCapacity) {
+    this.jobRepository = jobRepository;
+    this.fileRepository = fileRepository;
+    this.jobLockService = jobLockService;
+    // O job precisa estar gravado antes de o worker procurar por ele, mesmo se o chamador estiver em transacao.
+    this.transactionTemplate = new TransactionTemplate(txManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readOnlyTemplate = new TransactionTemplate(txManager);
+    this.readOnlyTemplate.setReadOnly(true);
+    int poolSize = Math.max(workers, 1);
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+      poolSize,
+      poolSize,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+      runnable -> {
+        Thread thread = new Thread(runnable, "export-job-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+  }
+
+  public ExportJobResponse submit(
+      String source,
+      ExportFormat format,
+      String baseName,
+      List<String> headers,
+      ExportProducer producer) {
+    Long tenantId = requireTenant();
+    String requestedBy = resolveUserId();
+    ExportJob job = transactionTemplate.execute(status -> {
+      ExportJob created = new ExportJob();
+      created.setTenantId(tenantId);
+      created.setSource(source);
+      created.setFormat(format);
+      created.setStatus(STATUS_PENDING);
+      created.setFileName(baseName + "." + format.extension());
+      created.setRequestedBy(requestedBy);
+      created.setCreatedAt(Instant.now());
+      created.setHeartbeatAt(created.getCreatedAt());
+      return jobRepository.save(created);
+    });
+    // Registrado antes da fila: o heartbeat deste no cobre tambem o job ainda esperando worker.
+    AtomicLong progress = new AtomicLong();
+    progressByJobId.put(job.getId(), progress);
+    try {
+      executor.execute(() -> run(job.getId(), format, headers, producer, progress));
+    } catch (RejectedExecutionException ex) {
+      progressByJobId.remove(job.getId());
+      finish(job.getId(), STATUS_FAILED, 0L, "export_queue_full");
+      throw new IllegalStateException("export_queue_full");
+    }
+    return toResponse(job);
+  }
+
+  public ExportJobResponse get(Long id) {
+    return toResponse(requireOwnJob(id));
+  }
+
+  public ExportDownload download(Long id) {
+    ExportJob job = requireOwnJob(id);
+    if (!STATUS_COMPLETED.equals(job.getStatus())) {
+      throw new IllegalArgumentException("export_job_not_ready");
+    }
+    if (!fileRepository.exists(job.getId())) {
+      throw new EntityNotFoundException("export_file_not_found");
+    }
+    return new ExportDownload(
+      job.getId(),
+      job.getFileName(),
+      job.getFormat().contentType(),
+      job.getFileSize() == null ? 0L : job.getFileSize());
+  }
+
+  public void writeTo(ExportDownload download, OutputStream out) throws IOException {
+    fileRepository.writeTo(download.jobId(), out);
+  }
+
+  @Scheduled(fixedDelayString = "${exports.heartbeat-ms:30000}")
+  public void heartbeatScheduled() {
+    Instant now = Instant.now();
+    progressByJobId.forEach((jobId, progress) -> {
+      try {
+        transactionTemplate.executeWithoutResult(status ->
+          jobRepository.touch(jobId, progress.get(), ACTIVE_STATUSES, now));
+      } catch (RuntimeException ex) {
+        log.warn("Export job {} heartbeat failed: {}", jobId, ex.getMessage());
+      }
+    });
+  }
+
+  @Scheduled(cron = "${exports.cleanup-cron:0 */15 * * * *}", zone = "UTC")
+  public void cleanupScheduled() {
+    try {
+      jobLockService.runExclusive("export-cleanup", () -> cleanup(Instant.now()));
+    } catch (RuntimeException ex) {
+      log.warn("Export cleanup failed: {}", ex.getMessage());
+    }
+  }
+
+  public void cleanup(Instant now) {
+    for (ExportJob job : jobRepository.findAllByStatusAndExpiresAtBefore(STATUS_COMPLETED, now)) {
+      transactionTemplate.executeWithoutResult(status -> jobRepository.findById(job.getId()).ifPresent(current -> {
+        fileRepository.delete(current.getId());
+        current.setStatus(STATUS_EXPIRED);
+        jobRepository.save(current);
+      }));
+    }
+    // Sem heartbeat recente o no que rodava o job caiu; libera o usuario para pedir de novo.
+    Instant staleBefore = now.minus(Duration.ofMinutes(staleAfterMinutes));
+    for (ExportJob job : jobRepository.findAllByStatusInAndHeartbeatAtBefore(ACTIVE_STATUSES, staleBefore)) {
+      if (!progressByJobId.containsKey(job.getId())) {
+        finish(job.getId(), STATUS_FAILED, job.getRowsWritten(), "export_job_stale");
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private void run(Long jobId, ExportFormat format, List<String> headers, ExportProducer producer, AtomicLong progress) {
+    Path file = null;
+    try {
+      transactionTemplate.executeWithoutResult(status -> jobRepository.findById(jobId).ifPresent(job -> {
+        Instant now = Instant.now();
+        job.setStatus(STATUS_RUNNING);
+        job.setStartedAt(now);
+        job.setHeartbeatAt(now);
+        jobRepository.save(job);
+      }));
+
+      Path dir = Path.of(directory);
+      Files.createDirectories(dir);
+      file = Files.createTempFile(dir, "export-" + jobId + "-", "." + format.extension());
+      try (ExportRowWriter writer = openWriter(format, file)) {
+        writer.writeHeader(headers);
+        // A conexao fica presa so enquanto o cursor anda; o xlsx e compactado no close, ja fora da transacao.
+        readOnlyTemplate.executeWithoutResult(status -> producer.produce(fetchSize, row -> {
+          writer.writeRow(row);
+          progress.incrementAndGet();
+        }));
+      }
+      // O arquivo vai para o banco junto com a conclusao: qualquer no atende o download.
+      Path written = file;
+      long size = sizeOf(written);
+      transactionTemplate.executeWithoutResult(status -> {
+        try {
+          fileRepository.save(jobId, written);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+        if (!complete(jobId, size, progress.get())) {
+          // Outro no ja deu o job como abandonado; o arquivo nao fica.
+          status.setRollbackOnly();
+        }
+      });
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Export job {} failed: {}", jobId, ex.getMessage());
+      finish(jobId, STATUS_FAILED, progress.get(), ex.getMessage());
+    } finally {
+      deleteQuietly(file);
+      progressByJobId.remove(jobId);
+    }
+  }
+
+  private boolean complete(Long jobId, long size, long rows) {
+    ExportJob job = jobRepository.findById(jobId).orElse(null);
+    if (job == null || !ACTIVE_STATUSES.contains(job.getStatus())) {
+      return false;
+    }
+    Instant now = Instant.now();
+    job.setStatus(STATUS_COMPLETED);
+    job.setRowsWritten(rows);
+    job.setFinishedAt(now);
+    job.setHeartbeatAt(now);
+    job.setFileSize(size);
+    job.setExpiresAt(now.plus(Duration.ofHours(retentionHours)));
+    jobRepository.save(job);
+    return true;
+  }
+
+  private void finish(Long jobId, String status, long rows, String errorMessage) {
+    transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId).ifPresent(job -> {
+      if (!ACTIVE_STATUSES.contains(job.getStatus())) {
+        return;
+      }
+      Instant now = Instant.now();
+      job.setStatus(status);
+      job.setRowsWritten(rows);
+      job.setFinishedAt(now);
+      job.setHeartbeatAt(now);
+      if (errorMessage != null) {
+        job.setErrorMessage(errorMessage.length() > MAX_ERROR_LENGTH
+          ? errorMessage.substring(0, MAX_ERROR_LENGTH)
+          : errorMessage);
+      }
+      jobRepository.save(job);
+    }));
+  }
+
+  private ExportJob requireOwnJob(Long id) {
+    Long tenantId = requireTenant();
+    ExportJob job = jobRepository.findByIdAndTenantId(id, tenantId)
+      .orElseThrow(() -> new EntityNotFoundException("export_job_not_found"));
+    if (!job.getRequestedBy().equals(resolveUserId())) {
+      throw new EntityNotFoundException("export_job_not_found");
+    }
+    return job;
+  }
+
+  private ExportJobResponse toResponse(ExportJob job) {
+    AtomicLong progress = progressByJobId.get(job.getId());
+    return new ExportJobResponse(
+      job.getId(),
+      job.getSource(),
+      job.getFormat(),
+      job.getStatus(),
+      progress == null ? job.getRowsWritten() : progress.get(),
+      job.getFileName(),
+      job.getFileSize(),
+      job.getErrorMessage(),
+      job.getCreatedAt(),
+      job.getStartedAt(),
+      job.getFinishedAt(),
+      job.getExpiresAt());
+  }
+
+  private ExportRowWriter openWriter(ExportFormat format, Path file) throws IOException {
+    return format == ExportFormat.XLSX ? new XlsxRowWriter(file) : new CsvRowWriter(file);
+  }
+
+  private long sizeOf(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ex) {
+      log.warn("Export file {} could not be deleted: {}", file, ex.getMessage());
+    }
+  }
+
+  private Long requireTenant() {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    return tenantId;
+  }
+
+  private String resolveUserId() {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth == null) {
+      return "system";
+    }
+    String name = auth.getName();
+    return name == null || name.isBlank() ? "system" : name;
+  }
+
+  private interface ExportRowWriter extends Closeable {
+    void writeHeader(List<String> headers);
+
+    void writeRow(Object[] row);
+  }
+
+  private static final class CsvRowWriter implements ExportRowWriter {
+
+    // Texto iniciado por estes caracteres vira formula no Excel/LibreOffice (injecao via CSV).
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final BufferedWriter writer;
+
+    CsvRowWriter(Path file) throws IOException {
+      this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+      // BOM para o Excel abrir o UTF-8 sem quebrar acentos.
+      this.writer.write('\uFEFF');
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+      writeRow(headers.toArray());
+    }
+
+    @Override
+    public void writeRow(Object[] row) {
+      try {
+        for (int i = 0; i < row.length; i++) {
+          if (i > 0) {
+            writer.write(',');
+          }
+          writer.write(escape(row[i]));
+        }
+        writer.write("\r\n");
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+
+    private String escape(Object value) {
+      if (value == null) {
+        return "";
+      }
+      String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+      if (!(value instanceof Number) && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+        text = "'" + text;
+      }
+      if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+        return text;
+      }
+      return '"' + text.replace("\"", "\"\"") + '"';
+    }
+  }
+
+  private static final class XlsxRowWriter implements ExportRowWriter {
+
+    private final Path file;
+    private final SXSSFWorkbook workbook;
+    private List<String> headers = List.of();
+    private Sheet sheet;
+    private int rowIndex;
+
+    XlsxRowWriter(Path file) {
+      this.file = file;
+      // Janela de linhas em memoria; o restante vai para arquivos temporarios compactados do POI.
+      this.workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+      this.workbook.setCompressTempFiles(true);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+      this.headers = headers;
+      newSheet();
+    }
+
+    @Override
+    public void writeRow(Object[] values) {
+      if (rowIndex > XLSX_MAX_ROWS_PER_SHEET) {
+        newSheet();
+      }
+      Row row = sheet.createRow(rowIndex++);
+      for (int i = 0; i < values.length; i++) {
+        Object value = values[i];
+        if (value == null) {
+          continue;
+        }
+        Cell cell = row.createCell(i);
+        if (value instanceof Number number) {
+          cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+          cell.setCellValue(bool);
+        } else {
+          cell.setCellValue(value.toString());
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try (OutputStream out = Files.newOutputStream(file)) {
+        workbook.write(out);
+      } finally {
+        workbook.dispose();
+        workbook.close();
+      }
+    }
+
+    private void newSheet() {
+      sheet = workbook.createSheet("dados" + (workbook.getNumberOfSheets() + 1));
+      Row header = sheet.createRow(0);
+      for (int i = 0; i < headers.size(); i++) {
+        header.createCell(i).setCellValue(headers.get(i));
+      }
+      rowIndex = 1;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -36,16 +37,19 @@ public class MovimentoConfigService {
   private final EmpresaRepository empresaRepository;
   private final TipoEntidadeRepository tipoEntidadeRepository;
   private final AuditService auditService;
+  private final MovimentoValidationCacheService validationCache;
 
   public MovimentoConfigService(
       MovimentoConfigRepository repository,
       EmpresaRepository empresaRepository,
       TipoEntidadeRepository tipoEntidadeRepository,
-      AuditService auditService) {
+      AuditService auditService,
+      MovimentoValidationCacheService validationCache) {
     this.repository = repository;
     this.empresaRepository = empresaRepository;
     this.tipoEntidadeRepository = tipoEntidadeRepository;
     this.auditService = auditService;
+    this.validationCache = validationCache;
   }
 
   @Transactional(readOnly = true)
@@ -82,6 +86,7 @@ public class MovimentoConfigService {
 
     try {
       MovimentoConfig saved = repository.saveAndFlush(entity);
+      validationCache.evictCoverage(tenantId);
       auditService.log(
         tenantId,
         "MOVIMENTO_CONFIG_CRIADA",
@@ -107,6 +112,7 @@ public class MovimentoConfigService {
 
     try {
       MovimentoConfig saved = repository.saveAndFlush(entity);
+      validationCache.evictCoverage(tenantId);
       auditService.log(
         tenantId,
         "MOVIMENTO_CONFIG_ATUALIZADA",
@@ -143,6 +149,7 @@ public class MovimentoConfigService {
 
     try {
       MovimentoConfig saved = repository.saveAndFlush(clone);
+      validationCache.evictCoverage(tenantId);
       auditService.log(
         tenantId,
         "MOVIMENTO_CONFIG_DUPLICADA",
@@ -164,6 +171,7 @@ public class MovimentoConfigService {
     }
     entity.setAtivo(false);
     repository.save(entity);
+    validationCache.evictCoverage(tenantId);
     auditService.log(
       tenantId,
       "MOVIMENTO_CONFIG_INATIVADA",
@@ -224,10 +232,11 @@ public class MovimentoConfigService {
     if (empresas.isEmpty()) {
       return List.of();
     }
+    Map<MovimentoTipo, Set<Long>> coverage = validationCache.globalCoverage(tenantId);
     List<MovimentoConfigCoverageWarningResponse> warnings = new java.util.ArrayList<>();
     for (Empresa empresa : empresas) {
       for (MovimentoTipo tipo : MovimentoTipo.values()) {
-        boolean covered = repository.existsActiveGlobalByTenantAndTipoAndEmpresa(tenantId, tipo, empresa.getId());
+        boolean covered = coverage.getOrDefault(tipo, Set.of()).contains(empresa.getId());
         if (covered) {
           continue;
         }
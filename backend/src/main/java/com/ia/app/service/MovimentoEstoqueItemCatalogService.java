@@ -23,7 +23,9 @@ import com.ia.app.tenant.EmpresaContext;
 import com.ia.app.tenant.TenantContext;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -112,6 +114,65 @@ public class MovimentoEstoqueItemCatalogService {
 
   @Transactional(readOnly = true)
   public ResolvedMovimentoItem resolveItem(Long movimentoConfigId, MovimentoEstoqueItemRequest request, int fallbackOrdem) {
+    PreparedItem prepared = prepareItem(movimentoConfigId, request, fallbackOrdem);
+    SalePriceResolveResponse resolved = prepared.requiresPriceResolution()
+      ? salePriceResolverService.resolve(new SalePriceResolveRequest(
+        prepared.priceBookId(),
+        prepared.variantId(),
+        prepared.vinculo().catalogType(),
+        prepared.snapshot().catalogItemId(),
+        prepared.unidadeInformadaId()))
+      : null;
+    return completeItem(prepared, resolved);
+  }
+
+  // Igual a resolveItem linha a linha, mas os precos saem de um resolveMany por tabela/variacao.
+  @Transactional(readOnly = true)
+  public List<ResolvedMovimentoItem> resolveItems(
+      Long movimentoConfigId,
+      List<MovimentoEstoqueItemRequest> requests,
+      int firstFallbackOrdem) {
+    if (requests == null || requests.isEmpty()) {
+      return List.of();
+    }
+    List<PreparedItem> prepared = new ArrayList<>(requests.size());
+    Map<PriceScope, List<Integer>> positionsByScope = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      PreparedItem item = prepareItem(movimentoConfigId, requests.get(i), firstFallbackOrdem + i);
+      prepared.add(item);
+      if (item.requiresPriceResolution()) {
+        positionsByScope.computeIfAbsent(new PriceScope(item.priceBookId(), item.variantId()), key -> new ArrayList<>())
+          .add(i);
+      }
+    }
+
+    SalePriceResolveResponse[] resolvedPrices = new SalePriceResolveResponse[requests.size()];
+    for (Map.Entry<PriceScope, List<Integer>> entry : positionsByScope.entrySet()) {
+      List<SalePriceResolverService.ResolveItem> keys = new ArrayList<>(entry.getValue().size());
+      for (Integer position : entry.getValue()) {
+        PreparedItem item = prepared.get(position);
+        keys.add(new SalePriceResolverService.ResolveItem(
+          item.vinculo().catalogType(),
+          item.snapshot().catalogItemId(),
+          item.unidadeInformadaId()));
+      }
+      List<SalePriceResolveResponse> resolved = salePriceResolverService.resolveMany(
+        entry.getKey().priceBookId(),
+        entry.getKey().variantId(),
+        keys);
+      for (int i = 0; i < resolved.size(); i++) {
+        resolvedPrices[entry.getValue().get(i)] = resolved.get(i);
+      }
+    }
+
+    List<ResolvedMovimentoItem> result = new ArrayList<>(prepared.size());
+    for (int i = 0; i < prepared.size(); i++) {
+      result.add(completeItem(prepared.get(i), resolvedPrices[i]));
+    }
+    return result;
+  }
+
+  private PreparedItem prepareItem(Long movimentoConfigId, MovimentoEstoqueItemRequest request, int fallbackOrdem) {
     if (request == null) {
       throw new IllegalArgumentException("movimento_estoque_item_required");
     }
@@ -150,41 +211,62 @@ public class MovimentoEstoqueItemCatalogService {
       .setScale(UnitConversionService.FACTOR_SCALE, RoundingMode.HALF_UP);
     BigDecimal quantidadeConvertidaBase = unitConversionService.convert(quantidade, fatorInformadaParaBase);
 
-    PricingSnapshot pricingSnapshot = resolvePricingSnapshot(
-      vinculo.cobrar(),
+    Long priceBookId = normalizeOptionalPositive(request.priceBookId(), "movimento_estoque_item_price_book_invalid");
+    Long variantId = normalizeOptionalPositive(request.variantId(), "movimento_estoque_item_price_variant_invalid");
+    if (variantId != null && priceBookId == null) {
+      throw new IllegalArgumentException("movimento_estoque_item_price_book_required_for_variant");
+    }
+
+    return new PreparedItem(
       request,
-      vinculo.catalogType(),
+      tipoItemId,
+      vinculo,
       snapshot,
-      unidadeInformadaId);
+      unidadeInformadaId,
+      unidadeInformada.getSigla(),
+      unidadeBase.getSigla(),
+      quantidade,
+      quantidadeConvertidaBase,
+      fatorInformadaParaBase,
+      baseToInformed.source(),
+      priceBookId,
+      variantId,
+      fallbackOrdem);
+  }
+
+  private ResolvedMovimentoItem completeItem(PreparedItem prepared, SalePriceResolveResponse resolvedPrice) {
+    MovimentoEstoqueItemRequest request = prepared.request();
+    PricingSnapshot pricingSnapshot = resolvePricingSnapshot(prepared, resolvedPrice);
     BigDecimal valorUnitario = pricingSnapshot.unitPriceApplied();
-    boolean cobrar = vinculo.cobrar();
+    boolean cobrar = prepared.vinculo().cobrar();
     if (!cobrar) {
       valorUnitario = BigDecimal.ZERO.setScale(6, RoundingMode.HALF_UP);
       pricingSnapshot = pricingSnapshot.withUnitPriceApplied(valorUnitario);
     }
 
+    BigDecimal quantidade = prepared.quantidade();
     BigDecimal valorTotal = cobrar
       ? quantidade.multiply(valorUnitario).setScale(6, RoundingMode.HALF_UP)
       : BigDecimal.ZERO.setScale(6, RoundingMode.HALF_UP);
 
-    Integer ordem = request.ordem() == null || request.ordem() < 0 ? fallbackOrdem : request.ordem();
+    Integer ordem = request.ordem() == null || request.ordem() < 0 ? prepared.fallbackOrdem() : request.ordem();
     String observacao = normalizeOptional(request.observacao(), 255);
 
     return new ResolvedMovimentoItem(
-      tipoItemId,
-      vinculo.nome(),
-      vinculo.catalogType(),
-      catalogItemId,
-      snapshot.codigo(),
-      snapshot.nome(),
-      unidadeInformadaId,
-      unidadeInformada.getSigla(),
-      snapshot.unidadeBaseId(),
-      unidadeBase.getSigla(),
+      prepared.tipoItemId(),
+      prepared.vinculo().nome(),
+      prepared.vinculo().catalogType(),
+      prepared.snapshot().catalogItemId(),
+      prepared.snapshot().codigo(),
+      prepared.snapshot().nome(),
+      prepared.unidadeInformadaId(),
+      prepared.unidadeInformadaSigla(),
+      prepared.snapshot().unidadeBaseId(),
+      prepared.unidadeBaseSigla(),
       quantidade,
-      quantidadeConvertidaBase,
-      fatorInformadaParaBase,
-      baseToInformed.source(),
+      prepared.quantidadeConvertidaBase(),
+      prepared.fatorInformadaParaBase(),
+      prepared.fatorFonte(),
       pricingSnapshot.unitPriceApplied(),
       pricingSnapshot.priceBookIdSnapshot(),
       pricingSnapshot.variantIdSnapshot(),
@@ -359,19 +441,11 @@ public class MovimentoEstoqueItemCatalogService {
     return value.trim();
   }
 
-  private PricingSnapshot resolvePricingSnapshot(
-      boolean cobrar,
-      MovimentoEstoqueItemRequest request,
-      CatalogConfigurationType catalogType,
-      Snapshot snapshot,
-      UUID tenantUnitId) {
-    Long priceBookId = normalizeOptionalPositive(request.priceBookId(), "movimento_estoque_item_price_book_invalid");
-    Long variantId = normalizeOptionalPositive(request.variantId(), "movimento_estoque_item_price_variant_invalid");
-    if (variantId != null && priceBookId == null) {
-      throw new IllegalArgumentException("movimento_estoque_item_price_book_required_for_variant");
-    }
-
-    if (!cobrar) {
+  private PricingSnapshot resolvePricingSnapshot(PreparedItem prepared, SalePriceResolveResponse resolved) {
+    Long priceBookId = prepared.priceBookId();
+    Long variantId = prepared.variantId();
+    MovimentoEstoqueItemRequest request = prepared.request();
+    if (!prepared.vinculo().cobrar()) {
       return PricingSnapshot.manual(BigDecimal.ZERO.setScale(6, RoundingMode.HALF_UP), priceBookId, variantId);
     }
 
@@ -381,12 +455,6 @@ public class MovimentoEstoqueItemCatalogService {
     }
 
     if (priceBookId != null) {
-      SalePriceResolveResponse resolved = salePriceResolverService.resolve(new SalePriceResolveRequest(
-        priceBookId,
-        variantId,
-        catalogType,
-        snapshot.catalogItemId(),
-        tenantUnitId));
       BigDecimal resolvedPrice = normalizeNonNegative(resolved.priceFinal(), "movimento_estoque_item_valor_unitario_invalid");
       return new PricingSnapshot(
         resolvedPrice,
@@ -418,6 +486,29 @@ public class MovimentoEstoqueItemCatalogService {
     BigDecimal fatorAlternativo
   ) {}
 
+  private record PriceScope(Long priceBookId, Long variantId) {}
+
+  private record PreparedItem(
+    MovimentoEstoqueItemRequest request,
+    Long tipoItemId,
+    MovimentoConfigItemTipoResponse vinculo,
+    Snapshot snapshot,
+    UUID unidadeInformadaId,
+    String unidadeInformadaSigla,
+    String unidadeBaseSigla,
+    BigDecimal quantidade,
+    BigDecimal quantidadeConvertidaBase,
+    BigDecimal fatorInformadaParaBase,
+    ConversionFactorSource fatorFonte,
+    Long priceBookId,
+    Long variantId,
+    int fallbackOrdem
+  ) {
+    boolean requiresPriceResolution() {
+      return vinculo.cobrar() && request.valorUnitario() == null && priceBookId != null;
+    }
+  }
+
   private record PricingSnapshot(
     BigDecimal unitPriceApplied,
     Long priceBookIdSnapshot,
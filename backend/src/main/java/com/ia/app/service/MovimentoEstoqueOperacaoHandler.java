@@ -293,9 +293,9 @@ public class MovimentoEstoqueOperacaoHandler implements MovimentoOperacaoHandler
     List<MovimentoEstoqueItem> entities = new ArrayList<>();
     int pos = 0;
     MovimentoEstoqueItemCatalogService movimentoEstoqueItemCatalogService = requireCatalogService();
-    for (MovimentoEstoqueItemRequest request : itens) {
-      MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem resolved = movimentoEstoqueItemCatalogService
-        .resolveItem(movimento.getMovimentoConfigId(), request, pos);
+    List<MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem> resolvedItems = movimentoEstoqueItemCatalogService
+      .resolveItems(movimento.getMovimentoConfigId(), itens, pos);
+    for (MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem resolved : resolvedItems) {
 
       MovimentoEstoqueItem entity = new MovimentoEstoqueItem();
       entity.setTenantId(tenantId);
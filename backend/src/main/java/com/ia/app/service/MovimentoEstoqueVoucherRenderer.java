@@ -0,0 +1,335 @@
+package com.ia.app.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+// Sem estado mutavel compartilhado: pode ser usado por varias threads ao mesmo tempo.
+public final class MovimentoEstoqueVoucherRenderer {
+
+  public record Voucher(
+    Long id,
+    Long codigo,
+    String nome,
+    String tipoMovimento,
+    String status,
+    String empresaNome,
+    String empresaCnpj,
+    Instant criadoEm,
+    String criadoPor,
+    List<VoucherLine> lines
+  ) {}
+
+  public record VoucherLine(
+    Long codigo,
+    String tipoItem,
+    Long catalogCodigo,
+    String catalogNome,
+    BigDecimal quantidade,
+    String unidade,
+    BigDecimal valorUnitario,
+    BigDecimal valorTotal,
+    boolean cobrar
+  ) {}
+
+  private record Column(String label, float x, float width, boolean alignRight) {}
+
+  private record Fonts(PDFont regular, PDFont bold) {}
+
+  private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
+  private static final float MARGIN = 36f;
+  private static final float CONTENT_WIDTH = PAGE_SIZE.getWidth() - 2 * MARGIN;
+  private static final float ROW_HEIGHT = 14f;
+  private static final float BODY_SIZE = 9f;
+  private static final float TITLE_SIZE = 14f;
+  private static final float FOOTER_Y = MARGIN - 12f;
+  private static final float TABLE_BOTTOM = MARGIN + 24f;
+  private static final String ELLIPSIS = "...";
+
+  // Layout fixo do comprovante, montado uma vez e reaproveitado em todo documento.
+  private static final List<Column> COLUMNS = buildColumns();
+
+  private final byte[] regularFontBytes;
+  private final byte[] boldFontBytes;
+  private final ZoneId zone;
+  private final DateTimeFormatter dateTimeFormatter;
+  // O TrueTypeFont faz leitura preguicosa das tabelas e nao e thread-safe; cada worker parseia uma vez so.
+  private final ThreadLocal<TrueTypeFont[]> parsedFonts;
+
+  public MovimentoEstoqueVoucherRenderer(byte[] regularFontBytes, byte[] boldFontBytes, ZoneId zone) {
+    this.regularFontBytes = regularFontBytes;
+    this.boldFontBytes = boldFontBytes == null ? regularFontBytes : boldFontBytes;
+    this.zone = zone == null ? ZoneId.of("UTC") : zone;
+    this.dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm").withZone(this.zone);
+    this.parsedFonts = ThreadLocal.withInitial(this::parseFonts);
+  }
+
+  public static MovimentoEstoqueVoucherRenderer standard(ZoneId zone) {
+    return new MovimentoEstoqueVoucherRenderer(null, null, zone);
+  }
+
+  public byte[] render(Voucher voucher) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+    render(voucher, out);
+    return out.toByteArray();
+  }
+
+  public void render(Voucher voucher, OutputStream out) {
+    try (PDDocument document = new PDDocument()) {
+      Fonts fonts = loadFonts(document);
+      DecimalFormat money = decimalFormat("#,##0.00");
+      DecimalFormat quantity = decimalFormat("#,##0.######");
+
+      int pageNumber = 1;
+      PDPageContentStream content = newPage(document, fonts, pageNumber);
+      float y = drawHeader(content, fonts, voucher);
+      y = drawTableHeader(content, fonts, y);
+
+      BigDecimal totalCobrado = BigDecimal.ZERO;
+      for (VoucherLine line : voucher.lines()) {
+        if (y - ROW_HEIGHT < TABLE_BOTTOM) {
+          content.close();
+          pageNumber++;
+          content = newPage(document, fonts, pageNumber);
+          y = drawContinuationHeader(content, fonts, voucher);
+          y = drawTableHeader(content, fonts, y);
+        }
+        y -= ROW_HEIGHT;
+        drawRow(content, fonts.regular(), y, new String[] {
+          text(line.codigo()),
+          line.tipoItem(),
+          line.catalogCodigo() == null ? line.catalogNome() : line.catalogCodigo() + " - " + line.catalogNome(),
+          line.quantidade() == null ? "" : quantity.format(line.quantidade()),
+          line.unidade(),
+          line.valorUnitario() == null ? "" : money.format(line.valorUnitario()),
+          line.valorTotal() == null ? "" : money.format(line.valorTotal()) + (line.cobrar() ? "" : " *")
+        });
+        if (line.cobrar() && line.valorTotal() != null) {
+          totalCobrado = totalCobrado.add(line.valorTotal());
+        }
+      }
+
+      if (y - 2 * ROW_HEIGHT < TABLE_BOTTOM) {
+        content.close();
+        pageNumber++;
+        content = newPage(document, fonts, pageNumber);
+        y = drawContinuationHeader(content, fonts, voucher);
+      }
+      y -= 4f;
+      line(content, MARGIN, y, MARGIN + CONTENT_WIDTH, y);
+      y -= ROW_HEIGHT;
+      String total = "Total cobrado: " + money.format(totalCobrado);
+      showText(content, fonts.bold(), BODY_SIZE, rightX(fonts.bold(), BODY_SIZE, total, MARGIN + CONTENT_WIDTH), y, total);
+      if (voucher.lines().stream().anyMatch(item -> !item.cobrar())) {
+        showText(content, fonts.regular(), BODY_SIZE - 1, MARGIN, y, "* item nao cobrado");
+      }
+      content.close();
+      document.save(out);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private PDPageContentStream newPage(PDDocument document, Fonts fonts, int pageNumber) throws IOException {
+    PDPage page = new PDPage(PAGE_SIZE);
+    document.addPage(page);
+    PDPageContentStream content = new PDPageContentStream(document, page);
+    String footer = "Pagina " + pageNumber;
+    showText(content, fonts.regular(), BODY_SIZE - 1, rightX(fonts.regular(), BODY_SIZE - 1, footer, MARGIN + CONTENT_WIDTH), FOOTER_Y, footer);
+    return content;
+  }
+
+  private float drawHeader(PDPageContentStream content, Fonts fonts, Voucher voucher) throws IOException {
+    float y = PAGE_SIZE.getHeight() - MARGIN - TITLE_SIZE;
+    showText(content, fonts.bold(), TITLE_SIZE, MARGIN, y, sanitize(fonts.bold(), title(voucher)));
+    String numero = "N. " + text(voucher.codigo());
+    showText(content, fonts.bold(), TITLE_SIZE, rightX(fonts.bold(), TITLE_SIZE, numero, MARGIN + CONTENT_WIDTH), y, numero);
+    y -= 8f;
+    line(content, MARGIN, y, MARGIN + CONTENT_WIDTH, y);
+
+    y = labeledLine(content, fonts, y, "Descricao", voucher.nome());
+    String empresa = voucher.empresaCnpj() == null || voucher.empresaCnpj().isBlank()
+      ? voucher.empresaNome()
+      : text(voucher.empresaNome()) + " - CNPJ " + voucher.empresaCnpj();
+    y = labeledLine(content, fonts, y, "Empresa", empresa);
+    y = labeledLine(content, fonts, y, "Status", voucher.status());
+    String criado = voucher.criadoEm() == null ? "" : dateTimeFormatter.format(voucher.criadoEm()) + " (" + zone.getId() + ")";
+    if (voucher.criadoPor() != null && !voucher.criadoPor().isBlank()) {
+      criado = criado + " por " + voucher.criadoPor();
+    }
+    y = labeledLine(content, fonts, y, "Criado em", criado);
+    return y - 10f;
+  }
+
+  private float drawContinuationHeader(PDPageContentStream content, Fonts fonts, Voucher voucher) throws IOException {
+    float y = PAGE_SIZE.getHeight() - MARGIN - BODY_SIZE;
+    String title = title(voucher) + " N. " + text(voucher.codigo()) + " (continuacao)";
+    showText(content, fonts.bold(), BODY_SIZE + 1, MARGIN, y, sanitize(fonts.bold(), title));
+    return y - 12f;
+  }
+
+  private float labeledLine(PDPageContentStream content, Fonts fonts, float y, String label, String value) throws IOException {
+    float lineY = y - ROW_HEIGHT;
+    String labelText = label + ":";
+    showText(content, fonts.bold(), BODY_SIZE, MARGIN, lineY, labelText);
+    float valueX = MARGIN + 70f;
+    showText(content, fonts.regular(), BODY_SIZE, valueX, lineY,
+      fit(fonts.regular(), BODY_SIZE, value, MARGIN + CONTENT_WIDTH - valueX));
+    return lineY;
+  }
+
+  private float drawTableHeader(PDPageContentStream content, Fonts fonts, float y) throws IOException {
+    float rowY = y - ROW_HEIGHT;
+    String[] labels = new String[COLUMNS.size()];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = COLUMNS.get(i).label();
+    }
+    drawRow(content, fonts.bold(), rowY, labels);
+    line(content, MARGIN, rowY - 4f, MARGIN + CONTENT_WIDTH, rowY - 4f);
+    return rowY - 4f;
+  }
+
+  private void drawRow(PDPageContentStream content, PDFont font, float y, String[] values) throws IOException {
+    for (int i = 0; i < COLUMNS.size(); i++) {
+      Column column = COLUMNS.get(i);
+      String value = fit(font, BODY_SIZE, values[i], column.width() - 4f);
+      if (value.isEmpty()) {
+        continue;
+      }
+      float x = column.alignRight()
+        ? rightX(font, BODY_SIZE, value, column.x() + column.width() - 2f)
+        : column.x() + 2f;
+      showText(content, font, BODY_SIZE, x, y, value);
+    }
+  }
+
+  private void showText(PDPageContentStream content, PDFont font, float size, float x, float y, String value) throws IOException {
+    if (value == null || value.isEmpty()) {
+      return;
+    }
+    content.beginText();
+    content.setFont(font, size);
+    content.newLineAtOffset(x, y);
+    content.showText(value);
+    content.endText();
+  }
+
+  private void line(PDPageContentStream content, float x1, float y1, float x2, float y2) throws IOException {
+    content.setLineWidth(0.5f);
+    content.moveTo(x1, y1);
+    content.lineTo(x2, y2);
+    content.stroke();
+  }
+
+  private float rightX(PDFont font, float size, String value, float right) throws IOException {
+    return right - width(font, size, value);
+  }
+
+  private String fit(PDFont font, float size, String raw, float maxWidth) throws IOException {
+    String value = sanitize(font, raw);
+    if (value.isEmpty() || width(font, size, value) <= maxWidth) {
+      return value;
+    }
+    float ellipsisWidth = width(font, size, ELLIPSIS);
+    int end = value.length();
+    while (end > 0 && width(font, size, value.substring(0, end)) + ellipsisWidth > maxWidth) {
+      end--;
+    }
+    return value.substring(0, end) + ELLIPSIS;
+  }
+
+  private float width(PDFont font, float size, String value) throws IOException {
+    return font.getStringWidth(value) / 1000f * size;
+  }
+
+  private String sanitize(PDFont font, String raw) {
+    if (raw == null) {
+      return "";
+    }
+    // As fontes padrao (WinAnsi) so cobrem Latin-1; controle e fora da faixa viram espaco/'?'.
+    boolean winAnsi = font instanceof PDType1Font;
+    StringBuilder builder = new StringBuilder(raw.length());
+    for (int i = 0; i < raw.length(); i++) {
+      char ch = raw.charAt(i);
+      if (Character.isISOControl(ch)) {
+        builder.append(' ');
+      } else if (winAnsi && ch > 0xFF) {
+        builder.append('?');
+      } else {
+        builder.append(ch);
+      }
+    }
+    return builder.toString().trim();
+  }
+
+  private String title(Voucher voucher) {
+    return voucher.tipoMovimento() == null || voucher.tipoMovimento().isBlank()
+      ? "Movimento de Estoque"
+      : voucher.tipoMovimento();
+  }
+
+  private String text(Object value) {
+    return value == null ? "" : value.toString();
+  }
+
+  private DecimalFormat decimalFormat(String pattern) {
+    return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.forLanguageTag("pt-BR")));
+  }
+
+  private Fonts loadFonts(PDDocument document) throws IOException {
+    TrueTypeFont[] fonts = parsedFonts.get();
+    if (fonts == null) {
+      return new Fonts(PDType1Font.HELVETICA, PDType1Font.HELVETICA_BOLD);
+    }
+    return new Fonts(
+      PDType0Font.load(document, fonts[0], true),
+      PDType0Font.load(document, fonts[1], true));
+  }
+
+  private TrueTypeFont[] parseFonts() {
+    if (regularFontBytes == null) {
+      return null;
+    }
+    try {
+      TrueTypeFont regular = new TTFParser().parse(new ByteArrayInputStream(regularFontBytes));
+      TrueTypeFont bold = boldFontBytes == regularFontBytes
+        ? regular
+        : new TTFParser().parse(new ByteArrayInputStream(boldFontBytes));
+      return new TrueTypeFont[] {regular, bold};
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static List<Column> buildColumns() {
+    float[] widths = {40f, 80f, 183f, 60f, 30f, 65f, 65f};
+    String[] labels = {"Cod.", "Tipo", "Item", "Qtd.", "Un.", "Vl. unit.", "Vl. total"};
+    boolean[] right = {false, false, false, true, false, true, true};
+    Column[] columns = new Column[widths.length];
+    float x = MARGIN;
+    for (int i = 0; i < widths.length; i++) {
+      columns[i] = new Column(labels[i], x, widths[i], right[i]);
+      x += widths[i];
+    }
+    return List.of(columns);
+  }
+}
@@ -0,0 +1,275 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.Empresa;
+import com.ia.app.domain.MovimentoEstoque;
+import com.ia.app.domain.MovimentoEstoqueItem;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoEstoqueItemRepository;
+import com.ia.app.repository.MovimentoEstoqueRepository;
+import com.ia.app.repository.MovimentoItemTipoRepository;
+import com.ia.app.repository.TenantUnitRepository;
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer.Voucher;
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer.VoucherLine;
+import com.ia.app.tenant.EmpresaContext;
+import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class MovimentoEstoqueVoucherService implements DisposableBean {
+
+  private final MovimentoEstoqueRepository repository;
+  private final MovimentoEstoqueItemRepository itemRepository;
+  private final MovimentoItemTipoRepository itemTipoRepository;
+  private final TenantUnitRepository tenantUnitRepository;
+  private final EmpresaRepository empresaRepository;
+  private final MovimentoEstoqueVoucherRenderer renderer;
+  private final ThreadPoolExecutor executor;
+  private final int maxInFlight;
+
+  @Value("${movimento.voucher.max-batch:500}")
+  private int maxBatch;
+
+  public MovimentoEstoqueVoucherService(
+      MovimentoEstoqueRepository repository,
+      MovimentoEstoqueItemRepository itemRepository,
+      MovimentoItemTipoRepository itemTipoRepository,
+      TenantUnitRepository tenantUnitRepository,
+      EmpresaRepository empresaRepository,
+      @Value("${movimento.voucher.render-workers:0}") int workers,
+      @Value("${movimento.voucher.font-path:}") String fontPath,
+      @Value("${movimento.voucher.bold-font-path:}") String boldFontPath,
+      @Value("${movimento.voucher.zone:America/Sao_Paulo}") String zone) {
+    this.repository = repository;
+    this.itemRepository = itemRepository;
+    this.itemTipoRepository = itemTipoRepository;
+    this.tenantUnitRepository = tenantUnitRepository;
+    this.empresaRepository = empresaRepository;
+    // Os bytes da fonte sao lidos uma vez na subida; o renderer guarda o parse por worker.
+    byte[] regular = readFont(fontPath);
+    byte[] bold = readFont(boldFontPath);
+    this.renderer = new MovimentoEstoqueVoucherRenderer(regular, bold == null ? regular : bold, ZoneId.of(zone));
+    int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    this.maxInFlight = poolSize * 2;
+    AtomicInteger threadCounter = new AtomicInteger();
+    // Fila cheia roda na thread do chamador: segura a memoria sem rejeitar o lote.
+    this.executor = new ThreadPoolExecutor(
+      poolSize,
+      poolSize,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(poolSize * 4),
+      runnable -> {
+        Thread thread = new Thread(runnable, "voucher-render-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      },
+      new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @Transactional(readOnly = true)
+  public List<Voucher> loadBatch(List<Long> ids) {
+    Long tenantId = requireTenant();
+    Long empresaId = requireEmpresaContext();
+    List<Long> orderedIds = normalizeIds(ids);
+
+    Map<Long, MovimentoEstoque> byId = repository.findAllByTenantIdAndIdIn(tenantId, orderedIds).stream()
+      .collect(Collectors.toMap(MovimentoEstoque::getId, Function.identity()));
+    for (Long id : orderedIds) {
+      MovimentoEstoque entity = byId.get(id);
+      if (entity == null || !Objects.equals(entity.getEmpresaId(), empresaId)) {
+        throw new EntityNotFoundException("movimento_estoque_not_found");
+      }
+    }
+
+    List<MovimentoEstoqueItem> items = itemRepository
+      .findAllByTenantIdAndMovimentoEstoqueIdInOrderByMovimentoEstoqueIdAscOrdemAscIdAsc(tenantId, orderedIds);
+    Set<Long> tipoIds = new HashSet<>();
+    Set<UUID> unitIds = new HashSet<>();
+    Map<Long, List<MovimentoEstoqueItem>> itemsByMovimento = new HashMap<>();
+    for (MovimentoEstoqueItem item : items) {
+      itemsByMovimento.computeIfAbsent(item.getMovimentoEstoqueId(), key -> new ArrayList<>()).add(item);
+      if (item.getMovimentoItemTipoId() != null) {
+        tipoIds.add(item.getMovimentoItemTipoId());
+      }
+      if (item.getTenantUnitId() != null) {
+        unitIds.add(item.getTenantUnitId());
+      }
+    }
+    // HashMap aceita get(null) para itens sem tipo/unidade.
+    Map<Long, String> tipoNomes = new HashMap<>();
+    if (!tipoIds.isEmpty()) {
+      itemTipoRepository.findAllByTenantIdAndIdIn(tenantId, tipoIds)
+        .forEach(tipo -> tipoNomes.put(tipo.getId(), tipo.getNome()));
+    }
+    Map<UUID, String> unitSiglas = new HashMap<>();
+    if (!unitIds.isEmpty()) {
+      tenantUnitRepository.findAllByTenantIdAndIdIn(tenantId, unitIds)
+        .forEach(unit -> unitSiglas.put(unit.getId(), unit.getSigla()));
+    }
+    Empresa empresa = empresaRepository.findByIdAndTenantId(empresaId, tenantId).orElse(null);
+    String empresaNome = empresa == null ? null : resolveEmpresaNome(empresa);
+    String empresaCnpj = empresa == null ? null : empresa.getCnpj();
+
+    List<Voucher> vouchers = new ArrayList<>(orderedIds.size());
+    for (Long id : orderedIds) {
+      MovimentoEstoque entity = byId.get(id);
+      List<VoucherLine> lines = itemsByMovimento.getOrDefault(id, List.of()).stream()
+        .map(item -> new VoucherLine(
+          item.getCodigo(),
+          tipoNomes.get(item.getMovimentoItemTipoId()),
+          item.getCatalogCodigoSnapshot(),
+          item.getCatalogNomeSnapshot(),
+          item.getQuantidade(),
+          unitSiglas.get(item.getTenantUnitId()),
+          item.getValorUnitario(),
+          item.getValorTotal(),
+          item.isCobrar()))
+        .toList();
+      vouchers.add(new Voucher(
+        entity.getId(),
+        entity.getCodigo(),
+        entity.getNome(),
+        entity.getTipoMovimento() == null ? null : entity.getTipoMovimento().descricao(),
+        entity.getStatus(),
+        empresaNome,
+        empresaCnpj,
+        entity.getCreatedAt(),
+        entity.getCreatedBy(),
+        lines));
+    }
+    return vouchers;
+  }
+
+  public byte[] render(Voucher voucher) {
+    return renderer.render(voucher);
+  }
+
+  public void writeZip(List<Voucher> vouchers, OutputStream out) throws IOException {
+    ZipOutputStream zip = new ZipOutputStream(out);
+    // Janela deslizante: no maximo maxInFlight PDFs em memoria, gravados na ordem pedida.
+    Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    Deque<Voucher> pendingVouchers = new ArrayDeque<>();
+    try {
+      for (Voucher voucher : vouchers) {
+        if (pending.size() >= maxInFlight) {
+          writeEntry(zip, pendingVouchers.removeFirst(), pending.removeFirst());
+        }
+        pending.addLast(executor.submit(() -> renderer.render(voucher)));
+        pendingVouchers.addLast(voucher);
+      }
+      while (!pending.isEmpty()) {
+        writeEntry(zip, pendingVouchers.removeFirst(), pending.removeFirst());
+      }
+      zip.finish();
+    } finally {
+      pending.forEach(future -> future.cancel(true));
+    }
+  }
+
+  public static String entryName(Voucher voucher) {
+    return "movimento-estoque-" + (voucher.codigo() == null ? "" : voucher.codigo() + "-") + voucher.id() + ".pdf";
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private void writeEntry(ZipOutputStream zip, Voucher voucher, Future<byte[]> future) throws IOException {
+    byte[] pdf;
+    try {
+      pdf = future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("movimento_estoque_voucher_interrupted", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IOException("movimento_estoque_voucher_render_failed", ex.getCause());
+    }
+    zip.putNextEntry(new ZipEntry(entryName(voucher)));
+    zip.write(pdf);
+    zip.closeEntry();
+  }
+
+  private List<Long> normalizeIds(List<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      throw new IllegalArgumentException("movimento_estoque_voucher_ids_required");
+    }
+    Set<Long> distinct = new LinkedHashSet<>();
+    for (Long id : ids) {
+      if (id == null || id <= 0) {
+        throw new IllegalArgumentException("movimento_estoque_voucher_ids_required");
+      }
+      distinct.add(id);
+    }
+    if (distinct.size() > maxBatch) {
+      throw new IllegalArgumentException("movimento_estoque_voucher_batch_limit");
+    }
+    return List.copyOf(distinct);
+  }
+
+  private String resolveEmpresaNome(Empresa empresa) {
+    String fantasia = empresa.getNomeFantasia();
+    return fantasia != null && !fantasia.isBlank() ? fantasia : empresa.getRazaoSocial();
+  }
+
+  private byte[] readFont(String path) {
+    if (path == null || path.isBlank()) {
+      return null;
+    }
+    try {
+      return Files.readAllBytes(Path.of(path.trim()));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private Long requireEmpresaContext() {
+    Long empresaContextId = EmpresaContext.getEmpresaId();
+    if (empresaContextId == null || empresaContextId <= 0) {
+      throw new IllegalArgumentException("movimento_empresa_context_required");
+    }
+    return empresaContextId;
+  }
+
+  private Long requireTenant() {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    return tenantId;
+  }
+}
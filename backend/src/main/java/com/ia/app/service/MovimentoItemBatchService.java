@@ -92,8 +92,13 @@ public class MovimentoItemBatchService {
     long nextCodigo = resolveNextCodigo(tenantId, movimento.getId());
 
     List<MovimentoEstoqueItem> entities = new ArrayList<>(requestItems.size());
+    List<MovimentoEstoqueItemRequest> itemRequests = new ArrayList<>(requestItems.size());
     for (MovementItemAddRequest item : requestItems) {
-      MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem resolved = resolveItem(movimento, item, nextOrder);
+      itemRequests.add(toItemRequest(item, nextOrder + itemRequests.size()));
+    }
+    List<MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem> resolvedItems = movimentoEstoqueItemCatalogService
+      .resolveItems(movimento.getMovimentoConfigId(), itemRequests, nextOrder);
+    for (MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem resolved : resolvedItems) {
       MovimentoEstoqueItem entity = new MovimentoEstoqueItem();
       entity.setTenantId(tenantId);
       entity.setCodigo(nextCodigo);
@@ -265,14 +270,11 @@ public class MovimentoItemBatchService {
         + ";reused=" + reverseResult.reused());
   }
 
-  private MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem resolveItem(
-      MovimentoEstoque movimento,
-      MovementItemAddRequest item,
-      int fallbackOrder) {
+  private MovimentoEstoqueItemRequest toItemRequest(MovementItemAddRequest item, int fallbackOrder) {
     if (item == null) {
       throw new IllegalArgumentException("movimento_estoque_item_required");
     }
-    MovimentoEstoqueItemRequest request = new MovimentoEstoqueItemRequest(
+    return new MovimentoEstoqueItemRequest(
       item.movementItemTypeId(),
       item.catalogItemId(),
       item.tenantUnitId(),
@@ -282,7 +284,6 @@ public class MovimentoItemBatchService {
       item.valorUnitario(),
       fallbackOrder,
       item.observacao());
-    return movimentoEstoqueItemCatalogService.resolveItem(movimento.getMovimentoConfigId(), request, fallbackOrder);
   }
 
   private Map<Long, String> loadItemTypeNames(List<MovimentoEstoqueItem> items) {
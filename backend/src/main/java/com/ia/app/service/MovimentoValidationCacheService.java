@@ -0,0 +1,189 @@
+package com.ia.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ia.app.domain.CatalogStockType;
+import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.repository.CatalogStockTypeRepository;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoConfigRepository;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class MovimentoValidationCacheService implements ClusterInvalidatedCache {
+
+  public static final String CHANNEL = "movimento_validation_cache";
+
+  private static final Logger log = LoggerFactory.getLogger(MovimentoValidationCacheService.class);
+
+  enum Kind {
+    STOCK_TYPES,
+    EMPRESAS,
+    COVERAGE
+  }
+
+  record Invalidation(Kind kind, Long tenantId) {
+
+    String encode() {
+      return kind.name() + '|' + tenantId;
+    }
+
+    static Invalidation decode(String payload) {
+      String[] parts = payload.split("\\|", -1);
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("movimento_validation_cache_payload_invalid");
+      }
+      return new Invalidation(Kind.valueOf(parts[0]), Long.valueOf(parts[1]));
+    }
+  }
+
+  private record StockTypesKey(Long tenantId, Long catalogConfigurationId, Long agrupadorEmpresaId) {}
+
+  private final CatalogStockTypeRepository stockTypeRepository;
+  private final EmpresaRepository empresaRepository;
+  private final MovimentoConfigRepository movimentoConfigRepository;
+  private final CacheInvalidationNotifier notifier;
+  private final Cache<StockTypesKey, Set<Long>> stockTypes;
+  private final Cache<Long, Set<Long>> empresas;
+  private final Cache<Long, Map<MovimentoTipo, Set<Long>>> coverage;
+  // Cada invalidacao avanca a geracao; uma carga que cruzou uma invalidacao nao fica no cache.
+  private final AtomicLong generation = new AtomicLong();
+
+  public MovimentoValidationCacheService(
+      CatalogStockTypeRepository stockTypeRepository,
+      EmpresaRepository empresaRepository,
+      MovimentoConfigRepository movimentoConfigRepository,
+      CacheInvalidationNotifier notifier,
+      @Value("${movimento.validation-cache.maximum-size:5000}") long maximumSize,
+      @Value("${movimento.validation-cache.expire-after-write-minutes:5}") long expireAfterWriteMinutes) {
+    this.stockTypeRepository = stockTypeRepository;
+    this.empresaRepository = empresaRepository;
+    this.movimentoConfigRepository = movimentoConfigRepository;
+    this.notifier = notifier;
+    long size = Math.max(maximumSize, 1);
+    Duration ttl = Duration.ofMinutes(Math.max(expireAfterWriteMinutes, 1));
+    this.stockTypes = Caffeine.newBuilder().maximumSize(size).expireAfterWrite(ttl).build();
+    this.empresas = Caffeine.newBuilder().maximumSize(size).expireAfterWrite(ttl).build();
+    this.coverage = Caffeine.newBuilder().maximumSize(size).expireAfterWrite(ttl).build();
+  }
+
+  public Set<Long> activeStockTypeIds(Long tenantId, Long catalogConfigurationId, Long agrupadorEmpresaId) {
+    return get(stockTypes, new StockTypesKey(tenantId, catalogConfigurationId, agrupadorEmpresaId), key ->
+      Set.copyOf(stockTypeRepository
+        .findAllByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaIdAndActiveTrueOrderByOrdemAscNomeAsc(
+          key.tenantId(),
+          key.catalogConfigurationId(),
+          key.agrupadorEmpresaId())
+        .stream()
+        .map(CatalogStockType::getId)
+        .toList()));
+  }
+
+  public Set<Long> empresaIds(Long tenantId) {
+    return get(empresas, tenantId, key -> Set.copyOf(empresaRepository.findIdsByTenantId(key)));
+  }
+
+  public Map<MovimentoTipo, Set<Long>> globalCoverage(Long tenantId) {
+    return get(coverage, tenantId, this::loadCoverage);
+  }
+
+  public void evictStockTypes(Long tenantId) {
+    publish(new Invalidation(Kind.STOCK_TYPES, tenantId));
+  }
+
+  public void evictEmpresas(Long tenantId) {
+    publish(new Invalidation(Kind.EMPRESAS, tenantId));
+  }
+
+  public void evictCoverage(Long tenantId) {
+    publish(new Invalidation(Kind.COVERAGE, tenantId));
+  }
+
+  @Override
+  public String channel() {
+    return CHANNEL;
+  }
+
+  // Aviso recebido via LISTEN (inclusive os deste no). Payload ilegivel limpa tudo.
+  @Override
+  public void applyRemote(String payload) {
+    try {
+      apply(Invalidation.decode(payload));
+    } catch (RuntimeException ex) {
+      log.warn("Movimento validation cache payload ignored, clearing cache: {}", ex.getMessage());
+      invalidateAllLocal();
+    }
+  }
+
+  @Override
+  public void invalidateAllLocal() {
+    generation.incrementAndGet();
+    stockTypes.invalidateAll();
+    empresas.invalidateAll();
+    coverage.invalidateAll();
+  }
+
+  private Map<MovimentoTipo, Set<Long>> loadCoverage(Long tenantId) {
+    Map<MovimentoTipo, Set<Long>> loaded = new EnumMap<>(MovimentoTipo.class);
+    for (MovimentoConfigRepository.GlobalCoverageRow row : movimentoConfigRepository.findActiveGlobalCoverageByTenant(tenantId)) {
+      loaded.computeIfAbsent(row.getTipoMovimento(), ignored -> new HashSet<>()).add(row.getEmpresaId());
+    }
+    loaded.replaceAll((tipo, empresaIds) -> Set.copyOf(empresaIds));
+    return Map.copyOf(loaded);
+  }
+
+  private <K, V> V get(Cache<K, V> cache, K key, Function<K, V> loader) {
+    V cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    long loadGeneration = generation.get();
+    V loaded = loader.apply(key);
+    cache.put(key, loaded);
+    if (generation.get() != loadGeneration) {
+      cache.invalidate(key);
+    }
+    return loaded;
+  }
+
+  private void publish(Invalidation invalidation) {
+    if (invalidation.tenantId() == null) {
+      return;
+    }
+    // Agora (leituras da propria transacao) e de novo ao terminar: no commit descarta o valor antigo recarregado
+    // por leituras concorrentes; no rollback descarta o valor nao confirmado lido pela propria transacao.
+    apply(invalidation);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          apply(invalidation);
+        }
+      });
+    }
+    notifier.publish(CHANNEL, invalidation.encode());
+  }
+
+  void apply(Invalidation invalidation) {
+    generation.incrementAndGet();
+    Long tenantId = invalidation.tenantId();
+    switch (invalidation.kind()) {
+      case STOCK_TYPES -> stockTypes.asMap().keySet().removeIf(key -> Objects.equals(key.tenantId(), tenantId));
+      case EMPRESAS -> empresas.invalidate(tenantId);
+      case COVERAGE -> coverage.invalidate(tenantId);
+    }
+  }
+}
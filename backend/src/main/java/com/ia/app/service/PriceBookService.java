@@ -15,9 +15,16 @@ import org.springframework.transaction.annotation.Transactional;
 public class PriceBookService {
 
   private final PriceBookRepository repository;
+  private final ResolvedSalePriceService resolvedSalePriceService;
+  private final PriceNameCacheService nameCacheService;
 
-  public PriceBookService(PriceBookRepository repository) {
+  public PriceBookService(
+      PriceBookRepository repository,
+      ResolvedSalePriceService resolvedSalePriceService,
+      PriceNameCacheService nameCacheService) {
     this.repository = repository;
+    this.resolvedSalePriceService = resolvedSalePriceService;
+    this.nameCacheService = nameCacheService;
   }
 
   @Transactional
@@ -100,7 +107,9 @@ public class PriceBookService {
     Long tenantId = requireTenant();
     PriceBook entity = repository.findByIdAndTenantId(id, tenantId)
       .orElseThrow(() -> new EntityNotFoundException("price_book_not_found"));
+    resolvedSalePriceService.removeBook(tenantId, entity.getId());
     repository.delete(entity);
+    nameCacheService.evictTenant(tenantId);
   }
 
   @Transactional
@@ -152,7 +161,9 @@ public class PriceBookService {
 
   private PriceBook save(PriceBook entity) {
     try {
-      return repository.save(entity);
+      PriceBook saved = repository.save(entity);
+      nameCacheService.evictTenant(saved.getTenantId());
+      return saved;
     } catch (DataIntegrityViolationException ex) {
       String message = ex.getMostSpecificCause() == null ? "" : ex.getMostSpecificCause().getMessage().toLowerCase();
       if (message.contains("ux_price_book_tenant_name")) {
@@ -1,33 +1,45 @@
 package com.ia.app.service;
 
 import com.ia.app.domain.CatalogItemPrice;
-import com.ia.app.domain.PriceBook;
 import com.ia.app.domain.PriceChangeAction;
 import com.ia.app.domain.PriceChangeLog;
 import com.ia.app.domain.PriceChangeOriginType;
 import com.ia.app.domain.PriceChangeSourceType;
 import com.ia.app.domain.SalePrice;
-import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.PriceChangeLogBatchWriteRepository;
 import com.ia.app.repository.PriceChangeLogRepository;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class PriceChangeLogService {
 
   private final PriceChangeLogRepository repository;
-  private final PriceBookRepository priceBookRepository;
+  private final PriceChangeLogBatchWriteRepository batchWriteRepository;
+  private final PriceNameCacheService nameCacheService;
+  private final boolean bufferEnabled;
+  private final int flushBatchSize;
 
   public PriceChangeLogService(
       PriceChangeLogRepository repository,
-      PriceBookRepository priceBookRepository) {
+      PriceChangeLogBatchWriteRepository batchWriteRepository,
+      PriceNameCacheService nameCacheService,
+      @Value("${price-change-log.buffer.enabled:true}") boolean bufferEnabled,
+      @Value("${price-change-log.buffer.flush-batch-size:1000}") int flushBatchSize) {
     this.repository = repository;
-    this.priceBookRepository = priceBookRepository;
+    this.batchWriteRepository = batchWriteRepository;
+    this.nameCacheService = nameCacheService;
+    this.bufferEnabled = bufferEnabled;
+    this.flushBatchSize = Math.max(1, flushBatchSize);
   }
 
   public void logSalePriceChange(
@@ -46,15 +58,15 @@ public class PriceChangeLogService {
     log.setOldPriceFinal(normalizeNullable(oldValue));
     log.setNewPriceFinal(normalizeNullable(newValue));
     log.setPriceBookId(source.getPriceBookId());
-    log.setPriceBookName(resolvePriceBookName(tenantId, source.getPriceBookId()));
+    log.setPriceBookName(nameCacheService.bookName(tenantId, source.getPriceBookId()));
     log.setVariantId(source.getVariantId());
     log.setCatalogType(source.getCatalogType());
     log.setCatalogItemId(source.getCatalogItemId());
     log.setTenantUnitId(source.getTenantUnitId());
     log.setPriceType(null);
-    log.setChangedBy(resolveUserId());
+    log.setChangedBy(resolveChangedBy());
     log.setChangedAt(Instant.now());
-    repository.save(log);
+    enqueue(log);
   }
 
   public void logCatalogItemPriceChange(
@@ -79,20 +91,77 @@ public class PriceChangeLogService {
     log.setCatalogItemId(source.getCatalogItemId());
     log.setTenantUnitId(null);
     log.setPriceType(source.getPriceType());
-    log.setChangedBy(resolveUserId());
+    log.setChangedBy(resolveChangedBy());
     log.setChangedAt(Instant.now());
-    repository.save(log);
+    enqueue(log);
   }
 
-  private String resolvePriceBookName(Long tenantId, Long priceBookId) {
-    if (tenantId == null || priceBookId == null || priceBookId <= 0) {
+  // Grava agora o que a transacao corrente acumulou; o commit e as consultas JPA ja chamam sozinhos.
+  public void flushPending() {
+    PendingLogs pending = currentPending();
+    if (pending != null) {
+      pending.write();
+    }
+  }
+
+  // Dentro de transacao o historico fica em memoria e sai num insert em lote antes do commit
+  // (ou antes de um flush do Hibernate, para a propria transacao enxergar). Rollback descarta junto.
+  private void enqueue(PriceChangeLog log) {
+    if (!bufferEnabled
+        || !TransactionSynchronizationManager.isSynchronizationActive()
+        || !TransactionSynchronizationManager.isActualTransactionActive()) {
+      repository.save(log);
+      return;
+    }
+    PendingLogs pending = currentPending();
+    if (pending == null) {
+      pending = new PendingLogs();
+      TransactionSynchronizationManager.registerSynchronization(pending);
+      batchWriteRepository.beforeSessionFlush(this::flushPending);
+    }
+    pending.logs.add(log);
+    if (pending.logs.size() >= flushBatchSize) {
+      pending.write();
+    }
+  }
+
+  // Sincronizacoes sao suspensas junto com a transacao (REQUIRES_NEW), entao o buffer nunca vaza entre elas.
+  private PendingLogs currentPending() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
       return null;
     }
-    Optional<PriceBook> book = priceBookRepository.findByIdAndTenantId(priceBookId, tenantId);
-    return book.map(PriceBook::getName).orElse(null);
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof PendingLogs pending && pending.owner() == this) {
+        return pending;
+      }
+    }
+    return null;
+  }
+
+  private final class PendingLogs implements TransactionSynchronization {
+
+    private final List<PriceChangeLog> logs = new ArrayList<>();
+
+    private PriceChangeLogService owner() {
+      return PriceChangeLogService.this;
+    }
+
+    private void write() {
+      if (logs.isEmpty()) {
+        return;
+      }
+      List<PriceChangeLog> batch = new ArrayList<>(logs);
+      logs.clear();
+      batchWriteRepository.insertAll(batch);
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      write();
+    }
   }
 
-  private String resolveUserId() {
+  public String resolveChangedBy() {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     if (auth == null) {
       return "system";
@@ -0,0 +1,232 @@
+package com.ia.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+// Leitura em fluxo da planilha de precos: CSV registro a registro, XLSX pela API de eventos (SAX) do POI.
+// Nada do arquivo fica inteiro em memoria.
+final class PriceImportFileReader {
+
+  interface RowHandler {
+    // Primeira linha do CSV e de cada aba do XLSX (o export grava o cabecalho em todas as abas).
+    void header(List<String> cells);
+
+    // lineNumber conta as linhas do arquivo a partir de 1, cabecalhos inclusive; no XLSX segue entre as abas.
+    void row(int lineNumber, List<String> cells);
+  }
+
+  private PriceImportFileReader() {
+  }
+
+  static void read(String fileName, InputStream input, RowHandler handler) {
+    String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+    try {
+      if (name.endsWith(".xlsx")) {
+        readXlsx(input, handler);
+      } else if (name.endsWith(".csv") || name.endsWith(".txt")) {
+        readCsv(input, handler);
+      } else {
+        throw new IllegalArgumentException("price_import_format_invalid");
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static void readCsv(InputStream input, RowHandler handler) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    reader.mark(1);
+    if (reader.read() != '\uFEFF') {
+      reader.reset();
+    }
+    // Excel em pt-BR salva CSV com ';'; o export do sistema usa ','.
+    reader.mark(64 * 1024);
+    String firstLine = reader.readLine();
+    if (firstLine == null) {
+      return;
+    }
+    reader.reset();
+    char separator = count(firstLine, ';') > count(firstLine, ',') ? ';' : ',';
+
+    CsvRecordReader records = new CsvRecordReader(reader, separator);
+    List<String> header = records.next();
+    handler.header(header);
+    List<String> cells;
+    while ((cells = records.next()) != null) {
+      handler.row(records.lineNumber(), cells);
+    }
+  }
+
+  private static int count(String text, char value) {
+    int total = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == value) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  private static void readXlsx(InputStream input, RowHandler handler) throws IOException {
+    // OPCPackage sobre arquivo le as partes sob demanda; sobre stream carregaria o zip todo.
+    Path file = Files.createTempFile("price-import-", ".xlsx");
+    try {
+      Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+      try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+        XSSFReader xssfReader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+        StylesTable styles = xssfReader.getStylesTable();
+        DataFormatter formatter = new DataFormatter(Locale.ROOT);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+        int lineOffset = 0;
+        while (sheets.hasNext()) {
+          try (InputStream sheet = sheets.next()) {
+            SheetRows rows = new SheetRows(handler, lineOffset);
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, rows, formatter, false));
+            parser.parse(new InputSource(sheet));
+            lineOffset = rows.lastLineNumber();
+          }
+        }
+      } catch (OpenXML4JException | SAXException | ParserConfigurationException ex) {
+        throw new IllegalArgumentException("price_import_file_invalid", ex);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static final class SheetRows implements SheetContentsHandler {
+
+    private final RowHandler handler;
+    private final int lineOffset;
+    private final List<String> cells = new ArrayList<>();
+    private boolean headerSeen;
+    private int lastLineNumber;
+
+    private SheetRows(RowHandler handler, int lineOffset) {
+      this.handler = handler;
+      this.lineOffset = lineOffset;
+      this.lastLineNumber = lineOffset;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      cells.clear();
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      lastLineNumber = lineOffset + rowNum + 1;
+      if (!headerSeen) {
+        headerSeen = true;
+        handler.header(List.copyOf(cells));
+        return;
+      }
+      handler.row(lastLineNumber, List.copyOf(cells));
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+      // Celulas vazias nao chegam no evento: completa as colunas puladas.
+      int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+      while (cells.size() < column) {
+        cells.add("");
+      }
+      cells.add(formattedValue == null ? "" : formattedValue);
+    }
+
+    private int lastLineNumber() {
+      return lastLineNumber;
+    }
+  }
+
+  // RFC 4180: aspas duplas escapam o separador, quebras de linha e a propria aspa ("").
+  private static final class CsvRecordReader {
+
+    private final BufferedReader reader;
+    private final char separator;
+    private int physicalLine;
+    private int recordLine;
+
+    private CsvRecordReader(BufferedReader reader, char separator) {
+      this.reader = reader;
+      this.separator = separator;
+    }
+
+    private int lineNumber() {
+      return recordLine;
+    }
+
+    private List<String> next() throws IOException {
+      int current = reader.read();
+      if (current < 0) {
+        return null;
+      }
+      recordLine = ++physicalLine;
+      List<String> cells = new ArrayList<>();
+      StringBuilder cell = new StringBuilder();
+      boolean quoted = false;
+      while (current >= 0) {
+        char ch = (char) current;
+        if (quoted) {
+          if (ch == '"') {
+            reader.mark(1);
+            int following = reader.read();
+            if (following == '"') {
+              cell.append('"');
+            } else {
+              quoted = false;
+              if (following >= 0) {
+                reader.reset();
+              }
+            }
+          } else {
+            if (ch == '\n') {
+              physicalLine++;
+            }
+            cell.append(ch);
+          }
+        } else if (ch == '"' && cell.isEmpty()) {
+          quoted = true;
+        } else if (ch == separator) {
+          cells.add(cell.toString());
+          cell.setLength(0);
+        } else if (ch == '\n') {
+          break;
+        } else if (ch != '\r') {
+          cell.append(ch);
+        }
+        current = reader.read();
+      }
+      cells.add(cell.toString());
+      return cells;
+    }
+  }
+}
@@ -0,0 +1,354 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.dto.PriceImportRejectResponse;
+import com.ia.app.dto.PriceImportResponse;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository.ImportedPrice;
+import com.ia.app.repository.CatalogItemPriceBulkWriteRepository.RecomputedPrice;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.PriceImportStagingRepository;
+import com.ia.app.repository.PriceImportStagingRepository.StagedRow;
+import com.ia.app.repository.SalePriceBulkWriteRepository;
+import com.ia.app.tenant.TenantContext;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Importacao de planilha de precos: o arquivo vai em fluxo para a tabela temporaria,
+// a validacao e o merge sao poucos comandos sobre o conjunto todo.
+@Service
+public class PriceImportService {
+
+  private static final String COLUMN_CATALOG_TYPE = "catalog_type";
+  private static final String COLUMN_CATALOG_ITEM_ID = "catalog_item_id";
+  private static final String COLUMN_PRICE_FINAL = "price_final";
+  // numeric(19,6)
+  private static final int MAX_INTEGER_DIGITS = 13;
+
+  private final PriceImportStagingRepository stagingRepository;
+  private final SalePriceBulkWriteRepository salePriceBulkWriteRepository;
+  private final CatalogItemPriceBulkWriteRepository catalogItemPriceBulkWriteRepository;
+  private final CatalogItemPriceRepository catalogItemPriceRepository;
+  private final CatalogItemPriceService catalogItemPriceService;
+  private final CatalogPriceRuleService ruleService;
+  private final SalePriceService salePriceService;
+  private final ResolvedSalePriceService resolvedSalePriceService;
+  private final PriceChangeLogService priceChangeLogService;
+  private final int maxRows;
+  private final int maxRejectsReported;
+  private final int recomputeChunkSize;
+
+  public PriceImportService(
+      PriceImportStagingRepository stagingRepository,
+      SalePriceBulkWriteRepository salePriceBulkWriteRepository,
+      CatalogItemPriceBulkWriteRepository catalogItemPriceBulkWriteRepository,
+      CatalogItemPriceRepository catalogItemPriceRepository,
+      CatalogItemPriceService catalogItemPriceService,
+      CatalogPriceRuleService ruleService,
+      SalePriceService salePriceService,
+      ResolvedSalePriceService resolvedSalePriceService,
+      PriceChangeLogService priceChangeLogService,
+      @Value("${price-import.max-rows:200000}") int maxRows,
+      @Value("${price-import.max-rejects-reported:500}") int maxRejectsReported,
+      @Value("${price-import.recompute-chunk-size:500}") int recomputeChunkSize) {
+    this.stagingRepository = stagingRepository;
+    this.salePriceBulkWriteRepository = salePriceBulkWriteRepository;
+    this.catalogItemPriceBulkWriteRepository = catalogItemPriceBulkWriteRepository;
+    this.catalogItemPriceRepository = catalogItemPriceRepository;
+    this.catalogItemPriceService = catalogItemPriceService;
+    this.ruleService = ruleService;
+    this.salePriceService = salePriceService;
+    this.resolvedSalePriceService = resolvedSalePriceService;
+    this.priceChangeLogService = priceChangeLogService;
+    this.maxRows = Math.max(1, maxRows);
+    this.maxRejectsReported = Math.max(0, maxRejectsReported);
+    this.recomputeChunkSize = Math.max(1, recomputeChunkSize);
+  }
+
+  @Transactional
+  public PriceImportResponse importSalePrices(
+      String fileName,
+      InputStream content,
+      Long priceBookId,
+      Long variantId) {
+    Long tenantId = requireTenant();
+    PriceBook book = salePriceService.validateBookAndVariant(tenantId, priceBookId, variantId);
+    StagingHandler staged = stage(fileName, content, "sale_price_negative");
+    stagingRepository.rejectDuplicates();
+    stagingRepository.rejectUnknownItems(tenantId);
+
+    String changedBy = priceChangeLogService.resolveChangedBy();
+    int created = 0;
+    int updated = 0;
+    int unchanged = 0;
+    for (CatalogConfigurationType catalogType : CatalogConfigurationType.values()) {
+      if (stagingRepository.countValid(catalogType) == 0) {
+        continue;
+      }
+      SalePriceBulkWriteRepository.ApplyByGroupResult result = salePriceBulkWriteRepository.applyImport(
+        new SalePriceBulkWriteRepository.ApplyImportCommand(
+          tenantId,
+          book.getId(),
+          book.getName(),
+          variantId,
+          catalogType,
+          changedBy));
+      int changedUpdates = result.changedItemIds().size() - result.created();
+      created += result.created();
+      updated += changedUpdates;
+      unchanged += result.updated() - changedUpdates;
+      resolvedSalePriceService.refreshItems(tenantId, book.getId(), catalogType, result.changedItemIds());
+    }
+    return toResponse(staged, created, updated, unchanged, 0);
+  }
+
+  // So tipos em modo II (digitado) aceitam preco importado; os dependentes sao recalculados pelas regras do agrupador.
+  @Transactional
+  public PriceImportResponse importCatalogItemPrices(
+      String fileName,
+      InputStream content,
+      CatalogPriceType priceType) {
+    Long tenantId = requireTenant();
+    if (priceType == null) {
+      throw new IllegalArgumentException("catalog_price_type_invalid");
+    }
+    StagingHandler staged = stage(fileName, content, "catalog_item_price_negative");
+    stagingRepository.rejectDuplicates();
+    stagingRepository.rejectUnknownItems(tenantId);
+    stagingRepository.resolveCatalogPriceGroups(tenantId, priceType);
+
+    String changedBy = priceChangeLogService.resolveChangedBy();
+    int created = 0;
+    int updated = 0;
+    int unchanged = 0;
+    int dependentChanged = 0;
+    for (CatalogConfigurationType catalogType : CatalogConfigurationType.values()) {
+      if (stagingRepository.countValid(catalogType) == 0) {
+        continue;
+      }
+      CatalogItemPriceBulkWriteRepository.ImportResult result =
+        catalogItemPriceBulkWriteRepository.applyImport(tenantId, catalogType, priceType, changedBy);
+      created += result.created();
+      updated += result.updated();
+      unchanged += result.totalItems() - result.created() - result.updated();
+
+      Map<Long, BigDecimal> saleBaseByItemId = new LinkedHashMap<>();
+      if (priceType == CatalogPriceType.SALE_BASE) {
+        for (ImportedPrice price : result.changed()) {
+          saleBaseByItemId.put(price.catalogItemId(), price.priceFinal());
+        }
+      }
+      dependentChanged += recomputeDependents(tenantId, catalogType, changedBy, result.changed(), saleBaseByItemId);
+      resolvedSalePriceService.refreshCatalogBases(tenantId, catalogType, saleBaseByItemId);
+    }
+    return toResponse(staged, created, updated, unchanged, dependentChanged);
+  }
+
+  // Mesmo calculo do job de recalculo, restrito aos itens importados e sincrono.
+  private int recomputeDependents(
+      Long tenantId,
+      CatalogConfigurationType catalogType,
+      String changedBy,
+      List<ImportedPrice> changed,
+      Map<Long, BigDecimal> saleBaseByItemId) {
+    Map<Long, List<Long>> itemIdsByGroup = new LinkedHashMap<>();
+    for (ImportedPrice price : changed) {
+      itemIdsByGroup.computeIfAbsent(price.catalogConfigurationByGroupId(), ignored -> new ArrayList<>())
+        .add(price.catalogItemId());
+    }
+
+    int logged = 0;
+    for (Map.Entry<Long, List<Long>> entry : itemIdsByGroup.entrySet()) {
+      CatalogPriceRuleEvaluator evaluator = ruleService.evaluator(tenantId, entry.getKey());
+      List<Long> itemIds = entry.getValue();
+      for (int start = 0; start < itemIds.size(); start += recomputeChunkSize) {
+        List<Long> chunk = itemIds.subList(start, Math.min(itemIds.size(), start + recomputeChunkSize));
+        Map<Long, List<CatalogItemPrice>> rowsByItemId = new HashMap<>();
+        for (CatalogItemPrice row : catalogItemPriceRepository.findAllWithLockByTenantIdAndCatalogTypeAndCatalogItemIdInOrderByIdAsc(
+            tenantId,
+            catalogType,
+            chunk)) {
+          rowsByItemId.computeIfAbsent(row.getCatalogItemId(), ignored -> new ArrayList<>()).add(row);
+        }
+
+        List<RecomputedPrice> prices = new ArrayList<>();
+        for (List<CatalogItemPrice> rows : rowsByItemId.values()) {
+          try {
+            prices.addAll(catalogItemPriceService.recomputeExisting(evaluator, rows));
+          } catch (IllegalArgumentException ex) {
+            // Dependente ficaria invalido (ex.: negativo): mantem como esta, igual ao job de recalculo.
+          }
+        }
+        logged += catalogItemPriceBulkWriteRepository.applyRecomputed(tenantId, changedBy, prices);
+        for (RecomputedPrice price : prices) {
+          if (price.priceType() == CatalogPriceType.SALE_BASE && price.oldPriceFinal().compareTo(price.priceFinal()) != 0) {
+            saleBaseByItemId.put(price.catalogItemId(), price.priceFinal());
+          }
+        }
+      }
+    }
+    return logged;
+  }
+
+  private StagingHandler stage(String fileName, InputStream content, String negativeReason) {
+    StagingHandler handler;
+    try (PriceImportStagingRepository.Loader loader = stagingRepository.open()) {
+      handler = new StagingHandler(loader, maxRows, negativeReason);
+      PriceImportFileReader.read(fileName, content, handler);
+    }
+    if (!handler.headerSeen) {
+      throw new IllegalArgumentException("price_import_header_invalid");
+    }
+    return handler;
+  }
+
+  private PriceImportResponse toResponse(
+      StagingHandler staged,
+      int created,
+      int updated,
+      int unchanged,
+      int dependentChanged) {
+    List<PriceImportRejectResponse> rejects = stagingRepository.findRejects(maxRejectsReported).stream()
+      .map(row -> new PriceImportRejectResponse(
+        row.lineNumber(),
+        row.catalogType(),
+        row.catalogItemId(),
+        row.reason()))
+      .toList();
+    return new PriceImportResponse(
+      staged.totalRows,
+      created,
+      updated,
+      unchanged,
+      staged.ignoredRows,
+      (int) stagingRepository.countRejected(),
+      dependentChanged,
+      rejects);
+  }
+
+  private Long requireTenant() {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    return tenantId;
+  }
+
+  // Converte cada linha do arquivo em StagedRow; valor invalido vira recusa da linha, nao erro do arquivo.
+  private static final class StagingHandler implements PriceImportFileReader.RowHandler {
+
+    private final PriceImportStagingRepository.Loader loader;
+    private final int maxRows;
+    private final String negativeReason;
+    private boolean headerSeen;
+    private int catalogTypeColumn;
+    private int catalogItemIdColumn;
+    private int priceFinalColumn;
+    private int totalRows;
+    private int ignoredRows;
+
+    private StagingHandler(PriceImportStagingRepository.Loader loader, int maxRows, String negativeReason) {
+      this.loader = loader;
+      this.maxRows = maxRows;
+      this.negativeReason = negativeReason;
+    }
+
+    @Override
+    public void header(List<String> cells) {
+      Map<String, Integer> columns = new HashMap<>();
+      for (int i = 0; i < cells.size(); i++) {
+        columns.putIfAbsent(cells.get(i).trim().toLowerCase(Locale.ROOT), i);
+      }
+      Integer catalogType = columns.get(COLUMN_CATALOG_TYPE);
+      Integer catalogItemId = columns.get(COLUMN_CATALOG_ITEM_ID);
+      Integer priceFinal = columns.get(COLUMN_PRICE_FINAL);
+      if (catalogType == null || catalogItemId == null || priceFinal == null) {
+        throw new IllegalArgumentException("price_import_header_invalid");
+      }
+      catalogTypeColumn = catalogType;
+      catalogItemIdColumn = catalogItemId;
+      priceFinalColumn = priceFinal;
+      headerSeen = true;
+    }
+
+    @Override
+    public void row(int lineNumber, List<String> cells) {
+      if (cells.stream().allMatch(String::isBlank)) {
+        return;
+      }
+      if (++totalRows > maxRows) {
+        throw new IllegalArgumentException("price_import_too_many_rows");
+      }
+      String priceText = cell(cells, priceFinalColumn);
+      if (priceText.isEmpty()) {
+        // Linha exportada sem preco: nada a gravar.
+        ignoredRows++;
+        return;
+      }
+
+      String reason = null;
+      CatalogConfigurationType catalogType = null;
+      try {
+        catalogType = CatalogConfigurationType.from(cell(cells, catalogTypeColumn));
+      } catch (IllegalArgumentException ex) {
+        reason = "price_import_catalog_type_invalid";
+      }
+      Long catalogItemId = parseItemId(cell(cells, catalogItemIdColumn));
+      if (catalogItemId == null && reason == null) {
+        reason = "price_import_catalog_item_id_invalid";
+      }
+      BigDecimal priceFinal = parsePrice(priceText);
+      if (reason == null) {
+        if (priceFinal == null) {
+          reason = "price_import_price_invalid";
+        } else if (priceFinal.signum() < 0) {
+          reason = negativeReason;
+        }
+      }
+      loader.add(new StagedRow(lineNumber, catalogType, catalogItemId, reason == null ? priceFinal : null, reason));
+    }
+
+    private static String cell(List<String> cells, int column) {
+      return column < cells.size() ? cells.get(column).trim() : "";
+    }
+
+    private static Long parseItemId(String text) {
+      try {
+        long value = new BigDecimal(text).longValueExact();
+        return value > 0 ? value : null;
+      } catch (NumberFormatException | ArithmeticException ex) {
+        return null;
+      }
+    }
+
+    // Aceita o ponto do export e a virgula decimal do Excel em pt-BR ("1.234,50").
+    private static BigDecimal parsePrice(String text) {
+      String normalized = text.replace(" ", "");
+      int comma = normalized.lastIndexOf(',');
+      if (comma > normalized.lastIndexOf('.')) {
+        normalized = normalized.substring(0, comma).replace(".", "") + "." + normalized.substring(comma + 1);
+      } else {
+        normalized = normalized.replace(",", "");
+      }
+      try {
+        BigDecimal value = new BigDecimal(normalized).setScale(6, RoundingMode.HALF_UP);
+        return value.precision() - value.scale() > MAX_INTEGER_DIGITS ? null : value;
+      } catch (NumberFormatException ex) {
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.ia.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.PriceVariant;
+import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.PriceVariantRepository;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Nomes de tabelas e variacoes por tenant (poucas linhas cada), para o historico de precos.
+// Invalidado em PriceBookService/PriceVariantService e nos demais nos via CacheInvalidationNotifier: o nome
+// vai gravado no historico, entao um nome antigo em outro no ficaria registrado para sempre.
+@Service
+public class PriceNameCacheService implements ClusterInvalidatedCache {
+
+  public static final String CHANNEL = "price_name_cache";
+
+  private static final Logger log = LoggerFactory.getLogger(PriceNameCacheService.class);
+
+  private record TenantNames(Map<Long, String> books, Map<Long, String> variants) {}
+
+  private final PriceBookRepository priceBookRepository;
+  private final PriceVariantRepository priceVariantRepository;
+  private final CacheInvalidationNotifier notifier;
+  private final Cache<Long, TenantNames> cache;
+  private final boolean enabled;
+  // Cada invalidacao avanca a geracao; uma carga que cruzou uma invalidacao nao fica no cache.
+  private final AtomicLong generation = new AtomicLong();
+
+  public PriceNameCacheService(
+      PriceBookRepository priceBookRepository,
+      PriceVariantRepository priceVariantRepository,
+      CacheInvalidationNotifier notifier,
+      @Value("${price-change-log.name-cache.enabled:true}") boolean enabled,
+      @Value("${price-change-log.name-cache.maximum-size:5000}") long maximumSize,
+      @Value("${price-change-log.name-cache.expire-after-write-minutes:10}") long expireAfterWriteMinutes) {
+    this.priceBookRepository = priceBookRepository;
+    this.priceVariantRepository = priceVariantRepository;
+    this.notifier = notifier;
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(Math.max(1, maximumSize))
+      .expireAfterWrite(Duration.ofMinutes(Math.max(1, expireAfterWriteMinutes)))
+      .build();
+  }
+
+  public String bookName(Long tenantId, Long priceBookId) {
+    if (tenantId == null || priceBookId == null || priceBookId <= 0) {
+      return null;
+    }
+    if (!enabled) {
+      return priceBookRepository.findByIdAndTenantId(priceBookId, tenantId).map(PriceBook::getName).orElse(null);
+    }
+    return names(tenantId).books().get(priceBookId);
+  }
+
+  public String variantName(Long tenantId, Long variantId) {
+    if (tenantId == null || variantId == null || variantId <= 0) {
+      return null;
+    }
+    if (!enabled) {
+      return priceVariantRepository.findByIdAndTenantId(variantId, tenantId).map(PriceVariant::getName).orElse(null);
+    }
+    return names(tenantId).variants().get(variantId);
+  }
+
+  // Na hora e de novo apos o commit: uma leitura concorrente nao deixa o nome antigo no cache.
+  public void evictTenant(Long tenantId) {
+    if (tenantId == null) {
+      return;
+    }
+    invalidateLocal(tenantId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          invalidateLocal(tenantId);
+        }
+      });
+    }
+    notifier.publish(CHANNEL, tenantId.toString());
+  }
+
+  @Override
+  public String channel() {
+    return CHANNEL;
+  }
+
+  // Aviso recebido via LISTEN (inclusive os deste no). Payload ilegivel limpa tudo.
+  @Override
+  public void applyRemote(String payload) {
+    try {
+      invalidateLocal(Long.valueOf(payload));
+    } catch (RuntimeException ex) {
+      log.warn("Price name cache payload ignored, clearing cache: {}", ex.getMessage());
+      invalidateAllLocal();
+    }
+  }
+
+  @Override
+  public void invalidateAllLocal() {
+    generation.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  private void invalidateLocal(Long tenantId) {
+    generation.incrementAndGet();
+    cache.invalidate(tenantId);
+  }
+
+  private TenantNames names(Long tenantId) {
+    TenantNames cached = cache.getIfPresent(tenantId);
+    if (cached != null) {
+      return cached;
+    }
+    long loadGeneration = generation.get();
+    TenantNames loaded = load(tenantId);
+    cache.put(tenantId, loaded);
+    if (generation.get() != loadGeneration) {
+      cache.invalidate(tenantId);
+    }
+    return loaded;
+  }
+
+  private TenantNames load(Long tenantId) {
+    Map<Long, String> books = new HashMap<>();
+    for (PriceBook book : priceBookRepository.findAllByTenantIdOrderByNameAsc(tenantId)) {
+      books.put(book.getId(), book.getName());
+    }
+    Map<Long, String> variants = new HashMap<>();
+    for (PriceVariant variant : priceVariantRepository.findAllByTenantIdOrderByNameAsc(tenantId)) {
+      variants.put(variant.getId(), variant.getName());
+    }
+    return new TenantNames(Map.copyOf(books), Map.copyOf(variants));
+  }
+}
@@ -15,9 +15,16 @@ import org.springframework.transaction.annotation.Transactional;
 public class PriceVariantService {
 
   private final PriceVariantRepository repository;
+  private final ResolvedSalePriceService resolvedSalePriceService;
+  private final PriceNameCacheService nameCacheService;
 
-  public PriceVariantService(PriceVariantRepository repository) {
+  public PriceVariantService(
+      PriceVariantRepository repository,
+      ResolvedSalePriceService resolvedSalePriceService,
+      PriceNameCacheService nameCacheService) {
     this.repository = repository;
+    this.resolvedSalePriceService = resolvedSalePriceService;
+    this.nameCacheService = nameCacheService;
   }
 
   @Transactional(readOnly = true)
@@ -47,7 +54,9 @@ public class PriceVariantService {
     entity.setTenantId(tenantId);
     entity.setName(name);
     entity.setActive(Boolean.TRUE.equals(request.active()));
-    return toResponse(save(entity));
+    PriceVariant saved = save(entity);
+    resolvedSalePriceService.refreshVariant(tenantId, saved);
+    return toResponse(saved);
   }
 
   @Transactional
@@ -63,9 +72,14 @@ public class PriceVariantService {
       }
     });
 
+    boolean wasActive = entity.isActive();
     entity.setName(name);
     entity.setActive(Boolean.TRUE.equals(request.active()));
-    return toResponse(save(entity));
+    PriceVariant saved = save(entity);
+    if (saved.isActive() != wasActive) {
+      resolvedSalePriceService.refreshVariant(tenantId, saved);
+    }
+    return toResponse(saved);
   }
 
   @Transactional
@@ -73,7 +87,9 @@ public class PriceVariantService {
     Long tenantId = requireTenant();
     PriceVariant entity = repository.findByIdAndTenantId(id, tenantId)
       .orElseThrow(() -> new EntityNotFoundException("price_variant_not_found"));
+    resolvedSalePriceService.removeVariant(tenantId, entity.getId());
     repository.delete(entity);
+    nameCacheService.evictTenant(tenantId);
   }
 
   @Transactional(readOnly = true)
@@ -87,7 +103,9 @@ public class PriceVariantService {
 
   private PriceVariant save(PriceVariant entity) {
     try {
-      return repository.save(entity);
+      PriceVariant saved = repository.save(entity);
+      nameCacheService.evictTenant(saved.getTenantId());
+      return saved;
     } catch (DataIntegrityViolationException ex) {
       String message = ex.getMostSpecificCause() == null ? "" : ex.getMostSpecificCause().getMessage().toLowerCase();
       if (message.contains("ux_price_variant_tenant_name")) {
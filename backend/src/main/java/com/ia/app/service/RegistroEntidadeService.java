@@ -1,11 +1,14 @@
 package com.ia.app.service;
 
+import com.ia.app.domain.ExportFormat;
 import com.ia.app.domain.GrupoEntidade;
 import com.ia.app.domain.Pessoa;
 import com.ia.app.domain.RegistroEntidade;
+import com.ia.app.dto.ExportJobResponse;
 import com.ia.app.dto.PessoaVinculoResponse;
 import com.ia.app.dto.RegistroEntidadeRequest;
 import com.ia.app.dto.RegistroEntidadeResponse;
+import com.ia.app.repository.ExportStreamRepository;
 import com.ia.app.repository.GrupoEntidadeRepository;
 import com.ia.app.repository.PessoaRepository;
 import com.ia.app.repository.PriceBookRepository;
@@ -32,6 +35,8 @@ public class RegistroEntidadeService {
   private final GrupoEntidadeRepository grupoRepository;
   private final PriceBookRepository priceBookRepository;
   private final AuditService auditService;
+  private final ExportStreamRepository exportStreamRepository;
+  private final ExportJobService exportJobService;
 
   public RegistroEntidadeService(
       RegistroEntidadeRepository repository,
@@ -41,7 +46,9 @@ public class RegistroEntidadeService {
       PessoaRepository pessoaRepository,
       GrupoEntidadeRepository grupoRepository,
       PriceBookRepository priceBookRepository,
-      AuditService auditService) {
+      AuditService auditService,
+      ExportStreamRepository exportStreamRepository,
+      ExportJobService exportJobService) {
     this.repository = repository;
     this.contextoService = contextoService;
     this.codigoService = codigoService;
@@ -50,6 +57,8 @@ public class RegistroEntidadeService {
     this.grupoRepository = grupoRepository;
     this.priceBookRepository = priceBookRepository;
     this.auditService = auditService;
+    this.exportStreamRepository = exportStreamRepository;
+    this.exportJobService = exportJobService;
   }
 
   @Transactional(readOnly = true)
@@ -75,6 +84,33 @@ public class RegistroEntidadeService {
     return page.map(item -> toResponse(scope.tenantId(), scope.tipoEntidadeConfigAgrupadorId(), item));
   }
 
+  @Transactional(readOnly = true)
+  public ExportJobResponse export(
+      Long tipoEntidadeId,
+      Long codigo,
+      String pessoaNome,
+      String registroFederal,
+      Long grupoId,
+      Boolean ativo,
+      ExportFormat format) {
+    var scope = contextoService.resolveObrigatorio(tipoEntidadeId);
+    ExportStreamRepository.EntityExportFilter filter = new ExportStreamRepository.EntityExportFilter(
+      scope.tenantId(),
+      scope.empresaId(),
+      scope.tipoEntidadeConfigAgrupadorId(),
+      codigo,
+      normalizeSearch(pessoaNome),
+      normalizeRegistroFilter(registroFederal),
+      grupoId,
+      ativo);
+    return exportJobService.submit(
+      "ENTITY_LIST",
+      format,
+      "entidades-" + tipoEntidadeId,
+      ExportStreamRepository.ENTITY_HEADERS,
+      (fetchSize, rows) -> exportStreamRepository.streamEntities(filter, fetchSize, rows));
+  }
+
   @Transactional(readOnly = true)
   public RegistroEntidadeResponse get(Long tipoEntidadeId, Long id) {
     var scope = contextoService.resolveObrigatorio(tipoEntidadeId);
@@ -0,0 +1,344 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.PriceVariant;
+import com.ia.app.domain.ResolvedSalePrice;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.domain.SalePriceSource;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.PriceVariantRepository;
+import com.ia.app.repository.ResolvedSalePriceRepository;
+import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.tenant.TenantContext;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class ResolvedSalePriceService {
+
+  private static final int REFRESH_CHUNK_SIZE = 500;
+
+  public record RebuildResult(Long tenantId, int rows) {}
+
+  private record ItemScope(Long priceBookId, CatalogConfigurationType catalogType) {}
+
+  private record CandidateKey(Long variantId, Long catalogItemId, UUID tenantUnitId) {}
+
+  private final ResolvedSalePriceRepository repository;
+  private final SalePriceRepository salePriceRepository;
+  private final PriceVariantRepository priceVariantRepository;
+  private final CatalogItemPriceRepository catalogItemPriceRepository;
+  private final SalePriceCacheService cacheService;
+
+  public ResolvedSalePriceService(
+      ResolvedSalePriceRepository repository,
+      SalePriceRepository salePriceRepository,
+      PriceVariantRepository priceVariantRepository,
+      CatalogItemPriceRepository catalogItemPriceRepository,
+      SalePriceCacheService cacheService) {
+    this.repository = repository;
+    this.salePriceRepository = salePriceRepository;
+    this.priceVariantRepository = priceVariantRepository;
+    this.catalogItemPriceRepository = catalogItemPriceRepository;
+    this.cacheService = cacheService;
+  }
+
+  // Linha da unidade pedida tem precedencia sobre a de "qualquer unidade".
+  @Transactional(readOnly = true)
+  public Optional<ResolvedSalePrice> find(
+      Long tenantId,
+      Long priceBookId,
+      Long variantId,
+      CatalogConfigurationType catalogType,
+      Long catalogItemId,
+      UUID tenantUnitId) {
+    List<UUID> unitKeys = tenantUnitId == null
+      ? List.of(ResolvedSalePrice.ANY_UNIT)
+      : List.of(tenantUnitId, ResolvedSalePrice.ANY_UNIT);
+    ResolvedSalePrice anyUnit = null;
+    for (ResolvedSalePrice row : repository.findLookup(
+        tenantId,
+        priceBookId,
+        variantId == null ? ResolvedSalePrice.NO_VARIANT : variantId,
+        catalogType,
+        catalogItemId,
+        unitKeys)) {
+      if (tenantUnitId != null && tenantUnitId.equals(row.getTenantUnitKey())) {
+        return Optional.of(row);
+      }
+      anyUnit = row;
+    }
+    return Optional.ofNullable(anyUnit);
+  }
+
+  // Recalcula todas as variacoes e unidades dos itens a partir de sale_price da tabela.
+  @Transactional
+  public void refreshItems(
+      Long tenantId,
+      Long priceBookId,
+      CatalogConfigurationType catalogType,
+      Collection<Long> catalogItemIds) {
+    if (catalogItemIds == null || catalogItemIds.isEmpty()) {
+      return;
+    }
+    List<PriceVariant> variants = priceVariantRepository.findAllByTenantIdOrderByNameAsc(tenantId);
+    for (List<Long> chunk : chunks(catalogItemIds)) {
+      repository.deleteItems(tenantId, priceBookId, catalogType, chunk);
+      repository.saveAll(computeRows(tenantId, priceBookId, catalogType, chunk, variants, true));
+    }
+    cacheService.evictItems(tenantId, priceBookId, catalogType, catalogItemIds);
+  }
+
+  // Criacao ou troca de ativo da variacao: so as linhas dessa variacao mudam.
+  @Transactional
+  public void refreshVariant(Long tenantId, PriceVariant variant) {
+    repository.deleteByVariantKey(tenantId, variant.getId());
+    for (Map.Entry<ItemScope, List<Long>> entry : loadItemScopes(tenantId).entrySet()) {
+      for (List<Long> chunk : chunks(entry.getValue())) {
+        repository.saveAll(computeRows(
+          tenantId,
+          entry.getKey().priceBookId(),
+          entry.getKey().catalogType(),
+          chunk,
+          List.of(variant),
+          false));
+      }
+    }
+    cacheService.evictVariant(tenantId, variant.getId());
+  }
+
+  @Transactional
+  public void removeVariant(Long tenantId, Long variantId) {
+    repository.deleteByVariantKey(tenantId, variantId);
+    cacheService.evictVariant(tenantId, variantId);
+  }
+
+  @Transactional
+  public void removeBook(Long tenantId, Long priceBookId) {
+    repository.deleteByBook(tenantId, priceBookId);
+    cacheService.evictBook(tenantId, priceBookId);
+  }
+
+  @Transactional
+  public void refreshCatalogBase(
+      Long tenantId,
+      CatalogConfigurationType catalogType,
+      Long catalogItemId,
+      BigDecimal saleBase) {
+    // So as linhas que cairam na base do catalogo dependem de SALE_BASE; poucas por item (tabelas x unidades x variacoes).
+    BigDecimal normalized = normalizeScale(saleBase);
+    Instant now = Instant.now();
+    for (ResolvedSalePrice row : repository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdAndSource(
+        tenantId,
+        catalogType,
+        catalogItemId,
+        SalePriceSource.CATALOG_BASE)) {
+      row.setPriceFinal(normalized);
+      row.setUpdatedAt(now);
+    }
+    cacheService.evictCatalogItem(tenantId, catalogType, catalogItemId);
+  }
+
+  // Versao em lote de refreshCatalogBase para o recalculo de regras (CatalogPriceRecomputeJobService).
+  @Transactional
+  public void refreshCatalogBases(
+      Long tenantId,
+      CatalogConfigurationType catalogType,
+      Map<Long, BigDecimal> saleBaseByItemId) {
+    if (saleBaseByItemId == null || saleBaseByItemId.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    for (List<Long> chunk : chunks(saleBaseByItemId.keySet())) {
+      for (ResolvedSalePrice row : repository.findAllByTenantIdAndCatalogTypeAndSourceAndCatalogItemIdIn(
+          tenantId,
+          catalogType,
+          SalePriceSource.CATALOG_BASE,
+          chunk)) {
+        row.setPriceFinal(normalizeScale(saleBaseByItemId.get(row.getCatalogItemId())));
+        row.setUpdatedAt(now);
+      }
+    }
+    cacheService.evictCatalogItems(tenantId, catalogType, saleBaseByItemId.keySet());
+  }
+
+  // Backfill/reparo: recalcula o tenant inteiro a partir de sale_price.
+  @Transactional
+  public RebuildResult rebuildCurrentTenant() {
+    Long tenantId = TenantContext.getTenantId();
+    if (tenantId == null) {
+      throw new IllegalStateException("tenant_required");
+    }
+    repository.deleteByTenant(tenantId);
+    List<PriceVariant> variants = priceVariantRepository.findAllByTenantIdOrderByNameAsc(tenantId);
+    int rows = 0;
+    for (Map.Entry<ItemScope, List<Long>> entry : loadItemScopes(tenantId).entrySet()) {
+      for (List<Long> chunk : chunks(entry.getValue())) {
+        rows += repository.saveAll(computeRows(
+          tenantId,
+          entry.getKey().priceBookId(),
+          entry.getKey().catalogType(),
+          chunk,
+          variants,
+          true)).size();
+      }
+    }
+    cacheService.evictTenant(tenantId);
+    return new RebuildResult(tenantId, rows);
+  }
+
+  private List<ResolvedSalePrice> computeRows(
+      Long tenantId,
+      Long priceBookId,
+      CatalogConfigurationType catalogType,
+      List<Long> catalogItemIds,
+      List<PriceVariant> variants,
+      boolean includeBookBase) {
+    Map<CandidateKey, SalePrice> candidates = new HashMap<>();
+    Map<Long, Set<UUID>> unitKeysByItem = new LinkedHashMap<>();
+    for (SalePrice row : salePriceRepository.findAllByTenantIdAndPriceBookIdAndCatalogTypeAndCatalogItemIdIn(
+        tenantId,
+        priceBookId,
+        catalogType,
+        catalogItemIds)) {
+      candidates.put(new CandidateKey(row.getVariantId(), row.getCatalogItemId(), row.getTenantUnitId()), row);
+      Set<UUID> unitKeys = unitKeysByItem.computeIfAbsent(row.getCatalogItemId(), key -> {
+        Set<UUID> keys = new LinkedHashSet<>();
+        keys.add(ResolvedSalePrice.ANY_UNIT);
+        return keys;
+      });
+      if (row.getTenantUnitId() != null) {
+        unitKeys.add(row.getTenantUnitId());
+      }
+    }
+    if (unitKeysByItem.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, BigDecimal> catalogBase = new HashMap<>();
+    for (CatalogItemPrice row : catalogItemPriceRepository.findAllByTenantIdAndCatalogTypeAndPriceTypeAndCatalogItemIdIn(
+        tenantId,
+        catalogType,
+        CatalogPriceType.SALE_BASE,
+        unitKeysByItem.keySet())) {
+      catalogBase.put(row.getCatalogItemId(), row.getPriceFinal());
+    }
+
+    Instant now = Instant.now();
+    List<ResolvedSalePrice> rows = new ArrayList<>();
+    for (Map.Entry<Long, Set<UUID>> entry : unitKeysByItem.entrySet()) {
+      Long catalogItemId = entry.getKey();
+      BigDecimal itemCatalogBase = catalogBase.get(catalogItemId);
+      for (UUID unitKey : entry.getValue()) {
+        ResolvedSalePrice template = new ResolvedSalePrice();
+        template.setTenantId(tenantId);
+        template.setPriceBookId(priceBookId);
+        template.setCatalogType(catalogType);
+        template.setCatalogItemId(catalogItemId);
+        template.setTenantUnitKey(unitKey);
+        template.setUpdatedAt(now);
+        if (includeBookBase) {
+          rows.add(resolveRow(template, null, candidates, itemCatalogBase));
+        }
+        for (PriceVariant variant : variants) {
+          rows.add(resolveRow(template, variant, candidates, itemCatalogBase));
+        }
+      }
+    }
+    return rows;
+  }
+
+  // Mesma precedencia de SalePriceResolverService: EXACT_VARIANT -> BOOK_BASE -> CATALOG_BASE.
+  private ResolvedSalePrice resolveRow(
+      ResolvedSalePrice template,
+      PriceVariant variant,
+      Map<CandidateKey, SalePrice> candidates,
+      BigDecimal catalogBase) {
+    UUID tenantUnitId = ResolvedSalePrice.ANY_UNIT.equals(template.getTenantUnitKey())
+      ? null
+      : template.getTenantUnitKey();
+    boolean inactiveVariantFallback = variant != null && !variant.isActive();
+
+    SalePrice hit = null;
+    SalePriceSource source = null;
+    if (variant != null && !inactiveVariantFallback) {
+      hit = pickCandidate(candidates, variant.getId(), template.getCatalogItemId(), tenantUnitId);
+      source = SalePriceSource.EXACT_VARIANT;
+    }
+    if (hit == null) {
+      hit = pickCandidate(candidates, null, template.getCatalogItemId(), tenantUnitId);
+      source = inactiveVariantFallback ? SalePriceSource.INACTIVE_VARIANT_FALLBACK : SalePriceSource.BOOK_BASE;
+    }
+
+    ResolvedSalePrice row = new ResolvedSalePrice();
+    row.setTenantId(template.getTenantId());
+    row.setPriceBookId(template.getPriceBookId());
+    row.setVariantKey(variant == null ? ResolvedSalePrice.NO_VARIANT : variant.getId());
+    row.setCatalogType(template.getCatalogType());
+    row.setCatalogItemId(template.getCatalogItemId());
+    row.setTenantUnitKey(template.getTenantUnitKey());
+    row.setUpdatedAt(template.getUpdatedAt());
+    if (hit != null) {
+      row.setPriceFinal(normalizeScale(hit.getPriceFinal()));
+      row.setSalePriceId(hit.getId());
+      row.setResolvedVariantId(hit.getVariantId());
+      row.setSource(source);
+    } else {
+      row.setPriceFinal(normalizeScale(catalogBase));
+      row.setSource(SalePriceSource.CATALOG_BASE);
+    }
+    return row;
+  }
+
+  private SalePrice pickCandidate(
+      Map<CandidateKey, SalePrice> candidates,
+      Long variantId,
+      Long catalogItemId,
+      UUID tenantUnitId) {
+    if (tenantUnitId != null) {
+      SalePrice unitExact = candidates.get(new CandidateKey(variantId, catalogItemId, tenantUnitId));
+      if (unitExact != null) {
+        return unitExact;
+      }
+    }
+    return candidates.get(new CandidateKey(variantId, catalogItemId, null));
+  }
+
+  private Map<ItemScope, List<Long>> loadItemScopes(Long tenantId) {
+    Map<ItemScope, List<Long>> scopes = new LinkedHashMap<>();
+    for (SalePriceRepository.SalePriceItemScopeProjection row : salePriceRepository.findItemScopesByTenantId(tenantId)) {
+      scopes.computeIfAbsent(new ItemScope(row.getPriceBookId(), row.getCatalogType()), key -> new ArrayList<>())
+        .add(row.getCatalogItemId());
+    }
+    return scopes;
+  }
+
+  private List<List<Long>> chunks(Collection<Long> ids) {
+    List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    List<List<Long>> chunks = new ArrayList<>();
+    for (int start = 0; start < distinct.size(); start += REFRESH_CHUNK_SIZE) {
+      chunks.add(distinct.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, distinct.size())));
+    }
+    return chunks;
+  }
+
+  private BigDecimal normalizeScale(BigDecimal value) {
+    return (value == null ? BigDecimal.ZERO : value)
+      .setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
+  }
+}
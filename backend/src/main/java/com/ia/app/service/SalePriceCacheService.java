@@ -0,0 +1,286 @@
+package com.ia.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.dto.SalePriceResolveResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class SalePriceCacheService implements ClusterInvalidatedCache {
+
+  public static final String CHANNEL = "sale_price_cache";
+
+  private static final Logger log = LoggerFactory.getLogger(SalePriceCacheService.class);
+  // pg_notify aceita ate 8000 bytes de payload; listas maiores viram varios avisos.
+  private static final int MAX_PAYLOAD_LENGTH = 7800;
+
+  public record Key(
+    Long tenantId,
+    Long priceBookId,
+    Long variantId,
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    UUID tenantUnitId
+  ) {}
+
+  enum Scope {
+    ITEMS,
+    CATALOG_ITEM,
+    VARIANT,
+    BOOK,
+    TENANT
+  }
+
+  // ITEMS: tabela + itens; CATALOG_ITEM: itens em todas as tabelas; VARIANT/BOOK: id da variacao/tabela.
+  record Invalidation(
+    Scope scope,
+    Long tenantId,
+    Long id,
+    CatalogConfigurationType catalogType,
+    Set<Long> catalogItemIds
+  ) {
+
+    boolean matches(Key key) {
+      if (!Objects.equals(tenantId, key.tenantId())) {
+        return false;
+      }
+      return switch (scope) {
+        case ITEMS -> Objects.equals(id, key.priceBookId())
+          && catalogType == key.catalogType()
+          && catalogItemIds.contains(key.catalogItemId());
+        case CATALOG_ITEM -> catalogType == key.catalogType() && catalogItemIds.contains(key.catalogItemId());
+        case VARIANT -> Objects.equals(id, key.variantId());
+        case BOOK -> Objects.equals(id, key.priceBookId());
+        case TENANT -> true;
+      };
+    }
+
+    String encode() {
+      StringBuilder ids = new StringBuilder();
+      for (Long itemId : catalogItemIds) {
+        if (!ids.isEmpty()) {
+          ids.append(',');
+        }
+        ids.append(itemId);
+      }
+      return scope.name()
+        + '|' + tenantId
+        + '|' + (id == null ? "" : id)
+        + '|' + (catalogType == null ? "" : catalogType.name())
+        + '|' + ids;
+    }
+
+    static Invalidation decode(String payload) {
+      String[] parts = payload.split("\\|", -1);
+      if (parts.length != 5) {
+        throw new IllegalArgumentException("sale_price_cache_payload_invalid");
+      }
+      Set<Long> itemIds = new LinkedHashSet<>();
+      if (!parts[4].isEmpty()) {
+        for (String itemId : parts[4].split(",")) {
+          itemIds.add(Long.valueOf(itemId));
+        }
+      }
+      return new Invalidation(
+        Scope.valueOf(parts[0]),
+        Long.valueOf(parts[1]),
+        parts[2].isEmpty() ? null : Long.valueOf(parts[2]),
+        parts[3].isEmpty() ? null : CatalogConfigurationType.valueOf(parts[3]),
+        Set.copyOf(itemIds));
+    }
+  }
+
+  private final Cache<Key, SalePriceResolveResponse> cache;
+  private final CacheInvalidationNotifier notifier;
+  private final boolean enabled;
+  private final boolean clusterInvalidationEnabled;
+  // Cada invalidacao avanca a geracao; uma carga que cruzou uma invalidacao nao fica no cache.
+  private final AtomicLong generation = new AtomicLong();
+
+  public SalePriceCacheService(
+      CacheInvalidationNotifier notifier,
+      @Value("${sale-price.cache.enabled:true}") boolean enabled,
+      @Value("${sale-price.cache.maximum-size:20000}") long maximumSize,
+      @Value("${sale-price.cache.expire-after-write-minutes:30}") long expireAfterWriteMinutes,
+      @Value("${sale-price.cache.cluster-invalidation-enabled:true}") boolean clusterInvalidationEnabled) {
+    this.notifier = notifier;
+    this.enabled = enabled;
+    this.clusterInvalidationEnabled = clusterInvalidationEnabled;
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(Math.max(maximumSize, 1))
+      .expireAfterWrite(Duration.ofMinutes(Math.max(expireAfterWriteMinutes, 1)))
+      .build();
+  }
+
+  public SalePriceResolveResponse get(Key key, Supplier<SalePriceResolveResponse> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+    SalePriceResolveResponse cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    long loadGeneration = generation.get();
+    SalePriceResolveResponse loaded = loader.get();
+    putAll(loadGeneration, Map.of(key, loaded));
+    return loaded;
+  }
+
+  public Map<Key, SalePriceResolveResponse> getAllPresent(Collection<Key> keys) {
+    if (!enabled) {
+      return Map.of();
+    }
+    return cache.getAllPresent(keys);
+  }
+
+  public long generation() {
+    return generation.get();
+  }
+
+  public void putAll(long loadGeneration, Map<Key, SalePriceResolveResponse> values) {
+    if (!enabled || values.isEmpty()) {
+      return;
+    }
+    cache.putAll(values);
+    if (generation.get() != loadGeneration) {
+      cache.invalidateAll(values.keySet());
+    }
+  }
+
+  public void evictItems(
+      Long tenantId,
+      Long priceBookId,
+      CatalogConfigurationType catalogType,
+      Collection<Long> catalogItemIds) {
+    if (catalogItemIds == null || catalogItemIds.isEmpty()) {
+      return;
+    }
+    publish(new Invalidation(Scope.ITEMS, tenantId, priceBookId, catalogType, Set.copyOf(catalogItemIds)));
+  }
+
+  public void evictCatalogItem(Long tenantId, CatalogConfigurationType catalogType, Long catalogItemId) {
+    publish(new Invalidation(Scope.CATALOG_ITEM, tenantId, null, catalogType, Set.of(catalogItemId)));
+  }
+
+  public void evictCatalogItems(Long tenantId, CatalogConfigurationType catalogType, Collection<Long> catalogItemIds) {
+    if (catalogItemIds == null || catalogItemIds.isEmpty()) {
+      return;
+    }
+    publish(new Invalidation(Scope.CATALOG_ITEM, tenantId, null, catalogType, Set.copyOf(catalogItemIds)));
+  }
+
+  public void evictVariant(Long tenantId, Long variantId) {
+    publish(new Invalidation(Scope.VARIANT, tenantId, variantId, null, Set.of()));
+  }
+
+  public void evictBook(Long tenantId, Long priceBookId) {
+    publish(new Invalidation(Scope.BOOK, tenantId, priceBookId, null, Set.of()));
+  }
+
+  public void evictTenant(Long tenantId) {
+    publish(new Invalidation(Scope.TENANT, tenantId, null, null, Set.of()));
+  }
+
+  @Override
+  public String channel() {
+    return CHANNEL;
+  }
+
+  // Aviso recebido via LISTEN (inclusive os deste no). Payload ilegivel limpa tudo.
+  @Override
+  public void applyRemote(String payload) {
+    try {
+      apply(Invalidation.decode(payload));
+    } catch (RuntimeException ex) {
+      log.warn("Sale price cache payload ignored, clearing cache: {}", ex.getMessage());
+      invalidateAllLocal();
+    }
+  }
+
+  @Override
+  public void invalidateAllLocal() {
+    generation.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  public boolean isClusterInvalidationActive() {
+    return enabled && clusterInvalidationEnabled && notifier.isActive();
+  }
+
+  private void publish(Invalidation invalidation) {
+    if (!enabled) {
+      return;
+    }
+    // Agora (leituras da propria transacao) e de novo ao terminar: no commit descarta o valor antigo recarregado
+    // por leituras concorrentes; no rollback descarta o valor nao confirmado lido pela propria transacao.
+    apply(invalidation);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          apply(invalidation);
+        }
+      });
+    }
+    if (isClusterInvalidationActive()) {
+      for (Invalidation part : split(invalidation)) {
+        notifier.publish(CHANNEL, part.encode());
+      }
+    }
+  }
+
+  void apply(Invalidation invalidation) {
+    generation.incrementAndGet();
+    // Varredura das chaves: o cache e limitado por maximum-size, entao a invalidacao precisa fica barata.
+    cache.asMap().keySet().removeIf(invalidation::matches);
+  }
+
+  private List<Invalidation> split(Invalidation invalidation) {
+    if (invalidation.encode().length() <= MAX_PAYLOAD_LENGTH) {
+      return List.of(invalidation);
+    }
+    List<Invalidation> parts = new ArrayList<>();
+    Set<Long> chunk = new LinkedHashSet<>();
+    int length = 0;
+    for (Long itemId : invalidation.catalogItemIds()) {
+      int itemLength = String.valueOf(itemId).length() + 1;
+      if (!chunk.isEmpty() && length + itemLength > MAX_PAYLOAD_LENGTH - 80) {
+        parts.add(withItems(invalidation, chunk));
+        chunk = new LinkedHashSet<>();
+        length = 0;
+      }
+      chunk.add(itemId);
+      length += itemLength;
+    }
+    if (!chunk.isEmpty()) {
+      parts.add(withItems(invalidation, chunk));
+    }
+    return parts;
+  }
+
+  private Invalidation withItems(Invalidation invalidation, Set<Long> itemIds) {
+    return new Invalidation(
+      invalidation.scope(),
+      invalidation.tenantId(),
+      invalidation.id(),
+      invalidation.catalogType(),
+      Set.copyOf(itemIds));
+  }
+}
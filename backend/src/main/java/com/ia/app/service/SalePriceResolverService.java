@@ -5,6 +5,7 @@ import com.ia.app.domain.CatalogItemPrice;
 import com.ia.app.domain.CatalogPriceType;
 import com.ia.app.domain.PriceVariant;
 import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.ResolvedSalePrice;
 import com.ia.app.domain.SalePrice;
 import com.ia.app.domain.SalePriceSource;
 import com.ia.app.dto.SalePriceByItemRowResponse;
@@ -13,13 +14,19 @@ import com.ia.app.dto.SalePriceResolveResponse;
 import com.ia.app.repository.CatalogItemPriceRepository;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.PriceVariantRepository;
+import com.ia.app.repository.SalePriceRepository;
 import com.ia.app.tenant.TenantContext;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,20 +34,38 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class SalePriceResolverService {
 
-  private final SalePriceService salePriceService;
+  public record ResolveItem(
+    CatalogConfigurationType catalogType,
+    Long catalogItemId,
+    UUID tenantUnitId
+  ) {}
+
+  private record CandidateKey(Long variantId, CatalogConfigurationType catalogType, Long catalogItemId, UUID tenantUnitId) {}
+
+  private record BookCandidateKey(Long priceBookId, Long variantId, UUID tenantUnitId) {}
+
+  private record CatalogKey(CatalogConfigurationType catalogType, Long catalogItemId) {}
+
+  private final ResolvedSalePriceService resolvedSalePriceService;
   private final PriceBookRepository priceBookRepository;
   private final PriceVariantRepository priceVariantRepository;
   private final CatalogItemPriceRepository catalogItemPriceRepository;
+  private final SalePriceRepository salePriceRepository;
+  private final SalePriceCacheService cacheService;
 
   public SalePriceResolverService(
-      SalePriceService salePriceService,
+      ResolvedSalePriceService resolvedSalePriceService,
       PriceBookRepository priceBookRepository,
       PriceVariantRepository priceVariantRepository,
-      CatalogItemPriceRepository catalogItemPriceRepository) {
-    this.salePriceService = salePriceService;
+      CatalogItemPriceRepository catalogItemPriceRepository,
+      SalePriceRepository salePriceRepository,
+      SalePriceCacheService cacheService) {
+    this.resolvedSalePriceService = resolvedSalePriceService;
     this.priceBookRepository = priceBookRepository;
     this.priceVariantRepository = priceVariantRepository;
     this.catalogItemPriceRepository = catalogItemPriceRepository;
+    this.salePriceRepository = salePriceRepository;
+    this.cacheService = cacheService;
   }
 
   @Transactional(readOnly = true)
@@ -49,49 +74,35 @@ public class SalePriceResolverService {
     if (request.priceBookId() == null || request.priceBookId() <= 0) {
       throw new IllegalArgumentException("sale_price_book_required");
     }
+    // Cacheia tambem o fallback para a base do catalogo; erros (tabela/variacao inexistente) nao entram.
+    return cacheService.get(cacheKey(tenantId, request.priceBookId(), request.variantId(), request.catalogType(),
+      request.catalogItemId(), request.tenantUnitId()), () -> resolveUncached(tenantId, request));
+  }
 
-    priceBookRepository.findByIdAndTenantId(request.priceBookId(), tenantId)
-      .orElseThrow(() -> new EntityNotFoundException("price_book_not_found"));
-
-    boolean inactiveVariantFallback = false;
-    if (request.variantId() != null) {
-      PriceVariant variant = priceVariantRepository.findByIdAndTenantId(request.variantId(), tenantId)
-        .orElseThrow(() -> new EntityNotFoundException("price_variant_not_found"));
-      inactiveVariantFallback = !variant.isActive();
-
-      if (!inactiveVariantFallback) {
-        Optional<SalePrice> exactVariant = resolveSalePrice(
-          tenantId,
-          request.priceBookId(),
-          request.variantId(),
-          request.catalogType(),
-          request.catalogItemId(),
-          request.tenantUnitId());
-        if (exactVariant.isPresent()) {
-          SalePrice row = exactVariant.get();
-          return new SalePriceResolveResponse(
-            normalize(row.getPriceFinal()),
-            row.getId(),
-            row.getVariantId(),
-            SalePriceSource.EXACT_VARIANT);
-        }
-      }
-    }
-
-    Optional<SalePrice> bookBase = resolveSalePrice(
+  private SalePriceResolveResponse resolveUncached(Long tenantId, SalePriceResolveRequest request) {
+    // resolved_sale_price ja guarda a cadeia variacao -> base da tabela -> base do catalogo.
+    Optional<ResolvedSalePrice> materialized = resolvedSalePriceService.find(
       tenantId,
       request.priceBookId(),
-      null,
+      request.variantId(),
       request.catalogType(),
       request.catalogItemId(),
       request.tenantUnitId());
-    if (bookBase.isPresent()) {
-      SalePrice row = bookBase.get();
+    if (materialized.isPresent()) {
+      ResolvedSalePrice row = materialized.get();
       return new SalePriceResolveResponse(
         normalize(row.getPriceFinal()),
-        row.getId(),
-        row.getVariantId(),
-        inactiveVariantFallback ? SalePriceSource.INACTIVE_VARIANT_FALLBACK : SalePriceSource.BOOK_BASE);
+        row.getSalePriceId(),
+        row.getResolvedVariantId(),
+        row.getSource());
+    }
+
+    // Sem linha materializada o item nao tem sale_price nessa tabela: valida o escopo e cai na base do catalogo.
+    priceBookRepository.findByIdAndTenantId(request.priceBookId(), tenantId)
+      .orElseThrow(() -> new EntityNotFoundException("price_book_not_found"));
+    if (request.variantId() != null) {
+      priceVariantRepository.findByIdAndTenantId(request.variantId(), tenantId)
+        .orElseThrow(() -> new EntityNotFoundException("price_variant_not_found"));
     }
 
     BigDecimal fallback = catalogItemPriceRepository
@@ -110,6 +121,110 @@ public class SalePriceResolverService {
       SalePriceSource.CATALOG_BASE);
   }
 
+  // Mesma precedencia de resolve (EXACT_VARIANT -> BOOK_BASE -> CATALOG_BASE), com dois SELECTs para o lote inteiro.
+  @Transactional(readOnly = true)
+  public List<SalePriceResolveResponse> resolveMany(Long priceBookId, Long variantId, List<ResolveItem> items) {
+    Long tenantId = requireTenant();
+    if (priceBookId == null || priceBookId <= 0) {
+      throw new IllegalArgumentException("sale_price_book_required");
+    }
+    if (items == null || items.isEmpty()) {
+      return List.of();
+    }
+    List<SalePriceCacheService.Key> keys = new ArrayList<>(items.size());
+    for (ResolveItem item : items) {
+      if (item == null || item.catalogType() == null) {
+        throw new IllegalArgumentException("sale_price_catalog_type_required");
+      }
+      if (item.catalogItemId() == null || item.catalogItemId() <= 0) {
+        throw new IllegalArgumentException("sale_price_catalog_item_required");
+      }
+      keys.add(cacheKey(tenantId, priceBookId, variantId, item.catalogType(), item.catalogItemId(), item.tenantUnitId()));
+    }
+    Map<SalePriceCacheService.Key, SalePriceResolveResponse> cached = cacheService.getAllPresent(keys);
+    if (cached.size() == new HashSet<>(keys).size()) {
+      return keys.stream().map(cached::get).toList();
+    }
+    long loadGeneration = cacheService.generation();
+    Set<Long> catalogItemIds = new LinkedHashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      if (!cached.containsKey(keys.get(i))) {
+        catalogItemIds.add(items.get(i).catalogItemId());
+      }
+    }
+
+    priceBookRepository.findByIdAndTenantId(priceBookId, tenantId)
+      .orElseThrow(() -> new EntityNotFoundException("price_book_not_found"));
+
+    boolean inactiveVariantFallback = false;
+    if (variantId != null) {
+      PriceVariant variant = priceVariantRepository.findByIdAndTenantId(variantId, tenantId)
+        .orElseThrow(() -> new EntityNotFoundException("price_variant_not_found"));
+      inactiveVariantFallback = !variant.isActive();
+    }
+    Long effectiveVariantId = variantId == null || inactiveVariantFallback ? null : variantId;
+
+    Map<CandidateKey, SalePrice> candidates = new HashMap<>();
+    for (SalePrice row : salePriceRepository.findResolveCandidates(tenantId, priceBookId, effectiveVariantId, catalogItemIds)) {
+      candidates.put(
+        new CandidateKey(row.getVariantId(), row.getCatalogType(), row.getCatalogItemId(), row.getTenantUnitId()),
+        row);
+    }
+    Map<CatalogKey, BigDecimal> catalogBase = new HashMap<>();
+    for (CatalogItemPrice row : catalogItemPriceRepository.findAllByTenantIdAndPriceTypeAndCatalogItemIdIn(
+        tenantId,
+        CatalogPriceType.SALE_BASE,
+        catalogItemIds)) {
+      catalogBase.put(new CatalogKey(row.getCatalogType(), row.getCatalogItemId()), row.getPriceFinal());
+    }
+
+    Map<SalePriceCacheService.Key, SalePriceResolveResponse> loaded = new HashMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      if (!cached.containsKey(keys.get(i))) {
+        loaded.put(keys.get(i), resolveCandidate(items.get(i), candidates, catalogBase, effectiveVariantId, inactiveVariantFallback));
+      }
+    }
+    cacheService.putAll(loadGeneration, loaded);
+
+    List<SalePriceResolveResponse> result = new ArrayList<>(items.size());
+    for (SalePriceCacheService.Key key : keys) {
+      SalePriceResolveResponse response = cached.get(key);
+      result.add(response != null ? response : loaded.get(key));
+    }
+    return result;
+  }
+
+  private SalePriceResolveResponse resolveCandidate(
+      ResolveItem item,
+      Map<CandidateKey, SalePrice> candidates,
+      Map<CatalogKey, BigDecimal> catalogBase,
+      Long effectiveVariantId,
+      boolean inactiveVariantFallback) {
+    if (effectiveVariantId != null) {
+      SalePrice exactVariant = pickCandidate(candidates, effectiveVariantId, item);
+      if (exactVariant != null) {
+        return new SalePriceResolveResponse(
+          normalize(exactVariant.getPriceFinal()),
+          exactVariant.getId(),
+          exactVariant.getVariantId(),
+          SalePriceSource.EXACT_VARIANT);
+      }
+    }
+    SalePrice bookBase = pickCandidate(candidates, null, item);
+    if (bookBase != null) {
+      return new SalePriceResolveResponse(
+        normalize(bookBase.getPriceFinal()),
+        bookBase.getId(),
+        bookBase.getVariantId(),
+        inactiveVariantFallback ? SalePriceSource.INACTIVE_VARIANT_FALLBACK : SalePriceSource.BOOK_BASE);
+    }
+    return new SalePriceResolveResponse(
+      normalize(catalogBase.getOrDefault(new CatalogKey(item.catalogType(), item.catalogItemId()), BigDecimal.ZERO)),
+      null,
+      null,
+      SalePriceSource.CATALOG_BASE);
+  }
+
   @Transactional(readOnly = true)
   public List<SalePriceByItemRowResponse> listByItem(
       CatalogConfigurationType catalogType,
@@ -134,14 +249,21 @@ public class SalePriceResolverService {
       .map(CatalogItemPrice::getPriceFinal)
       .orElse(BigDecimal.ZERO);
 
-    List<SalePriceByItemRowResponse> rows = new ArrayList<>();
+    // Uma leitura das linhas do item; a grade tabelas x variacoes e resolvida em memoria.
+    Map<BookCandidateKey, SalePrice> candidates = new HashMap<>();
+    for (SalePrice row : salePriceRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemId(
+        tenantId,
+        catalogType,
+        catalogItemId)) {
+      candidates.put(new BookCandidateKey(row.getPriceBookId(), row.getVariantId(), row.getTenantUnitId()), row);
+    }
+
+    List<SalePriceByItemRowResponse> rows = new ArrayList<>((variants.size() + 1) * books.size());
     for (PriceBook book : books) {
       SalePriceResolveResponse baseResolved = resolveForCombination(
-        tenantId,
+        candidates,
         book.getId(),
         null,
-        catalogType,
-        catalogItemId,
         tenantUnitId,
         catalogBase);
       rows.add(new SalePriceByItemRowResponse(
@@ -158,11 +280,9 @@ public class SalePriceResolverService {
 
       for (PriceVariant variant : variants) {
         SalePriceResolveResponse resolved = resolveForCombination(
-          tenantId,
+          candidates,
           book.getId(),
           variant,
-          catalogType,
-          catalogItemId,
           tenantUnitId,
           catalogBase);
         rows.add(new SalePriceByItemRowResponse(
@@ -182,77 +302,43 @@ public class SalePriceResolverService {
     return rows;
   }
 
-  private Optional<SalePrice> resolveSalePrice(
-      Long tenantId,
-      Long priceBookId,
-      Long variantId,
-      CatalogConfigurationType catalogType,
-      Long catalogItemId,
-      java.util.UUID tenantUnitId) {
-    if (tenantUnitId != null) {
-      Optional<SalePrice> unitExact = salePriceService.findExact(
-        tenantId,
-        priceBookId,
-        variantId,
-        catalogType,
-        catalogItemId,
-        tenantUnitId);
-      if (unitExact.isPresent()) {
+  private SalePrice pickCandidate(Map<CandidateKey, SalePrice> candidates, Long variantId, ResolveItem item) {
+    if (item.tenantUnitId() != null) {
+      SalePrice unitExact = candidates.get(
+        new CandidateKey(variantId, item.catalogType(), item.catalogItemId(), item.tenantUnitId()));
+      if (unitExact != null) {
         return unitExact;
       }
     }
-
-    return salePriceService.findExact(
-      tenantId,
-      priceBookId,
-      variantId,
-      catalogType,
-      catalogItemId,
-      null);
+    return candidates.get(new CandidateKey(variantId, item.catalogType(), item.catalogItemId(), null));
   }
 
   private SalePriceResolveResponse resolveForCombination(
-      Long tenantId,
+      Map<BookCandidateKey, SalePrice> candidates,
       Long priceBookId,
       PriceVariant variant,
-      CatalogConfigurationType catalogType,
-      Long catalogItemId,
       UUID tenantUnitId,
       BigDecimal catalogBasePrice) {
     boolean inactiveVariantFallback = variant != null && !variant.isActive();
     Long variantId = variant == null ? null : variant.getId();
 
     if (variantId != null && !inactiveVariantFallback) {
-      Optional<SalePrice> exactVariant = resolveSalePrice(
-        tenantId,
-        priceBookId,
-        variantId,
-        catalogType,
-        catalogItemId,
-        tenantUnitId);
-      if (exactVariant.isPresent()) {
-        SalePrice row = exactVariant.get();
+      SalePrice exactVariant = pickBookCandidate(candidates, priceBookId, variantId, tenantUnitId);
+      if (exactVariant != null) {
         return new SalePriceResolveResponse(
-          normalize(row.getPriceFinal()),
-          row.getId(),
-          row.getVariantId(),
+          normalize(exactVariant.getPriceFinal()),
+          exactVariant.getId(),
+          exactVariant.getVariantId(),
           SalePriceSource.EXACT_VARIANT);
       }
     }
 
-    Optional<SalePrice> bookBase = resolveSalePrice(
-      tenantId,
-      priceBookId,
-      null,
-      catalogType,
-      catalogItemId,
-      tenantUnitId);
-    if (bookBase.isPresent()) {
-      SalePrice row = bookBase.get();
+    SalePrice bookBase = pickBookCandidate(candidates, priceBookId, null, tenantUnitId);
+    if (bookBase != null) {
       return new SalePriceResolveResponse(
-        normalize(row.getPriceFinal()),
-        row.getId(),
-        row.getVariantId(),
+        normalize(bookBase.getPriceFinal()),
+        bookBase.getId(),
+        bookBase.getVariantId(),
         inactiveVariantFallback ? SalePriceSource.INACTIVE_VARIANT_FALLBACK : SalePriceSource.BOOK_BASE);
     }
 
@@ -263,6 +349,20 @@ public class SalePriceResolverService {
       SalePriceSource.CATALOG_BASE);
   }
 
+  private SalePrice pickBookCandidate(
+      Map<BookCandidateKey, SalePrice> candidates,
+      Long priceBookId,
+      Long variantId,
+      UUID tenantUnitId) {
+    if (tenantUnitId != null) {
+      SalePrice unitExact = candidates.get(new BookCandidateKey(priceBookId, variantId, tenantUnitId));
+      if (unitExact != null) {
+        return unitExact;
+      }
+    }
+    return candidates.get(new BookCandidateKey(priceBookId, variantId, null));
+  }
+
   private BigDecimal normalize(BigDecimal value) {
     BigDecimal normalized = (value == null ? BigDecimal.ZERO : value)
       .setScale(CatalogPriceRuleService.PRICE_SCALE, RoundingMode.HALF_UP);
@@ -272,6 +372,16 @@ public class SalePriceResolverService {
     return normalized;
   }
 
+  private SalePriceCacheService.Key cacheKey(
+      Long tenantId,
+      Long priceBookId,
+      Long variantId,
+      CatalogConfigurationType catalogType,
+      Long catalogItemId,
+      UUID tenantUnitId) {
+    return new SalePriceCacheService.Key(tenantId, priceBookId, variantId, catalogType, catalogItemId, tenantUnitId);
+  }
+
   private Long requireTenant() {
     Long tenantId = TenantContext.getTenantId();
     if (tenantId == null) {
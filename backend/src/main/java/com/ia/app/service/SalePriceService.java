@@ -2,13 +2,13 @@ package com.ia.app.service;
 
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogGroup;
-import com.ia.app.domain.CatalogItemPrice;
-import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.ExportFormat;
 import com.ia.app.domain.PriceBook;
 import com.ia.app.domain.PriceChangeAction;
 import com.ia.app.domain.PriceAdjustmentKind;
 import com.ia.app.domain.PriceVariant;
 import com.ia.app.domain.SalePrice;
+import com.ia.app.dto.ExportJobResponse;
 import com.ia.app.dto.SalePriceApplyByGroupRequest;
 import com.ia.app.dto.SalePriceApplyByGroupResponse;
 import com.ia.app.dto.SalePriceBulkItemRequest;
@@ -17,11 +17,12 @@ import com.ia.app.dto.SalePriceGridRowResponse;
 import com.ia.app.dto.SalePriceGroupOptionResponse;
 import com.ia.app.repository.CatalogConfigurationRepository;
 import com.ia.app.repository.CatalogGroupRepository;
-import com.ia.app.repository.CatalogItemPriceRepository;
 import com.ia.app.repository.CatalogProductRepository;
 import com.ia.app.repository.CatalogServiceItemRepository;
+import com.ia.app.repository.ExportStreamRepository;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.PriceVariantRepository;
+import com.ia.app.repository.SalePriceBulkWriteRepository;
 import com.ia.app.repository.SalePriceRepository;
 import com.ia.app.tenant.TenantContext;
 import jakarta.persistence.EntityNotFoundException;
@@ -30,15 +31,17 @@ import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -46,15 +49,23 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class SalePriceService {
 
+  private static final int SCOPE_PAGE_SIZE = 500;
+
   private final SalePriceRepository repository;
   private final PriceBookRepository priceBookRepository;
   private final PriceVariantRepository priceVariantRepository;
   private final CatalogConfigurationRepository catalogConfigurationRepository;
   private final CatalogGroupRepository catalogGroupRepository;
-  private final CatalogItemPriceRepository catalogItemPriceRepository;
   private final CatalogProductRepository productRepository;
   private final CatalogServiceItemRepository serviceItemRepository;
   private final PriceChangeLogService priceChangeLogService;
+  private final ExportStreamRepository exportStreamRepository;
+  private final ExportJobService exportJobService;
+  private final ResolvedSalePriceService resolvedSalePriceService;
+  private final SalePriceBulkWriteRepository bulkWriteRepository;
+
+  @Value("${sale-price.apply-by-group.set-based-enabled:false}")
+  private boolean setBasedApplyEnabled;
 
   public SalePriceService(
       SalePriceRepository repository,
@@ -62,19 +73,25 @@ public class SalePriceService {
       PriceVariantRepository priceVariantRepository,
       CatalogConfigurationRepository catalogConfigurationRepository,
       CatalogGroupRepository catalogGroupRepository,
-      CatalogItemPriceRepository catalogItemPriceRepository,
       CatalogProductRepository productRepository,
       CatalogServiceItemRepository serviceItemRepository,
-      PriceChangeLogService priceChangeLogService) {
+      PriceChangeLogService priceChangeLogService,
+      ExportStreamRepository exportStreamRepository,
+      ExportJobService exportJobService,
+      ResolvedSalePriceService resolvedSalePriceService,
+      SalePriceBulkWriteRepository bulkWriteRepository) {
     this.repository = repository;
     this.priceBookRepository = priceBookRepository;
     this.priceVariantRepository = priceVariantRepository;
     this.catalogConfigurationRepository = catalogConfigurationRepository;
     this.catalogGroupRepository = catalogGroupRepository;
-    this.catalogItemPriceRepository = catalogItemPriceRepository;
     this.productRepository = productRepository;
     this.serviceItemRepository = serviceItemRepository;
     this.priceChangeLogService = priceChangeLogService;
+    this.exportStreamRepository = exportStreamRepository;
+    this.exportJobService = exportJobService;
+    this.resolvedSalePriceService = resolvedSalePriceService;
+    this.bulkWriteRepository = bulkWriteRepository;
   }
 
   @Transactional(readOnly = true)
@@ -108,14 +125,50 @@ public class SalePriceService {
     return page.map(this::toGridRow);
   }
 
+  @Transactional(readOnly = true)
+  public ExportJobResponse exportGrid(
+      Long priceBookId,
+      Long variantId,
+      CatalogConfigurationType catalogType,
+      String text,
+      Long catalogItemId,
+      Long catalogGroupId,
+      Boolean includeGroupChildren,
+      ExportFormat format) {
+    Long tenantId = requireTenant();
+    validateBookAndVariant(tenantId, priceBookId, variantId);
+    String normalizedText = text == null ? null : text.trim();
+    if (normalizedText != null && normalizedText.isBlank()) {
+      normalizedText = null;
+    }
+
+    ExportStreamRepository.SalePriceGridExportFilter filter = new ExportStreamRepository.SalePriceGridExportFilter(
+      tenantId,
+      priceBookId,
+      variantId,
+      catalogType == null ? null : catalogType.name(),
+      normalizedText,
+      catalogItemId,
+      catalogGroupId,
+      includeGroupChildren != null && includeGroupChildren);
+    return exportJobService.submit(
+      "SALE_PRICE_GRID",
+      format,
+      "precos-venda-" + priceBookId + (variantId == null ? "" : "-" + variantId),
+      ExportStreamRepository.SALE_PRICE_GRID_HEADERS,
+      (fetchSize, rows) -> exportStreamRepository.streamSalePriceGrid(filter, fetchSize, rows));
+  }
+
   @Transactional
   public List<SalePriceGridRowResponse> bulkUpsert(SalePriceBulkUpsertRequest request) {
     Long tenantId = requireTenant();
     validateBookAndVariant(tenantId, request.priceBookId(), request.variantId());
 
     List<SalePriceGridRowResponse> result = new ArrayList<>();
+    Map<CatalogConfigurationType, Set<Long>> touchedItems = new EnumMap<>(CatalogConfigurationType.class);
     for (SalePriceBulkItemRequest item : request.items()) {
       validateCatalogItemExists(tenantId, item.catalogType(), item.catalogItemId());
+      touchedItems.computeIfAbsent(item.catalogType(), key -> new LinkedHashSet<>()).add(item.catalogItemId());
       Optional<SalePrice> saved = applyScopedPriceChange(
         tenantId,
         request.priceBookId(),
@@ -126,6 +179,8 @@ public class SalePriceService {
         item.priceFinal());
       saved.ifPresent(salePrice -> result.add(toGridRow(salePrice)));
     }
+    touchedItems.forEach((catalogType, itemIds) ->
+      resolvedSalePriceService.refreshItems(tenantId, request.priceBookId(), catalogType, itemIds));
 
     return result;
   }
@@ -143,6 +198,11 @@ public class SalePriceService {
       entity.getCatalogItemId(),
       entity.getTenantUnitId(),
       null);
+    resolvedSalePriceService.refreshItems(
+      tenantId,
+      entity.getPriceBookId(),
+      entity.getCatalogType(),
+      List.of(entity.getCatalogItemId()));
   }
 
   @Transactional(readOnly = true)
@@ -169,7 +229,7 @@ public class SalePriceService {
   @Transactional
   public SalePriceApplyByGroupResponse applyByGroup(SalePriceApplyByGroupRequest request) {
     Long tenantId = requireTenant();
-    validateBookAndVariant(tenantId, request.priceBookId(), request.variantId());
+    PriceBook book = validateBookAndVariant(tenantId, request.priceBookId(), request.variantId());
     if (request.catalogType() == null) {
       throw new IllegalArgumentException("sale_price_catalog_type_required");
     }
@@ -191,16 +251,47 @@ public class SalePriceService {
       ? null
       : request.catalogGroupId();
 
-    List<Long> itemIds = resolveItemIdsInScope(
+    if (setBasedApplyEnabled) {
+      // Um INSERT ... SELECT sobre o escopo inteiro, no lugar do laco item a item abaixo.
+      BigDecimal multiplier = adjustmentKind == PriceAdjustmentKind.PERCENT
+        ? applyAdjustment(BigDecimal.ONE, adjustmentKind, adjustmentValue)
+        : BigDecimal.ONE;
+      BigDecimal addend = adjustmentKind == PriceAdjustmentKind.PERCENT ? BigDecimal.ZERO : adjustmentValue;
+      SalePriceBulkWriteRepository.ApplyByGroupResult result = bulkWriteRepository.applyByGroup(
+        new SalePriceBulkWriteRepository.ApplyByGroupCommand(
+          tenantId,
+          book.getId(),
+          book.getName(),
+          request.variantId(),
+          request.catalogType(),
+          normalizedText,
+          catalogItemId,
+          catalogGroupId,
+          includeChildren,
+          multiplier,
+          addend,
+          adjustmentKind == PriceAdjustmentKind.PERCENT,
+          overwriteExisting,
+          priceChangeLogService.resolveChangedBy()));
+      resolvedSalePriceService.refreshItems(tenantId, book.getId(), request.catalogType(), result.changedItemIds());
+      return new SalePriceApplyByGroupResponse(
+        catalogGroupId,
+        result.totalItems(),
+        result.created() + result.updated(),
+        result.created(),
+        result.updated(),
+        result.skippedWithoutBasePrice(),
+        result.skippedExisting());
+    }
+
+    Map<Long, BigDecimal> saleBaseByItemId = resolveItemsInScope(
       tenantId,
-      request.priceBookId(),
-      request.variantId(),
       request.catalogType(),
       normalizedText,
       catalogItemId,
       catalogGroupId,
       includeChildren);
-    if (itemIds.isEmpty()) {
+    if (saleBaseByItemId.isEmpty()) {
       return new SalePriceApplyByGroupResponse(
         catalogGroupId,
         0,
@@ -211,14 +302,14 @@ public class SalePriceService {
         0);
     }
 
-    Map<Long, BigDecimal> saleBaseByItemId = loadSaleBaseMap(tenantId, request.catalogType(), itemIds);
     int processed = 0;
     int created = 0;
     int updated = 0;
     int skippedWithoutBasePrice = 0;
     int skippedExisting = 0;
+    List<Long> changedItemIds = new ArrayList<>();
 
-    for (Long itemId : itemIds) {
+    for (Long itemId : saleBaseByItemId.keySet()) {
       Optional<SalePrice> existing = findExact(
         tenantId,
         request.priceBookId(),
@@ -250,6 +341,7 @@ public class SalePriceService {
       if (saved.isEmpty()) {
         continue;
       }
+      changedItemIds.add(itemId);
       processed++;
       if (existing.isPresent()) {
         updated++;
@@ -257,10 +349,11 @@ public class SalePriceService {
         created++;
       }
     }
+    resolvedSalePriceService.refreshItems(tenantId, request.priceBookId(), request.catalogType(), changedItemIds);
 
     return new SalePriceApplyByGroupResponse(
       catalogGroupId,
-      itemIds.size(),
+      saleBaseByItemId.size(),
       processed,
       created,
       updated,
@@ -268,56 +361,47 @@ public class SalePriceService {
       skippedExisting);
   }
 
-  private List<Long> resolveItemIdsInScope(
+  // Varre o escopo uma vez em paginas por chave (catalog_type, id); devolve id -> preco base normalizado (ou null).
+  private Map<Long, BigDecimal> resolveItemsInScope(
       Long tenantId,
-      Long priceBookId,
-      Long variantId,
       CatalogConfigurationType catalogType,
       String text,
       Long catalogItemId,
       Long catalogGroupId,
       boolean includeChildren) {
-    List<Long> itemIds = new ArrayList<>();
-    Set<Long> seen = new HashSet<>();
-    int pageIndex = 0;
-    final int pageSize = 500;
+    Map<Long, BigDecimal> saleBaseByItemId = new LinkedHashMap<>();
+    String afterCatalogType = "";
+    long afterId = 0L;
 
     while (true) {
-      Page<SalePriceRepository.SalePriceGridRowProjection> page = repository.searchGrid(
+      List<SalePriceRepository.SalePriceScopeItemProjection> rows = repository.findScopeItemsAfter(
         tenantId,
-        priceBookId,
-        variantId,
         catalogType.name(),
         text,
         catalogItemId,
         catalogGroupId,
         includeChildren,
-        PageRequest.of(pageIndex, pageSize));
+        afterCatalogType,
+        afterId,
+        SCOPE_PAGE_SIZE);
 
-      if (page.isEmpty()) {
-        break;
+      for (SalePriceRepository.SalePriceScopeItemProjection row : rows) {
+        BigDecimal saleBase = row.getSaleBasePrice();
+        saleBaseByItemId.put(row.getCatalogItemId(), saleBase == null ? null : normalizePrice(saleBase));
       }
 
-      for (SalePriceRepository.SalePriceGridRowProjection row : page.getContent()) {
-        Long itemId = row.getCatalogItemId();
-        if (itemId != null && seen.add(itemId)) {
-          itemIds.add(itemId);
-        }
-      }
-
-      if (!page.hasNext()) {
-        break;
-      }
-      pageIndex++;
-      if (pageIndex > 5000) {
+      if (rows.size() < SCOPE_PAGE_SIZE) {
         break;
       }
+      SalePriceRepository.SalePriceScopeItemProjection last = rows.get(rows.size() - 1);
+      afterCatalogType = last.getCatalogType();
+      afterId = last.getCatalogItemId();
     }
 
-    return itemIds;
+    return saleBaseByItemId;
   }
 
-  private void validateBookAndVariant(Long tenantId, Long priceBookId, Long variantId) {
+  PriceBook validateBookAndVariant(Long tenantId, Long priceBookId, Long variantId) {
     if (priceBookId == null || priceBookId <= 0) {
       throw new IllegalArgumentException("sale_price_book_required");
     }
@@ -335,6 +419,7 @@ public class SalePriceService {
         throw new IllegalArgumentException("sale_price_variant_inactive");
       }
     }
+    return book;
   }
 
   private void validateCatalogItemExists(Long tenantId, CatalogConfigurationType catalogType, Long catalogItemId) {
@@ -534,26 +619,6 @@ public class SalePriceService {
     };
   }
 
-  private Map<Long, BigDecimal> loadSaleBaseMap(
-      Long tenantId,
-      CatalogConfigurationType catalogType,
-      List<Long> itemIds) {
-    Map<Long, BigDecimal> saleBaseByItemId = new java.util.HashMap<>();
-    if (itemIds == null || itemIds.isEmpty()) {
-      return saleBaseByItemId;
-    }
-    List<CatalogItemPrice> rows = catalogItemPriceRepository
-      .findAllByTenantIdAndCatalogTypeAndPriceTypeAndCatalogItemIdIn(
-        tenantId,
-        catalogType,
-        CatalogPriceType.SALE_BASE,
-        itemIds);
-    for (CatalogItemPrice row : rows) {
-      saleBaseByItemId.put(row.getCatalogItemId(), normalizePrice(row.getPriceFinal()));
-    }
-    return saleBaseByItemId;
-  }
-
   private Long requireTenant() {
     Long tenantId = TenantContext.getTenantId();
     if (tenantId == null) {
@@ -0,0 +1,81 @@
+package com.ia.app.service;
+
+import com.ia.app.config.DatabaseDialect;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// Exclusao entre nos para os jobs @Scheduled, via advisory lock do Postgres (sem tabela de lock).
+// Fora do Postgres (H2 nos testes) ha um unico no e o job roda direto.
+@Service
+public class ScheduledJobLockService {
+
+  private static final Logger log = LoggerFactory.getLogger(ScheduledJobLockService.class);
+
+  // Primeira metade da chave de dois inteiros: separa estes locks de qualquer outro advisory lock.
+  private static final int LOCK_CLASS_ID = 0x1A5C;
+
+  private static final String TRY_LOCK_SQL = "select pg_try_advisory_lock(?, hashtext(?))";
+  private static final String UNLOCK_SQL = "select pg_advisory_unlock(?, hashtext(?))";
+  private static final String TRY_XACT_LOCK_SQL = "select pg_try_advisory_xact_lock(?, hashtext(?))";
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final DatabaseDialect databaseDialect;
+
+  public ScheduledJobLockService(DataSource dataSource, JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.databaseDialect = databaseDialect;
+  }
+
+  // Lock de sessao em conexao propria, mantido enquanto o job roda; se outro no ja o tem, o job e pulado.
+  public boolean runExclusive(String jobName, Runnable job) {
+    if (!databaseDialect.isPostgres()) {
+      job.run();
+      return true;
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      if (!connection.getAutoCommit()) {
+        connection.setAutoCommit(true);
+      }
+      if (!execute(connection, TRY_LOCK_SQL, jobName)) {
+        log.debug("Scheduled job {} skipped: lock held by another node", jobName);
+        return false;
+      }
+      try {
+        job.run();
+        return true;
+      } finally {
+        execute(connection, UNLOCK_SQL, jobName);
+      }
+    } catch (SQLException ex) {
+      throw new IllegalStateException("scheduled_job_lock_failed", ex);
+    }
+  }
+
+  // Lock liberado no fim da transacao corrente; exige transacao ativa.
+  public boolean tryLockForTransaction(String jobName) {
+    if (!databaseDialect.isPostgres()) {
+      return true;
+    }
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_XACT_LOCK_SQL, Boolean.class, LOCK_CLASS_ID, jobName));
+  }
+
+  private boolean execute(Connection connection, String sql, String jobName) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setInt(1, LOCK_CLASS_ID);
+      statement.setString(2, jobName);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+
+}
@@ -100,6 +100,7 @@ public class ApiExceptionHandler {
         ? HttpStatus.UNAUTHORIZED
         : message.equals("movimento_config_feature_disabled")
           || message.equals("workflow_feature_disabled")
+          || message.equals("export_queue_full")
           ? HttpStatus.SERVICE_UNAVAILABLE
         : HttpStatus.BAD_REQUEST;
     ProblemDetail pd = ProblemDetail.forStatus(status);
@@ -772,6 +773,7 @@ public class ApiExceptionHandler {
       || message.startsWith("catalog_configuration_group_duplicated")
       || message.startsWith("catalog_context_required")
       || message.startsWith("catalog_context_sem_grupo")
+      || message.startsWith("export_job_not_ready")
       || message.startsWith("catalog_item_codigo_duplicado")
       || message.startsWith("price_book_name_duplicated")
       || message.startsWith("price_variant_name_duplicated")
@@ -10,8 +10,10 @@ import com.ia.app.dto.CatalogStockTypeResponse;
 import com.ia.app.dto.CatalogStockTypeUpsertRequest;
 import com.ia.app.dto.CatalogConfigurationUpdateRequest;
 import com.ia.app.dto.CatalogPriceRuleBulkUpsertRequest;
+import com.ia.app.dto.CatalogPriceRecomputeJobResponse;
 import com.ia.app.dto.CatalogPriceRuleResponse;
 import com.ia.app.service.CatalogConfigurationByGroupService;
+import com.ia.app.service.CatalogPriceRecomputeJobService;
 import com.ia.app.service.CatalogPriceRuleService;
 import com.ia.app.service.CatalogConfigurationService;
 import com.ia.app.service.CatalogStockAdjustmentConfigurationService;
@@ -35,6 +37,7 @@ public class CatalogConfigurationController {
   private final CatalogConfigurationService service;
   private final CatalogConfigurationByGroupService byGroupService;
   private final CatalogPriceRuleService priceRuleService;
+  private final CatalogPriceRecomputeJobService priceRecomputeJobService;
   private final CatalogStockTypeConfigurationService stockTypeConfigurationService;
   private final CatalogStockAdjustmentConfigurationService stockAdjustmentConfigurationService;
 
@@ -42,11 +45,13 @@ public class CatalogConfigurationController {
       CatalogConfigurationService service,
       CatalogConfigurationByGroupService byGroupService,
       CatalogPriceRuleService priceRuleService,
+      CatalogPriceRecomputeJobService priceRecomputeJobService,
       CatalogStockTypeConfigurationService stockTypeConfigurationService,
       CatalogStockAdjustmentConfigurationService stockAdjustmentConfigurationService) {
     this.service = service;
     this.byGroupService = byGroupService;
     this.priceRuleService = priceRuleService;
+    this.priceRecomputeJobService = priceRecomputeJobService;
     this.stockTypeConfigurationService = stockTypeConfigurationService;
     this.stockAdjustmentConfigurationService = stockAdjustmentConfigurationService;
   }
@@ -64,7 +69,7 @@ public class CatalogConfigurationController {
       @PathVariable String type,
       @Valid @RequestBody CatalogConfigurationUpdateRequest request) {
     CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
-    return ResponseEntity.ok(service.update(parsedType, request.numberingMode()));
+    return ResponseEntity.ok(service.update(parsedType, request.numberingMode(), request.stockEscrowEnabled()));
   }
 
   @GetMapping("/{type}/group-config")
@@ -103,6 +108,16 @@ public class CatalogConfigurationController {
     return ResponseEntity.ok(priceRuleService.upsertByGroup(parsedType, agrupadorId, request));
   }
 
+  @GetMapping("/{type}/group-config/{agrupadorId}/price-rules/recompute-job")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_VIEW')")
+  public ResponseEntity<CatalogPriceRecomputeJobResponse> getPriceRecomputeJob(
+      @PathVariable String type,
+      @PathVariable Long agrupadorId) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    Long byGroupId = priceRuleService.resolveByGroupConfigurationId(parsedType, agrupadorId);
+    return ResponseEntity.ok(priceRecomputeJobService.latest(byGroupId));
+  }
+
   @GetMapping("/{type}/group-config/{agrupadorId}/stock-types")
   @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
   public ResponseEntity<List<CatalogStockTypeResponse>> listStockTypesByGroup(
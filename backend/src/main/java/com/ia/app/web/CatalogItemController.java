@@ -6,6 +6,7 @@ import com.ia.app.domain.PriceChangeSourceType;
 import com.ia.app.dto.CatalogItemContextResponse;
 import com.ia.app.dto.CatalogItemPricePreviewRequest;
 import com.ia.app.dto.CatalogItemPriceResponse;
+import com.ia.app.dto.CatalogPriceHistoryCursorResponse;
 import com.ia.app.dto.CatalogPriceHistoryResponse;
 import com.ia.app.dto.CatalogItemRequest;
 import com.ia.app.dto.CatalogItemResponse;
@@ -130,6 +131,38 @@ public class CatalogItemController {
       pageable));
   }
 
+  @GetMapping("/items/{id}/price/history/cursor")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_VIEW')")
+  public ResponseEntity<CatalogPriceHistoryCursorResponse> priceHistoryByCursor(
+      @PathVariable String type,
+      @PathVariable Long id,
+      @RequestParam(required = false) String sourceType,
+      @RequestParam(required = false) String priceType,
+      @RequestParam(required = false) Long priceBookId,
+      @RequestParam(required = false) String text,
+      @RequestParam(required = false) String fromDate,
+      @RequestParam(required = false) String toDate,
+      @RequestParam(required = false) Integer tzOffsetMinutes,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    PriceChangeSourceType parsedSourceType = PriceChangeSourceType.fromNullable(sourceType);
+    CatalogPriceType parsedPriceType = CatalogPriceType.fromNullable(priceType);
+    Instant parsedFrom = parseFromDate(fromDate, tzOffsetMinutes);
+    Instant parsedTo = parseToDate(toDate, tzOffsetMinutes);
+    return ResponseEntity.ok(catalogPriceHistoryService.listByItemByCursor(
+      parsedType,
+      id,
+      parsedSourceType,
+      parsedPriceType,
+      priceBookId,
+      text,
+      parsedFrom,
+      parsedTo,
+      cursor,
+      size));
+  }
+
   @PostMapping("/items")
   @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
   public ResponseEntity<CatalogItemResponse> create(
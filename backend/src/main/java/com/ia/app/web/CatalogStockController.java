@@ -3,18 +3,26 @@ package com.ia.app.web;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogMovementMetricType;
 import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.dto.CatalogMovementLedgerCursorResponse;
 import com.ia.app.dto.CatalogMovementResponse;
 import com.ia.app.dto.CatalogStockBalanceViewResponse;
+import com.ia.app.dto.CatalogStockMatrixResponse;
+import com.ia.app.dto.CatalogStockSummaryResponse;
+import com.ia.app.dto.ExportJobResponse;
+import com.ia.app.service.CatalogStockConsolidatedBalanceService;
 import com.ia.app.service.CatalogStockQueryService;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -24,9 +32,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class CatalogStockController {
 
   private final CatalogStockQueryService queryService;
+  private final CatalogStockConsolidatedBalanceService consolidatedBalanceService;
 
-  public CatalogStockController(CatalogStockQueryService queryService) {
+  public CatalogStockController(
+      CatalogStockQueryService queryService,
+      CatalogStockConsolidatedBalanceService consolidatedBalanceService) {
     this.queryService = queryService;
+    this.consolidatedBalanceService = consolidatedBalanceService;
   }
 
   @GetMapping("/items/{catalogoId}/stock/balances")
@@ -41,6 +53,50 @@ public class CatalogStockController {
     return ResponseEntity.ok(queryService.loadBalanceView(parsedType, catalogoId, agrupadorId, estoqueTipoId, filialId));
   }
 
+  @GetMapping("/stock/matrix")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<CatalogStockMatrixResponse> matrix(
+      @PathVariable String type,
+      @RequestParam List<Long> catalogoIds,
+      @RequestParam(required = false) Long agrupadorId,
+      @RequestParam(required = false) Long estoqueTipoId,
+      @RequestParam(required = false) Long filialId) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    return ResponseEntity.ok(queryService.loadStockMatrix(parsedType, catalogoIds, agrupadorId, estoqueTipoId, filialId));
+  }
+
+  @GetMapping("/stock/summary")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<CatalogStockSummaryResponse> summary(
+      @PathVariable String type,
+      @RequestParam(required = false) Long agrupadorId,
+      @RequestParam(required = false) Long estoqueTipoId) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    return ResponseEntity.ok(queryService.loadStockSummary(parsedType, agrupadorId, estoqueTipoId));
+  }
+
+  @PostMapping("/stock/consolidated/rebuild")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<CatalogStockConsolidatedBalanceService.RebuildResult> rebuildConsolidated(@PathVariable String type) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    return ResponseEntity.ok(consolidatedBalanceService.rebuildCurrentTenant(parsedType));
+  }
+
+  @GetMapping("/items/{catalogoId}/stock/balances/as-of")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<CatalogStockBalanceViewResponse> balancesAsOf(
+      @PathVariable String type,
+      @PathVariable Long catalogoId,
+      @RequestParam String at,
+      @RequestParam(required = false) Long agrupadorId,
+      @RequestParam(required = false) Long estoqueTipoId,
+      @RequestParam(required = false) Long filialId,
+      @RequestParam(required = false) Integer tzOffsetMinutes) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    Instant parsedAt = parseLedgerToDate(at, tzOffsetMinutes);
+    return ResponseEntity.ok(queryService.balanceAsOf(parsedType, catalogoId, agrupadorId, estoqueTipoId, filialId, parsedAt));
+  }
+
   @GetMapping("/items/{catalogoId}/stock/ledger")
   @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
   public ResponseEntity<Page<CatalogMovementResponse>> ledger(
@@ -82,6 +138,90 @@ public class CatalogStockController {
       pageable));
   }
 
+  @PostMapping("/items/{catalogoId}/stock/ledger/export")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<ExportJobResponse> exportLedger(
+      @PathVariable String type,
+      @PathVariable Long catalogoId,
+      @RequestParam(required = false) Long agrupadorId,
+      @RequestParam(required = false) String origemTipo,
+      @RequestParam(required = false) String origemCodigo,
+      @RequestParam(required = false) Long origemId,
+      @RequestParam(required = false) String movimentoTipo,
+      @RequestParam(required = false) String usuario,
+      @RequestParam(required = false) String metricType,
+      @RequestParam(required = false) Long estoqueTipoId,
+      @RequestParam(required = false) Long filialId,
+      @RequestParam(required = false) String fromDate,
+      @RequestParam(required = false) String toDate,
+      @RequestParam(required = false) Integer tzOffsetMinutes,
+      @RequestParam(required = false) String format) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    CatalogMovementOriginType parsedOrigin = CatalogMovementOriginType.fromNullable(origemTipo);
+    CatalogMovementMetricType parsedMetric = CatalogMovementMetricType.fromNullable(metricType);
+    Instant parsedFrom = parseLedgerFromDate(fromDate, tzOffsetMinutes);
+    Instant parsedTo = parseLedgerToDate(toDate, tzOffsetMinutes);
+
+    return ResponseEntity.accepted().body(queryService.exportLedger(
+      parsedType,
+      catalogoId,
+      agrupadorId,
+      parsedOrigin,
+      origemCodigo,
+      origemId,
+      movimentoTipo,
+      usuario,
+      parsedFrom,
+      parsedTo,
+      parsedMetric,
+      estoqueTipoId,
+      filialId,
+      ExportFormat.fromNullable(format)));
+  }
+
+  @GetMapping("/items/{catalogoId}/stock/ledger/cursor")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CONFIG_EDITOR')")
+  public ResponseEntity<CatalogMovementLedgerCursorResponse> ledgerByCursor(
+      @PathVariable String type,
+      @PathVariable Long catalogoId,
+      @RequestParam(required = false) Long agrupadorId,
+      @RequestParam(required = false) String origemTipo,
+      @RequestParam(required = false) String origemCodigo,
+      @RequestParam(required = false) Long origemId,
+      @RequestParam(required = false) String movimentoTipo,
+      @RequestParam(required = false) String usuario,
+      @RequestParam(required = false) String metricType,
+      @RequestParam(required = false) Long estoqueTipoId,
+      @RequestParam(required = false) Long filialId,
+      @RequestParam(required = false) String fromDate,
+      @RequestParam(required = false) String toDate,
+      @RequestParam(required = false) Integer tzOffsetMinutes,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    CatalogConfigurationType parsedType = CatalogConfigurationType.from(type);
+    CatalogMovementOriginType parsedOrigin = CatalogMovementOriginType.fromNullable(origemTipo);
+    CatalogMovementMetricType parsedMetric = CatalogMovementMetricType.fromNullable(metricType);
+    Instant parsedFrom = parseLedgerFromDate(fromDate, tzOffsetMinutes);
+    Instant parsedTo = parseLedgerToDate(toDate, tzOffsetMinutes);
+
+    return ResponseEntity.ok(queryService.loadLedgerByCursor(
+      parsedType,
+      catalogoId,
+      agrupadorId,
+      parsedOrigin,
+      origemCodigo,
+      origemId,
+      movimentoTipo,
+      usuario,
+      parsedFrom,
+      parsedTo,
+      parsedMetric,
+      estoqueTipoId,
+      filialId,
+      cursor,
+      size));
+  }
+
   private Instant parseLedgerFromDate(String raw, Integer tzOffsetMinutes) {
     if (raw == null || raw.isBlank()) {
       return null;
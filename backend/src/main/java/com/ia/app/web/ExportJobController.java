@@ -0,0 +1,46 @@
+package com.ia.app.web;
+
+import com.ia.app.dto.ExportJobResponse;
+import com.ia.app.service.ExportJobService;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/exports")
+public class ExportJobController {
+
+  private final ExportJobService service;
+
+  public ExportJobController(ExportJobService service) {
+    this.service = service;
+  }
+
+  @GetMapping("/{id}")
+  @PreAuthorize("isAuthenticated()")
+  public ResponseEntity<ExportJobResponse> get(@PathVariable Long id) {
+    return ResponseEntity.ok(service.get(id));
+  }
+
+  @GetMapping("/{id}/download")
+  @PreAuthorize("isAuthenticated()")
+  public ResponseEntity<StreamingResponseBody> download(@PathVariable Long id) {
+    ExportJobService.ExportDownload download = service.download(id);
+    return ResponseEntity.ok()
+      .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+        .filename(download.fileName(), StandardCharsets.UTF_8)
+        .build()
+        .toString())
+      .contentType(MediaType.parseMediaType(download.contentType()))
+      .contentLength(download.size())
+      .body(out -> service.writeTo(download, out));
+  }
+}
@@ -9,11 +9,15 @@ import com.ia.app.dto.MovimentoItemUnitConversionPreviewRequest;
 import com.ia.app.dto.MovimentoItemUnitConversionPreviewResponse;
 import com.ia.app.dto.MovimentoTemplateRequest;
 import com.ia.app.service.MovimentoEstoqueItemCatalogService;
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer;
+import com.ia.app.service.MovimentoEstoqueVoucherService;
 import com.ia.app.service.MovimentoOperacaoService;
 import jakarta.validation.Valid;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/movimentos")
@@ -32,12 +37,15 @@ public class MovimentoOperacaoController {
 
   private final MovimentoOperacaoService service;
   private final MovimentoEstoqueItemCatalogService movimentoEstoqueItemCatalogService;
+  private final MovimentoEstoqueVoucherService movimentoEstoqueVoucherService;
 
   public MovimentoOperacaoController(
       MovimentoOperacaoService service,
-      MovimentoEstoqueItemCatalogService movimentoEstoqueItemCatalogService) {
+      MovimentoEstoqueItemCatalogService movimentoEstoqueItemCatalogService,
+      MovimentoEstoqueVoucherService movimentoEstoqueVoucherService) {
     this.service = service;
     this.movimentoEstoqueItemCatalogService = movimentoEstoqueItemCatalogService;
+    this.movimentoEstoqueVoucherService = movimentoEstoqueVoucherService;
   }
 
   @PostMapping("/{tipo}/template")
@@ -122,4 +130,16 @@ public class MovimentoOperacaoController {
       @Valid @RequestBody MovimentoItemUnitConversionPreviewRequest request) {
     return ResponseEntity.ok(movimentoEstoqueItemCatalogService.previewConversion(request));
   }
+
+  @GetMapping("/MOVIMENTO_ESTOQUE/vouchers")
+  @PreAuthorize("@permissaoGuard.hasPermissao('MOVIMENTO_ESTOQUE_ITEM_OPERAR')")
+  public ResponseEntity<StreamingResponseBody> vouchers(@RequestParam List<Long> ids) {
+    // Carrega na thread da requisicao (contexto de tenant/empresa); so a renderizacao vai para o stream.
+    List<MovimentoEstoqueVoucherRenderer.Voucher> vouchers = movimentoEstoqueVoucherService.loadBatch(ids);
+    StreamingResponseBody body = out -> movimentoEstoqueVoucherService.writeZip(vouchers, out);
+    return ResponseEntity.ok()
+      .contentType(MediaType.parseMediaType("application/zip"))
+      .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"movimentos-estoque.zip\"")
+      .body(body);
+  }
 }
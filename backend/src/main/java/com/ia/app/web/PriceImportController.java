@@ -0,0 +1,49 @@
+package com.ia.app.web;
+
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.dto.PriceImportResponse;
+import com.ia.app.service.PriceImportService;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/catalog/pricing/imports")
+public class PriceImportController {
+
+  private final PriceImportService service;
+
+  public PriceImportController(PriceImportService service) {
+    this.service = service;
+  }
+
+  @PostMapping(path = "/sale-prices", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_MANAGE')")
+  public ResponseEntity<PriceImportResponse> importSalePrices(
+      @RequestPart("file") MultipartFile file,
+      @RequestParam Long priceBookId,
+      @RequestParam(required = false) Long variantId) throws IOException {
+    try (InputStream content = file.getInputStream()) {
+      return ResponseEntity.ok(service.importSalePrices(file.getOriginalFilename(), content, priceBookId, variantId));
+    }
+  }
+
+  @PostMapping(path = "/catalog-item-prices", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_MANAGE')")
+  public ResponseEntity<PriceImportResponse> importCatalogItemPrices(
+      @RequestPart("file") MultipartFile file,
+      @RequestParam String priceType) throws IOException {
+    CatalogPriceType parsedType = CatalogPriceType.fromNullable(priceType);
+    try (InputStream content = file.getInputStream()) {
+      return ResponseEntity.ok(service.importCatalogItemPrices(file.getOriginalFilename(), content, parsedType));
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.ia.app.web;
 
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.dto.ExportJobResponse;
 import com.ia.app.dto.RegistroEntidadeEmpresaContextoResponse;
 import com.ia.app.dto.RegistroEntidadeRequest;
 import com.ia.app.dto.RegistroEntidadeResponse;
@@ -87,6 +89,20 @@ public class RegistroEntidadeController {
     return ResponseEntity.ok(service.list(tipoEntidadeId, codigo, pessoaNome, registroFederal, grupoId, ativo, pageable));
   }
 
+  @PostMapping("/export")
+  @PreAuthorize("isAuthenticated()")
+  public ResponseEntity<ExportJobResponse> export(
+      @PathVariable Long tipoEntidadeId,
+      @RequestParam(required = false) Long codigo,
+      @RequestParam(required = false) String pessoaNome,
+      @RequestParam(required = false) String registroFederal,
+      @RequestParam(required = false) Long grupoId,
+      @RequestParam(required = false) Boolean ativo,
+      @RequestParam(required = false) String format) {
+    return ResponseEntity.accepted().body(service.export(
+      tipoEntidadeId, codigo, pessoaNome, registroFederal, grupoId, ativo, ExportFormat.fromNullable(format)));
+  }
+
   @GetMapping("/{id}")
   @PreAuthorize("isAuthenticated()")
   public ResponseEntity<RegistroEntidadeResponse> get(
@@ -1,6 +1,8 @@
 package com.ia.app.web;
 
 import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.dto.ExportJobResponse;
 import com.ia.app.dto.SalePriceApplyByGroupRequest;
 import com.ia.app.dto.SalePriceApplyByGroupResponse;
 import com.ia.app.dto.SalePriceByItemRowResponse;
@@ -67,6 +69,31 @@ public class SalePriceController {
       pageable));
   }
 
+  @PostMapping("/grid/export")
+  @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_VIEW')")
+  public ResponseEntity<ExportJobResponse> exportGrid(
+      @RequestParam Long priceBookId,
+      @RequestParam(required = false) Long variantId,
+      @RequestParam(required = false) String catalogType,
+      @RequestParam(required = false) String text,
+      @RequestParam(required = false) Long catalogItemId,
+      @RequestParam(required = false) Long catalogGroupId,
+      @RequestParam(required = false, defaultValue = "false") Boolean includeGroupChildren,
+      @RequestParam(required = false) String format) {
+    CatalogConfigurationType parsedType = catalogType == null || catalogType.isBlank()
+      ? null
+      : CatalogConfigurationType.from(catalogType);
+    return ResponseEntity.accepted().body(service.exportGrid(
+      priceBookId,
+      variantId,
+      parsedType,
+      text,
+      catalogItemId,
+      catalogGroupId,
+      includeGroupChildren,
+      ExportFormat.fromNullable(format)));
+  }
+
   @GetMapping("/group-options")
   @PreAuthorize("@permissaoGuard.hasPermissao('CATALOG_PRICES_VIEW')")
   public ResponseEntity<List<SalePriceGroupOptionResponse>> listGroupOptions(
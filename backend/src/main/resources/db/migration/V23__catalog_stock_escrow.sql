@@ -0,0 +1,13 @@
+ALTER TABLE catalog_configuration
+  ADD COLUMN IF NOT EXISTS stock_escrow_enabled BOOLEAN NOT NULL DEFAULT FALSE;
+
+ALTER TABLE catalog_movement_line
+  ADD COLUMN IF NOT EXISTS escrow_pending BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_escrow_pending
+  ON catalog_movement_line (id)
+  WHERE escrow_pending;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_escrow_pending_scope
+  ON catalog_movement_line (tenant_id, agrupador_empresa_id, estoque_tipo_id, filial_id)
+  WHERE escrow_pending;
@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_ledger_seek
+  ON catalog_movement (tenant_id, catalog_type, catalogo_id, data_hora_movimentacao DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_catalog_movement_catalog_data;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_movement_filters
+  ON catalog_movement_line (movement_id, tenant_id, agrupador_empresa_id, estoque_tipo_id, filial_id, metric_type);
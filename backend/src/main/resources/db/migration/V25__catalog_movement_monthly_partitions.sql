@@ -0,0 +1,179 @@
+-- Particiona o ledger de estoque por mes de data_hora_movimentacao.
+-- Indice unico em tabela particionada precisa conter a chave de particao, por isso a
+-- idempotencia passa para catalog_movement_idempotency (tenant_id, idempotency_key).
+
+ALTER TABLE catalog_movement_line RENAME TO catalog_movement_line_legacy;
+ALTER TABLE catalog_movement RENAME TO catalog_movement_legacy;
+
+ALTER SEQUENCE catalog_movement_id_seq OWNED BY NONE;
+ALTER SEQUENCE catalog_movement_line_id_seq OWNED BY NONE;
+
+CREATE TABLE catalog_movement (
+  LIKE catalog_movement_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS
+) PARTITION BY RANGE (data_hora_movimentacao);
+
+CREATE TABLE catalog_movement_line (
+  LIKE catalog_movement_line_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+  data_hora_movimentacao TIMESTAMP NOT NULL
+) PARTITION BY RANGE (data_hora_movimentacao);
+
+DO $$
+DECLARE
+  month_start DATE;
+  last_month DATE := (date_trunc('month', NOW()) + INTERVAL '3 months')::date;
+BEGIN
+  SELECT COALESCE(date_trunc('month', MIN(data_hora_movimentacao)), date_trunc('month', NOW()))::date
+    INTO month_start
+    FROM catalog_movement_legacy;
+
+  WHILE month_start <= last_month LOOP
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS %I PARTITION OF catalog_movement FOR VALUES FROM (%L) TO (%L)',
+      'catalog_movement_' || to_char(month_start, 'YYYYMM'),
+      month_start,
+      (month_start + INTERVAL '1 month')::date);
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS %I PARTITION OF catalog_movement_line FOR VALUES FROM (%L) TO (%L)',
+      'catalog_movement_line_' || to_char(month_start, 'YYYYMM'),
+      month_start,
+      (month_start + INTERVAL '1 month')::date);
+    month_start := (month_start + INTERVAL '1 month')::date;
+  END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS catalog_movement_default
+  PARTITION OF catalog_movement DEFAULT;
+
+CREATE TABLE IF NOT EXISTS catalog_movement_line_default
+  PARTITION OF catalog_movement_line DEFAULT;
+
+INSERT INTO catalog_movement
+SELECT * FROM catalog_movement_legacy;
+
+INSERT INTO catalog_movement_line (
+  id, movement_id, tenant_id, agrupador_empresa_id, metric_type, estoque_tipo_id, filial_id,
+  before_value, delta, after_value, escrow_pending, data_hora_movimentacao
+)
+SELECT
+  l.id, l.movement_id, l.tenant_id, l.agrupador_empresa_id, l.metric_type, l.estoque_tipo_id, l.filial_id,
+  l.before_value, l.delta, l.after_value, l.escrow_pending, m.data_hora_movimentacao
+FROM catalog_movement_line_legacy l
+JOIN catalog_movement_legacy m ON m.id = l.movement_id;
+
+CREATE TABLE IF NOT EXISTS catalog_movement_idempotency (
+  tenant_id BIGINT NOT NULL,
+  idempotency_key VARCHAR(180) NOT NULL,
+  movement_id BIGINT NOT NULL,
+  data_hora_movimentacao TIMESTAMP NOT NULL,
+  CONSTRAINT pk_catalog_movement_idempotency PRIMARY KEY (tenant_id, idempotency_key)
+);
+
+INSERT INTO catalog_movement_idempotency (tenant_id, idempotency_key, movement_id, data_hora_movimentacao)
+SELECT tenant_id, idempotency_key, id, data_hora_movimentacao
+FROM catalog_movement_legacy;
+
+DROP TABLE catalog_movement_line_legacy;
+DROP TABLE catalog_movement_legacy;
+
+ALTER SEQUENCE catalog_movement_id_seq OWNED BY catalog_movement.id;
+ALTER SEQUENCE catalog_movement_line_id_seq OWNED BY catalog_movement_line.id;
+
+ALTER TABLE catalog_movement
+  ADD CONSTRAINT catalog_movement_pkey PRIMARY KEY (id, data_hora_movimentacao);
+
+ALTER TABLE catalog_movement
+  ADD CONSTRAINT fk_catalog_movement_catalog_scope
+    FOREIGN KEY (catalog_configuration_id, tenant_id)
+    REFERENCES catalog_configuration (id, tenant_id)
+    ON DELETE CASCADE;
+
+ALTER TABLE catalog_movement
+  ADD CONSTRAINT fk_catalog_movement_agrupador_tenant
+    FOREIGN KEY (agrupador_empresa_id, tenant_id)
+    REFERENCES agrupador_empresa (id, tenant_id)
+    ON DELETE RESTRICT;
+
+ALTER TABLE catalog_movement
+  ADD CONSTRAINT fk_catalog_movement_unit_informed
+    FOREIGN KEY (tenant_unit_id, tenant_id)
+    REFERENCES tenant_unit (id, tenant_id)
+    ON DELETE RESTRICT;
+
+ALTER TABLE catalog_movement
+  ADD CONSTRAINT fk_catalog_movement_unit_base_catalog
+    FOREIGN KEY (unidade_base_catalogo_tenant_unit_id, tenant_id)
+    REFERENCES tenant_unit (id, tenant_id)
+    ON DELETE RESTRICT;
+
+ALTER TABLE catalog_movement_line
+  ADD CONSTRAINT catalog_movement_line_pkey PRIMARY KEY (id, data_hora_movimentacao);
+
+ALTER TABLE catalog_movement_line
+  ADD CONSTRAINT fk_catalog_movement_line_movement
+    FOREIGN KEY (movement_id, data_hora_movimentacao)
+    REFERENCES catalog_movement (id, data_hora_movimentacao)
+    ON DELETE CASCADE;
+
+ALTER TABLE catalog_movement_line
+  ADD CONSTRAINT fk_catalog_movement_line_stock_type
+    FOREIGN KEY (estoque_tipo_id)
+    REFERENCES catalog_stock_type (id)
+    ON DELETE RESTRICT;
+
+ALTER TABLE catalog_movement_line
+  ADD CONSTRAINT fk_catalog_movement_line_filial
+    FOREIGN KEY (filial_id)
+    REFERENCES empresa (id)
+    ON DELETE RESTRICT;
+
+-- Diferida: o movimento e a reserva da chave sao gravados no mesmo comando.
+ALTER TABLE catalog_movement_idempotency
+  ADD CONSTRAINT fk_catalog_movement_idempotency_movement
+    FOREIGN KEY (movement_id, data_hora_movimentacao)
+    REFERENCES catalog_movement (id, data_hora_movimentacao)
+    ON DELETE CASCADE
+    DEFERRABLE INITIALLY DEFERRED;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_idempotency_data
+  ON catalog_movement_idempotency (data_hora_movimentacao);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_idempotency_key
+  ON catalog_movement (tenant_id, idempotency_key);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_ledger_seek
+  ON catalog_movement (tenant_id, catalog_type, catalogo_id, data_hora_movimentacao DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_origem
+  ON catalog_movement (tenant_id, origem_movimentacao_tipo, origem_movimentacao_codigo);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_tenant_unit
+  ON catalog_movement (tenant_id, tenant_unit_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_base_unit
+  ON catalog_movement (tenant_id, unidade_base_catalogo_tenant_unit_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_origem_id
+  ON catalog_movement (tenant_id, origem_movimentacao_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_tipo_movimento
+  ON catalog_movement (tenant_id, movimento_tipo);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_usuario
+  ON catalog_movement (tenant_id, created_by);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_movement
+  ON catalog_movement_line (movement_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_scope
+  ON catalog_movement_line (tenant_id, agrupador_empresa_id, estoque_tipo_id, filial_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_movement_filters
+  ON catalog_movement_line (movement_id, tenant_id, agrupador_empresa_id, estoque_tipo_id, filial_id, metric_type);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_escrow_pending
+  ON catalog_movement_line (id)
+  WHERE escrow_pending;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_escrow_pending_scope
+  ON catalog_movement_line (tenant_id, agrupador_empresa_id, estoque_tipo_id, filial_id)
+  WHERE escrow_pending;
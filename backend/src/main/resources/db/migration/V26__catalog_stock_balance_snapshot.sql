@@ -0,0 +1,32 @@
+-- Fechamento diario (UTC) por chave de saldo. O saldo do dia D inclui as linhas com
+-- data_hora_movimentacao < D + 1 e id <= max_line_id da execucao daquele dia.
+CREATE TABLE IF NOT EXISTS catalog_stock_snapshot_run (
+  snapshot_date DATE PRIMARY KEY,
+  max_line_id BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS catalog_stock_balance_snapshot (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_id BIGINT NOT NULL,
+  catalog_type VARCHAR(20) NOT NULL,
+  catalogo_id BIGINT NOT NULL,
+  agrupador_empresa_id BIGINT NOT NULL,
+  estoque_tipo_id BIGINT NOT NULL,
+  filial_id BIGINT NOT NULL,
+  snapshot_date DATE NOT NULL,
+  quantidade NUMERIC(19,6) NOT NULL,
+  preco NUMERIC(19,6) NOT NULL,
+  CONSTRAINT fk_catalog_stock_balance_snapshot_run
+    FOREIGN KEY (snapshot_date)
+    REFERENCES catalog_stock_snapshot_run (snapshot_date)
+    ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_catalog_stock_balance_snapshot_scope_date
+  ON catalog_stock_balance_snapshot (
+    tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id, filial_id, snapshot_date DESC
+  );
+
+CREATE INDEX IF NOT EXISTS idx_catalog_stock_balance_snapshot_date
+  ON catalog_stock_balance_snapshot (snapshot_date);
@@ -0,0 +1,42 @@
+CREATE TABLE IF NOT EXISTS catalog_stock_reconciliation_run (
+  id BIGSERIAL PRIMARY KEY,
+  repair_mode BOOLEAN NOT NULL DEFAULT FALSE,
+  status VARCHAR(20) NOT NULL,
+  units_total INTEGER NOT NULL DEFAULT 0,
+  mismatch_count INTEGER NOT NULL DEFAULT 0,
+  repaired_count INTEGER NOT NULL DEFAULT 0,
+  error_message VARCHAR(255),
+  started_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  finished_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS catalog_stock_reconciliation_mismatch (
+  id BIGSERIAL PRIMARY KEY,
+  run_id BIGINT NOT NULL,
+  tenant_id BIGINT NOT NULL,
+  catalog_type VARCHAR(20) NOT NULL,
+  catalogo_id BIGINT NOT NULL,
+  catalog_configuration_id BIGINT NOT NULL,
+  agrupador_empresa_id BIGINT NOT NULL,
+  estoque_tipo_id BIGINT NOT NULL,
+  filial_id BIGINT NOT NULL,
+  balance_id BIGINT,
+  ledger_quantidade NUMERIC(19,6) NOT NULL,
+  balance_quantidade NUMERIC(19,6) NOT NULL,
+  ledger_preco NUMERIC(19,6) NOT NULL,
+  balance_preco NUMERIC(19,6) NOT NULL,
+  repaired BOOLEAN NOT NULL DEFAULT FALSE,
+  repair_movement_id BIGINT,
+  repair_error VARCHAR(120),
+  detected_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  CONSTRAINT fk_catalog_stock_reconciliation_mismatch_run
+    FOREIGN KEY (run_id)
+    REFERENCES catalog_stock_reconciliation_run (id)
+    ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_stock_reconciliation_mismatch_run
+  ON catalog_stock_reconciliation_mismatch (run_id, tenant_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_stock_reconciliation_mismatch_item
+  ON catalog_stock_reconciliation_mismatch (tenant_id, catalog_type, catalogo_id);
@@ -0,0 +1,41 @@
+-- Saldo consolidado por item, agrupador e tipo de estoque (soma das filiais), mantido pelo
+-- motor de movimentacao na mesma transacao que catalog_stock_balance.
+CREATE TABLE IF NOT EXISTS catalog_stock_consolidated_balance (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_id BIGINT NOT NULL,
+  catalogo_id BIGINT NOT NULL,
+  catalog_type VARCHAR(20) NOT NULL,
+  catalog_configuration_id BIGINT NOT NULL,
+  agrupador_empresa_id BIGINT NOT NULL,
+  estoque_tipo_id BIGINT NOT NULL,
+  quantidade_total NUMERIC(19,6) NOT NULL DEFAULT 0,
+  preco_total NUMERIC(19,6) NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  CONSTRAINT fk_catalog_stock_consolidated_catalog_scope
+    FOREIGN KEY (catalog_configuration_id, tenant_id)
+    REFERENCES catalog_configuration (id, tenant_id)
+    ON DELETE CASCADE,
+  CONSTRAINT fk_catalog_stock_consolidated_agrupador_tenant
+    FOREIGN KEY (agrupador_empresa_id, tenant_id)
+    REFERENCES agrupador_empresa (id, tenant_id)
+    ON DELETE RESTRICT,
+  CONSTRAINT fk_catalog_stock_consolidated_stock_type
+    FOREIGN KEY (estoque_tipo_id)
+    REFERENCES catalog_stock_type (id)
+    ON DELETE RESTRICT
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_catalog_stock_consolidated_scope
+  ON catalog_stock_consolidated_balance (tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_stock_consolidated_summary
+  ON catalog_stock_consolidated_balance (tenant_id, catalog_type, agrupador_empresa_id, estoque_tipo_id);
+
+INSERT INTO catalog_stock_consolidated_balance (
+  tenant_id, catalogo_id, catalog_type, catalog_configuration_id, agrupador_empresa_id, estoque_tipo_id,
+  quantidade_total, preco_total, updated_at
+)
+SELECT tenant_id, catalogo_id, catalog_type, MIN(catalog_configuration_id), agrupador_empresa_id, estoque_tipo_id,
+       SUM(quantidade_atual), SUM(preco_atual), NOW()
+FROM catalog_stock_balance
+GROUP BY tenant_id, catalog_type, catalogo_id, agrupador_empresa_id, estoque_tipo_id;
@@ -0,0 +1,24 @@
+-- Exportacoes geradas em segundo plano; o arquivo fica em disco local ate expires_at.
+CREATE TABLE IF NOT EXISTS export_job (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_id BIGINT NOT NULL,
+  source VARCHAR(40) NOT NULL,
+  format VARCHAR(10) NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  rows_written BIGINT NOT NULL DEFAULT 0,
+  file_name VARCHAR(160) NOT NULL,
+  file_path VARCHAR(500),
+  file_size BIGINT,
+  error_message VARCHAR(255),
+  requested_by VARCHAR(120) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  started_at TIMESTAMP,
+  finished_at TIMESTAMP,
+  expires_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_export_job_tenant_created
+  ON export_job (tenant_id, created_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_export_job_status_expires
+  ON export_job (status, expires_at);
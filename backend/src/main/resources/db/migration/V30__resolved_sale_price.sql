@@ -0,0 +1,81 @@
+-- Preco de venda ja resolvido (variacao -> base da tabela -> base do catalogo) por tabela, variacao,
+-- item e unidade. Mantido por SalePriceService, PriceVariantService, CatalogItemPriceService e
+-- PriceBookService na mesma transacao da escrita; so existem linhas para (tabela, item) com sale_price.
+-- variant_key = 0 representa "sem variacao"; tenant_unit_key zerado representa "qualquer unidade".
+CREATE TABLE IF NOT EXISTS resolved_sale_price (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_id BIGINT NOT NULL,
+  price_book_id BIGINT NOT NULL,
+  variant_key BIGINT NOT NULL,
+  catalog_type VARCHAR(20) NOT NULL,
+  catalog_item_id BIGINT NOT NULL,
+  tenant_unit_key UUID NOT NULL,
+  price_final NUMERIC(19,6) NOT NULL,
+  sale_price_id BIGINT,
+  resolved_variant_id BIGINT,
+  source VARCHAR(40) NOT NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  CONSTRAINT ck_resolved_sale_price_catalog_type CHECK (catalog_type IN ('PRODUCTS', 'SERVICES')),
+  CONSTRAINT fk_resolved_sale_price_book_tenant
+    FOREIGN KEY (price_book_id, tenant_id)
+    REFERENCES price_book (id, tenant_id)
+    ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_resolved_sale_price_scope
+  ON resolved_sale_price (tenant_id, price_book_id, variant_key, catalog_type, catalog_item_id, tenant_unit_key);
+
+CREATE INDEX IF NOT EXISTS idx_resolved_sale_price_item
+  ON resolved_sale_price (tenant_id, catalog_type, catalog_item_id);
+
+INSERT INTO resolved_sale_price (
+  tenant_id, price_book_id, variant_key, catalog_type, catalog_item_id, tenant_unit_key,
+  price_final, sale_price_id, resolved_variant_id, source, updated_at
+)
+SELECT u.tenant_id, u.price_book_id, v.variant_key, u.catalog_type, u.catalog_item_id, u.tenant_unit_key,
+       COALESCE(vu.price_final, va.price_final, bu.price_final, ba.price_final, cip.price_final, 0),
+       COALESCE(vu.id, va.id, bu.id, ba.id),
+       COALESCE(vu.variant_id, va.variant_id),
+       CASE
+         WHEN vu.id IS NOT NULL OR va.id IS NOT NULL THEN 'EXACT_VARIANT'
+         WHEN bu.id IS NOT NULL OR ba.id IS NOT NULL THEN
+           CASE WHEN v.active THEN 'BOOK_BASE' ELSE 'INACTIVE_VARIANT_FALLBACK' END
+         ELSE 'CATALOG_BASE'
+       END,
+       NOW()
+FROM (
+  SELECT DISTINCT tenant_id, price_book_id, catalog_type, catalog_item_id,
+         COALESCE(tenant_unit_id, '00000000-0000-0000-0000-000000000000'::UUID) AS tenant_unit_key
+  FROM sale_price
+  UNION
+  SELECT DISTINCT tenant_id, price_book_id, catalog_type, catalog_item_id,
+         '00000000-0000-0000-0000-000000000000'::UUID
+  FROM sale_price
+) u
+JOIN (
+  SELECT DISTINCT tenant_id, 0::BIGINT AS variant_key, TRUE AS active FROM sale_price
+  UNION ALL
+  SELECT tenant_id, id, active FROM price_variant
+) v
+  ON v.tenant_id = u.tenant_id
+LEFT JOIN sale_price vu
+  ON v.variant_key <> 0 AND v.active
+ AND vu.tenant_id = u.tenant_id AND vu.price_book_id = u.price_book_id AND vu.variant_id = v.variant_key
+ AND vu.catalog_type = u.catalog_type AND vu.catalog_item_id = u.catalog_item_id
+ AND vu.tenant_unit_id = u.tenant_unit_key
+LEFT JOIN sale_price va
+  ON v.variant_key <> 0 AND v.active
+ AND va.tenant_id = u.tenant_id AND va.price_book_id = u.price_book_id AND va.variant_id = v.variant_key
+ AND va.catalog_type = u.catalog_type AND va.catalog_item_id = u.catalog_item_id
+ AND va.tenant_unit_id IS NULL
+LEFT JOIN sale_price bu
+  ON bu.tenant_id = u.tenant_id AND bu.price_book_id = u.price_book_id AND bu.variant_id IS NULL
+ AND bu.catalog_type = u.catalog_type AND bu.catalog_item_id = u.catalog_item_id
+ AND bu.tenant_unit_id = u.tenant_unit_key
+LEFT JOIN sale_price ba
+  ON ba.tenant_id = u.tenant_id AND ba.price_book_id = u.price_book_id AND ba.variant_id IS NULL
+ AND ba.catalog_type = u.catalog_type AND ba.catalog_item_id = u.catalog_item_id
+ AND ba.tenant_unit_id IS NULL
+LEFT JOIN catalog_item_price cip
+  ON cip.tenant_id = u.tenant_id AND cip.catalog_type = u.catalog_type
+ AND cip.catalog_item_id = u.catalog_item_id AND cip.price_type = 'SALE_BASE';
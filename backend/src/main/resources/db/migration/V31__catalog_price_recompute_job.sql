@@ -0,0 +1,36 @@
+-- Recalculo em segundo plano dos precos de catalogo de um agrupador apos mudanca de regra.
+-- last_item_id e o checkpoint do ultimo lote confirmado; heartbeat_at antigo marca job orfao para retomada.
+CREATE TABLE IF NOT EXISTS catalog_price_recompute_job (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_id BIGINT NOT NULL,
+  catalog_configuration_by_group_id BIGINT NOT NULL,
+  catalog_configuration_id BIGINT NOT NULL,
+  agrupador_id BIGINT NOT NULL,
+  catalog_type VARCHAR(20) NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  last_item_id BIGINT NOT NULL DEFAULT 0,
+  total_items BIGINT,
+  items_processed BIGINT NOT NULL DEFAULT 0,
+  prices_changed BIGINT NOT NULL DEFAULT 0,
+  error_message VARCHAR(255),
+  requested_by VARCHAR(120) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  started_at TIMESTAMP,
+  heartbeat_at TIMESTAMP,
+  finished_at TIMESTAMP,
+  version BIGINT NOT NULL DEFAULT 0,
+  CONSTRAINT ck_catalog_price_recompute_job_catalog_type CHECK (catalog_type IN ('PRODUCTS', 'SERVICES'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_price_recompute_job_group
+  ON catalog_price_recompute_job (tenant_id, catalog_configuration_by_group_id, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_price_recompute_job_active
+  ON catalog_price_recompute_job (status, heartbeat_at)
+  WHERE status IN ('PENDING', 'RUNNING');
+
+CREATE INDEX IF NOT EXISTS idx_catalog_product_recompute_scope
+  ON catalog_product (tenant_id, catalog_configuration_id, agrupador_empresa_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_service_item_recompute_scope
+  ON catalog_service_item (tenant_id, catalog_configuration_id, agrupador_empresa_id, id);
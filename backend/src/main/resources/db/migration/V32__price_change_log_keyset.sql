@@ -0,0 +1,3 @@
+-- Historico por item paginado por chave (changed_at, id), sem os filtros opcionais no meio do indice.
+CREATE INDEX IF NOT EXISTS idx_price_change_log_item_keyset
+  ON price_change_log (tenant_id, catalog_type, catalog_item_id, changed_at DESC, id DESC);
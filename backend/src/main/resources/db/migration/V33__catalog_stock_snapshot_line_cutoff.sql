@@ -0,0 +1,33 @@
+-- O fechamento diario deixa de usar max(id) como marca: uma linha com id menor que a marca
+-- podia confirmar depois do fechamento e nunca ser contada. Cada linha passa a ter created_at,
+-- carimbado pelo banco no insert, e cada fechamento guarda line_cutoff; o fechamento conta as
+-- linhas com created_at < line_cutoff.
+
+-- Default estavel: as linhas existentes recebem agora sem reescrever a tabela.
+ALTER TABLE catalog_movement_line ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+-- Linhas ja contadas por id: created_at logo antes do primeiro fechamento que as contou. Uma passada
+-- por faixa de id entre marcas consecutivas, em vez de uma subconsulta por linha.
+WITH marks AS (
+  SELECT max_line_id, MIN(created_at) AS created_at
+    FROM catalog_stock_snapshot_run
+   GROUP BY max_line_id
+), ranges AS (
+  SELECT COALESCE(LAG(max_line_id) OVER (ORDER BY max_line_id), 0) AS from_line_id,
+         max_line_id AS to_line_id,
+         MIN(created_at) OVER (ORDER BY max_line_id DESC ROWS UNBOUNDED PRECEDING) AS first_counted_at
+    FROM marks
+)
+UPDATE catalog_movement_line l
+   SET created_at = r.first_counted_at - INTERVAL '1 microsecond'
+  FROM ranges r
+ WHERE l.id > r.from_line_id
+   AND l.id <= r.to_line_id;
+
+CREATE INDEX IF NOT EXISTS idx_catalog_movement_line_created_at
+  ON catalog_movement_line (created_at);
+
+ALTER TABLE catalog_stock_snapshot_run ADD COLUMN IF NOT EXISTS line_cutoff TIMESTAMP;
+UPDATE catalog_stock_snapshot_run SET line_cutoff = created_at WHERE line_cutoff IS NULL;
+ALTER TABLE catalog_stock_snapshot_run ALTER COLUMN line_cutoff SET NOT NULL;
+ALTER TABLE catalog_stock_snapshot_run DROP COLUMN IF EXISTS max_line_id;
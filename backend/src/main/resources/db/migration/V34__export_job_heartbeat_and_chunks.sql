@@ -0,0 +1,28 @@
+-- Exportacoes em mais de um no: o job registra heartbeat e progresso na propria linha
+-- (o abandono e decidido pelo heartbeat, nao pela memoria de um no) e o arquivo passa a
+-- ficar no banco, em blocos, para qualquer no atender o download.
+
+ALTER TABLE export_job ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP;
+UPDATE export_job
+   SET heartbeat_at = COALESCE(finished_at, started_at, created_at)
+ WHERE heartbeat_at IS NULL;
+ALTER TABLE export_job ALTER COLUMN heartbeat_at SET NOT NULL;
+
+-- Arquivos antigos estavam so no disco de um no; ficam expirados.
+UPDATE export_job SET status = 'EXPIRED' WHERE status = 'COMPLETED';
+ALTER TABLE export_job DROP COLUMN IF EXISTS file_path;
+
+CREATE INDEX IF NOT EXISTS idx_export_job_status_heartbeat
+  ON export_job (status, heartbeat_at);
+
+CREATE TABLE IF NOT EXISTS export_job_chunk (
+  id BIGSERIAL PRIMARY KEY,
+  job_id BIGINT NOT NULL,
+  chunk_no INT NOT NULL,
+  data BYTEA NOT NULL,
+  CONSTRAINT ux_export_job_chunk_job_chunk UNIQUE (job_id, chunk_no),
+  CONSTRAINT fk_export_job_chunk_job
+    FOREIGN KEY (job_id)
+    REFERENCES export_job (id)
+    ON DELETE CASCADE
+);
@@ -0,0 +1,22 @@
+package com.ia.app;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+// Roda o teste (normalmente uma subclasse de um teste H2) contra Postgres de verdade, com Flyway aplicado
+// e ddl-auto validate; so entra no build com mvn -Ppostgres-it test (ver application-postgres.yml).
+// Em classe com @DataJpaTest direto, declarar antes dele para prevalecer o replace = NONE.
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Tag("postgres")
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public @interface PostgresTest {
+}
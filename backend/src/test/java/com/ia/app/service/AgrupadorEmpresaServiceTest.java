@@ -4,11 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.ConfigFormulario;
 import com.ia.app.domain.Empresa;
 import com.ia.app.dto.AgrupadorEmpresaResponse;
 import com.ia.app.repository.ConfigFormularioRepository;
 import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
 import com.ia.app.tenant.TenantContext;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,11 +35,15 @@ import org.springframework.transaction.annotation.Transactional;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   AgrupadorEmpresaService.class,
   ConfiguracaoScopeService.class,
   TipoEntidadeConfigAgrupadorSyncService.class,
   CatalogConfigurationGroupSyncService.class,
+  CacheInvalidationNotifier.class,
   CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
   CatalogMovementEngine.class,
   CatalogGroupTransferService.class,
   AuditService.class,
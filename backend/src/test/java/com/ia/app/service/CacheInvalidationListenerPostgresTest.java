@@ -0,0 +1,77 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.PostgresTest;
+import com.ia.app.config.DatabaseDialect;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// LISTEN na conexao do pool dedicado do listener, NOTIFY pelo datasource da aplicacao.
+@PostgresTest
+@DataJpaTest
+@Import({
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
+  CacheInvalidationListener.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheInvalidationListenerPostgresTest {
+
+  @Autowired
+  private CacheInvalidationNotifier notifier;
+
+  @Autowired
+  private RecordingCache cache;
+
+  @Test
+  void shouldDeliverPublishedInvalidationToCacheOfChannel() throws InterruptedException {
+    assertThat(notifier.isActive()).isTrue();
+    // Ao conectar o listener limpa tudo; espera isso para saber que o LISTEN ja foi feito.
+    assertThat(cache.received.poll(10, TimeUnit.SECONDS)).isEqualTo("*");
+
+    notifier.publish(RecordingCache.CHANNEL, "tenant:7");
+
+    assertThat(cache.received.poll(10, TimeUnit.SECONDS)).isEqualTo("tenant:7");
+  }
+
+  @TestConfiguration
+  static class RecordingCacheConfig {
+
+    @Bean
+    RecordingCache recordingCache() {
+      return new RecordingCache();
+    }
+  }
+
+  static class RecordingCache implements ClusterInvalidatedCache {
+
+    static final String CHANNEL = "listener_test_cache";
+
+    final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    @Override
+    public String channel() {
+      return CHANNEL;
+    }
+
+    @Override
+    public void applyRemote(String payload) {
+      received.add(payload);
+    }
+
+    @Override
+    public void invalidateAllLocal() {
+      received.add("*");
+    }
+  }
+}
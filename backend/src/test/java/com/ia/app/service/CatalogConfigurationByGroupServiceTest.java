@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogNumberingMode;
@@ -20,9 +21,12 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   CatalogConfigurationService.class,
   CatalogConfigurationByGroupService.class,
   CatalogConfigurationGroupSyncService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
   CatalogStockTypeSyncService.class,
   AuditService.class
 })
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.AgrupadorEmpresaItem;
 import com.ia.app.domain.CatalogConfigurationType;
@@ -12,6 +13,8 @@ import com.ia.app.domain.CatalogMovementLine;
 import com.ia.app.domain.CatalogMovementMetricType;
 import com.ia.app.domain.CatalogMovementOriginType;
 import com.ia.app.domain.CatalogNumberingMode;
+import com.ia.app.domain.CatalogStockBalance;
+import com.ia.app.domain.CatalogStockConsolidatedBalance;
 import com.ia.app.domain.CatalogStockType;
 import com.ia.app.domain.Empresa;
 import com.ia.app.domain.OfficialUnit;
@@ -20,19 +23,29 @@ import com.ia.app.domain.TenantUnit;
 import com.ia.app.dto.CatalogGroupRequest;
 import com.ia.app.dto.CatalogItemRequest;
 import com.ia.app.dto.CatalogItemResponse;
+import com.ia.app.dto.CatalogStockConsolidatedResponse;
 import com.ia.app.repository.AgrupadorEmpresaItemRepository;
 import com.ia.app.repository.AgrupadorEmpresaRepository;
 import com.ia.app.repository.CatalogMovementLineRepository;
 import com.ia.app.repository.CatalogMovementRepository;
+import com.ia.app.repository.CatalogStockBalanceRepository;
+import com.ia.app.repository.CatalogStockBalanceSnapshotRepository;
+import com.ia.app.repository.CatalogStockConsolidatedBalanceRepository;
 import com.ia.app.repository.CatalogStockTypeRepository;
 import com.ia.app.repository.EmpresaRepository;
 import com.ia.app.repository.OfficialUnitRepository;
 import com.ia.app.repository.TenantUnitRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
 import com.ia.app.tenant.EmpresaContext;
 import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -40,36 +53,57 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+  "spring.jpa.properties.hibernate.generate_statistics=true",
+  "catalog.stock.snapshots.commit-lag-seconds=0"
+})
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
+  SalePriceCacheService.class,
   CatalogConfigurationService.class,
   CatalogConfigurationByGroupService.class,
   CatalogConfigurationGroupSyncService.class,
   CatalogStockTypeSyncService.class,
   CatalogItemContextService.class,
   CatalogStockQueryService.class,
+  CatalogStockSnapshotService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  ScheduledJobLockService.class,
   CatalogItemCodeService.class,
   CatalogItemCrudSupportService.class,
   CatalogPriceRuleService.class,
   CatalogItemPriceService.class,
   PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
   CatalogUnitLockService.class,
   CatalogProductService.class,
   CatalogServiceCrudService.class,
   CatalogGroupService.class,
-  AuditService.class
+  AuditService.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ExportStreamRepositoryImpl.class
 })
 @Transactional(propagation = Propagation.NOT_SUPPORTED)
 class CatalogCrudServiceTest {
@@ -92,15 +126,33 @@ class CatalogCrudServiceTest {
   @Autowired
   private CatalogStockQueryService stockQueryService;
 
+  @Autowired
+  private CatalogStockSnapshotService stockSnapshotService;
+
+  @Autowired
+  private CatalogStockBalanceSnapshotRepository balanceSnapshotRepository;
+
   @Autowired
   private CatalogStockTypeRepository stockTypeRepository;
 
+  @Autowired
+  private CatalogStockBalanceRepository balanceRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
   @Autowired
   private CatalogMovementRepository movementRepository;
 
   @Autowired
   private CatalogMovementLineRepository movementLineRepository;
 
+  @Autowired
+  private CatalogStockConsolidatedBalanceRepository consolidatedBalanceRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   @Autowired
   private AgrupadorEmpresaRepository agrupadorRepository;
 
@@ -337,6 +389,80 @@ class CatalogCrudServiceTest {
     });
   }
 
+  @Test
+  void shouldLoadBalanceViewWithSingleGridQuery() {
+    Long tenantId = 115L;
+    Long empresaId = createEmpresa(tenantId, "11500000000001");
+    var scope = setupCatalogGroupLink(tenantId, empresaId, CatalogConfigurationType.PRODUCTS, "Grupo Grade");
+    UUID tenantUnitId = createTenantUnit(tenantId);
+    TenantContext.setTenantId(tenantId);
+    EmpresaContext.setEmpresaId(empresaId);
+
+    CatalogItemResponse created = productService.create(new CatalogItemRequest(null, "ITEM GRADE", null, null, tenantUnitId, null, null, true));
+    CatalogStockType secondaryStockType = new CatalogStockType();
+    secondaryStockType.setTenantId(tenantId);
+    secondaryStockType.setCatalogConfigurationId(scope.catalogConfigurationId());
+    secondaryStockType.setAgrupadorEmpresaId(scope.agrupadorId());
+    secondaryStockType.setCodigo("RESERVA");
+    secondaryStockType.setNome("Estoque Reserva");
+    secondaryStockType.setOrdem(2);
+    secondaryStockType.setActive(true);
+    stockTypeRepository.saveAndFlush(secondaryStockType);
+    Long geralId = stockTypeRepository
+      .findAllByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaIdAndActiveTrueOrderByOrdemAscNomeAsc(
+        tenantId,
+        scope.catalogConfigurationId(),
+        scope.agrupadorId())
+      .stream()
+      .findFirst()
+      .orElseThrow()
+      .getId();
+    saveBalance(tenantId, created.id(), scope, geralId, empresaId, new BigDecimal("4"));
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "GRADE-ESCROW",
+      null,
+      "AJUSTE",
+      "user-grade",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("1"));
+    movementLineRepository.findAll().stream()
+      .filter(line -> tenantId.equals(line.getTenantId()))
+      .forEach(line -> {
+        line.setEscrowPending(true);
+        movementLineRepository.saveAndFlush(line);
+      });
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    contextService.resolveObrigatorio(CatalogConfigurationType.PRODUCTS);
+    statistics.clear();
+    contextService.resolveObrigatorio(CatalogConfigurationType.PRODUCTS);
+    long contextStatements = statistics.getPrepareStatementCount();
+    statistics.clear();
+
+    var view = stockQueryService.loadBalanceView(CatalogConfigurationType.PRODUCTS, created.id(), null, null, null);
+
+    // Alem do contexto: validacao do item e a consulta da grade.
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(contextStatements + 2);
+    assertThat(view.consolidado())
+      .extracting(row -> row.estoqueTipoCodigo())
+      .containsExactly("GERAL", "RESERVA");
+    assertThat(view.consolidado().get(0).quantidadeTotal()).isEqualByComparingTo("5");
+    assertThat(view.consolidado().get(1).quantidadeTotal()).isEqualByComparingTo("0");
+    assertThat(view.rows()).hasSize(2);
+    assertThat(view.rows().get(0).estoqueTipoCodigo()).isEqualTo("GERAL");
+    assertThat(view.rows().get(0).filialId()).isEqualTo(empresaId);
+    assertThat(view.rows().get(0).filialNome()).isEqualTo("Empresa 11500000000001");
+    assertThat(view.rows().get(0).quantidadeAtual()).isEqualByComparingTo("5");
+    assertThat(view.rows().get(1).estoqueTipoCodigo()).isEqualTo("RESERVA");
+    assertThat(view.rows().get(1).quantidadeAtual()).isEqualByComparingTo("0");
+  }
+
   @Test
   void shouldListGroupedCompaniesInDetailEvenWithoutMovement() {
     Long tenantId = 109L;
@@ -475,6 +601,348 @@ class CatalogCrudServiceTest {
       .containsOnly(CatalogMovementMetricType.QUANTIDADE);
   }
 
+  @Test
+  void shouldResolveBalanceAsOfFromDailySnapshotAndLateLines() {
+    Long tenantId = 113L;
+    Long empresaId = createEmpresa(tenantId, "11300000000001");
+    var scope = setupCatalogGroupLink(tenantId, empresaId, CatalogConfigurationType.PRODUCTS, "Grupo Snapshot");
+    UUID tenantUnitId = createTenantUnit(tenantId);
+    TenantContext.setTenantId(tenantId);
+    EmpresaContext.setEmpresaId(empresaId);
+
+    CatalogItemResponse created = productService.create(new CatalogItemRequest(null, "ITEM SNAPSHOT", null, null, tenantUnitId, null, null, true));
+    java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneOffset.UTC);
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "SNAP-1",
+      null,
+      "AJUSTE",
+      "user-snapshot",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("5"),
+      atUtc(today.minusDays(3), 10));
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "SNAP-2",
+      null,
+      "AJUSTE",
+      "user-snapshot",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("3"),
+      atUtc(today.minusDays(2), 10));
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "SNAP-3",
+      null,
+      "AJUSTE",
+      "user-snapshot",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("-2"),
+      atUtc(today.minusDays(1), 10));
+
+    assertThat(stockSnapshotService.snapshotThrough(today.minusDays(2))).containsExactly(today.minusDays(2));
+    assertThat(balanceSnapshotRepository.findLatestForItem(
+        tenantId, CatalogConfigurationType.PRODUCTS, created.id(), scope.agrupadorId(), null, today.minusDays(2)))
+      .singleElement()
+      .satisfies(snapshot -> assertThat(snapshot.getQuantidade()).isEqualByComparingTo("8"));
+
+    // Lancamento retroativo gravado depois do fechamento precisa entrar no saldo historico.
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "SNAP-LATE",
+      null,
+      "AJUSTE",
+      "user-snapshot",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("10"),
+      atUtc(today.minusDays(3), 12));
+    saveMovementWithLine(
+      tenantId,
+      created.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "SNAP-4",
+      null,
+      "AJUSTE",
+      "user-snapshot",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("1"),
+      java.time.Instant.now().minusSeconds(1));
+
+    assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(2), 12))).isEqualByComparingTo("18");
+    assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(1), 23))).isEqualByComparingTo("16");
+    assertThat(quantidadeAsOf(created.id(), java.time.Instant.now())).isEqualByComparingTo("17");
+
+    assertThat(stockSnapshotService.snapshotThrough(today.minusDays(1))).containsExactly(today.minusDays(1));
+    assertThat(balanceSnapshotRepository.findLatestForItem(
+        tenantId, CatalogConfigurationType.PRODUCTS, created.id(), scope.agrupadorId(), null, today.minusDays(1)))
+      .singleElement()
+      .satisfies(snapshot -> assertThat(snapshot.getQuantidade()).isEqualByComparingTo("16"));
+    assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(1), 23))).isEqualByComparingTo("16");
+    assertThat(quantidadeAsOf(created.id(), java.time.Instant.now())).isEqualByComparingTo("17");
+    assertThatThrownBy(() -> stockSnapshotService.snapshotThrough(today))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("catalog_stock_snapshot_day_open");
+  }
+
+  @Test
+  void shouldCountLowerIdLineCommittedAfterSnapshot() {
+    Long tenantId = 118L;
+    Long empresaId = createEmpresa(tenantId, "11800000000001");
+    var scope = setupCatalogGroupLink(tenantId, empresaId, CatalogConfigurationType.PRODUCTS, "Grupo Corte");
+    UUID tenantUnitId = createTenantUnit(tenantId);
+    TenantContext.setTenantId(tenantId);
+    EmpresaContext.setEmpresaId(empresaId);
+    clearSnapshots();
+    ReflectionTestUtils.setField(stockSnapshotService, "commitLagSeconds", 600L);
+
+    CatalogItemResponse created = productService.create(new CatalogItemRequest(null, "ITEM CORTE", null, null, tenantUnitId, null, null, true));
+    java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneOffset.UTC);
+    java.time.Instant now = java.time.Instant.now();
+    try {
+      saveMovementWithLine(
+        tenantId,
+        created.id(),
+        scope.catalogConfigurationId(),
+        scope.agrupadorId(),
+        empresaId,
+        CatalogMovementOriginType.SYSTEM,
+        "CUT-LOW",
+        null,
+        "AJUSTE",
+        "user-snapshot",
+        CatalogMovementMetricType.QUANTIDADE,
+        new BigDecimal("5"),
+        atUtc(today.minusDays(2), 10));
+      saveMovementWithLine(
+        tenantId,
+        created.id(),
+        scope.catalogConfigurationId(),
+        scope.agrupadorId(),
+        empresaId,
+        CatalogMovementOriginType.SYSTEM,
+        "CUT-HIGH",
+        null,
+        "AJUSTE",
+        "user-snapshot",
+        CatalogMovementMetricType.QUANTIDADE,
+        new BigDecimal("3"),
+        atUtc(today.minusDays(2), 11));
+      Long lowLineId = lineIdOf("CUT-LOW");
+      Long highLineId = lineIdOf("CUT-HIGH");
+      assertThat(lowLineId).isLessThan(highLineId);
+      jdbcTemplate.update(
+        "update catalog_movement_line set created_at = ? where id = ?",
+        java.sql.Timestamp.from(now.minusSeconds(3600)),
+        highLineId);
+
+      // A linha de id menor pertence a uma transacao iniciada antes do fechamento e ainda aberta:
+      // invisivel durante o fechamento, confirmada logo depois.
+      Map<String, Object> lowLine = jdbcTemplate.queryForMap("select * from catalog_movement_line where id = ?", lowLineId);
+      jdbcTemplate.update("delete from catalog_movement_line where id = ?", lowLineId);
+      assertThat(stockSnapshotService.snapshotThrough(today.minusDays(2))).containsExactly(today.minusDays(2));
+      lowLine.put("created_at", java.sql.Timestamp.from(now.minusSeconds(60)));
+      new SimpleJdbcInsert(jdbcTemplate).withTableName("catalog_movement_line").execute(lowLine);
+
+      assertThat(balanceSnapshotRepository.findLatestForItem(
+          tenantId, CatalogConfigurationType.PRODUCTS, created.id(), scope.agrupadorId(), null, today.minusDays(2)))
+        .singleElement()
+        .satisfies(snapshot -> assertThat(snapshot.getQuantidade()).isEqualByComparingTo("3"));
+      assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(2), 12))).isEqualByComparingTo("8");
+
+      // Ainda dentro da folga, a linha fica para depois do proximo fechamento e segue visivel no saldo historico.
+      assertThat(stockSnapshotService.snapshotThrough(today.minusDays(1))).containsExactly(today.minusDays(1));
+      assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(2), 12))).isEqualByComparingTo("8");
+      assertThat(quantidadeAsOf(created.id(), atUtc(today.minusDays(1), 23))).isEqualByComparingTo("8");
+    } finally {
+      ReflectionTestUtils.setField(stockSnapshotService, "commitLagSeconds", 0L);
+      clearSnapshots();
+    }
+  }
+
+  @Test
+  void shouldLoadStockMatrixForPageOfItemsWithPendingEscrow() {
+    Long tenantId = 114L;
+    Long empresaId = createEmpresa(tenantId, "11400000000001");
+    var scope = setupCatalogGroupLink(tenantId, empresaId, CatalogConfigurationType.PRODUCTS, "Grupo Matriz");
+    UUID tenantUnitId = createTenantUnit(tenantId);
+    TenantContext.setTenantId(tenantId);
+    EmpresaContext.setEmpresaId(empresaId);
+
+    CatalogItemResponse first = productService.create(new CatalogItemRequest(null, "ITEM MATRIZ A", null, null, tenantUnitId, null, null, true));
+    CatalogItemResponse second = productService.create(new CatalogItemRequest(null, "ITEM MATRIZ B", null, null, tenantUnitId, null, null, true));
+    CatalogItemResponse empty = productService.create(new CatalogItemRequest(null, "ITEM MATRIZ C", null, null, tenantUnitId, null, null, true));
+    Long estoqueTipoId = stockTypeRepository
+      .findAllByTenantIdAndCatalogConfigurationIdAndAgrupadorEmpresaIdAndActiveTrueOrderByOrdemAscNomeAsc(
+        tenantId,
+        scope.catalogConfigurationId(),
+        scope.agrupadorId())
+      .stream()
+      .findFirst()
+      .orElseThrow()
+      .getId();
+    saveBalance(tenantId, first.id(), scope, estoqueTipoId, empresaId, new BigDecimal("7"));
+    saveBalance(tenantId, second.id(), scope, estoqueTipoId, empresaId, new BigDecimal("2"));
+
+    // Linha em escrow ainda nao dobrada no saldo deve aparecer na matriz.
+    saveMovementWithLine(
+      tenantId,
+      second.id(),
+      scope.catalogConfigurationId(),
+      scope.agrupadorId(),
+      empresaId,
+      CatalogMovementOriginType.SYSTEM,
+      "MATRIZ-ESCROW",
+      null,
+      "AJUSTE",
+      "user-matriz",
+      CatalogMovementMetricType.QUANTIDADE,
+      new BigDecimal("3"));
+    movementLineRepository.findAll().stream()
+      .filter(line -> tenantId.equals(line.getTenantId()))
+      .forEach(line -> {
+        line.setEscrowPending(true);
+        movementLineRepository.saveAndFlush(line);
+      });
+
+    var matrix = stockQueryService.loadStockMatrix(
+      CatalogConfigurationType.PRODUCTS,
+      java.util.List.of(second.id(), first.id(), empty.id()),
+      null,
+      null,
+      null);
+
+    assertThat(matrix.agrupadorEmpresaId()).isEqualTo(scope.agrupadorId());
+    assertThat(matrix.items())
+      .extracting(item -> item.catalogoId())
+      .containsExactly(second.id(), first.id(), empty.id());
+    assertThat(matrix.items().get(0).quantidadeTotal()).isEqualByComparingTo("5");
+    assertThat(matrix.items().get(0).cells())
+      .singleElement()
+      .satisfies(cell -> {
+        assertThat(cell.estoqueTipoId()).isEqualTo(estoqueTipoId);
+        assertThat(cell.filialId()).isEqualTo(empresaId);
+        assertThat(cell.quantidade()).isEqualByComparingTo("5");
+      });
+    assertThat(matrix.items().get(1).quantidadeTotal()).isEqualByComparingTo("7");
+    assertThat(matrix.items().get(2).quantidadeTotal()).isEqualByComparingTo("0");
+    assertThat(matrix.items().get(2).cells()).isEmpty();
+
+    assertThatThrownBy(() -> stockQueryService.loadStockMatrix(
+      CatalogConfigurationType.PRODUCTS,
+      java.util.List.of(),
+      null,
+      null,
+      null))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("catalog_stock_matrix_items_required");
+  }
+
+  @Test
+  void shouldScrollLedgerByCursorWithoutGapsOrRepeats() {
+    Long tenantId = 112L;
+    Long empresaId = createEmpresa(tenantId, "11200000000001");
+    var scope = setupCatalogGroupLink(tenantId, empresaId, CatalogConfigurationType.PRODUCTS, "Grupo Cursor");
+    UUID tenantUnitId = createTenantUnit(tenantId);
+    TenantContext.setTenantId(tenantId);
+    EmpresaContext.setEmpresaId(empresaId);
+
+    CatalogItemResponse created = productService.create(new CatalogItemRequest(null, "ITEM CURSOR", null, null, tenantUnitId, null, null, true));
+    for (int i = 1; i <= 5; i++) {
+      saveMovementWithLine(
+        tenantId,
+        created.id(),
+        scope.catalogConfigurationId(),
+        scope.agrupadorId(),
+        empresaId,
+        CatalogMovementOriginType.SYSTEM,
+        "CUR-" + i,
+        null,
+        "AJUSTE",
+        "user-cursor",
+        CatalogMovementMetricType.QUANTIDADE,
+        new BigDecimal(i));
+    }
+
+    List<Long> expected = movementRepository.findAll().stream()
+      .filter(movement -> tenantId.equals(movement.getTenantId()))
+      .sorted(java.util.Comparator
+        .comparing(CatalogMovement::getDataHoraMovimentacao)
+        .thenComparing(CatalogMovement::getId)
+        .reversed())
+      .map(CatalogMovement::getId)
+      .toList();
+
+    List<Long> scrolled = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    String cursor = null;
+    do {
+      var slice = stockQueryService.loadLedgerByCursor(
+        CatalogConfigurationType.PRODUCTS,
+        created.id(),
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        cursor,
+        2);
+      slice.content().forEach(movement -> scrolled.add(movement.id()));
+      pageSizes.add(slice.content().size());
+      assertThat(slice.hasMore()).isEqualTo(slice.nextCursor() != null);
+      cursor = slice.nextCursor();
+    } while (cursor != null);
+
+    assertThat(pageSizes).containsExactly(2, 2, 1);
+    assertThat(scrolled).containsExactlyElementsOf(expected);
+    assertThatThrownBy(() -> stockQueryService.loadLedgerByCursor(
+      CatalogConfigurationType.PRODUCTS,
+      created.id(),
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      "invalido",
+      2))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("catalog_stock_ledger_cursor_invalid");
+  }
+
   private Long createProductWithSync(
       Long tenantId,
       Long empresaId,
@@ -495,6 +963,66 @@ class CatalogCrudServiceTest {
     }
   }
 
+  private void saveBalance(
+      Long tenantId,
+      Long catalogoId,
+      CatalogItemContextService.CatalogItemScope scope,
+      Long estoqueTipoId,
+      Long filialId,
+      BigDecimal quantidade) {
+    CatalogStockBalance balance = new CatalogStockBalance();
+    balance.setTenantId(tenantId);
+    balance.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    balance.setCatalogoId(catalogoId);
+    balance.setCatalogConfigurationId(scope.catalogConfigurationId());
+    balance.setAgrupadorEmpresaId(scope.agrupadorId());
+    balance.setEstoqueTipoId(estoqueTipoId);
+    balance.setFilialId(filialId);
+    balance.setQuantidadeAtual(quantidade.setScale(6, java.math.RoundingMode.HALF_UP));
+    balance.setPrecoAtual(BigDecimal.ZERO.setScale(6, java.math.RoundingMode.HALF_UP));
+    balanceRepository.saveAndFlush(balance);
+
+    // Como o motor faz: o saldo por filial e o consolidado do tipo andam juntos.
+    CatalogStockConsolidatedBalance consolidated = new CatalogStockConsolidatedBalance();
+    consolidated.setTenantId(tenantId);
+    consolidated.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    consolidated.setCatalogoId(catalogoId);
+    consolidated.setCatalogConfigurationId(scope.catalogConfigurationId());
+    consolidated.setAgrupadorEmpresaId(scope.agrupadorId());
+    consolidated.setEstoqueTipoId(estoqueTipoId);
+    consolidated.setQuantidadeTotal(quantidade.setScale(6, java.math.RoundingMode.HALF_UP));
+    consolidated.setPrecoTotal(BigDecimal.ZERO.setScale(6, java.math.RoundingMode.HALF_UP));
+    consolidated.setUpdatedAt(java.time.Instant.now());
+    consolidatedBalanceRepository.saveAndFlush(consolidated);
+  }
+
+  // Fechamentos sao globais e esta classe nao faz rollback entre testes.
+  private void clearSnapshots() {
+    jdbcTemplate.update("delete from catalog_stock_balance_snapshot");
+    jdbcTemplate.update("delete from catalog_stock_snapshot_run");
+  }
+
+  private Long lineIdOf(String originCode) {
+    return jdbcTemplate.queryForObject("""
+      select l.id
+      from catalog_movement_line l
+      join catalog_movement m on m.id = l.movement_id
+      where m.origem_movimentacao_codigo = ?
+      """, Long.class, originCode);
+  }
+
+  private java.time.Instant atUtc(java.time.LocalDate day, int hour) {
+    return day.atTime(hour, 0).toInstant(java.time.ZoneOffset.UTC);
+  }
+
+  private BigDecimal quantidadeAsOf(Long catalogoId, java.time.Instant asOf) {
+    return stockQueryService.balanceAsOf(CatalogConfigurationType.PRODUCTS, catalogoId, null, null, null, asOf)
+      .consolidado()
+      .stream()
+      .map(CatalogStockConsolidatedResponse::quantidadeTotal)
+      .reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
   private void saveMovementWithLine(
       Long tenantId,
       Long catalogItemId,
@@ -508,6 +1036,36 @@ class CatalogCrudServiceTest {
       String username,
       CatalogMovementMetricType metricType,
       BigDecimal delta) {
+    saveMovementWithLine(
+      tenantId,
+      catalogItemId,
+      catalogConfigurationId,
+      agrupadorId,
+      filialId,
+      originType,
+      originCode,
+      originId,
+      movimentoTipo,
+      username,
+      metricType,
+      delta,
+      java.time.Instant.now());
+  }
+
+  private void saveMovementWithLine(
+      Long tenantId,
+      Long catalogItemId,
+      Long catalogConfigurationId,
+      Long agrupadorId,
+      Long filialId,
+      CatalogMovementOriginType originType,
+      String originCode,
+      Long originId,
+      String movimentoTipo,
+      String username,
+      CatalogMovementMetricType metricType,
+      BigDecimal delta,
+      java.time.Instant dataHoraMovimentacao) {
     SecurityContextHolder.getContext().setAuthentication(
       new UsernamePasswordAuthenticationToken(username, "n/a", java.util.List.of()));
     try {
@@ -523,7 +1081,7 @@ class CatalogCrudServiceTest {
       movement.setMovimentoTipo(movimentoTipo);
       movement.setOrigemMovimentoItemCodigo("ITEM:" + catalogItemId);
       movement.setIdempotencyKey("test-ledger:" + originCode + ":" + metricType);
-      movement.setDataHoraMovimentacao(java.time.Instant.now());
+      movement.setDataHoraMovimentacao(dataHoraMovimentacao);
       movement = movementRepository.saveAndFlush(movement);
 
       CatalogMovementLine line = new CatalogMovementLine();
@@ -544,6 +1102,7 @@ class CatalogCrudServiceTest {
       line.setBeforeValue(BigDecimal.ZERO.setScale(6, java.math.RoundingMode.HALF_UP));
       line.setDelta(delta.setScale(6, java.math.RoundingMode.HALF_UP));
       line.setAfterValue(delta.setScale(6, java.math.RoundingMode.HALF_UP));
+      line.setDataHoraMovimentacao(movement.getDataHoraMovimentacao());
       movementLineRepository.saveAndFlush(line);
     } finally {
       SecurityContextHolder.clearContext();
@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.CatalogConfiguration;
 import com.ia.app.domain.CatalogConfigurationType;
@@ -22,6 +23,7 @@ import com.ia.app.repository.CatalogStockTypeRepository;
 import com.ia.app.repository.EmpresaRepository;
 import com.ia.app.repository.MovimentoConfigRepository;
 import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
 import java.math.BigDecimal;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -32,8 +34,12 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   AuditService.class,
+  CacheInvalidationNotifier.class,
   CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
   CatalogMovementEngine.class,
   CatalogGroupTransferService.class
 })
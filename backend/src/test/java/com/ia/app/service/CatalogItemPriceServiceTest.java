@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.CatalogConfigurationByGroup;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogPriceRuleByGroup;
@@ -12,14 +13,22 @@ import com.ia.app.domain.PriceChangeSourceType;
 import com.ia.app.domain.PriceAdjustmentKind;
 import com.ia.app.domain.PriceBaseMode;
 import com.ia.app.domain.PriceUiLockMode;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.ResolvedSalePrice;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.domain.SalePriceSource;
 import com.ia.app.dto.CatalogItemPriceInput;
 import com.ia.app.dto.CatalogItemPriceResponse;
 import com.ia.app.repository.CatalogConfigurationByGroupRepository;
 import com.ia.app.repository.CatalogItemPriceRepository;
 import com.ia.app.repository.CatalogPriceRuleByGroupRepository;
+import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -29,8 +38,15 @@ import org.springframework.transaction.annotation.Transactional;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
+  SalePriceCacheService.class,
   CatalogPriceRuleService.class,
   PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
   CatalogItemPriceService.class,
   CatalogConfigurationService.class,
   CatalogConfigurationGroupSyncService.class,
@@ -42,6 +58,9 @@ class CatalogItemPriceServiceTest {
   @Autowired
   private CatalogItemPriceService itemPriceService;
 
+  @Autowired
+  private CatalogPriceRuleService ruleService;
+
   @Autowired
   private CatalogPriceRuleByGroupRepository ruleRepository;
 
@@ -54,6 +73,15 @@ class CatalogItemPriceServiceTest {
   @Autowired
   private PriceChangeLogRepository priceChangeLogRepository;
 
+  @Autowired
+  private PriceBookRepository priceBookRepository;
+
+  @Autowired
+  private SalePriceRepository salePriceRepository;
+
+  @Autowired
+  private ResolvedSalePriceService resolvedSalePriceService;
+
   @Test
   void shouldSyncAdjustmentWhenModeThreeUsesLastEditedPrice() {
     Long tenantId = 601L;
@@ -308,6 +336,81 @@ class CatalogItemPriceServiceTest {
       .isIn(PriceChangeAction.UPDATE, PriceChangeAction.CREATE);
   }
 
+  @Test
+  void shouldRefreshMaterializedCatalogBaseWhenSaleBaseChanges() {
+    Long tenantId = 607L;
+    Long byGroupId = createByGroup(tenantId, 1007L, 507L);
+    seedRulesForModeFour(tenantId, byGroupId);
+    itemPriceService.upsertForItem(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      84001L,
+      byGroupId,
+      List.of(new CatalogItemPriceInput(CatalogPriceType.PURCHASE, new BigDecimal("100.000000"), null, null, null)));
+
+    PriceBook book = new PriceBook();
+    book.setTenantId(tenantId);
+    book.setName("Padrao");
+    book.setActive(true);
+    book.setDefaultBook(true);
+    book = priceBookRepository.save(book);
+    SalePrice unitOnly = new SalePrice();
+    unitOnly.setTenantId(tenantId);
+    unitOnly.setPriceBookId(book.getId());
+    unitOnly.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    unitOnly.setCatalogItemId(84001L);
+    unitOnly.setTenantUnitId(UUID.randomUUID());
+    unitOnly.setPriceFinal(new BigDecimal("50.000000"));
+    salePriceRepository.save(unitOnly);
+    resolvedSalePriceService.refreshItems(tenantId, book.getId(), CatalogConfigurationType.PRODUCTS, List.of(84001L));
+
+    List<CatalogItemPriceResponse> changed = itemPriceService.upsertForItem(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      84001L,
+      byGroupId,
+      List.of(new CatalogItemPriceInput(CatalogPriceType.PURCHASE, new BigDecimal("110.000000"), null, null, null)));
+
+    ResolvedSalePrice anyUnit = resolvedSalePriceService
+      .find(tenantId, book.getId(), null, CatalogConfigurationType.PRODUCTS, 84001L, null)
+      .orElseThrow();
+    assertThat(anyUnit.getSource()).isEqualTo(SalePriceSource.CATALOG_BASE);
+    assertThat(anyUnit.getPriceFinal()).isEqualByComparingTo(find(changed, CatalogPriceType.SALE_BASE).priceFinal());
+    assertThat(resolvedSalePriceService
+      .find(tenantId, book.getId(), null, CatalogConfigurationType.PRODUCTS, 84001L, unitOnly.getTenantUnitId())
+      .orElseThrow()
+      .getPriceFinal()).isEqualByComparingTo("50.000000");
+  }
+
+  @Test
+  void shouldReuseCompiledEvaluatorUntilGroupRulesChange() {
+    Long tenantId = 608L;
+    Long byGroupId = createByGroup(tenantId, 1008L, 508L);
+    seedRulesForModeFour(tenantId, byGroupId);
+
+    CatalogPriceRuleEvaluator first = ruleService.evaluator(tenantId, byGroupId);
+    assertThat(ruleService.evaluator(tenantId, byGroupId)).isSameAs(first);
+
+    CatalogPriceRuleByGroup saleRule = ruleRepository
+      .findAllByTenantIdAndCatalogConfigurationByGroupIdAndActiveTrueOrderByPriceTypeAsc(tenantId, byGroupId)
+      .stream()
+      .filter(row -> row.getPriceType() == CatalogPriceType.SALE_BASE)
+      .findFirst()
+      .orElseThrow();
+    saleRule.setAdjustmentKindDefault(PriceAdjustmentKind.PERCENT);
+    saleRule.setAdjustmentDefault(new BigDecimal("10.000000"));
+    ruleRepository.save(saleRule);
+
+    assertThat(ruleService.evaluator(tenantId, byGroupId)).isNotSameAs(first);
+    List<CatalogItemPriceResponse> prices = itemPriceService.previewForItem(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      null,
+      byGroupId,
+      List.of(new CatalogItemPriceInput(CatalogPriceType.PURCHASE, new BigDecimal("100.000000"), null, null, null)));
+    assertThat(find(prices, CatalogPriceType.SALE_BASE).priceFinal()).isEqualByComparingTo("115.500000");
+  }
+
   private Long createByGroup(Long tenantId, Long configId, Long agrupadorId) {
     CatalogConfigurationByGroup row = new CatalogConfigurationByGroup();
     row.setTenantId(tenantId);
@@ -0,0 +1,8 @@
+package com.ia.app.service;
+
+import com.ia.app.PostgresTest;
+
+// Delta atomico em um unico update ... returning, sem lock previo da linha de saldo.
+@PostgresTest
+class CatalogMovementEngineAtomicDeltaModePostgresTest extends CatalogMovementEngineAtomicDeltaModeTest {
+}
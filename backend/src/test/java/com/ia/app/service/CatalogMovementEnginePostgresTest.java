@@ -0,0 +1,8 @@
+package com.ia.app.service;
+
+import com.ia.app.PostgresTest;
+
+// Insercao idempotente do cabecalho (on conflict do nothing) e delta atomico (update ... returning) no Postgres.
+@PostgresTest
+class CatalogMovementEnginePostgresTest extends CatalogMovementEngineTest {
+}
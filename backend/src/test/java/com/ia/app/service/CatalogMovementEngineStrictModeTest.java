@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.CatalogConfiguration;
 import com.ia.app.domain.CatalogConfigurationType;
@@ -21,6 +22,7 @@ import com.ia.app.repository.CatalogStockBalanceRepository;
 import com.ia.app.repository.EmpresaRepository;
 import com.ia.app.repository.MovimentoConfigRepository;
 import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
 import java.math.BigDecimal;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -36,7 +38,11 @@ import org.springframework.test.context.TestPropertySource;
 })
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
   CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
   CatalogMovementEngine.class
 })
 class CatalogMovementEngineStrictModeTest {
@@ -109,6 +115,7 @@ class CatalogMovementEngineStrictModeTest {
     assertThatThrownBy(() -> engine.apply(command))
       .isInstanceOf(IllegalArgumentException.class)
       .hasMessageContaining("movimento_config_nao_encontrada");
+    assertThat(movementRepository.findByTenantIdAndIdempotencyKey(tenantId, "idem-engine-strict-701")).isEmpty();
   }
 
   @Test
@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.CatalogConfiguration;
 import com.ia.app.domain.CatalogConfigurationType;
@@ -13,18 +14,29 @@ import com.ia.app.domain.ConversionFactorSource;
 import com.ia.app.domain.Empresa;
 import com.ia.app.domain.MovimentoConfig;
 import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.domain.OfficialUnit;
+import com.ia.app.domain.OfficialUnitOrigin;
+import com.ia.app.domain.TenantUnit;
 import com.ia.app.domain.TipoEntidade;
 import com.ia.app.repository.AgrupadorEmpresaRepository;
 import com.ia.app.repository.CatalogConfigurationRepository;
 import com.ia.app.repository.CatalogMovementLineRepository;
 import com.ia.app.repository.CatalogMovementRepository;
 import com.ia.app.repository.CatalogStockBalanceRepository;
+import com.ia.app.repository.CatalogStockConsolidatedBalanceRepository;
+import com.ia.app.repository.CatalogStockWriteRepository;
 import com.ia.app.repository.EmpresaRepository;
 import com.ia.app.repository.CatalogItemPriceRepository;
 import com.ia.app.repository.MovimentoConfigRepository;
+import com.ia.app.repository.OfficialUnitRepository;
 import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.TenantUnitRepository;
 import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
@@ -35,7 +47,11 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
   CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
   CatalogMovementEngine.class
 })
 class CatalogMovementEngineTest {
@@ -58,6 +74,12 @@ class CatalogMovementEngineTest {
   @Autowired
   private CatalogStockBalanceRepository balanceRepository;
 
+  @Autowired
+  private CatalogStockConsolidatedBalanceRepository consolidatedBalanceRepository;
+
+  @Autowired
+  private CatalogStockWriteRepository stockWriteRepository;
+
   @Autowired
   private CatalogMovementRepository movementRepository;
 
@@ -76,6 +98,12 @@ class CatalogMovementEngineTest {
   @Autowired
   private CatalogItemPriceRepository catalogItemPriceRepository;
 
+  @Autowired
+  private OfficialUnitRepository officialUnitRepository;
+
+  @Autowired
+  private TenantUnitRepository tenantUnitRepository;
+
   @Test
   void shouldBeIdempotentForSameMovementCommand() {
     Long tenantId = 401L;
@@ -145,8 +173,8 @@ class CatalogMovementEngineTest {
     CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
     createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
 
-    UUID unidadeInformada = UUID.randomUUID();
-    UUID unidadeBase = UUID.randomUUID();
+    UUID unidadeInformada = createTenantUnit(tenantId, "CX");
+    UUID unidadeBase = createTenantUnit(tenantId, "UN");
     BigDecimal quantidadeInformada = new BigDecimal("2.500000");
     BigDecimal quantidadeConvertidaBase = new BigDecimal("2500.000000");
     BigDecimal fatorAplicado = new BigDecimal("1000.000000000000");
@@ -241,6 +269,165 @@ class CatalogMovementEngineTest {
     assertThat(catalogItemPriceRepository.count()).isEqualTo(catalogItemPriceBefore);
   }
 
+  @Test
+  void shouldApplyBatchKeepingIdempotencyAndChainingBalances() {
+    Long tenantId = 404L;
+    CatalogConfiguration config = createCatalogConfig(tenantId, CatalogConfigurationType.PRODUCTS);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId(), "Grupo Lote");
+    Empresa filial = createEmpresa(tenantId, "40400000000001");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
+
+    CatalogMovementEngine.Result previous = engine.apply(
+      batchCommand(tenantId, config, agrupador, stockType, filial, 4001L, "idem-batch-0", "2.000000"));
+
+    CatalogMovementEngine.Command first = batchCommand(tenantId, config, agrupador, stockType, filial, 4001L, "idem-batch-1", "3.000000");
+    List<CatalogMovementEngine.Result> results = engine.applyBatch(List.of(
+      batchCommand(tenantId, config, agrupador, stockType, filial, 4001L, "idem-batch-0", "2.000000"),
+      first,
+      batchCommand(tenantId, config, agrupador, stockType, filial, 4002L, "idem-batch-2", "7.000000"),
+      batchCommand(tenantId, config, agrupador, stockType, filial, 4001L, "idem-batch-3", "-1.000000"),
+      first));
+
+    assertThat(results).hasSize(5);
+    assertThat(results.get(0).movementId()).isEqualTo(previous.movementId());
+    assertThat(results.get(0).reused()).isTrue();
+    assertThat(results.get(1).reused()).isFalse();
+    assertThat(results.get(2).reused()).isFalse();
+    assertThat(results.get(3).reused()).isFalse();
+    assertThat(results.get(4).reused()).isTrue();
+    assertThat(results.get(4).movementId()).isEqualTo(results.get(1).movementId());
+
+    var itemBalances = balanceRepository.listByFilters(
+      tenantId, CatalogConfigurationType.PRODUCTS, 4001L, agrupador.getId(), null, filial.getId());
+    assertThat(itemBalances).hasSize(1);
+    assertThat(itemBalances.get(0).getQuantidadeAtual()).isEqualByComparingTo("4.000000");
+
+    var newItemBalances = balanceRepository.listByFilters(
+      tenantId, CatalogConfigurationType.PRODUCTS, 4002L, agrupador.getId(), null, filial.getId());
+    assertThat(newItemBalances).hasSize(1);
+    assertThat(newItemBalances.get(0).getQuantidadeAtual()).isEqualByComparingTo("7.000000");
+
+    var lastLines = lineRepository.findAllByTenantIdAndMovementIdOrderByIdAsc(tenantId, results.get(3).movementId());
+    assertThat(lastLines).hasSize(1);
+    assertThat(lastLines.get(0).getBeforeValue()).isEqualByComparingTo("5.000000");
+    assertThat(lastLines.get(0).getAfterValue()).isEqualByComparingTo("4.000000");
+    assertThat(movementRepository.count()).isEqualTo(4);
+    assertThat(lineRepository.count()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldKeepConsolidatedBalanceInStepWithFilialBalancesAndRebuild() {
+    Long tenantId = 405L;
+    CatalogConfiguration config = createCatalogConfig(tenantId, CatalogConfigurationType.PRODUCTS);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId(), "Grupo Consolidado");
+    Empresa filialA = createEmpresa(tenantId, "40500000000001");
+    Empresa filialB = createEmpresa(tenantId, "40500000000002");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filialA.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filialB.getId());
+
+    engine.apply(batchCommand(tenantId, config, agrupador, stockType, filialA, 4051L, "idem-consolidado-1", "3.000000"));
+    engine.applyBatch(List.of(
+      batchCommand(tenantId, config, agrupador, stockType, filialB, 4051L, "idem-consolidado-2", "2.000000"),
+      batchCommand(tenantId, config, agrupador, stockType, filialA, 4051L, "idem-consolidado-3", "-1.000000")));
+
+    var consolidated = consolidatedBalanceRepository.listByItem(
+      tenantId, CatalogConfigurationType.PRODUCTS, 4051L, agrupador.getId(), null);
+    assertThat(consolidated).singleElement().satisfies(row -> {
+      assertThat(row.getEstoqueTipoId()).isEqualTo(stockType.getId());
+      assertThat(row.getQuantidadeTotal()).isEqualByComparingTo("4.000000");
+    });
+
+    consolidatedBalanceRepository.findAll().forEach(row -> row.setQuantidadeTotal(new BigDecimal("99.000000")));
+    consolidatedBalanceRepository.flush();
+    balanceRepository.flush();
+
+    assertThat(stockWriteRepository.rebuildConsolidatedBalances(tenantId, CatalogConfigurationType.PRODUCTS)).isEqualTo(1);
+    assertThat(consolidatedBalanceRepository.listByItem(
+        tenantId, CatalogConfigurationType.PRODUCTS, 4051L, agrupador.getId(), stockType.getId()))
+      .singleElement()
+      .satisfies(row -> assertThat(row.getQuantidadeTotal()).isEqualByComparingTo("4.000000"));
+  }
+
+  @Test
+  void shouldSumLedgerLinesAgainstDatabaseLineCutoff() {
+    Long tenantId = 406L;
+    CatalogConfiguration config = createCatalogConfig(tenantId, CatalogConfigurationType.PRODUCTS);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId(), "Grupo Corte");
+    Empresa filial = createEmpresa(tenantId, "40600000000001");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
+
+    engine.apply(batchCommand(tenantId, config, agrupador, stockType, filial, 4061L, "idem-corte-1", "3.000000"));
+    Instant lineCutoff = stockWriteRepository.lineCutoff(0);
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    Instant start = CatalogStockSnapshotService.LEDGER_START;
+
+    assertThat(lineRepository.sumSnapshotDeltas(CatalogStockSnapshotService.dayEnd(today), lineCutoff, start, start))
+      .filteredOn(row -> tenantId.equals(row.getTenantId()))
+      .singleElement()
+      .satisfies(row -> {
+        assertThat(row.getCatalogType()).isEqualTo(CatalogConfigurationType.PRODUCTS);
+        assertThat(row.getCatalogoId()).isEqualTo(4061L);
+        assertThat(row.getMetricType()).isEqualTo(CatalogMovementMetricType.QUANTIDADE);
+        assertThat(row.getDeltaTotal()).isEqualByComparingTo("3.000000");
+      });
+    assertThat(lineRepository.sumSnapshotDeltas(CatalogStockSnapshotService.dayEnd(today), start, start, start))
+      .noneMatch(row -> tenantId.equals(row.getTenantId()));
+
+    // Linha de um dia ja fechado: so entra se foi gravada depois do corte daquele fechamento.
+    assertThat(lineRepository.sumDeltasSinceSnapshot(
+        tenantId, "PRODUCTS", 4061L, agrupador.getId(), null, Instant.now().plusSeconds(60),
+        CatalogStockSnapshotService.dayEnd(today), start))
+      .singleElement()
+      .satisfies(row -> assertThat(row.getDeltaTotal()).isEqualByComparingTo("3.000000"));
+    assertThat(lineRepository.sumDeltasSinceSnapshot(
+        tenantId, "PRODUCTS", 4061L, agrupador.getId(), null, Instant.now().plusSeconds(60),
+        CatalogStockSnapshotService.dayEnd(today), lineCutoff))
+      .isEmpty();
+  }
+
+  private CatalogMovementEngine.Command batchCommand(
+      Long tenantId,
+      CatalogConfiguration config,
+      AgrupadorEmpresa agrupador,
+      CatalogStockType stockType,
+      Empresa filial,
+      Long catalogoId,
+      String idempotencyKey,
+      String delta) {
+    return new CatalogMovementEngine.Command(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      catalogoId,
+      config.getId(),
+      agrupador.getId(),
+      CatalogMovementOriginType.SYSTEM,
+      "BATCH",
+      null,
+      null,
+      "ITEM:" + catalogoId,
+      null,
+      null,
+      null,
+      null,
+      idempotencyKey,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(new CatalogMovementEngine.Impact(
+        agrupador.getId(),
+        CatalogMovementMetricType.QUANTIDADE,
+        stockType.getId(),
+        filial.getId(),
+        new BigDecimal(delta))));
+  }
+
   private CatalogConfiguration createCatalogConfig(Long tenantId, CatalogConfigurationType type) {
     CatalogConfiguration config = new CatalogConfiguration();
     config.setTenantId(tenantId);
@@ -262,7 +449,7 @@ class CatalogMovementEngineTest {
   private Empresa createEmpresa(Long tenantId, String cnpj) {
     Empresa empresa = new Empresa();
     empresa.setTenantId(tenantId);
-    empresa.setTipo(Empresa.TIPO_FILIAL);
+    empresa.setTipo(Empresa.TIPO_MATRIZ);
     empresa.setRazaoSocial("Filial " + cnpj);
     empresa.setNomeFantasia("Filial " + cnpj);
     empresa.setCnpj(cnpj);
@@ -270,11 +457,30 @@ class CatalogMovementEngineTest {
     return empresaRepository.save(empresa);
   }
 
+  private UUID createTenantUnit(Long tenantId, String sigla) {
+    OfficialUnit officialUnit = officialUnitRepository.findByCodigoOficialIgnoreCase(sigla)
+      .orElseGet(() -> {
+        OfficialUnit unit = new OfficialUnit();
+        unit.setCodigoOficial(sigla);
+        unit.setDescricao(sigla);
+        unit.setAtivo(true);
+        unit.setOrigem(OfficialUnitOrigin.MANUAL);
+        return officialUnitRepository.saveAndFlush(unit);
+      });
+    TenantUnit unit = new TenantUnit();
+    unit.setTenantId(tenantId);
+    unit.setUnidadeOficialId(officialUnit.getId());
+    unit.setSigla(sigla);
+    unit.setNome(sigla);
+    return tenantUnitRepository.saveAndFlush(unit).getId();
+  }
+
   private void createMovimentoConfigEstoqueGlobal(Long tenantId, Long empresaId) {
     TipoEntidade tipoEntidade = new TipoEntidade();
     tipoEntidade.setTenantId(tenantId);
     tipoEntidade.setNome("Cliente Engine " + empresaId);
     tipoEntidade.setTipoPadrao(true);
+    tipoEntidade.setCodigoSeed("CLIENTE_" + empresaId);
     tipoEntidade.setAtivo(true);
     tipoEntidade = tipoEntidadeRepository.saveAndFlush(tipoEntidade);
 
@@ -0,0 +1,94 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ia.app.repository.CatalogMovementPartitionRepository;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogMovementPartitionMaintenanceServiceTest {
+
+  @Mock
+  private CatalogMovementPartitionRepository partitionRepository;
+
+  @Mock
+  private ScheduledJobLockService jobLockService;
+
+  @Mock
+  private PlatformTransactionManager txManager;
+
+  private CatalogMovementPartitionMaintenanceService service;
+
+  @BeforeEach
+  void setup() {
+    service = new CatalogMovementPartitionMaintenanceService(partitionRepository, jobLockService, txManager);
+    ReflectionTestUtils.setField(service, "monthsAhead", 2);
+    ReflectionTestUtils.setField(service, "idempotencyWindowMonths", 6);
+  }
+
+  @Test
+  void shouldCreateMissingPartitionsForCurrentAndFutureMonths() {
+    YearMonth current = YearMonth.now(Clock.systemUTC());
+    when(partitionRepository.isPartitioned()).thenReturn(true);
+    when(partitionRepository.createMonthlyPartitions(current)).thenReturn(false);
+    when(partitionRepository.createMonthlyPartitions(current.plusMonths(1))).thenReturn(true);
+    when(partitionRepository.createMonthlyPartitions(current.plusMonths(2))).thenReturn(true);
+
+    assertThat(service.ensureFuturePartitions())
+      .containsExactly(current.plusMonths(1), current.plusMonths(2));
+  }
+
+  @Test
+  void shouldDetachOnlyPartitionsOlderThanRetention() {
+    YearMonth current = YearMonth.now(Clock.systemUTC());
+    when(partitionRepository.isPartitioned()).thenReturn(true);
+    when(partitionRepository.findMonthlyPartitions()).thenReturn(List.of(
+      current.minusMonths(14),
+      current.minusMonths(13),
+      current.minusMonths(12),
+      current));
+
+    assertThat(service.detachOlderThan(12))
+      .containsExactly(current.minusMonths(14), current.minusMonths(13));
+    verify(partitionRepository, never()).detachMonthlyPartitions(current.minusMonths(12));
+  }
+
+  @Test
+  void shouldSkipMaintenanceWhenTablesAreNotPartitioned() {
+    when(partitionRepository.isPartitioned()).thenReturn(false);
+
+    assertThat(service.ensureFuturePartitions()).isEmpty();
+    assertThat(service.detachOlderThan(6)).isEmpty();
+    verify(partitionRepository, never()).createMonthlyPartitions(any());
+    verify(partitionRepository, never()).findMonthlyPartitions();
+  }
+
+  @Test
+  void shouldRejectNonPositiveRetention() {
+    assertThatThrownBy(() -> service.detachOlderThan(0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("catalog_movement_partition_retention_invalid");
+  }
+
+  @Test
+  void shouldRejectRetentionShorterThanIdempotencyWindow() {
+    assertThatThrownBy(() -> service.detachOlderThan(5))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("catalog_movement_partition_retention_below_idempotency_window");
+    verify(partitionRepository, never()).detachMonthlyPartitions(any());
+  }
+}
@@ -0,0 +1,228 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.PostgresTest;
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.AgrupadorEmpresa;
+import com.ia.app.domain.CatalogConfiguration;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.CatalogStockType;
+import com.ia.app.domain.Empresa;
+import com.ia.app.domain.MovimentoConfig;
+import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.domain.TipoEntidade;
+import com.ia.app.repository.AgrupadorEmpresaRepository;
+import com.ia.app.repository.CatalogConfigurationRepository;
+import com.ia.app.repository.CatalogMovementPartitionRepository;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoConfigRepository;
+import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogMovementPartitionRepositoryImpl;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Particoes criadas pela V25 e pela manutencao mensal, incluindo o mes que ja tem linhas na DEFAULT.
+@PostgresTest
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
+  CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  CatalogMovementPartitionRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
+  CatalogMovementEngine.class
+})
+class CatalogMovementPartitionRepositoryPostgresTest {
+
+  @Autowired
+  private CatalogMovementPartitionRepository partitionRepository;
+
+  @Autowired
+  private CatalogMovementEngine engine;
+
+  @Autowired
+  private CatalogStockTypeSyncService stockTypeSyncService;
+
+  @Autowired
+  private CatalogConfigurationRepository configurationRepository;
+
+  @Autowired
+  private AgrupadorEmpresaRepository agrupadorRepository;
+
+  @Autowired
+  private EmpresaRepository empresaRepository;
+
+  @Autowired
+  private MovimentoConfigRepository movimentoConfigRepository;
+
+  @Autowired
+  private TipoEntidadeRepository tipoEntidadeRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldPartitionLedgerTablesByMonthAfterMigrations() {
+    YearMonth current = YearMonth.now(Clock.systemUTC());
+
+    assertThat(partitionRepository.isPartitioned()).isTrue();
+    assertThat(partitionRepository.findMonthlyPartitions()).contains(current, current.plusMonths(1));
+    assertThat(jdbcTemplate.queryForList(
+      "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid"
+        + " join pg_class p on p.oid = i.inhparent where p.relname = 'catalog_movement_line'",
+      String.class))
+      .contains("catalog_movement_line_" + current.toString().replace("-", ""), "catalog_movement_line_default");
+  }
+
+  @Test
+  void shouldMoveDefaultPartitionRowsIntoNewMonthlyPartition() {
+    Long tenantId = 481L;
+    YearMonth month = YearMonth.now(Clock.systemUTC()).plusMonths(8);
+    String suffix = month.toString().replace("-", "");
+    CatalogConfiguration config = createCatalogConfig(tenantId);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId());
+    Empresa filial = createEmpresa(tenantId, "48100000000001");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
+    CatalogMovementEngine.Command command = command(
+      tenantId, config, agrupador, filial, stockType, month.atDay(15).atTime(12, 0).toInstant(ZoneOffset.UTC));
+
+    Long movementId = engine.apply(command).movementId();
+
+    assertThat(partitionRepository.findMonthlyPartitions()).doesNotContain(month);
+    assertThat(partitionOf("catalog_movement", "id", movementId)).isEqualTo("catalog_movement_default");
+    assertThat(partitionOf("catalog_movement_line", "movement_id", movementId)).isEqualTo("catalog_movement_line_default");
+
+    assertThat(partitionRepository.createMonthlyPartitions(month)).isTrue();
+    assertThat(partitionRepository.createMonthlyPartitions(month)).isFalse();
+
+    assertThat(partitionRepository.findMonthlyPartitions()).contains(month);
+    assertThat(partitionOf("catalog_movement", "id", movementId)).isEqualTo("catalog_movement_" + suffix);
+    assertThat(partitionOf("catalog_movement_line", "movement_id", movementId))
+      .isEqualTo("catalog_movement_line_" + suffix);
+    assertThat(jdbcTemplate.queryForObject(
+      "select count(*) from catalog_movement_line where movement_id = ?", Long.class, movementId)).isEqualTo(1L);
+    assertThat(jdbcTemplate.queryForObject(
+      "select movement_id from catalog_movement_idempotency where tenant_id = ? and idempotency_key = ?",
+      Long.class,
+      tenantId,
+      command.idempotencyKey())).isEqualTo(movementId);
+
+    CatalogMovementEngine.Result retry = engine.apply(command);
+    assertThat(retry.reused()).isTrue();
+    assertThat(retry.movementId()).isEqualTo(movementId);
+  }
+
+  private String partitionOf(String table, String column, Long id) {
+    List<String> partitions = jdbcTemplate.queryForList(
+      "select distinct tableoid::regclass::text from " + table + " where " + column + " = ?", String.class, id);
+    assertThat(partitions).hasSize(1);
+    return partitions.get(0);
+  }
+
+  private CatalogMovementEngine.Command command(
+      Long tenantId,
+      CatalogConfiguration config,
+      AgrupadorEmpresa agrupador,
+      Empresa filial,
+      CatalogStockType stockType,
+      Instant dataHoraMovimentacao) {
+    return new CatalogMovementEngine.Command(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      4801L,
+      config.getId(),
+      agrupador.getId(),
+      CatalogMovementOriginType.SYSTEM,
+      "SEED",
+      null,
+      null,
+      "ITEM:4801",
+      null,
+      null,
+      null,
+      "Movimento em mes sem particao",
+      "idem-partition-481",
+      dataHoraMovimentacao,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(new CatalogMovementEngine.Impact(
+        agrupador.getId(),
+        CatalogMovementMetricType.QUANTIDADE,
+        stockType.getId(),
+        filial.getId(),
+        new BigDecimal("3.000000"))));
+  }
+
+  private CatalogConfiguration createCatalogConfig(Long tenantId) {
+    CatalogConfiguration config = new CatalogConfiguration();
+    config.setTenantId(tenantId);
+    config.setType(CatalogConfigurationType.PRODUCTS);
+    config.setActive(true);
+    return configurationRepository.save(config);
+  }
+
+  private AgrupadorEmpresa createCatalogGroup(Long tenantId, Long configId) {
+    AgrupadorEmpresa group = new AgrupadorEmpresa();
+    group.setTenantId(tenantId);
+    group.setConfigType(ConfiguracaoScopeService.TYPE_CATALOGO);
+    group.setConfigId(configId);
+    group.setNome("Grupo Particao");
+    group.setAtivo(true);
+    return agrupadorRepository.save(group);
+  }
+
+  private Empresa createEmpresa(Long tenantId, String cnpj) {
+    Empresa empresa = new Empresa();
+    empresa.setTenantId(tenantId);
+    empresa.setTipo(Empresa.TIPO_MATRIZ);
+    empresa.setRazaoSocial("Matriz " + cnpj);
+    empresa.setNomeFantasia("Matriz " + cnpj);
+    empresa.setCnpj(cnpj);
+    empresa.setAtivo(true);
+    return empresaRepository.save(empresa);
+  }
+
+  private void createMovimentoConfigEstoqueGlobal(Long tenantId, Long empresaId) {
+    TipoEntidade tipoEntidade = new TipoEntidade();
+    tipoEntidade.setTenantId(tenantId);
+    tipoEntidade.setNome("Cliente Particao " + empresaId);
+    tipoEntidade.setTipoPadrao(true);
+    tipoEntidade.setCodigoSeed("CLIENTE_" + empresaId);
+    tipoEntidade.setAtivo(true);
+    tipoEntidade = tipoEntidadeRepository.saveAndFlush(tipoEntidade);
+
+    MovimentoConfig config = new MovimentoConfig();
+    config.setTenantId(tenantId);
+    config.setTipoMovimento(MovimentoTipo.MOVIMENTO_ESTOQUE);
+    config.setNome("Config Estoque Particao " + empresaId);
+    config.setDescricao("Configuracao para teste de particao");
+    config.setPrioridade(100);
+    config.setContextoKey(null);
+    config.setTipoEntidadePadraoId(tipoEntidade.getId());
+    config.setAtivo(true);
+    config.replaceEmpresas(List.of(empresaId));
+    config.replaceTiposEntidadePermitidos(List.of(tipoEntidade.getId()));
+    movimentoConfigRepository.saveAndFlush(config);
+  }
+}
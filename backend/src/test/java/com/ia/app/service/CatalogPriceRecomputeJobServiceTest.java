@@ -0,0 +1,275 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationByGroup;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogPriceRecomputeJob;
+import com.ia.app.domain.CatalogPriceRuleByGroup;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.CatalogProduct;
+import com.ia.app.domain.PriceAdjustmentKind;
+import com.ia.app.domain.PriceBaseMode;
+import com.ia.app.domain.PriceUiLockMode;
+import com.ia.app.dto.CatalogItemPriceInput;
+import com.ia.app.dto.CatalogPriceRecomputeJobResponse;
+import com.ia.app.repository.CatalogConfigurationByGroupRepository;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.CatalogPriceRecomputeJobRepository;
+import com.ia.app.repository.CatalogPriceRuleByGroupRepository;
+import com.ia.app.repository.CatalogProductRepository;
+import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.impl.CatalogItemPriceBulkWriteRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.tenant.TenantContext;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
+  SalePriceCacheService.class,
+  CatalogPriceRuleService.class,
+  PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  CatalogItemPriceService.class,
+  CatalogConfigurationService.class,
+  CatalogConfigurationGroupSyncService.class,
+  CatalogStockTypeSyncService.class,
+  AuditService.class,
+  CatalogItemPriceBulkWriteRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  CatalogPriceRecomputeJobService.class
+})
+@TestPropertySource(properties = {
+  "catalog.price-recompute.chunk-size=2",
+  "catalog.price-recompute.parallelism=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogPriceRecomputeJobServiceTest {
+
+  private static final Long CONFIG_ID = 1301L;
+  private static final Long AGRUPADOR_ID = 1401L;
+
+  @Autowired
+  private CatalogPriceRecomputeJobService jobService;
+
+  @Autowired
+  private CatalogItemPriceService itemPriceService;
+
+  @Autowired
+  private CatalogPriceRecomputeJobRepository jobRepository;
+
+  @Autowired
+  private CatalogPriceRuleByGroupRepository ruleRepository;
+
+  @Autowired
+  private CatalogConfigurationByGroupRepository byGroupRepository;
+
+  @Autowired
+  private CatalogItemPriceRepository itemPriceRepository;
+
+  @Autowired
+  private CatalogProductRepository productRepository;
+
+  @Autowired
+  private PriceChangeLogRepository priceChangeLogRepository;
+
+  @AfterEach
+  void clearTenant() {
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldRecomputeEveryItemOfTheGroupAfterARuleChange() throws InterruptedException {
+    Long tenantId = 1211L;
+    TenantContext.setTenantId(tenantId);
+    Long byGroupId = createByGroup(tenantId);
+    seedRules(tenantId, byGroupId);
+    List<Long> itemIds = createPricedProducts(tenantId, byGroupId, AGRUPADOR_ID, 5);
+    Long otherGroupItem = createPricedProducts(tenantId, byGroupId, 1402L, 1).get(0);
+
+    switchSaleBaseToPercentMargin(tenantId, byGroupId);
+    CatalogPriceRecomputeJobResponse submitted = jobService.submit(event(tenantId, byGroupId));
+
+    CatalogPriceRecomputeJobResponse done = awaitFinished(byGroupId);
+    assertThat(done.id()).isEqualTo(submitted.id());
+    assertThat(done.status()).isEqualTo(CatalogPriceRecomputeJobService.STATUS_COMPLETED);
+    assertThat(done.totalItems()).isEqualTo(5L);
+    assertThat(done.itemsProcessed()).isEqualTo(5L);
+    assertThat(done.pricesChanged()).isEqualTo(5L);
+
+    for (Long itemId : itemIds) {
+      assertThat(saleBase(tenantId, itemId)).isEqualByComparingTo("126.000000");
+    }
+    assertThat(saleBase(tenantId, otherGroupItem)).isEqualByComparingTo("105.000000");
+
+    long logged = priceChangeLogRepository.findAll().stream()
+      .filter(log -> tenantId.equals(log.getTenantId()))
+      .filter(log -> log.getPriceType() == CatalogPriceType.SALE_BASE)
+      .filter(log -> log.getNewPriceFinal() != null && log.getNewPriceFinal().compareTo(new BigDecimal("126")) == 0)
+      .count();
+    assertThat(logged).isEqualTo(5L);
+  }
+
+  @Test
+  void shouldResumeAStaleJobFromItsLastCheckpoint() throws InterruptedException {
+    Long tenantId = 1212L;
+    TenantContext.setTenantId(tenantId);
+    Long byGroupId = createByGroup(tenantId);
+    seedRules(tenantId, byGroupId);
+    List<Long> itemIds = createPricedProducts(tenantId, byGroupId, AGRUPADOR_ID, 4);
+    switchSaleBaseToPercentMargin(tenantId, byGroupId);
+
+    // Job interrompido por um restart depois de confirmar o lote dos dois primeiros itens.
+    Instant longAgo = Instant.now().minus(Duration.ofHours(1));
+    CatalogPriceRecomputeJob orphan = new CatalogPriceRecomputeJob();
+    orphan.setTenantId(tenantId);
+    orphan.setCatalogConfigurationByGroupId(byGroupId);
+    orphan.setCatalogConfigurationId(CONFIG_ID);
+    orphan.setAgrupadorId(AGRUPADOR_ID);
+    orphan.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    orphan.setStatus(CatalogPriceRecomputeJobService.STATUS_RUNNING);
+    orphan.setLastItemId(itemIds.get(1));
+    orphan.setTotalItems(4L);
+    orphan.setItemsProcessed(2L);
+    orphan.setRequestedBy("system");
+    orphan.setCreatedAt(longAgo);
+    orphan.setStartedAt(longAgo);
+    orphan.setHeartbeatAt(longAgo);
+    jobRepository.save(orphan);
+
+    assertThat(jobService.resumeStale(Instant.now())).isEqualTo(1);
+
+    CatalogPriceRecomputeJobResponse done = awaitFinished(byGroupId);
+    assertThat(done.status()).isEqualTo(CatalogPriceRecomputeJobService.STATUS_COMPLETED);
+    assertThat(done.itemsProcessed()).isEqualTo(4L);
+    assertThat(done.pricesChanged()).isEqualTo(2L);
+    assertThat(saleBase(tenantId, itemIds.get(0))).isEqualByComparingTo("105.000000");
+    assertThat(saleBase(tenantId, itemIds.get(1))).isEqualByComparingTo("105.000000");
+    assertThat(saleBase(tenantId, itemIds.get(2))).isEqualByComparingTo("126.000000");
+    assertThat(saleBase(tenantId, itemIds.get(3))).isEqualByComparingTo("126.000000");
+    assertThat(jobService.resumeStale(Instant.now())).isZero();
+  }
+
+  private CatalogPriceRecomputeJobResponse awaitFinished(Long byGroupId) throws InterruptedException {
+    for (int attempt = 0; attempt < 200; attempt++) {
+      CatalogPriceRecomputeJobResponse job = jobService.latest(byGroupId);
+      if (!CatalogPriceRecomputeJobService.STATUS_PENDING.equals(job.status())
+          && !CatalogPriceRecomputeJobService.STATUS_RUNNING.equals(job.status())) {
+        return job;
+      }
+      Thread.sleep(50L);
+    }
+    throw new AssertionError("catalog_price_recompute_job_timeout");
+  }
+
+  private CatalogPriceRulesChangedEvent event(Long tenantId, Long byGroupId) {
+    return new CatalogPriceRulesChangedEvent(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      byGroupId,
+      CONFIG_ID,
+      AGRUPADOR_ID);
+  }
+
+  private List<Long> createPricedProducts(Long tenantId, Long byGroupId, Long agrupadorId, int count) {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      CatalogProduct item = new CatalogProduct();
+      item.setTenantId(tenantId);
+      item.setCatalogConfigurationId(CONFIG_ID);
+      item.setAgrupadorEmpresaId(agrupadorId);
+      item.setCodigo(agrupadorId * 100 + i);
+      item.setNome("Item " + i);
+      item.setAtivo(true);
+      Long itemId = productRepository.save(item).getId();
+      itemPriceService.upsertForItem(
+        tenantId,
+        CatalogConfigurationType.PRODUCTS,
+        itemId,
+        byGroupId,
+        List.of(new CatalogItemPriceInput(CatalogPriceType.PURCHASE, new BigDecimal("100.000000"), null, null, null)));
+      ids.add(itemId);
+    }
+    return ids;
+  }
+
+  private void switchSaleBaseToPercentMargin(Long tenantId, Long byGroupId) {
+    CatalogPriceRuleByGroup saleBase = ruleRepository
+      .findAllByTenantIdAndCatalogConfigurationByGroupIdAndActiveTrueOrderByPriceTypeAsc(tenantId, byGroupId)
+      .stream()
+      .filter(rule -> rule.getPriceType() == CatalogPriceType.SALE_BASE)
+      .findFirst()
+      .orElseThrow();
+    saleBase.setAdjustmentKindDefault(PriceAdjustmentKind.PERCENT);
+    saleBase.setAdjustmentDefault(new BigDecimal("20.000000"));
+    ruleRepository.save(saleBase);
+  }
+
+  private BigDecimal saleBase(Long tenantId, Long itemId) {
+    return itemPriceRepository
+      .findByTenantIdAndCatalogTypeAndCatalogItemIdAndPriceType(
+        tenantId,
+        CatalogConfigurationType.PRODUCTS,
+        itemId,
+        CatalogPriceType.SALE_BASE)
+      .orElseThrow()
+      .getPriceFinal();
+  }
+
+  private Long createByGroup(Long tenantId) {
+    CatalogConfigurationByGroup row = new CatalogConfigurationByGroup();
+    row.setTenantId(tenantId);
+    row.setCatalogConfigurationId(CONFIG_ID);
+    row.setAgrupadorId(AGRUPADOR_ID);
+    row.setActive(true);
+    return byGroupRepository.save(row).getId();
+  }
+
+  private void seedRules(Long tenantId, Long byGroupId) {
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.PURCHASE, PriceBaseMode.NONE, null, PriceUiLockMode.II, BigDecimal.ZERO));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.PURCHASE, PriceUiLockMode.IV, new BigDecimal("5.000000")));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.AVERAGE_COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.COST, PriceUiLockMode.IV, BigDecimal.ZERO));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.SALE_BASE, PriceBaseMode.BASE_PRICE, CatalogPriceType.AVERAGE_COST, PriceUiLockMode.IV, BigDecimal.ZERO));
+  }
+
+  private CatalogPriceRuleByGroup rule(
+      Long tenantId,
+      Long byGroupId,
+      CatalogPriceType type,
+      PriceBaseMode baseMode,
+      CatalogPriceType baseType,
+      PriceUiLockMode lockMode,
+      BigDecimal adjustmentDefault) {
+    CatalogPriceRuleByGroup row = new CatalogPriceRuleByGroup();
+    row.setTenantId(tenantId);
+    row.setCatalogConfigurationByGroupId(byGroupId);
+    row.setPriceType(type);
+    row.setBaseMode(baseMode);
+    row.setBasePriceType(baseType);
+    row.setAdjustmentKindDefault(PriceAdjustmentKind.FIXED);
+    row.setAdjustmentDefault(adjustmentDefault);
+    row.setUiLockMode(lockMode);
+    row.setActive(true);
+    return row;
+  }
+}
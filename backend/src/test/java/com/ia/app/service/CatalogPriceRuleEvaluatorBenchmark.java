@@ -0,0 +1,111 @@
+package com.ia.app.service;
+
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceRuleByGroup;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.PriceAdjustmentKind;
+import com.ia.app.domain.PriceBaseMode;
+import com.ia.app.domain.PriceUiLockMode;
+import com.ia.app.dto.CatalogItemPriceInput;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Fora do surefire (nome nao termina em Test). Rodar pelo main() com o classpath de teste.
+// Mede so CPU: a leitura das regras no banco, que o cache tambem evita, nao entra aqui.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogPriceRuleEvaluatorBenchmark {
+
+  @Param({"1", "500"})
+  public int items;
+
+  private Map<CatalogPriceType, CatalogPriceRuleByGroup> rules;
+  private CatalogPriceRuleEvaluator compiled;
+  private CatalogItemPrice[][] existing;
+  private CatalogItemPriceInput[] noInputs;
+
+  @Setup
+  public void setup() {
+    rules = new EnumMap<>(CatalogPriceType.class);
+    rules.put(CatalogPriceType.PURCHASE, rule(CatalogPriceType.PURCHASE, PriceBaseMode.NONE, null, PriceUiLockMode.II, PriceAdjustmentKind.FIXED, "0"));
+    rules.put(CatalogPriceType.COST, rule(CatalogPriceType.COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.PURCHASE, PriceUiLockMode.IV, PriceAdjustmentKind.FIXED, "5"));
+    rules.put(CatalogPriceType.AVERAGE_COST, rule(CatalogPriceType.AVERAGE_COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.COST, PriceUiLockMode.IV, PriceAdjustmentKind.FIXED, "0"));
+    rules.put(CatalogPriceType.SALE_BASE, rule(CatalogPriceType.SALE_BASE, PriceBaseMode.BASE_PRICE, CatalogPriceType.AVERAGE_COST, PriceUiLockMode.IV, PriceAdjustmentKind.PERCENT, "35.5"));
+    compiled = CatalogPriceRuleEvaluator.compile(rules);
+
+    CatalogPriceType[] types = CatalogPriceType.values();
+    existing = new CatalogItemPrice[items][types.length];
+    for (int i = 0; i < items; i++) {
+      for (CatalogPriceType type : types) {
+        CatalogItemPrice row = new CatalogItemPrice();
+        row.setPriceType(type);
+        row.setPriceFinal(new BigDecimal(10 + i).setScale(2));
+        row.setAdjustmentKind(PriceAdjustmentKind.FIXED);
+        row.setAdjustmentValue(BigDecimal.ZERO);
+        existing[i][type.ordinal()] = row;
+      }
+    }
+    noInputs = new CatalogItemPriceInput[types.length];
+  }
+
+  // O que cada chamada fazia antes do cache: ordenar e montar o plano a partir das regras.
+  @Benchmark
+  public void compilePerItem(Blackhole blackhole) {
+    for (CatalogItemPrice[] rows : existing) {
+      blackhole.consume(CatalogPriceRuleEvaluator.compile(rules).evaluate(rows, noInputs, true, false));
+    }
+  }
+
+  @Benchmark
+  public void cachedEvaluator(Blackhole blackhole) {
+    for (CatalogItemPrice[] rows : existing) {
+      blackhole.consume(compiled.evaluate(rows, noInputs, true, false));
+    }
+  }
+
+  private static CatalogPriceRuleByGroup rule(
+      CatalogPriceType type,
+      PriceBaseMode baseMode,
+      CatalogPriceType baseType,
+      PriceUiLockMode mode,
+      PriceAdjustmentKind kind,
+      String adjustment) {
+    CatalogPriceRuleByGroup rule = new CatalogPriceRuleByGroup();
+    rule.setPriceType(type);
+    rule.setBaseMode(baseMode);
+    rule.setBasePriceType(baseType);
+    rule.setUiLockMode(mode);
+    rule.setAdjustmentKindDefault(kind);
+    rule.setAdjustmentDefault(new BigDecimal(adjustment));
+    rule.setActive(true);
+    return rule;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+      .include(CatalogPriceRuleEvaluatorBenchmark.class.getSimpleName())
+      .build();
+    new Runner(options).run();
+  }
+}
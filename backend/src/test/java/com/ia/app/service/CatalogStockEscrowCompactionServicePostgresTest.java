@@ -0,0 +1,8 @@
+package com.ia.app.service;
+
+import com.ia.app.PostgresTest;
+
+// Compactacao do escrow com for update of l e advisory lock de transacao do Postgres.
+@PostgresTest
+class CatalogStockEscrowCompactionServicePostgresTest extends CatalogStockEscrowCompactionServiceTest {
+}
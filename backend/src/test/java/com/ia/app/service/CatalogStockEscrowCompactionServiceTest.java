@@ -0,0 +1,224 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.AgrupadorEmpresa;
+import com.ia.app.domain.CatalogConfiguration;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.CatalogStockType;
+import com.ia.app.domain.Empresa;
+import com.ia.app.domain.MovimentoConfig;
+import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.domain.TipoEntidade;
+import com.ia.app.repository.AgrupadorEmpresaRepository;
+import com.ia.app.repository.CatalogConfigurationRepository;
+import com.ia.app.repository.CatalogMovementLineRepository;
+import com.ia.app.repository.CatalogStockBalanceRepository;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoConfigRepository;
+import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
+  CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
+  CatalogMovementEngine.class,
+  ScheduledJobLockService.class,
+  CatalogStockEscrowCompactionService.class
+})
+class CatalogStockEscrowCompactionServiceTest {
+
+  @Autowired
+  private CatalogConfigurationRepository configurationRepository;
+
+  @Autowired
+  private AgrupadorEmpresaRepository agrupadorRepository;
+
+  @Autowired
+  private EmpresaRepository empresaRepository;
+
+  @Autowired
+  private CatalogStockTypeSyncService stockTypeSyncService;
+
+  @Autowired
+  private CatalogMovementEngine engine;
+
+  @Autowired
+  private CatalogStockEscrowCompactionService compactionService;
+
+  @Autowired
+  private CatalogStockBalanceRepository balanceRepository;
+
+  @Autowired
+  private CatalogMovementLineRepository lineRepository;
+
+  @Autowired
+  private MovimentoConfigRepository movimentoConfigRepository;
+
+  @Autowired
+  private TipoEntidadeRepository tipoEntidadeRepository;
+
+  @Test
+  void shouldKeepEscrowDeltasPendingUntilCompaction() {
+    Long tenantId = 802L;
+    CatalogConfiguration config = createCatalogConfig(tenantId, CatalogConfigurationType.PRODUCTS);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId(), "Grupo Escrow");
+    Empresa filial = createEmpresa(tenantId, "80200000000001");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
+
+    engine.apply(command(tenantId, config, agrupador, stockType, filial, "idem-escrow-1", "10.000000", "50.000000"));
+    List<CatalogMovementEngine.Result> batch = engine.applyBatch(List.of(
+      command(tenantId, config, agrupador, stockType, filial, "idem-escrow-2", "-4.000000", "-20.000000"),
+      command(tenantId, config, agrupador, stockType, filial, "idem-escrow-1", "10.000000", "50.000000")));
+
+    assertThat(batch.get(0).reused()).isFalse();
+    assertThat(batch.get(1).reused()).isTrue();
+    assertThat(balanceRepository.listByFilters(
+      tenantId, CatalogConfigurationType.PRODUCTS, 8001L, agrupador.getId(), null, filial.getId())).isEmpty();
+
+    var pending = lineRepository.sumPendingEscrowDeltas(
+      tenantId, CatalogConfigurationType.PRODUCTS, 8001L, agrupador.getId(), null);
+    assertThat(pending).hasSize(2);
+    var pendingQuantidade = pending.stream()
+      .filter(row -> row.getMetricType() == CatalogMovementMetricType.QUANTIDADE)
+      .findFirst()
+      .orElseThrow();
+    assertThat(pendingQuantidade.getDeltaTotal()).isEqualByComparingTo("6.000000");
+
+    assertThat(compactionService.compactPending()).isEqualTo(4);
+    assertThat(compactionService.compactPending()).isZero();
+
+    var balances = balanceRepository.listByFilters(
+      tenantId, CatalogConfigurationType.PRODUCTS, 8001L, agrupador.getId(), null, filial.getId());
+    assertThat(balances).hasSize(1);
+    assertThat(balances.get(0).getQuantidadeAtual()).isEqualByComparingTo("6.000000");
+    assertThat(balances.get(0).getPrecoAtual()).isEqualByComparingTo("30.000000");
+    assertThat(lineRepository.sumPendingEscrowDeltas(
+      tenantId, CatalogConfigurationType.PRODUCTS, 8001L, agrupador.getId(), null)).isEmpty();
+
+    var lines = lineRepository.findAllByTenantIdAndMovementIdOrderByIdAsc(tenantId, batch.get(0).movementId());
+    var quantidadeLine = lines.stream()
+      .filter(line -> line.getMetricType() == CatalogMovementMetricType.QUANTIDADE)
+      .findFirst()
+      .orElseThrow();
+    assertThat(quantidadeLine.isEscrowPending()).isFalse();
+    assertThat(quantidadeLine.getBeforeValue()).isEqualByComparingTo("10.000000");
+    assertThat(quantidadeLine.getAfterValue()).isEqualByComparingTo("6.000000");
+  }
+
+  private CatalogMovementEngine.Command command(
+      Long tenantId,
+      CatalogConfiguration config,
+      AgrupadorEmpresa agrupador,
+      CatalogStockType stockType,
+      Empresa filial,
+      String idempotencyKey,
+      String quantidadeDelta,
+      String precoDelta) {
+    return new CatalogMovementEngine.Command(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      8001L,
+      config.getId(),
+      agrupador.getId(),
+      CatalogMovementOriginType.SYSTEM,
+      "ESCROW",
+      null,
+      null,
+      "ITEM:8001",
+      null,
+      null,
+      null,
+      null,
+      idempotencyKey,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(
+        new CatalogMovementEngine.Impact(
+          agrupador.getId(),
+          CatalogMovementMetricType.QUANTIDADE,
+          stockType.getId(),
+          filial.getId(),
+          new BigDecimal(quantidadeDelta)),
+        new CatalogMovementEngine.Impact(
+          agrupador.getId(),
+          CatalogMovementMetricType.PRECO,
+          stockType.getId(),
+          filial.getId(),
+          new BigDecimal(precoDelta))));
+  }
+
+  private CatalogConfiguration createCatalogConfig(Long tenantId, CatalogConfigurationType type) {
+    CatalogConfiguration config = new CatalogConfiguration();
+    config.setTenantId(tenantId);
+    config.setType(type);
+    config.setActive(true);
+    config.setStockEscrowEnabled(true);
+    return configurationRepository.save(config);
+  }
+
+  private AgrupadorEmpresa createCatalogGroup(Long tenantId, Long configId, String nome) {
+    AgrupadorEmpresa group = new AgrupadorEmpresa();
+    group.setTenantId(tenantId);
+    group.setConfigType(ConfiguracaoScopeService.TYPE_CATALOGO);
+    group.setConfigId(configId);
+    group.setNome(nome);
+    group.setAtivo(true);
+    return agrupadorRepository.save(group);
+  }
+
+  private Empresa createEmpresa(Long tenantId, String cnpj) {
+    Empresa empresa = new Empresa();
+    empresa.setTenantId(tenantId);
+    empresa.setTipo(Empresa.TIPO_MATRIZ);
+    empresa.setRazaoSocial("Filial " + cnpj);
+    empresa.setNomeFantasia("Filial " + cnpj);
+    empresa.setCnpj(cnpj);
+    empresa.setAtivo(true);
+    return empresaRepository.save(empresa);
+  }
+
+  private void createMovimentoConfigEstoqueGlobal(Long tenantId, Long empresaId) {
+    TipoEntidade tipoEntidade = new TipoEntidade();
+    tipoEntidade.setTenantId(tenantId);
+    tipoEntidade.setNome("Cliente Strict " + empresaId);
+    tipoEntidade.setTipoPadrao(true);
+    tipoEntidade.setCodigoSeed("CLIENTE_" + empresaId);
+    tipoEntidade.setAtivo(true);
+    tipoEntidade = tipoEntidadeRepository.saveAndFlush(tipoEntidade);
+
+    MovimentoConfig config = new MovimentoConfig();
+    config.setTenantId(tenantId);
+    config.setTipoMovimento(MovimentoTipo.MOVIMENTO_ESTOQUE);
+    config.setNome("Config Estoque Strict " + empresaId);
+    config.setDescricao("Configuracao para teste de modo estrito");
+    config.setPrioridade(100);
+    config.setContextoKey(null);
+    config.setTipoEntidadePadraoId(tipoEntidade.getId());
+    config.setAtivo(true);
+    config.replaceEmpresas(List.of(empresaId));
+    config.replaceTiposEntidadePermitidos(List.of(tipoEntidade.getId()));
+    movimentoConfigRepository.saveAndFlush(config);
+  }
+}
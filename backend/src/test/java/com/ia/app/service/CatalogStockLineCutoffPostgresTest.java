@@ -0,0 +1,66 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.PostgresTest;
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.repository.CatalogStockWriteRepository;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@PostgresTest
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  CatalogStockWriteRepositoryImpl.class
+})
+class CatalogStockLineCutoffPostgresTest {
+
+  @Autowired
+  private CatalogStockWriteRepository stockWriteRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldNotPassStartOfOldestOpenTransaction() throws Exception {
+    Instant openedAt;
+    try (Connection writer = dataSource.getConnection()) {
+      writer.setAutoCommit(false);
+      try (Statement statement = writer.createStatement(); ResultSet rs = statement.executeQuery("select now()")) {
+        rs.next();
+        openedAt = rs.getObject(1, OffsetDateTime.class).toInstant();
+      }
+
+      // Uma linha gravada agora por essa transacao teria created_at = openedAt.
+      assertThat(stockWriteRepository.lineCutoff(0)).isEqualTo(openedAt);
+
+      writer.rollback();
+    }
+
+    assertThat(stockWriteRepository.lineCutoff(0)).isAfter(openedAt);
+  }
+
+  @Test
+  void shouldApplyCommitLagOnDatabaseClock() {
+    Instant lineCutoff = stockWriteRepository.lineCutoff(600);
+    Instant databaseNow = jdbcTemplate.queryForObject("select clock_timestamp()", OffsetDateTime.class).toInstant();
+
+    assertThat(lineCutoff).isBeforeOrEqualTo(databaseNow.minusSeconds(600));
+  }
+}
@@ -0,0 +1,227 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.AgrupadorEmpresa;
+import com.ia.app.domain.CatalogConfiguration;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.CatalogStockReconciliationMismatch;
+import com.ia.app.domain.CatalogStockReconciliationRun;
+import com.ia.app.domain.CatalogStockType;
+import com.ia.app.domain.Empresa;
+import com.ia.app.domain.MovimentoConfig;
+import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.domain.TipoEntidade;
+import com.ia.app.repository.AgrupadorEmpresaRepository;
+import com.ia.app.repository.CatalogConfigurationRepository;
+import com.ia.app.repository.CatalogStockBalanceRepository;
+import com.ia.app.repository.CatalogStockReconciliationMismatchRepository;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoConfigRepository;
+import com.ia.app.repository.TipoEntidadeRepository;
+import com.ia.app.repository.impl.CatalogStockReconciliationRepositoryImpl;
+import com.ia.app.repository.impl.CatalogStockWriteRepositoryImpl;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
+  CatalogStockTypeSyncService.class,
+  CatalogStockWriteRepositoryImpl.class,
+  CatalogStockReconciliationRepositoryImpl.class,
+  MovimentoValidationCacheService.class,
+  CatalogMovementEngine.class,
+  ScheduledJobLockService.class,
+  CatalogStockReconciliationService.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogStockReconciliationServiceTest {
+
+  @Autowired
+  private CatalogConfigurationRepository configurationRepository;
+
+  @Autowired
+  private AgrupadorEmpresaRepository agrupadorRepository;
+
+  @Autowired
+  private EmpresaRepository empresaRepository;
+
+  @Autowired
+  private CatalogStockTypeSyncService stockTypeSyncService;
+
+  @Autowired
+  private CatalogMovementEngine engine;
+
+  @Autowired
+  private CatalogStockReconciliationService reconciliationService;
+
+  @Autowired
+  private CatalogStockReconciliationMismatchRepository mismatchRepository;
+
+  @Autowired
+  private CatalogStockBalanceRepository balanceRepository;
+
+  @Autowired
+  private MovimentoConfigRepository movimentoConfigRepository;
+
+  @Autowired
+  private TipoEntidadeRepository tipoEntidadeRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldReportDriftInParallelAndRepairThroughCorrectiveMovement() {
+    Long tenantId = 803L;
+    CatalogConfiguration config = createCatalogConfig(tenantId, CatalogConfigurationType.PRODUCTS);
+    AgrupadorEmpresa agrupador = createCatalogGroup(tenantId, config.getId(), "Grupo Conciliacao");
+    Empresa filial = createEmpresa(tenantId, "80300000000001");
+    CatalogStockType stockType = stockTypeSyncService.ensureDefaultForGroup(tenantId, config.getId(), agrupador.getId());
+    createMovimentoConfigEstoqueGlobal(tenantId, filial.getId());
+
+    engine.apply(command(tenantId, config, agrupador, stockType, filial, 8031L, "idem-recon-1", "10.000000"));
+    engine.apply(command(tenantId, config, agrupador, stockType, filial, 8031L, "idem-recon-2", "-4.000000"));
+    engine.apply(command(tenantId, config, agrupador, stockType, filial, 8032L, "idem-recon-3", "7.000000"));
+
+    CatalogStockReconciliationRun clean = reconciliationService.reconcile(false);
+    assertThat(clean.getStatus()).isEqualTo(CatalogStockReconciliationService.STATUS_COMPLETED);
+    assertThat(mismatchRepository.findAllByRunIdAndTenantIdOrderByIdAsc(clean.getId(), tenantId)).isEmpty();
+
+    // Saldo alterado fora do motor: o razao continua somando 6.
+    jdbcTemplate.update(
+      "update catalog_stock_balance set quantidade_atual = 9 where tenant_id = ? and catalogo_id = ?",
+      tenantId,
+      8031L);
+
+    CatalogStockReconciliationRun detected = reconciliationService.reconcile(false);
+    List<CatalogStockReconciliationMismatch> mismatches =
+      mismatchRepository.findAllByRunIdAndTenantIdOrderByIdAsc(detected.getId(), tenantId);
+    assertThat(detected.getUnitsTotal()).isPositive();
+    assertThat(mismatches).singleElement().satisfies(mismatch -> {
+      assertThat(mismatch.getCatalogoId()).isEqualTo(8031L);
+      assertThat(mismatch.getLedgerQuantidade()).isEqualByComparingTo("6.000000");
+      assertThat(mismatch.getBalanceQuantidade()).isEqualByComparingTo("9.000000");
+      assertThat(mismatch.isRepaired()).isFalse();
+    });
+
+    CatalogStockReconciliationRun repaired = reconciliationService.reconcile(true);
+    List<CatalogStockReconciliationMismatch> repairedRows =
+      mismatchRepository.findAllByRunIdAndTenantIdOrderByIdAsc(repaired.getId(), tenantId);
+    assertThat(repairedRows).singleElement().satisfies(mismatch -> {
+      assertThat(mismatch.isRepaired()).isTrue();
+      assertThat(mismatch.getRepairMovementId()).isNotNull();
+    });
+    assertThat(balanceRepository.listByFilters(
+        tenantId, CatalogConfigurationType.PRODUCTS, 8031L, agrupador.getId(), null, filial.getId()))
+      .singleElement()
+      .satisfies(balance -> assertThat(balance.getQuantidadeAtual()).isEqualByComparingTo("9.000000"));
+
+    CatalogStockReconciliationRun after = reconciliationService.reconcile(false);
+    assertThat(mismatchRepository.findAllByRunIdAndTenantIdOrderByIdAsc(after.getId(), tenantId)).isEmpty();
+  }
+
+  private CatalogMovementEngine.Command command(
+      Long tenantId,
+      CatalogConfiguration config,
+      AgrupadorEmpresa agrupador,
+      CatalogStockType stockType,
+      Empresa filial,
+      Long catalogoId,
+      String idempotencyKey,
+      String quantidadeDelta) {
+    return new CatalogMovementEngine.Command(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      catalogoId,
+      config.getId(),
+      agrupador.getId(),
+      CatalogMovementOriginType.SYSTEM,
+      "RECON",
+      null,
+      null,
+      "ITEM:" + catalogoId,
+      null,
+      null,
+      null,
+      null,
+      idempotencyKey,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(new CatalogMovementEngine.Impact(
+        agrupador.getId(),
+        CatalogMovementMetricType.QUANTIDADE,
+        stockType.getId(),
+        filial.getId(),
+        new BigDecimal(quantidadeDelta))));
+  }
+
+  private CatalogConfiguration createCatalogConfig(Long tenantId, CatalogConfigurationType type) {
+    CatalogConfiguration config = new CatalogConfiguration();
+    config.setTenantId(tenantId);
+    config.setType(type);
+    config.setActive(true);
+    return configurationRepository.save(config);
+  }
+
+  private AgrupadorEmpresa createCatalogGroup(Long tenantId, Long configId, String nome) {
+    AgrupadorEmpresa group = new AgrupadorEmpresa();
+    group.setTenantId(tenantId);
+    group.setConfigType(ConfiguracaoScopeService.TYPE_CATALOGO);
+    group.setConfigId(configId);
+    group.setNome(nome);
+    group.setAtivo(true);
+    return agrupadorRepository.save(group);
+  }
+
+  private Empresa createEmpresa(Long tenantId, String cnpj) {
+    Empresa empresa = new Empresa();
+    empresa.setTenantId(tenantId);
+    empresa.setTipo(Empresa.TIPO_FILIAL);
+    empresa.setRazaoSocial("Filial " + cnpj);
+    empresa.setNomeFantasia("Filial " + cnpj);
+    empresa.setCnpj(cnpj);
+    empresa.setAtivo(true);
+    return empresaRepository.save(empresa);
+  }
+
+  private void createMovimentoConfigEstoqueGlobal(Long tenantId, Long empresaId) {
+    TipoEntidade tipoEntidade = new TipoEntidade();
+    tipoEntidade.setTenantId(tenantId);
+    tipoEntidade.setNome("Cliente Strict " + empresaId);
+    tipoEntidade.setTipoPadrao(true);
+    tipoEntidade.setAtivo(true);
+    tipoEntidade = tipoEntidadeRepository.saveAndFlush(tipoEntidade);
+
+    MovimentoConfig config = new MovimentoConfig();
+    config.setTenantId(tenantId);
+    config.setTipoMovimento(MovimentoTipo.MOVIMENTO_ESTOQUE);
+    config.setNome("Config Estoque Strict " + empresaId);
+    config.setDescricao("Configuracao para teste de modo estrito");
+    config.setPrioridade(100);
+    config.setContextoKey(null);
+    config.setTipoEntidadePadraoId(tipoEntidade.getId());
+    config.setAtivo(true);
+    config.replaceEmpresas(List.of(empresaId));
+    config.replaceTiposEntidadePermitidos(List.of(tipoEntidade.getId()));
+    movimentoConfigRepository.saveAndFlush(config);
+  }
+}
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.AgrupadorEmpresa;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.dto.CatalogStockTypeResponse;
@@ -20,7 +21,10 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   CatalogConfigurationService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
   CatalogStockTypeSyncService.class,
   CatalogStockTypeConfigurationService.class,
   AuditService.class
@@ -0,0 +1,314 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogMovement;
+import com.ia.app.domain.CatalogMovementLine;
+import com.ia.app.domain.CatalogMovementMetricType;
+import com.ia.app.domain.CatalogMovementOriginType;
+import com.ia.app.domain.CatalogProduct;
+import com.ia.app.domain.ExportFormat;
+import com.ia.app.domain.ExportJob;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.dto.ExportJobResponse;
+import com.ia.app.dto.SalePriceBulkItemRequest;
+import com.ia.app.dto.SalePriceBulkUpsertRequest;
+import com.ia.app.repository.CatalogMovementLineRepository;
+import com.ia.app.repository.CatalogMovementRepository;
+import com.ia.app.repository.CatalogProductRepository;
+import com.ia.app.repository.ExportJobRepository;
+import com.ia.app.repository.ExportStreamRepository;
+import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
+import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
+  PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  SalePriceService.class,
+  SalePriceBulkWriteRepositoryImpl.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportJobServiceTest {
+
+  @Autowired
+  private SalePriceService salePriceService;
+
+  @Autowired
+  private ExportJobService exportJobService;
+
+  @Autowired
+  private ExportStreamRepository exportStreamRepository;
+
+  @Autowired
+  private PriceBookRepository priceBookRepository;
+
+  @Autowired
+  private CatalogProductRepository productRepository;
+
+  @Autowired
+  private ExportJobRepository jobRepository;
+
+  @Autowired
+  private CatalogMovementRepository movementRepository;
+
+  @Autowired
+  private CatalogMovementLineRepository lineRepository;
+
+  @AfterEach
+  void clearTenant() {
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldStreamSalePriceGridToCsvAndXlsxInBackground() throws Exception {
+    TenantContext.setTenantId(731L);
+    PriceBook book = createBook(731L);
+    CatalogProduct first = createProduct(731L, 9991L, "Produto A, \"especial\"");
+    CatalogProduct second = createProduct(731L, 9992L, "Produto B");
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(
+        CatalogConfigurationType.PRODUCTS,
+        first.getId(),
+        null,
+        new BigDecimal("10.500000")))));
+
+    ExportJobResponse csvJob = salePriceService.exportGrid(
+      book.getId(), null, CatalogConfigurationType.PRODUCTS, null, null, null, false, ExportFormat.CSV);
+    assertThat(csvJob.fileName()).endsWith(".csv");
+    ExportJobResponse csvDone = awaitFinished(csvJob.id());
+    assertThat(csvDone.status()).isEqualTo(ExportJobService.STATUS_COMPLETED);
+    assertThat(csvDone.rowsWritten()).isEqualTo(2L);
+
+    ExportJobService.ExportDownload csv = exportJobService.download(csvJob.id());
+    byte[] csvBytes = readDownload(csv);
+    List<String> lines = List.of(new String(csvBytes, StandardCharsets.UTF_8).split("\r\n"));
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0)).isEqualTo("\uFEFF" + String.join(",", ExportStreamRepository.SALE_PRICE_GRID_HEADERS));
+    assertThat(lines.get(1)).isEqualTo(
+      "PRODUCTS," + first.getId() + ",\"Produto A, \"\"especial\"\"\",,,10.500000");
+    assertThat(lines.get(2)).isEqualTo("PRODUCTS," + second.getId() + ",Produto B,,,");
+    assertThat(csv.size()).isEqualTo(csvBytes.length);
+
+    ExportJobResponse xlsxJob = salePriceService.exportGrid(
+      book.getId(), null, CatalogConfigurationType.PRODUCTS, "produto b", null, null, false, ExportFormat.XLSX);
+    assertThat(awaitFinished(xlsxJob.id()).status()).isEqualTo(ExportJobService.STATUS_COMPLETED);
+    ExportJobService.ExportDownload xlsx = exportJobService.download(xlsxJob.id());
+    try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(readDownload(xlsx)))) {
+      Sheet sheet = workbook.getSheetAt(0);
+      assertThat(sheet.getLastRowNum()).isEqualTo(1);
+      assertThat(sheet.getRow(0).getCell(2).getStringCellValue()).isEqualTo("catalog_item_name");
+      assertThat(sheet.getRow(1).getCell(1).getNumericCellValue()).isEqualTo(second.getId().doubleValue());
+      assertThat(sheet.getRow(1).getCell(2).getStringCellValue()).isEqualTo("Produto B");
+    }
+
+    // Outro locatario nao enxerga o job.
+    TenantContext.setTenantId(732L);
+    assertThatThrownBy(() -> exportJobService.get(csvJob.id()))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessage("export_job_not_found");
+  }
+
+  @Test
+  void shouldPrefixFormulaLikeTextInCsv() throws Exception {
+    TenantContext.setTenantId(734L);
+    PriceBook book = createBook(734L);
+    CatalogProduct formula = createProduct(734L, 9993L, "=SOMA(A1:A9)");
+    CatalogProduct command = createProduct(734L, 9994L, "@cmd");
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(
+        CatalogConfigurationType.PRODUCTS,
+        formula.getId(),
+        null,
+        new BigDecimal("10.500000")))));
+
+    ExportJobResponse job = salePriceService.exportGrid(
+      book.getId(), null, CatalogConfigurationType.PRODUCTS, null, null, null, false, ExportFormat.CSV);
+    assertThat(awaitFinished(job.id()).status()).isEqualTo(ExportJobService.STATUS_COMPLETED);
+
+    String[] lines = new String(readDownload(exportJobService.download(job.id())), StandardCharsets.UTF_8)
+      .split("\r\n");
+    assertThat(lines).hasSize(3);
+    assertThat(lines[1]).isEqualTo("PRODUCTS," + formula.getId() + ",'=SOMA(A1:A9),,,10.500000");
+    assertThat(lines[2]).isEqualTo("PRODUCTS," + command.getId() + ",'@cmd,,,");
+  }
+
+  @Test
+  void shouldFailOnlyJobsWithoutRecentHeartbeat() {
+    Instant now = Instant.now();
+    ExportJob abandoned = createRunningJob(735L, now.minus(Duration.ofHours(1)), now.minus(Duration.ofHours(1)));
+    ExportJob alive = createRunningJob(735L, now.minus(Duration.ofHours(1)), now.minus(Duration.ofMinutes(1)));
+
+    exportJobService.cleanup(now);
+
+    ExportJob failed = jobRepository.findById(abandoned.getId()).orElseThrow();
+    assertThat(failed.getStatus()).isEqualTo(ExportJobService.STATUS_FAILED);
+    assertThat(failed.getErrorMessage()).isEqualTo("export_job_stale");
+    assertThat(jobRepository.findById(alive.getId()).orElseThrow().getStatus())
+      .isEqualTo(ExportJobService.STATUS_RUNNING);
+  }
+
+  @Test
+  void shouldStreamLedgerLines() {
+    Instant movedAt = Instant.parse("2026-03-10T12:00:00Z");
+    CatalogMovement movement = new CatalogMovement();
+    movement.setTenantId(736L);
+    movement.setCatalogoId(1001L);
+    movement.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    movement.setCatalogConfigurationId(100L);
+    movement.setAgrupadorEmpresaId(200L);
+    movement.setOrigemMovimentacaoTipo(CatalogMovementOriginType.SYSTEM);
+    movement.setOrigemMovimentacaoCodigo("SEED");
+    movement.setDataHoraMovimentacao(movedAt);
+    movement.setIdempotencyKey("idem-export-736");
+    movement = movementRepository.save(movement);
+
+    CatalogMovementLine line = new CatalogMovementLine();
+    line.setMovementId(movement.getId());
+    line.setTenantId(736L);
+    line.setAgrupadorEmpresaId(200L);
+    line.setMetricType(CatalogMovementMetricType.QUANTIDADE);
+    line.setEstoqueTipoId(300L);
+    line.setFilialId(400L);
+    line.setDelta(new BigDecimal("5.000000"));
+    line.setAfterValue(new BigDecimal("5.000000"));
+    line.setDataHoraMovimentacao(movedAt);
+    lineRepository.save(line);
+
+    List<Object[]> exported = new ArrayList<>();
+    exportStreamRepository.streamLedger(
+      new ExportStreamRepository.LedgerExportFilter(
+        736L,
+        CatalogConfigurationType.PRODUCTS.name(),
+        1001L,
+        200L,
+        null,
+        "seed",
+        null,
+        null,
+        null,
+        Instant.parse("1900-01-01T00:00:00Z"),
+        Instant.parse("2999-12-31T23:59:59Z"),
+        CatalogMovementMetricType.QUANTIDADE.name(),
+        300L,
+        400L),
+      50,
+      exported::add);
+    assertThat(exported).hasSize(1);
+    assertThat(exported.get(0)).hasSize(ExportStreamRepository.LEDGER_HEADERS.size());
+    assertThat(exported.get(0)[1]).isEqualTo(movement.getId());
+    assertThat(exported.get(0)[0]).isInstanceOf(Instant.class);
+    assertThat((BigDecimal) exported.get(0)[12]).isEqualByComparingTo("5.000000");
+  }
+
+  @Test
+  void shouldStreamNoEntitiesForEmptyScope() {
+    List<Object[]> rows = new ArrayList<>();
+    exportStreamRepository.streamEntities(
+      new ExportStreamRepository.EntityExportFilter(733L, 1L, 1L, null, "fulano", null, null, true),
+      10,
+      rows::add);
+    assertThat(rows).isEmpty();
+  }
+
+  @Test
+  void shouldRejectUnknownExportFormat() {
+    assertThatThrownBy(() -> ExportFormat.fromNullable("pdf"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("export_format_invalid");
+    assertThat(ExportFormat.fromNullable(null)).isEqualTo(ExportFormat.CSV);
+  }
+
+  private ExportJobResponse awaitFinished(Long jobId) throws InterruptedException {
+    for (int attempt = 0; attempt < 200; attempt++) {
+      ExportJobResponse job = exportJobService.get(jobId);
+      if (!ExportJobService.STATUS_PENDING.equals(job.status())
+          && !ExportJobService.STATUS_RUNNING.equals(job.status())) {
+        return job;
+      }
+      Thread.sleep(50L);
+    }
+    throw new AssertionError("export_job_timeout");
+  }
+
+  private byte[] readDownload(ExportJobService.ExportDownload download) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exportJobService.writeTo(download, out);
+    return out.toByteArray();
+  }
+
+  private ExportJob createRunningJob(Long tenantId, Instant createdAt, Instant heartbeatAt) {
+    ExportJob job = new ExportJob();
+    job.setTenantId(tenantId);
+    job.setSource("ledger");
+    job.setFormat(ExportFormat.CSV);
+    job.setStatus(ExportJobService.STATUS_RUNNING);
+    job.setFileName("ledger.csv");
+    job.setRequestedBy("user");
+    job.setCreatedAt(createdAt);
+    job.setStartedAt(createdAt);
+    job.setHeartbeatAt(heartbeatAt);
+    return jobRepository.save(job);
+  }
+
+  private PriceBook createBook(Long tenantId) {
+    PriceBook row = new PriceBook();
+    row.setTenantId(tenantId);
+    row.setName("Padrao");
+    row.setDefaultBook(true);
+    row.setActive(true);
+    return priceBookRepository.save(row);
+  }
+
+  private CatalogProduct createProduct(Long tenantId, Long codigo, String nome) {
+    CatalogProduct item = new CatalogProduct();
+    item.setTenantId(tenantId);
+    item.setCatalogConfigurationId(100L);
+    item.setAgrupadorEmpresaId(200L);
+    item.setCodigo(codigo);
+    item.setNome(nome);
+    item.setAtivo(true);
+    return productRepository.save(item);
+  }
+}
@@ -0,0 +1,26 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.PostgresTest;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+// O contexto so sobe se todas as migracoes aplicarem e o Hibernate validar as entidades contra o schema.
+@PostgresTest
+@DataJpaTest
+class FlywayPostgresSchemaTest {
+
+  @Autowired
+  private Flyway flyway;
+
+  @Test
+  void shouldApplyEveryMigration() {
+    assertThat(flyway.info().pending()).isEmpty();
+    assertThat(flyway.info().current()).isNotNull();
+    assertThat(flyway.info().current().getVersion().getVersion())
+      .isEqualTo(flyway.info().all()[flyway.info().all().length - 1].getVersion().getVersion());
+  }
+}
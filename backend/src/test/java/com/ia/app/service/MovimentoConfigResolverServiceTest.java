@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.Empresa;
 import com.ia.app.domain.MovimentoConfig;
 import com.ia.app.domain.MovimentoTipo;
@@ -25,7 +26,10 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   AuditService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
   MovimentoConfigService.class
 })
 class MovimentoConfigResolverServiceTest {
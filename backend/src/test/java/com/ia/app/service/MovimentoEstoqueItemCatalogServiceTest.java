@@ -127,6 +127,47 @@ class MovimentoEstoqueItemCatalogServiceTest {
     assertThat(resolved.valorTotal()).isEqualByComparingTo("9.900000");
   }
 
+  @Test
+  void shouldResolveSalePricesOfAllItemsWithOneBatchPerPriceScope() {
+    Long tenantId = 703L;
+    Long movimentoConfigId = 101L;
+    Long itemId = 125L;
+    UUID unitId = UUID.randomUUID();
+
+    mockCommonContext(tenantId, movimentoConfigId, itemId, unitId);
+
+    when(salePriceResolverService.resolveMany(
+      org.mockito.ArgumentMatchers.eq(11L),
+      org.mockito.ArgumentMatchers.isNull(),
+      org.mockito.ArgumentMatchers.anyList()))
+      .thenReturn(List.of(
+        new SalePriceResolveResponse(new BigDecimal("4.000000"), 901L, null, SalePriceSource.BOOK_BASE),
+        new SalePriceResolveResponse(new BigDecimal("3.000000"), null, null, SalePriceSource.CATALOG_BASE)));
+
+    List<MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem> resolved = service.resolveItems(
+      movimentoConfigId,
+      List.of(
+        new MovimentoEstoqueItemRequest(1L, itemId, unitId, 11L, null, new BigDecimal("1.000000"), null, null, null),
+        new MovimentoEstoqueItemRequest(1L, itemId, unitId, 11L, null, new BigDecimal("2.000000"), new BigDecimal("8.000000"), null, null),
+        new MovimentoEstoqueItemRequest(1L, itemId, unitId, 11L, null, new BigDecimal("3.000000"), null, null, null)),
+      5);
+
+    org.mockito.Mockito.verify(salePriceResolverService, org.mockito.Mockito.times(1))
+      .resolveMany(
+        org.mockito.ArgumentMatchers.eq(11L),
+        org.mockito.ArgumentMatchers.isNull(),
+        org.mockito.ArgumentMatchers.argThat(items -> items.size() == 2));
+    org.mockito.Mockito.verify(salePriceResolverService, org.mockito.Mockito.never())
+      .resolve(org.mockito.ArgumentMatchers.any());
+    assertThat(resolved).extracting(MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem::salePriceSourceSnapshot)
+      .containsExactly(SalePriceSource.BOOK_BASE, SalePriceSource.MANUAL, SalePriceSource.CATALOG_BASE);
+    assertThat(resolved).extracting(MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem::valorTotal)
+      .usingElementComparator(BigDecimal::compareTo)
+      .containsExactly(new BigDecimal("4"), new BigDecimal("16"), new BigDecimal("9"));
+    assertThat(resolved).extracting(MovimentoEstoqueItemCatalogService.ResolvedMovimentoItem::ordem)
+      .containsExactly(5, 6, 7);
+  }
+
   private void mockCommonContext(Long tenantId, Long movimentoConfigId, Long itemId, UUID unitId) {
     when(movimentoConfigItemTipoService.listAtivosForConfig(movimentoConfigId))
       .thenReturn(List.of(new MovimentoConfigItemTipoResponse(1L, "Produto", CatalogConfigurationType.PRODUCTS, true, true)));
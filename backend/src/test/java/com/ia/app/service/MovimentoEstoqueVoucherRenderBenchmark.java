@@ -0,0 +1,81 @@
+package com.ia.app.service;
+
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer.Voucher;
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer.VoucherLine;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Fora do surefire (nome nao termina em Test). Rodar pelo main() com o classpath de teste.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovimentoEstoqueVoucherRenderBenchmark {
+
+  @Param({"10", "50", "200"})
+  public int lines;
+
+  private MovimentoEstoqueVoucherRenderer renderer;
+  private Voucher voucher;
+
+  @Setup
+  public void setup() {
+    renderer = MovimentoEstoqueVoucherRenderer.standard(ZoneId.of("America/Sao_Paulo"));
+    List<VoucherLine> rows = new ArrayList<>(lines);
+    for (int i = 1; i <= lines; i++) {
+      rows.add(new VoucherLine(
+        (long) i,
+        "Produto",
+        1000L + i,
+        "Item de catalogo " + i,
+        new BigDecimal("3"),
+        "UN",
+        new BigDecimal("12.90"),
+        new BigDecimal("38.70"),
+        i % 7 != 0));
+    }
+    voucher = new Voucher(
+      1L,
+      1L,
+      "Benchmark",
+      "Movimento de Estoque",
+      "ABERTO",
+      "Loja Centro",
+      "12.345.678/0001-90",
+      Instant.parse("2026-01-01T12:00:00Z"),
+      "benchmark",
+      rows);
+  }
+
+  @Benchmark
+  public byte[] render() {
+    return renderer.render(voucher);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+      .include(MovimentoEstoqueVoucherRenderBenchmark.class.getSimpleName())
+      .build();
+    new Runner(options).run();
+  }
+}
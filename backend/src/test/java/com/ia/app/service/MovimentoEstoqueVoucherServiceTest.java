@@ -0,0 +1,206 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ia.app.domain.Empresa;
+import com.ia.app.domain.MovimentoEstoque;
+import com.ia.app.domain.MovimentoEstoqueItem;
+import com.ia.app.domain.MovimentoItemTipo;
+import com.ia.app.domain.MovimentoTipo;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoEstoqueItemRepository;
+import com.ia.app.repository.MovimentoEstoqueRepository;
+import com.ia.app.repository.MovimentoItemTipoRepository;
+import com.ia.app.repository.TenantUnitRepository;
+import com.ia.app.service.MovimentoEstoqueVoucherRenderer.Voucher;
+import com.ia.app.tenant.EmpresaContext;
+import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MovimentoEstoqueVoucherServiceTest {
+
+  private final MovimentoEstoqueRepository repository = mock(MovimentoEstoqueRepository.class);
+  private final MovimentoEstoqueItemRepository itemRepository = mock(MovimentoEstoqueItemRepository.class);
+  private final MovimentoItemTipoRepository itemTipoRepository = mock(MovimentoItemTipoRepository.class);
+  private final TenantUnitRepository tenantUnitRepository = mock(TenantUnitRepository.class);
+  private final EmpresaRepository empresaRepository = mock(EmpresaRepository.class);
+
+  @AfterEach
+  void clearContext() {
+    EmpresaContext.clear();
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldLoadBatchInRequestedOrderAndZipOnePdfPerMovimento() throws Exception {
+    TenantContext.setTenantId(7L);
+    EmpresaContext.setEmpresaId(3L);
+    MovimentoEstoque curto = movimento(20L, 3L, 2L, "Ajuste de aÇúcar");
+    MovimentoEstoque longo = movimento(10L, 3L, 1L, "Inventario mensal");
+    when(repository.findAllByTenantIdAndIdIn(eq(7L), anyCollection())).thenReturn(List.of(longo, curto));
+    List<MovimentoEstoqueItem> items = new ArrayList<>();
+    for (int i = 1; i <= 120; i++) {
+      items.add(item(10L, (long) i, "Parafuso " + i, new BigDecimal("2"), new BigDecimal("1.50"), true));
+    }
+    items.add(item(20L, 1L, "Açúcar cristal \u2713", new BigDecimal("1.5"), new BigDecimal("4.00"), false));
+    when(itemRepository.findAllByTenantIdAndMovimentoEstoqueIdInOrderByMovimentoEstoqueIdAscOrdemAscIdAsc(eq(7L), anyCollection()))
+      .thenReturn(items);
+    when(itemTipoRepository.findAllByTenantIdAndIdIn(eq(7L), anyCollection())).thenReturn(List.of(itemTipo(5L, "Produto")));
+    when(empresaRepository.findByIdAndTenantId(3L, 7L)).thenReturn(Optional.of(empresa("Loja Centro", "12.345.678/0001-90")));
+
+    MovimentoEstoqueVoucherService service = service();
+    List<Voucher> vouchers = service.loadBatch(List.of(20L, 10L, 20L));
+
+    assertThat(vouchers).extracting(Voucher::id).containsExactly(20L, 10L);
+    assertThat(vouchers.get(0).lines()).hasSize(1);
+    assertThat(vouchers.get(0).lines().get(0).tipoItem()).isEqualTo("Produto");
+    assertThat(vouchers.get(0).empresaNome()).isEqualTo("Loja Centro");
+    assertThat(vouchers.get(1).lines()).hasSize(120);
+
+    ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+    service.writeZip(vouchers, zipBytes);
+
+    List<String> names = new ArrayList<>();
+    List<byte[]> pdfs = new ArrayList<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        names.add(entry.getName());
+        pdfs.add(zip.readAllBytes());
+      }
+    }
+    assertThat(names).containsExactly("movimento-estoque-2-20.pdf", "movimento-estoque-1-10.pdf");
+
+    try (PDDocument document = PDDocument.load(pdfs.get(0))) {
+      String text = new PDFTextStripper().getText(document);
+      assertThat(document.getNumberOfPages()).isEqualTo(1);
+      assertThat(text).contains("Movimento de Estoque", "Ajuste de aÇúcar", "Açúcar cristal ?", "12.345.678/0001-90");
+      assertThat(text).contains("Total cobrado: 0,00", "* item nao cobrado");
+    }
+    try (PDDocument document = PDDocument.load(pdfs.get(1))) {
+      String text = new PDFTextStripper().getText(document);
+      assertThat(document.getNumberOfPages()).isGreaterThan(1);
+      assertThat(text).contains("Parafuso 1", "Parafuso 120", "(continuacao)", "Total cobrado: 360,00");
+    }
+  }
+
+  @Test
+  void shouldRejectMovimentoOfAnotherEmpresaOrMissing() {
+    TenantContext.setTenantId(7L);
+    EmpresaContext.setEmpresaId(3L);
+    when(repository.findAllByTenantIdAndIdIn(eq(7L), anyCollection()))
+      .thenReturn(List.of(movimento(10L, 4L, 1L, "Outra empresa")));
+
+    MovimentoEstoqueVoucherService service = service();
+    assertThatThrownBy(() -> service.loadBatch(List.of(10L)))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessage("movimento_estoque_not_found");
+    assertThatThrownBy(() -> service.loadBatch(List.of(11L)))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessage("movimento_estoque_not_found");
+  }
+
+  @Test
+  void shouldValidateBatchIdsAndContext() {
+    MovimentoEstoqueVoucherService service = service();
+    assertThatThrownBy(() -> service.loadBatch(List.of(1L)))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("tenant_required");
+
+    TenantContext.setTenantId(7L);
+    assertThatThrownBy(() -> service.loadBatch(List.of(1L)))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("movimento_empresa_context_required");
+
+    EmpresaContext.setEmpresaId(3L);
+    assertThatThrownBy(() -> service.loadBatch(List.of()))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("movimento_estoque_voucher_ids_required");
+    assertThatThrownBy(() -> service.loadBatch(List.of(1L, 2L, 3L, 4L)))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("movimento_estoque_voucher_batch_limit");
+  }
+
+  private MovimentoEstoqueVoucherService service() {
+    MovimentoEstoqueVoucherService service = new MovimentoEstoqueVoucherService(
+      repository,
+      itemRepository,
+      itemTipoRepository,
+      tenantUnitRepository,
+      empresaRepository,
+      2,
+      "",
+      "",
+      "UTC");
+    ReflectionTestUtils.setField(service, "maxBatch", 3);
+    return service;
+  }
+
+  private MovimentoEstoque movimento(Long id, Long empresaId, Long codigo, String nome) {
+    MovimentoEstoque entity = new MovimentoEstoque();
+    ReflectionTestUtils.setField(entity, "id", id);
+    entity.setTenantId(7L);
+    entity.setEmpresaId(empresaId);
+    entity.setTipoMovimento(MovimentoTipo.MOVIMENTO_ESTOQUE);
+    entity.setCodigo(codigo);
+    entity.setNome(nome);
+    entity.setStatus("ABERTO");
+    return entity;
+  }
+
+  private MovimentoEstoqueItem item(
+      Long movimentoId,
+      Long codigo,
+      String nome,
+      BigDecimal quantidade,
+      BigDecimal valorUnitario,
+      boolean cobrar) {
+    MovimentoEstoqueItem item = new MovimentoEstoqueItem();
+    item.setTenantId(7L);
+    item.setMovimentoEstoqueId(movimentoId);
+    item.setMovimentoItemTipoId(5L);
+    item.setCodigo(codigo);
+    item.setCatalogCodigoSnapshot(900L + codigo);
+    item.setCatalogNomeSnapshot(nome);
+    item.setQuantidade(quantidade);
+    item.setValorUnitario(valorUnitario);
+    item.setValorTotal(quantidade.multiply(valorUnitario));
+    item.setCobrar(cobrar);
+    return item;
+  }
+
+  private MovimentoItemTipo itemTipo(Long id, String nome) {
+    MovimentoItemTipo tipo = new MovimentoItemTipo();
+    ReflectionTestUtils.setField(tipo, "id", id);
+    tipo.setTenantId(7L);
+    tipo.setNome(nome);
+    return tipo;
+  }
+
+  private Empresa empresa(String nomeFantasia, String cnpj) {
+    Empresa empresa = new Empresa();
+    empresa.setTenantId(7L);
+    empresa.setRazaoSocial(nomeFantasia + " LTDA");
+    empresa.setNomeFantasia(nomeFantasia);
+    empresa.setCnpj(cnpj);
+    return empresa;
+  }
+}
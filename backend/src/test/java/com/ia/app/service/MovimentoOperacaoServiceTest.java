@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.Empresa;
 import com.ia.app.domain.MovimentoConfig;
 import com.ia.app.domain.MovimentoTipo;
@@ -31,9 +32,12 @@ import org.springframework.data.domain.PageRequest;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   AuditService.class,
   MovimentoEstoqueCodigoService.class,
   MovimentoEstoqueLockService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
   MovimentoConfigService.class,
   MovimentoEstoqueOperacaoHandler.class,
   MovimentoOperacaoService.class,
@@ -0,0 +1,88 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ia.app.repository.CatalogStockTypeRepository;
+import com.ia.app.repository.EmpresaRepository;
+import com.ia.app.repository.MovimentoConfigRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MovimentoValidationCacheServiceTest {
+
+  @Mock
+  private CatalogStockTypeRepository stockTypeRepository;
+
+  @Mock
+  private EmpresaRepository empresaRepository;
+
+  @Mock
+  private MovimentoConfigRepository movimentoConfigRepository;
+
+  @Mock
+  private CacheInvalidationNotifier notifier;
+
+  private MovimentoValidationCacheService cacheService;
+
+  @BeforeEach
+  void setup() {
+    cacheService = new MovimentoValidationCacheService(
+      stockTypeRepository,
+      empresaRepository,
+      movimentoConfigRepository,
+      notifier,
+      1000,
+      5);
+  }
+
+  @Test
+  void shouldEvictOnlyTheTenantThatChangedAndNotifyOtherNodes() {
+    when(empresaRepository.findIdsByTenantId(1L)).thenReturn(List.of(10L)).thenReturn(List.of(10L, 11L));
+    when(empresaRepository.findIdsByTenantId(2L)).thenReturn(List.of(20L));
+
+    assertThat(cacheService.empresaIds(1L)).containsExactly(10L);
+    assertThat(cacheService.empresaIds(2L)).containsExactly(20L);
+
+    cacheService.evictEmpresas(1L);
+
+    assertThat(cacheService.empresaIds(1L)).containsExactlyInAnyOrder(10L, 11L);
+    assertThat(cacheService.empresaIds(2L)).containsExactly(20L);
+    verify(empresaRepository, times(2)).findIdsByTenantId(1L);
+    verify(empresaRepository, times(1)).findIdsByTenantId(2L);
+    verify(notifier).publish(MovimentoValidationCacheService.CHANNEL, "EMPRESAS|1");
+  }
+
+  @Test
+  void shouldNotKeepValueLoadedAcrossAnInvalidation() {
+    when(empresaRepository.findIdsByTenantId(1L))
+      .thenAnswer(invocation -> {
+        // Commit concorrente chega enquanto a leitura antiga ainda esta em curso.
+        cacheService.applyRemote("EMPRESAS|1");
+        return List.of(10L);
+      })
+      .thenReturn(List.of(10L, 11L));
+
+    assertThat(cacheService.empresaIds(1L)).containsExactly(10L);
+    assertThat(cacheService.empresaIds(1L)).containsExactlyInAnyOrder(10L, 11L);
+  }
+
+  @Test
+  void shouldClearEverythingOnUnreadablePayload() {
+    when(empresaRepository.findIdsByTenantId(1L)).thenReturn(List.of(10L));
+    cacheService.empresaIds(1L);
+
+    cacheService.applyRemote("garbage");
+
+    assertThat(cacheService.empresaIds(1L)).isEqualTo(Set.of(10L));
+    verify(empresaRepository, times(2)).findIdsByTenantId(1L);
+  }
+}
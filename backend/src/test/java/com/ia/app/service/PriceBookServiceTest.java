@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.tenant.TenantContext;
 import org.junit.jupiter.api.AfterEach;
@@ -14,7 +15,12 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
-  PriceBookService.class
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
+  PriceBookService.class,
+  PriceNameCacheService.class
 })
 class PriceBookServiceTest {
 
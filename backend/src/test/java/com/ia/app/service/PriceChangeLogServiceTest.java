@@ -0,0 +1,219 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.PriceChangeAction;
+import com.ia.app.domain.PriceVariant;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.dto.CatalogPriceHistoryCursorResponse;
+import com.ia.app.dto.CatalogPriceHistoryResponse;
+import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.PriceVariantRepository;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.tenant.TenantContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  CacheInvalidationNotifier.class,
+  PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  CatalogPriceHistoryService.class
+})
+class PriceChangeLogServiceTest {
+
+  @Autowired
+  private PriceChangeLogService service;
+
+  @Autowired
+  private PriceNameCacheService nameCacheService;
+
+  @Autowired
+  private CatalogPriceHistoryService historyService;
+
+  @Autowired
+  private PriceChangeLogRepository logRepository;
+
+  @Autowired
+  private PriceBookRepository priceBookRepository;
+
+  @Autowired
+  private PriceVariantRepository priceVariantRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void clearTenant() {
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldBufferLogsUntilFlushOrJpaQuery() {
+    Long tenantId = 1701L;
+    PriceBook book = createBook(tenantId, "Varejo");
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 1L), PriceChangeAction.CREATE, null, new BigDecimal("10"));
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 2L), PriceChangeAction.CREATE, null, new BigDecimal("20"));
+
+    // Nada foi gravado ainda: JDBC puro nao dispara o flush.
+    assertThat(countRows(tenantId)).isZero();
+
+    // Consulta JPA na mesma transacao enxerga o que estava pendente.
+    assertThat(logRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByChangedAtDesc(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      1L)).hasSize(1);
+    assertThat(countRows(tenantId)).isEqualTo(2);
+
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 3L), PriceChangeAction.CREATE, null, new BigDecimal("30"));
+    service.flushPending();
+    assertThat(countRows(tenantId)).isEqualTo(3);
+  }
+
+  @Test
+  void shouldSnapshotCachedBookNameUntilTenantIsEvicted() {
+    Long tenantId = 1702L;
+    PriceBook book = createBook(tenantId, "Varejo");
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 1L), PriceChangeAction.CREATE, null, BigDecimal.ONE);
+
+    book.setName("Atacado");
+    priceBookRepository.save(book);
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 2L), PriceChangeAction.CREATE, null, BigDecimal.ONE);
+
+    nameCacheService.evictTenant(tenantId);
+    service.logSalePriceChange(tenantId, salePrice(tenantId, book, 3L), PriceChangeAction.CREATE, null, BigDecimal.ONE);
+
+    assertThat(bookNameOf(tenantId, 1L)).isEqualTo("Varejo");
+    assertThat(bookNameOf(tenantId, 2L)).isEqualTo("Varejo");
+    assertThat(bookNameOf(tenantId, 3L)).isEqualTo("Atacado");
+  }
+
+  @Test
+  void shouldEvictCachedBookNameOnRemoteInvalidation() {
+    Long tenantId = 1704L;
+    PriceBook book = createBook(tenantId, "Varejo");
+    assertThat(nameCacheService.bookName(tenantId, book.getId())).isEqualTo("Varejo");
+
+    // Renomeada em outro no: aqui so chega o aviso do canal.
+    book.setName("Atacado");
+    priceBookRepository.save(book);
+    assertThat(nameCacheService.bookName(tenantId, book.getId())).isEqualTo("Varejo");
+    nameCacheService.applyRemote(tenantId.toString());
+    assertThat(nameCacheService.bookName(tenantId, book.getId())).isEqualTo("Atacado");
+
+    book.setName("Distribuidor");
+    priceBookRepository.save(book);
+    nameCacheService.applyRemote("invalido");
+    assertThat(nameCacheService.bookName(tenantId, book.getId())).isEqualTo("Distribuidor");
+  }
+
+  @Test
+  void shouldPageHistoryByCursorWithoutGapsOrRepeats() {
+    Long tenantId = 1703L;
+    TenantContext.setTenantId(tenantId);
+    PriceBook book = createBook(tenantId, "Varejo");
+    PriceVariant variant = createVariant(tenantId, "Promocao");
+    for (int i = 1; i <= 5; i++) {
+      SalePrice row = salePrice(tenantId, book, 7L);
+      row.setVariantId(variant.getId());
+      service.logSalePriceChange(
+        tenantId,
+        row,
+        PriceChangeAction.UPDATE,
+        new BigDecimal(i - 1),
+        new BigDecimal(i));
+    }
+
+    List<CatalogPriceHistoryResponse> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      CatalogPriceHistoryCursorResponse page = historyService.listByItemByCursor(
+        CatalogConfigurationType.PRODUCTS,
+        7L,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        cursor,
+        2);
+      seen.addAll(page.content());
+      cursor = page.nextCursor();
+      pages++;
+      assertThat(page.hasMore()).isEqualTo(cursor != null);
+    } while (cursor != null);
+
+    assertThat(pages).isEqualTo(3);
+    assertThat(seen).extracting(CatalogPriceHistoryResponse::id).doesNotHaveDuplicates().hasSize(5);
+    assertThat(seen).extracting(CatalogPriceHistoryResponse::newPriceFinal)
+      .usingElementComparator(BigDecimal::compareTo)
+      .containsExactly(
+        new BigDecimal("5"),
+        new BigDecimal("4"),
+        new BigDecimal("3"),
+        new BigDecimal("2"),
+        new BigDecimal("1"));
+    assertThat(seen).extracting(CatalogPriceHistoryResponse::variantName).containsOnly("Promocao");
+  }
+
+  private long countRows(Long tenantId) {
+    Long count = jdbcTemplate.queryForObject(
+      "select count(*) from price_change_log where tenant_id = ?",
+      Long.class,
+      tenantId);
+    return count == null ? 0L : count;
+  }
+
+  private String bookNameOf(Long tenantId, Long catalogItemId) {
+    return logRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByChangedAtDesc(
+        tenantId,
+        CatalogConfigurationType.PRODUCTS,
+        catalogItemId)
+      .get(0)
+      .getPriceBookName();
+  }
+
+  private SalePrice salePrice(Long tenantId, PriceBook book, Long catalogItemId) {
+    SalePrice row = new SalePrice();
+    row.setTenantId(tenantId);
+    row.setPriceBookId(book.getId());
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(catalogItemId);
+    return row;
+  }
+
+  private PriceBook createBook(Long tenantId, String name) {
+    PriceBook row = new PriceBook();
+    row.setTenantId(tenantId);
+    row.setName(name);
+    row.setDefaultBook(true);
+    row.setActive(true);
+    return priceBookRepository.save(row);
+  }
+
+  private PriceVariant createVariant(Long tenantId, String name) {
+    PriceVariant row = new PriceVariant();
+    row.setTenantId(tenantId);
+    row.setName(name);
+    row.setActive(true);
+    return priceVariantRepository.save(row);
+  }
+}
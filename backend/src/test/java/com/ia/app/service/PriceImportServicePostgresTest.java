@@ -0,0 +1,8 @@
+package com.ia.app.service;
+
+import com.ia.app.PostgresTest;
+
+// Importacao via COPY para a tabela temporaria de staging e merge set-based.
+@PostgresTest
+class PriceImportServicePostgresTest extends PriceImportServiceTest {
+}
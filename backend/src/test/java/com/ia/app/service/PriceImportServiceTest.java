@@ -0,0 +1,435 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.AgrupadorEmpresa;
+import com.ia.app.domain.CatalogConfiguration;
+import com.ia.app.domain.CatalogConfigurationByGroup;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceRuleByGroup;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.CatalogProduct;
+import com.ia.app.domain.PriceAdjustmentKind;
+import com.ia.app.domain.PriceBaseMode;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.PriceChangeAction;
+import com.ia.app.domain.PriceChangeLog;
+import com.ia.app.domain.PriceChangeOriginType;
+import com.ia.app.domain.PriceUiLockMode;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.dto.PriceImportRejectResponse;
+import com.ia.app.dto.PriceImportResponse;
+import com.ia.app.repository.AgrupadorEmpresaRepository;
+import com.ia.app.repository.CatalogConfigurationByGroupRepository;
+import com.ia.app.repository.CatalogConfigurationRepository;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.CatalogPriceRuleByGroupRepository;
+import com.ia.app.repository.CatalogProductRepository;
+import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.impl.CatalogItemPriceBulkWriteRepositoryImpl;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.PriceImportStagingRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
+import com.ia.app.tenant.TenantContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  MovimentoValidationCacheService.class,
+  SalePriceCacheService.class,
+  CatalogPriceRuleService.class,
+  PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  CatalogItemPriceService.class,
+  CatalogConfigurationService.class,
+  CatalogConfigurationGroupSyncService.class,
+  CatalogStockTypeSyncService.class,
+  AuditService.class,
+  SalePriceService.class,
+  SalePriceBulkWriteRepositoryImpl.class,
+  CatalogItemPriceBulkWriteRepositoryImpl.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class,
+  PriceImportStagingRepositoryImpl.class,
+  PriceImportService.class
+})
+class PriceImportServiceTest {
+
+  @Autowired
+  private PriceImportService service;
+
+  @Autowired
+  private SalePriceService salePriceService;
+
+  @Autowired
+  private PriceBookRepository priceBookRepository;
+
+  @Autowired
+  private CatalogConfigurationRepository catalogConfigurationRepository;
+
+  @Autowired
+  private AgrupadorEmpresaRepository agrupadorRepository;
+
+  @Autowired
+  private CatalogConfigurationByGroupRepository byGroupRepository;
+
+  @Autowired
+  private CatalogPriceRuleByGroupRepository ruleRepository;
+
+  @Autowired
+  private CatalogProductRepository productRepository;
+
+  @Autowired
+  private CatalogItemPriceRepository itemPriceRepository;
+
+  @Autowired
+  private SalePriceRepository salePriceRepository;
+
+  @Autowired
+  private PriceChangeLogRepository logRepository;
+
+  @AfterEach
+  void clearTenant() {
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldMergeSalePricesAndReportRejectedRows() {
+    Long tenantId = 1501L;
+    TenantContext.setTenantId(tenantId);
+    PriceBook book = createBook(tenantId);
+    CatalogConfiguration config = createCatalogConfiguration(tenantId);
+    Long agrupadorId = createAgrupador(tenantId, config.getId(), "Grupo Empresas");
+    CatalogProduct existing = createProduct(tenantId, config.getId(), agrupadorId, 1L, "Notebook");
+    CatalogProduct created = createProduct(tenantId, config.getId(), agrupadorId, 2L, "Monitor");
+    CatalogProduct same = createProduct(tenantId, config.getId(), agrupadorId, 3L, "Cabo");
+    CatalogProduct duplicated = createProduct(tenantId, config.getId(), agrupadorId, 4L, "Mouse");
+    createSalePrice(tenantId, book.getId(), existing.getId(), "90.000000");
+    createSalePrice(tenantId, book.getId(), same.getId(), "15.000000");
+
+    // Como o Excel em pt-BR salva: BOM, ';' e virgula decimal.
+    String csv = "\uFEFFcatalog_type;catalog_item_id;catalog_item_name;price_final\n"
+      + "PRODUCTS;" + existing.getId() + ";Notebook;\"1.250,50\"\n"
+      + "PRODUCTS;" + created.getId() + ";Monitor;700\n"
+      + "PRODUCTS;" + same.getId() + ";Cabo;15,00\n"
+      + "PRODUCTS;" + duplicated.getId() + ";Mouse;10\n"
+      + "PRODUCTS;" + duplicated.getId() + ";Mouse;12\n"
+      + "PRODUCTS;999999;Sumido;5\n"
+      + "PRODUCTS;" + existing.getId() + "0;Sem preco;\n"
+      + "FERRAMENTAS;" + existing.getId() + ";Tipo;5\n"
+      + "PRODUCTS;" + created.getId() + "0;Negativo;-1\n"
+      + "PRODUCTS;abc;Texto;5\n";
+
+    PriceImportResponse response = service.importSalePrices("precos.csv", csv(csv), book.getId(), null);
+
+    assertThat(response.totalRows()).isEqualTo(10);
+    assertThat(response.createdItems()).isEqualTo(2);
+    assertThat(response.updatedItems()).isEqualTo(1);
+    assertThat(response.unchangedItems()).isEqualTo(1);
+    assertThat(response.ignoredWithoutPrice()).isEqualTo(1);
+    assertThat(response.rejectedRows()).isEqualTo(5);
+    assertThat(response.rejects())
+      .extracting(PriceImportRejectResponse::lineNumber, PriceImportRejectResponse::reason)
+      .containsExactly(
+        tuple(5, "price_import_duplicated_row"),
+        tuple(7, "catalog_item_not_found"),
+        tuple(9, "price_import_catalog_type_invalid"),
+        tuple(10, "sale_price_negative"),
+        tuple(11, "price_import_catalog_item_id_invalid"));
+
+    assertThat(salePrice(tenantId, book, existing)).isEqualByComparingTo("1250.500000");
+    assertThat(salePrice(tenantId, book, created)).isEqualByComparingTo("700.000000");
+    assertThat(salePrice(tenantId, book, same)).isEqualByComparingTo("15.000000");
+    assertThat(salePrice(tenantId, book, duplicated)).isEqualByComparingTo("12.000000");
+
+    List<PriceChangeLog> logs = logs(tenantId, existing);
+    assertThat(logs).hasSize(1);
+    assertThat(logs.get(0).getAction()).isEqualTo(PriceChangeAction.UPDATE);
+    assertThat(logs.get(0).getOldPriceFinal()).isEqualByComparingTo("90.000000");
+    assertThat(logs.get(0).getOriginType()).isEqualTo(PriceChangeOriginType.ALTERACAO_TABELA_PRECO);
+    assertThat(logs(tenantId, same)).isEmpty();
+  }
+
+  @Test
+  void shouldReadXlsxSheetsWithNumericCells() throws Exception {
+    Long tenantId = 1505L;
+    TenantContext.setTenantId(tenantId);
+    PriceBook book = createBook(tenantId);
+    CatalogConfiguration config = createCatalogConfiguration(tenantId);
+    Long agrupadorId = createAgrupador(tenantId, config.getId(), "Grupo Empresas");
+    CatalogProduct first = createProduct(tenantId, config.getId(), agrupadorId, 1L, "Notebook");
+    CatalogProduct second = createProduct(tenantId, config.getId(), agrupadorId, 2L, "Monitor");
+
+    // Mesmo layout do export da grade: cabecalho repetido em cada aba "dadosN".
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+      writeSheet(workbook.createSheet("dados1"), first, 10.25);
+      writeSheet(workbook.createSheet("dados2"), second, 20);
+      workbook.write(content);
+    }
+
+    PriceImportResponse response = service.importSalePrices(
+      "precos.xlsx",
+      new ByteArrayInputStream(content.toByteArray()),
+      book.getId(),
+      null);
+
+    assertThat(response.totalRows()).isEqualTo(2);
+    assertThat(response.createdItems()).isEqualTo(2);
+    assertThat(response.rejects()).isEmpty();
+    assertThat(salePrice(tenantId, book, first)).isEqualByComparingTo("10.250000");
+    assertThat(salePrice(tenantId, book, second)).isEqualByComparingTo("20.000000");
+  }
+
+  @Test
+  void shouldImportManualCatalogPriceAndRecomputeDependentTypes() {
+    Long tenantId = 1502L;
+    TenantContext.setTenantId(tenantId);
+    CatalogConfiguration config = createCatalogConfiguration(tenantId);
+    Long agrupadorId = createAgrupador(tenantId, config.getId(), "Grupo Empresas");
+    Long byGroupId = createByGroup(tenantId, config.getId(), agrupadorId);
+    seedRules(tenantId, byGroupId);
+    CatalogProduct priced = createProduct(tenantId, config.getId(), agrupadorId, 1L, "Notebook");
+    CatalogProduct unpriced = createProduct(tenantId, config.getId(), agrupadorId, 2L, "Monitor");
+    CatalogProduct otherGroup = createProduct(tenantId, config.getId(), agrupadorId, 3L, "Cabo");
+    otherGroup.setAgrupadorEmpresaId(createAgrupador(tenantId, config.getId(), "Outro Grupo"));
+    productRepository.save(otherGroup);
+    createItemPrice(tenantId, priced.getId(), CatalogPriceType.PURCHASE, "50.000000");
+    createItemPrice(tenantId, priced.getId(), CatalogPriceType.COST, "55.000000");
+    createItemPrice(tenantId, priced.getId(), CatalogPriceType.AVERAGE_COST, "55.000000");
+    createItemPrice(tenantId, priced.getId(), CatalogPriceType.SALE_BASE, "55.000000");
+
+    String csv = "catalog_type,catalog_item_id,price_final\n"
+      + "PRODUCTS," + priced.getId() + ",100\n"
+      + "PRODUCTS," + unpriced.getId() + ",30.5\n"
+      + "PRODUCTS," + otherGroup.getId() + ",10\n";
+
+    PriceImportResponse response = service.importCatalogItemPrices("compras.csv", csv(csv), CatalogPriceType.PURCHASE);
+
+    assertThat(response.createdItems()).isEqualTo(1);
+    assertThat(response.updatedItems()).isEqualTo(1);
+    assertThat(response.dependentPricesChanged()).isEqualTo(3);
+    assertThat(response.rejects())
+      .extracting(PriceImportRejectResponse::lineNumber, PriceImportRejectResponse::reason)
+      .containsExactly(tuple(4, "catalog_configuration_group_not_found"));
+
+    assertThat(itemPrice(tenantId, priced, CatalogPriceType.PURCHASE)).isEqualByComparingTo("100.000000");
+    assertThat(itemPrice(tenantId, priced, CatalogPriceType.COST)).isEqualByComparingTo("105.000000");
+    assertThat(itemPrice(tenantId, priced, CatalogPriceType.SALE_BASE)).isEqualByComparingTo("105.000000");
+    assertThat(itemPrice(tenantId, unpriced, CatalogPriceType.PURCHASE)).isEqualByComparingTo("30.500000");
+    assertThat(logs(tenantId, priced))
+      .extracting(PriceChangeLog::getOriginType)
+      .hasSize(4)
+      .containsOnly(PriceChangeOriginType.ALTERACAO_PRECO_BASE);
+  }
+
+  @Test
+  void shouldRejectPriceTypeCalculatedByRule() {
+    Long tenantId = 1503L;
+    TenantContext.setTenantId(tenantId);
+    CatalogConfiguration config = createCatalogConfiguration(tenantId);
+    Long agrupadorId = createAgrupador(tenantId, config.getId(), "Grupo Empresas");
+    Long byGroupId = createByGroup(tenantId, config.getId(), agrupadorId);
+    seedRules(tenantId, byGroupId);
+    CatalogProduct item = createProduct(tenantId, config.getId(), agrupadorId, 1L, "Notebook");
+
+    PriceImportResponse response = service.importCatalogItemPrices(
+      "custos.csv",
+      csv("catalog_type,catalog_item_id,price_final\nPRODUCTS," + item.getId() + ",10\n"),
+      CatalogPriceType.COST);
+
+    assertThat(response.createdItems()).isZero();
+    assertThat(response.rejects())
+      .extracting(PriceImportRejectResponse::reason)
+      .containsExactly("catalog_item_price_mode_locked");
+    assertThat(itemPriceRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByPriceTypeAsc(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      item.getId())).isEmpty();
+  }
+
+  @Test
+  void shouldRequireKnownColumnsAndFormat() {
+    Long tenantId = 1504L;
+    TenantContext.setTenantId(tenantId);
+    PriceBook book = createBook(tenantId);
+
+    assertThatThrownBy(() -> service.importSalePrices("precos.csv", csv("item;preco\n1;2\n"), book.getId(), null))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("price_import_header_invalid");
+    assertThatThrownBy(() -> service.importSalePrices("precos.pdf", csv(""), book.getId(), null))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("price_import_format_invalid");
+  }
+
+  private void writeSheet(Sheet sheet, CatalogProduct item, double price) {
+    Row header = sheet.createRow(0);
+    header.createCell(0).setCellValue("catalog_type");
+    header.createCell(1).setCellValue("catalog_item_id");
+    header.createCell(2).setCellValue("price_final");
+    Row row = sheet.createRow(1);
+    row.createCell(0).setCellValue("PRODUCTS");
+    row.createCell(1).setCellValue(item.getId().doubleValue());
+    row.createCell(2).setCellValue(price);
+  }
+
+  private InputStream csv(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private BigDecimal salePrice(Long tenantId, PriceBook book, CatalogProduct item) {
+    return salePriceService.findExact(tenantId, book.getId(), null, CatalogConfigurationType.PRODUCTS, item.getId(), null)
+      .map(SalePrice::getPriceFinal)
+      .orElse(null);
+  }
+
+  private BigDecimal itemPrice(Long tenantId, CatalogProduct item, CatalogPriceType type) {
+    return itemPriceRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByPriceTypeAsc(
+        tenantId,
+        CatalogConfigurationType.PRODUCTS,
+        item.getId())
+      .stream()
+      .filter(row -> row.getPriceType() == type)
+      .map(CatalogItemPrice::getPriceFinal)
+      .findFirst()
+      .orElse(null);
+  }
+
+  private List<PriceChangeLog> logs(Long tenantId, CatalogProduct item) {
+    return logRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByChangedAtDesc(
+      tenantId,
+      CatalogConfigurationType.PRODUCTS,
+      item.getId());
+  }
+
+  private PriceBook createBook(Long tenantId) {
+    PriceBook row = new PriceBook();
+    row.setTenantId(tenantId);
+    row.setName("Padrao");
+    row.setDefaultBook(true);
+    row.setActive(true);
+    return priceBookRepository.save(row);
+  }
+
+  private CatalogConfiguration createCatalogConfiguration(Long tenantId) {
+    CatalogConfiguration row = new CatalogConfiguration();
+    row.setTenantId(tenantId);
+    row.setType(CatalogConfigurationType.PRODUCTS);
+    row.setActive(true);
+    return catalogConfigurationRepository.save(row);
+  }
+
+  private Long createAgrupador(Long tenantId, Long configId, String nome) {
+    AgrupadorEmpresa row = new AgrupadorEmpresa();
+    row.setTenantId(tenantId);
+    row.setConfigType(ConfiguracaoScopeService.TYPE_CATALOGO);
+    row.setConfigId(configId);
+    row.setNome(nome);
+    row.setAtivo(true);
+    return agrupadorRepository.save(row).getId();
+  }
+
+  private Long createByGroup(Long tenantId, Long configId, Long agrupadorId) {
+    CatalogConfigurationByGroup row = new CatalogConfigurationByGroup();
+    row.setTenantId(tenantId);
+    row.setCatalogConfigurationId(configId);
+    row.setAgrupadorId(agrupadorId);
+    row.setActive(true);
+    return byGroupRepository.save(row).getId();
+  }
+
+  private void seedRules(Long tenantId, Long byGroupId) {
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.PURCHASE, PriceBaseMode.NONE, null, PriceUiLockMode.II, BigDecimal.ZERO));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.PURCHASE, PriceUiLockMode.IV, new BigDecimal("5.000000")));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.AVERAGE_COST, PriceBaseMode.BASE_PRICE, CatalogPriceType.COST, PriceUiLockMode.IV, BigDecimal.ZERO));
+    ruleRepository.save(rule(tenantId, byGroupId, CatalogPriceType.SALE_BASE, PriceBaseMode.BASE_PRICE, CatalogPriceType.AVERAGE_COST, PriceUiLockMode.IV, BigDecimal.ZERO));
+  }
+
+  private CatalogPriceRuleByGroup rule(
+      Long tenantId,
+      Long byGroupId,
+      CatalogPriceType type,
+      PriceBaseMode baseMode,
+      CatalogPriceType baseType,
+      PriceUiLockMode lockMode,
+      BigDecimal adjustmentDefault) {
+    CatalogPriceRuleByGroup row = new CatalogPriceRuleByGroup();
+    row.setTenantId(tenantId);
+    row.setCatalogConfigurationByGroupId(byGroupId);
+    row.setPriceType(type);
+    row.setBaseMode(baseMode);
+    row.setBasePriceType(baseType);
+    row.setAdjustmentKindDefault(PriceAdjustmentKind.FIXED);
+    row.setAdjustmentDefault(adjustmentDefault);
+    row.setUiLockMode(lockMode);
+    row.setActive(true);
+    return row;
+  }
+
+  private CatalogProduct createProduct(
+      Long tenantId,
+      Long catalogConfigurationId,
+      Long agrupadorId,
+      Long codigo,
+      String nome) {
+    CatalogProduct item = new CatalogProduct();
+    item.setTenantId(tenantId);
+    item.setCatalogConfigurationId(catalogConfigurationId);
+    item.setAgrupadorEmpresaId(agrupadorId);
+    item.setCodigo(codigo);
+    item.setNome(nome);
+    item.setAtivo(true);
+    return productRepository.save(item);
+  }
+
+  private void createItemPrice(Long tenantId, Long itemId, CatalogPriceType type, String price) {
+    CatalogItemPrice row = new CatalogItemPrice();
+    row.setTenantId(tenantId);
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(itemId);
+    row.setPriceType(type);
+    row.setPriceFinal(new BigDecimal(price));
+    row.setAdjustmentKind(PriceAdjustmentKind.FIXED);
+    row.setAdjustmentValue(BigDecimal.ZERO);
+    itemPriceRepository.save(row);
+  }
+
+  private void createSalePrice(Long tenantId, Long priceBookId, Long itemId, String price) {
+    SalePrice row = new SalePrice();
+    row.setTenantId(tenantId);
+    row.setPriceBookId(priceBookId);
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(itemId);
+    row.setPriceFinal(new BigDecimal(price));
+    salePriceRepository.save(row);
+  }
+}
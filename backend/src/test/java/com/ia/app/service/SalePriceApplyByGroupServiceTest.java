@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.CatalogConfiguration;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogGroup;
@@ -20,8 +21,16 @@ import com.ia.app.repository.CatalogItemPriceRepository;
 import com.ia.app.repository.CatalogProductRepository;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
 import com.ia.app.tenant.TenantContext;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,8 +41,19 @@ import org.springframework.data.domain.PageRequest;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
   PriceChangeLogService.class,
-  SalePriceService.class
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  SalePriceService.class,
+  SalePriceBulkWriteRepositoryImpl.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class
 })
 class SalePriceApplyByGroupServiceTest {
 
@@ -225,6 +245,75 @@ class SalePriceApplyByGroupServiceTest {
     assertThat(rowWithoutPrice.id()).isNull();
   }
 
+  @Test
+  void shouldWalkScopeItemsByKeysetCoveringEveryItemOnce() {
+    TenantContext.setTenantId(904L);
+
+    PriceBook book = createBook(904L);
+    CatalogConfiguration config = createCatalogConfiguration(904L, CatalogConfigurationType.PRODUCTS);
+    CatalogGroup root = createGroup(904L, config.getId(), null, "Papelaria");
+    CatalogGroup child = createGroup(904L, config.getId(), root.getId(), "Cadernos");
+    CatalogGroup other = createGroup(904L, config.getId(), null, "Outros");
+
+    List<Long> expectedIds = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      CatalogProduct item = createProduct(
+        904L, config.getId(), i % 2 == 0 ? root.getId() : child.getId(), 5001L + i, "Item " + (7 - i));
+      expectedIds.add(item.getId());
+      if (i != 3) {
+        createSaleBase(904L, CatalogConfigurationType.PRODUCTS, item.getId(), (10 + i) + ".000000");
+      }
+    }
+    createProduct(904L, config.getId(), other.getId(), 5999L, "Fora do escopo");
+
+    List<Long> walkedIds = new ArrayList<>();
+    Map<Long, BigDecimal> walkedBase = new HashMap<>();
+    String afterCatalogType = "";
+    long afterId = 0L;
+    while (true) {
+      var rows = salePriceRepository.findScopeItemsAfter(
+        904L, "PRODUCTS", null, null, root.getId(), true, afterCatalogType, afterId, 3);
+      rows.forEach(row -> {
+        walkedIds.add(row.getCatalogItemId());
+        walkedBase.put(row.getCatalogItemId(), row.getSaleBasePrice());
+      });
+      if (rows.size() < 3) {
+        break;
+      }
+      afterCatalogType = rows.get(rows.size() - 1).getCatalogType();
+      afterId = rows.get(rows.size() - 1).getCatalogItemId();
+    }
+
+    assertThat(walkedIds).containsExactlyElementsOf(expectedIds.stream().sorted().toList());
+    assertThat(walkedBase.get(expectedIds.get(0))).isEqualByComparingTo("10.000000");
+    assertThat(walkedBase.get(expectedIds.get(3))).isNull();
+
+    SalePriceApplyByGroupResponse response = service.applyByGroup(new SalePriceApplyByGroupRequest(
+      book.getId(),
+      null,
+      CatalogConfigurationType.PRODUCTS,
+      root.getId(),
+      null,
+      null,
+      PriceAdjustmentKind.PERCENT,
+      new BigDecimal("10"),
+      true,
+      true));
+
+    assertThat(response.totalItemsInScope()).isEqualTo(7);
+    assertThat(response.createdItems()).isEqualTo(6);
+    assertThat(response.skippedWithoutBasePrice()).isEqualTo(1);
+    assertThat(service.findExact(
+        904L,
+        book.getId(),
+        null,
+        CatalogConfigurationType.PRODUCTS,
+        expectedIds.get(6),
+        null)
+      .orElseThrow()
+      .getPriceFinal()).isEqualByComparingTo("17.600000");
+  }
+
   private PriceBook createBook(Long tenantId) {
     PriceBook row = new PriceBook();
     row.setTenantId(tenantId);
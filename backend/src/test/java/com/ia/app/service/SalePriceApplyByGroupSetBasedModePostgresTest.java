@@ -0,0 +1,8 @@
+package com.ia.app.service;
+
+import com.ia.app.PostgresTest;
+
+// applyByGroup set-based: upsert com on conflict e log em lote no Postgres.
+@PostgresTest
+class SalePriceApplyByGroupSetBasedModePostgresTest extends SalePriceApplyByGroupSetBasedModeTest {
+}
@@ -0,0 +1,332 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
+import com.ia.app.domain.AgrupadorEmpresa;
+import com.ia.app.domain.CatalogConfiguration;
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogGroup;
+import com.ia.app.domain.CatalogItemPrice;
+import com.ia.app.domain.CatalogPriceType;
+import com.ia.app.domain.CatalogProduct;
+import com.ia.app.domain.PriceAdjustmentKind;
+import com.ia.app.domain.PriceBook;
+import com.ia.app.domain.PriceChangeAction;
+import com.ia.app.domain.PriceChangeLog;
+import com.ia.app.domain.PriceChangeOriginType;
+import com.ia.app.domain.SalePrice;
+import com.ia.app.domain.SalePriceSource;
+import com.ia.app.dto.SalePriceApplyByGroupRequest;
+import com.ia.app.dto.SalePriceApplyByGroupResponse;
+import com.ia.app.dto.SalePriceResolveRequest;
+import com.ia.app.dto.SalePriceResolveResponse;
+import com.ia.app.repository.AgrupadorEmpresaRepository;
+import com.ia.app.repository.CatalogConfigurationRepository;
+import com.ia.app.repository.CatalogGroupRepository;
+import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.CatalogProductRepository;
+import com.ia.app.repository.PriceBookRepository;
+import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
+import com.ia.app.tenant.TenantContext;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DataJpaTest
+@TestPropertySource(properties = {
+  "sale-price.apply-by-group.set-based-enabled=true"
+})
+@Import({
+  AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
+  PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  SalePriceService.class,
+  SalePriceBulkWriteRepositoryImpl.class,
+  SalePriceResolverService.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class
+})
+class SalePriceApplyByGroupSetBasedModeTest {
+
+  @Autowired
+  private SalePriceService service;
+
+  @Autowired
+  private SalePriceResolverService resolverService;
+
+  @Autowired
+  private PriceBookRepository priceBookRepository;
+
+  @Autowired
+  private CatalogConfigurationRepository catalogConfigurationRepository;
+
+  @Autowired
+  private CatalogGroupRepository catalogGroupRepository;
+
+  @Autowired
+  private AgrupadorEmpresaRepository agrupadorRepository;
+
+  @Autowired
+  private CatalogProductRepository productRepository;
+
+  @Autowired
+  private CatalogItemPriceRepository catalogItemPriceRepository;
+
+  @Autowired
+  private SalePriceRepository salePriceRepository;
+
+  @Autowired
+  private PriceChangeLogRepository logRepository;
+
+  @AfterEach
+  void clearTenant() {
+    TenantContext.clear();
+    ReflectionTestUtils.setField(service, "setBasedApplyEnabled", true);
+  }
+
+  @Test
+  void shouldReturnSameCountersAndPricesAsItemByItemMode() {
+    Scenario setBased = createScenario(911L);
+    SalePriceApplyByGroupResponse setBasedResponse = service.applyByGroup(percentRequest(setBased, true));
+
+    ReflectionTestUtils.setField(service, "setBasedApplyEnabled", false);
+    Scenario itemByItem = createScenario(912L);
+    SalePriceApplyByGroupResponse itemByItemResponse = service.applyByGroup(percentRequest(itemByItem, true));
+
+    assertThat(setBasedResponse)
+      .usingRecursiveComparison()
+      .ignoringFields("catalogGroupId")
+      .isEqualTo(itemByItemResponse);
+    assertThat(setBasedResponse.totalItemsInScope()).isEqualTo(4);
+    assertThat(setBasedResponse.processedItems()).isEqualTo(3);
+    assertThat(setBasedResponse.createdItems()).isEqualTo(1);
+    assertThat(setBasedResponse.updatedItems()).isEqualTo(2);
+    assertThat(setBasedResponse.skippedWithoutBasePrice()).isEqualTo(1);
+    assertThat(setBasedResponse.skippedExisting()).isEqualTo(0);
+
+    for (int i = 0; i < setBased.items().size(); i++) {
+      assertThat(priceOf(setBased, i)).isEqualTo(priceOf(itemByItem, i));
+    }
+    assertThat(priceOf(setBased, 0)).isEqualByComparingTo("110.000000");
+    assertThat(priceOf(setBased, 1)).isEqualByComparingTo("55.000000");
+    assertThat(priceOf(setBased, 2)).isEqualByComparingTo("22.000000");
+    assertThat(priceOf(setBased, 3)).isNull();
+  }
+
+  @Test
+  void shouldWriteChangeLogsOnlyForRowsWhosePriceChanged() {
+    Scenario scenario = createScenario(913L);
+    TenantContext.setTenantId(913L);
+
+    service.applyByGroup(percentRequest(scenario, true));
+
+    List<PriceChangeLog> rootLogs = logs(scenario, 0);
+    assertThat(rootLogs).hasSize(1);
+    assertThat(rootLogs.get(0).getAction()).isEqualTo(PriceChangeAction.UPDATE);
+    assertThat(rootLogs.get(0).getOldPriceFinal()).isEqualByComparingTo("999.000000");
+    assertThat(rootLogs.get(0).getNewPriceFinal()).isEqualByComparingTo("110.000000");
+    assertThat(rootLogs.get(0).getOriginType()).isEqualTo(PriceChangeOriginType.ALTERACAO_TABELA_PRECO);
+    assertThat(rootLogs.get(0).getPriceBookName()).isEqualTo("Padrao");
+    assertThat(rootLogs.get(0).getChangedBy()).isEqualTo("system");
+
+    List<PriceChangeLog> childLogs = logs(scenario, 1);
+    assertThat(childLogs).hasSize(1);
+    assertThat(childLogs.get(0).getAction()).isEqualTo(PriceChangeAction.CREATE);
+    assertThat(childLogs.get(0).getOldPriceFinal()).isNull();
+    assertThat(childLogs.get(0).getSalePriceId()).isNotNull();
+
+    // Preco existente igual ao alvo conta como atualizado, mas nao gera historico.
+    assertThat(logs(scenario, 2)).isEmpty();
+    assertThat(logs(scenario, 3)).isEmpty();
+  }
+
+  @Test
+  void shouldSkipExistingAndRefreshResolvedPrices() {
+    Scenario scenario = createScenario(914L);
+    TenantContext.setTenantId(914L);
+    assertThat(resolve(scenario, 1).source()).isEqualTo(SalePriceSource.CATALOG_BASE);
+
+    SalePriceApplyByGroupResponse response = service.applyByGroup(percentRequest(scenario, false));
+
+    assertThat(response.totalItemsInScope()).isEqualTo(4);
+    assertThat(response.createdItems()).isEqualTo(1);
+    assertThat(response.updatedItems()).isEqualTo(0);
+    assertThat(response.skippedExisting()).isEqualTo(2);
+    assertThat(response.skippedWithoutBasePrice()).isEqualTo(1);
+    assertThat(priceOf(scenario, 0)).isEqualByComparingTo("999.000000");
+
+    SalePriceResolveResponse resolved = resolve(scenario, 1);
+    assertThat(resolved.priceFinal()).isEqualByComparingTo("55.000000");
+    assertThat(resolved.source()).isEqualTo(SalePriceSource.BOOK_BASE);
+  }
+
+  private record Scenario(Long tenantId, PriceBook book, CatalogGroup root, List<CatalogProduct> items) {}
+
+  // Raiz com preco existente diferente, filho sem preco, filho com preco ja igual ao alvo e filho sem preco base.
+  private Scenario createScenario(Long tenantId) {
+    TenantContext.setTenantId(tenantId);
+    PriceBook book = createBook(tenantId);
+    CatalogConfiguration config = createCatalogConfiguration(tenantId);
+    CatalogGroup root = createGroup(tenantId, config.getId(), null, "Informatica");
+    CatalogGroup child = createGroup(tenantId, config.getId(), root.getId(), "Monitores");
+    Long agrupadorId = createAgrupador(tenantId, config.getId()).getId();
+    CatalogProduct rootItem = createProduct(tenantId, config.getId(), agrupadorId, root.getId(), 1001L, "Notebook");
+    CatalogProduct childItem = createProduct(tenantId, config.getId(), agrupadorId, child.getId(), 1002L, "Monitor");
+    CatalogProduct sameItem = createProduct(tenantId, config.getId(), agrupadorId, child.getId(), 1003L, "Cabo");
+    CatalogProduct withoutBase = createProduct(tenantId, config.getId(), agrupadorId, child.getId(), 1004L, "Brinde");
+    createSaleBase(tenantId, rootItem.getId(), "100.000000");
+    createSaleBase(tenantId, childItem.getId(), "50.000000");
+    createSaleBase(tenantId, sameItem.getId(), "20.000000");
+    createSalePrice(tenantId, book.getId(), rootItem.getId(), "999.000000");
+    createSalePrice(tenantId, book.getId(), sameItem.getId(), "22.000000");
+    return new Scenario(tenantId, book, root, List.of(rootItem, childItem, sameItem, withoutBase));
+  }
+
+  private SalePriceApplyByGroupRequest percentRequest(Scenario scenario, boolean overwriteExisting) {
+    return new SalePriceApplyByGroupRequest(
+      scenario.book().getId(),
+      null,
+      CatalogConfigurationType.PRODUCTS,
+      scenario.root().getId(),
+      null,
+      null,
+      PriceAdjustmentKind.PERCENT,
+      new BigDecimal("10"),
+      true,
+      overwriteExisting);
+  }
+
+  private BigDecimal priceOf(Scenario scenario, int index) {
+    return service.findExact(
+        scenario.tenantId(),
+        scenario.book().getId(),
+        null,
+        CatalogConfigurationType.PRODUCTS,
+        scenario.items().get(index).getId(),
+        null)
+      .map(SalePrice::getPriceFinal)
+      .orElse(null);
+  }
+
+  private List<PriceChangeLog> logs(Scenario scenario, int index) {
+    return logRepository.findAllByTenantIdAndCatalogTypeAndCatalogItemIdOrderByChangedAtDesc(
+      scenario.tenantId(),
+      CatalogConfigurationType.PRODUCTS,
+      scenario.items().get(index).getId());
+  }
+
+  private SalePriceResolveResponse resolve(Scenario scenario, int index) {
+    return resolverService.resolve(new SalePriceResolveRequest(
+      scenario.book().getId(),
+      null,
+      CatalogConfigurationType.PRODUCTS,
+      scenario.items().get(index).getId(),
+      null));
+  }
+
+  private PriceBook createBook(Long tenantId) {
+    PriceBook row = new PriceBook();
+    row.setTenantId(tenantId);
+    row.setName("Padrao");
+    row.setDefaultBook(true);
+    row.setActive(true);
+    return priceBookRepository.save(row);
+  }
+
+  private CatalogConfiguration createCatalogConfiguration(Long tenantId) {
+    CatalogConfiguration row = new CatalogConfiguration();
+    row.setTenantId(tenantId);
+    row.setType(CatalogConfigurationType.PRODUCTS);
+    row.setActive(true);
+    return catalogConfigurationRepository.save(row);
+  }
+
+  private AgrupadorEmpresa createAgrupador(Long tenantId, Long catalogConfigurationId) {
+    AgrupadorEmpresa row = new AgrupadorEmpresa();
+    row.setTenantId(tenantId);
+    row.setConfigType(ConfiguracaoScopeService.TYPE_CATALOGO);
+    row.setConfigId(catalogConfigurationId);
+    row.setNome("Grupo Empresas");
+    row.setAtivo(true);
+    return agrupadorRepository.save(row);
+  }
+
+  private CatalogGroup createGroup(Long tenantId, Long catalogConfigurationId, Long parentId, String nome) {
+    CatalogGroup group = new CatalogGroup();
+    group.setTenantId(tenantId);
+    group.setCatalogConfigurationId(catalogConfigurationId);
+    group.setParentId(parentId);
+    group.setNome(nome);
+    group.setNomeNormalizado(nome.toLowerCase());
+    group.setNivel(parentId == null ? 0 : 1);
+    group.setOrdem(1);
+    group.setPath("TMP");
+    group.setAtivo(true);
+    CatalogGroup saved = catalogGroupRepository.save(group);
+    String path = parentId == null
+      ? String.format("%08d", saved.getId())
+      : catalogGroupRepository.findById(parentId).orElseThrow().getPath() + "/" + String.format("%08d", saved.getId());
+    saved.setPath(path);
+    return catalogGroupRepository.save(saved);
+  }
+
+  private CatalogProduct createProduct(
+      Long tenantId,
+      Long catalogConfigurationId,
+      Long agrupadorId,
+      Long catalogGroupId,
+      Long codigo,
+      String nome) {
+    CatalogProduct item = new CatalogProduct();
+    item.setTenantId(tenantId);
+    item.setCatalogConfigurationId(catalogConfigurationId);
+    item.setAgrupadorEmpresaId(agrupadorId);
+    item.setCatalogGroupId(catalogGroupId);
+    item.setCodigo(codigo);
+    item.setNome(nome);
+    item.setAtivo(true);
+    return productRepository.save(item);
+  }
+
+  private void createSaleBase(Long tenantId, Long itemId, String price) {
+    CatalogItemPrice row = new CatalogItemPrice();
+    row.setTenantId(tenantId);
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(itemId);
+    row.setPriceType(CatalogPriceType.SALE_BASE);
+    row.setPriceFinal(new BigDecimal(price));
+    row.setAdjustmentKind(PriceAdjustmentKind.FIXED);
+    row.setAdjustmentValue(BigDecimal.ZERO);
+    catalogItemPriceRepository.save(row);
+  }
+
+  private void createSalePrice(Long tenantId, Long priceBookId, Long itemId, String price) {
+    SalePrice row = new SalePrice();
+    row.setTenantId(tenantId);
+    row.setPriceBookId(priceBookId);
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(itemId);
+    row.setPriceFinal(new BigDecimal(price));
+    salePriceRepository.save(row);
+  }
+}
@@ -0,0 +1,160 @@
+package com.ia.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.SalePriceSource;
+import com.ia.app.dto.SalePriceResolveResponse;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SalePriceCacheServiceTest {
+
+  private static final CatalogConfigurationType PRODUCTS = CatalogConfigurationType.PRODUCTS;
+
+  @Mock
+  private CacheInvalidationNotifier notifier;
+
+  private SalePriceCacheService cacheService;
+
+  @BeforeEach
+  void setup() {
+    cacheService = new SalePriceCacheService(notifier, true, 1000, 30, false);
+  }
+
+  @Test
+  void shouldLoadOnceAndCacheNegativeResults() {
+    AtomicInteger loads = new AtomicInteger();
+    SalePriceCacheService.Key key = key(1L, 10L, null, 100L, null);
+
+    for (int i = 0; i < 3; i++) {
+      SalePriceResolveResponse response = cacheService.get(key, () -> {
+        loads.incrementAndGet();
+        return catalogBase("0");
+      });
+      assertThat(response.source()).isEqualTo(SalePriceSource.CATALOG_BASE);
+    }
+
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldEvictOnlyTheKeysCoveredByEachInvalidation() {
+    SalePriceCacheService.Key item = key(1L, 10L, null, 100L, null);
+    SalePriceCacheService.Key itemWithUnit = key(1L, 10L, 20L, 100L, UUID.randomUUID());
+    SalePriceCacheService.Key otherItem = key(1L, 10L, null, 101L, null);
+    SalePriceCacheService.Key otherBook = key(1L, 11L, null, 100L, null);
+    SalePriceCacheService.Key otherVariant = key(1L, 11L, 21L, 102L, null);
+    SalePriceCacheService.Key otherTenant = key(2L, 10L, null, 100L, null);
+    List<SalePriceCacheService.Key> all = List.of(item, itemWithUnit, otherItem, otherBook, otherVariant, otherTenant);
+    fill(all);
+
+    cacheService.evictItems(1L, 10L, PRODUCTS, Set.of(100L));
+    assertThat(cacheService.getAllPresent(all).keySet())
+      .containsExactlyInAnyOrder(otherItem, otherBook, otherVariant, otherTenant);
+
+    fill(all);
+    cacheService.evictCatalogItem(1L, PRODUCTS, 100L);
+    assertThat(cacheService.getAllPresent(all).keySet()).containsExactlyInAnyOrder(otherItem, otherVariant, otherTenant);
+
+    fill(all);
+    cacheService.evictVariant(1L, 21L);
+    assertThat(cacheService.getAllPresent(all).keySet())
+      .containsExactlyInAnyOrder(item, itemWithUnit, otherItem, otherBook, otherTenant);
+
+    fill(all);
+    cacheService.evictBook(1L, 11L);
+    assertThat(cacheService.getAllPresent(all).keySet())
+      .containsExactlyInAnyOrder(item, itemWithUnit, otherItem, otherTenant);
+
+    fill(all);
+    cacheService.evictTenant(1L);
+    assertThat(cacheService.getAllPresent(all).keySet()).containsExactly(otherTenant);
+  }
+
+  @Test
+  void shouldApplyInvalidationsReceivedFromOtherNodes() {
+    SalePriceCacheService.Key item = key(1L, 10L, null, 100L, null);
+    SalePriceCacheService.Key otherItem = key(1L, 10L, null, 101L, null);
+    fill(List.of(item, otherItem));
+
+    SalePriceCacheService.Invalidation invalidation = new SalePriceCacheService.Invalidation(
+      SalePriceCacheService.Scope.ITEMS, 1L, 10L, PRODUCTS, Set.of(100L, 150L));
+    cacheService.applyRemote(invalidation.encode());
+    assertThat(cacheService.getAllPresent(List.of(item, otherItem)).keySet()).containsExactly(otherItem);
+
+    // Payload que nao se consegue interpretar derruba o cache inteiro em vez de arriscar valor velho.
+    cacheService.applyRemote("ITEMS|x");
+    assertThat(cacheService.getAllPresent(List.of(item, otherItem))).isEmpty();
+  }
+
+  @Test
+  void shouldRoundTripLargeItemInvalidations() {
+    Set<Long> itemIds = Set.copyOf(LongStream.rangeClosed(1, 3000).boxed().toList());
+    SalePriceCacheService.Invalidation invalidation = new SalePriceCacheService.Invalidation(
+      SalePriceCacheService.Scope.ITEMS, 1L, 10L, PRODUCTS, itemIds);
+
+    assertThat(SalePriceCacheService.Invalidation.decode(invalidation.encode())).isEqualTo(invalidation);
+  }
+
+  @Test
+  void shouldDiscardLoadsThatCrossedAnInvalidation() {
+    SalePriceCacheService.Key key = key(1L, 10L, null, 100L, null);
+
+    long loadGeneration = cacheService.generation();
+    // Escrita concorrente confirmada enquanto a carga lia o valor antigo.
+    cacheService.evictItems(1L, 10L, PRODUCTS, Set.of(100L));
+    cacheService.putAll(loadGeneration, Map.of(key, catalogBase("5")));
+
+    assertThat(cacheService.getAllPresent(List.of(key))).isEmpty();
+  }
+
+  @Test
+  void shouldBypassCacheWhenDisabled() {
+    SalePriceCacheService disabled = new SalePriceCacheService(notifier, false, 1000, 30, true);
+    AtomicInteger loads = new AtomicInteger();
+    SalePriceCacheService.Key key = key(1L, 10L, null, 100L, null);
+
+    disabled.get(key, () -> {
+      loads.incrementAndGet();
+      return catalogBase("1");
+    });
+    disabled.get(key, () -> {
+      loads.incrementAndGet();
+      return catalogBase("1");
+    });
+
+    assertThat(loads).hasValue(2);
+    assertThat(disabled.isClusterInvalidationActive()).isFalse();
+  }
+
+  private void fill(List<SalePriceCacheService.Key> keys) {
+    for (SalePriceCacheService.Key key : keys) {
+      cacheService.get(key, () -> catalogBase("1"));
+    }
+  }
+
+  private SalePriceCacheService.Key key(
+      Long tenantId,
+      Long priceBookId,
+      Long variantId,
+      Long catalogItemId,
+      UUID tenantUnitId) {
+    return new SalePriceCacheService.Key(tenantId, priceBookId, variantId, PRODUCTS, catalogItemId, tenantUnitId);
+  }
+
+  private SalePriceResolveResponse catalogBase(String price) {
+    return new SalePriceResolveResponse(new BigDecimal(price), null, null, SalePriceSource.CATALOG_BASE);
+  }
+}
@@ -3,35 +3,64 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.CatalogConfigurationType;
+import com.ia.app.domain.CatalogProduct;
 import com.ia.app.domain.CatalogItemPrice;
 import com.ia.app.domain.CatalogPriceType;
 import com.ia.app.domain.PriceBook;
 import com.ia.app.domain.PriceVariant;
 import com.ia.app.domain.SalePrice;
 import com.ia.app.domain.SalePriceSource;
+import com.ia.app.dto.PriceVariantRequest;
+import com.ia.app.dto.SalePriceBulkItemRequest;
+import com.ia.app.dto.SalePriceBulkUpsertRequest;
 import com.ia.app.dto.SalePriceByItemRowResponse;
 import com.ia.app.dto.SalePriceResolveRequest;
 import com.ia.app.dto.SalePriceResolveResponse;
 import com.ia.app.repository.CatalogItemPriceRepository;
+import com.ia.app.repository.CatalogProductRepository;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.PriceVariantRepository;
 import com.ia.app.repository.SalePriceRepository;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
 import com.ia.app.tenant.TenantContext;
+import jakarta.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
   PriceChangeLogService.class,
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
   SalePriceService.class,
-  SalePriceResolverService.class
+  SalePriceBulkWriteRepositoryImpl.class,
+  SalePriceResolverService.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
+  PriceVariantService.class,
+  PriceBookService.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class
 })
 class SalePriceResolverServiceTest {
 
@@ -50,6 +79,24 @@ class SalePriceResolverServiceTest {
   @Autowired
   private CatalogItemPriceRepository catalogItemPriceRepository;
 
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private ResolvedSalePriceService resolvedSalePriceService;
+
+  @Autowired
+  private SalePriceService salePriceService;
+
+  @Autowired
+  private PriceVariantService priceVariantService;
+
+  @Autowired
+  private PriceBookService priceBookService;
+
+  @Autowired
+  private CatalogProductRepository productRepository;
+
   @AfterEach
   void clearContext() {
     TenantContext.clear();
@@ -89,6 +136,7 @@ class SalePriceResolverServiceTest {
     fallback.setAdjustmentKind(com.ia.app.domain.PriceAdjustmentKind.FIXED);
     fallback.setAdjustmentValue(BigDecimal.ZERO);
     catalogItemPriceRepository.save(fallback);
+    resolvedSalePriceService.rebuildCurrentTenant();
 
     SalePriceResolveResponse resolved = resolverService.resolve(new SalePriceResolveRequest(
       book.getId(),
@@ -116,6 +164,7 @@ class SalePriceResolverServiceTest {
     base.setCatalogItemId(7001L);
     base.setPriceFinal(new BigDecimal("42.500000"));
     salePriceRepository.save(base);
+    resolvedSalePriceService.rebuildCurrentTenant();
 
     SalePriceResolveResponse resolved = resolverService.resolve(new SalePriceResolveRequest(
       book.getId(),
@@ -229,6 +278,312 @@ class SalePriceResolverServiceTest {
     assertThat(baseB.source()).isEqualTo(SalePriceSource.CATALOG_BASE);
   }
 
+  @Test
+  void shouldResolveManyInInputOrderWithSamePrecedenceAsResolve() {
+    TenantContext.setTenantId(505L);
+
+    PriceBook book = createBook(505L, "Padrao", true);
+    PriceVariant variant = createVariant(505L, "Atacado", true);
+    UUID caixa = UUID.randomUUID();
+
+    SalePrice exactBase = new SalePrice();
+    exactBase.setTenantId(505L);
+    exactBase.setPriceBookId(book.getId());
+    exactBase.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    exactBase.setCatalogItemId(9101L);
+    exactBase.setPriceFinal(new BigDecimal("10.000000"));
+    salePriceRepository.save(exactBase);
+
+    SalePrice exactVariant = new SalePrice();
+    exactVariant.setTenantId(505L);
+    exactVariant.setPriceBookId(book.getId());
+    exactVariant.setVariantId(variant.getId());
+    exactVariant.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    exactVariant.setCatalogItemId(9101L);
+    exactVariant.setPriceFinal(new BigDecimal("9.000000"));
+    salePriceRepository.save(exactVariant);
+
+    SalePrice baseByUnit = new SalePrice();
+    baseByUnit.setTenantId(505L);
+    baseByUnit.setPriceBookId(book.getId());
+    baseByUnit.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    baseByUnit.setCatalogItemId(9102L);
+    baseByUnit.setTenantUnitId(caixa);
+    baseByUnit.setPriceFinal(new BigDecimal("60.000000"));
+    salePriceRepository.save(baseByUnit);
+
+    SalePrice baseWithoutUnit = new SalePrice();
+    baseWithoutUnit.setTenantId(505L);
+    baseWithoutUnit.setPriceBookId(book.getId());
+    baseWithoutUnit.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    baseWithoutUnit.setCatalogItemId(9102L);
+    baseWithoutUnit.setPriceFinal(new BigDecimal("5.000000"));
+    salePriceRepository.save(baseWithoutUnit);
+
+    CatalogItemPrice fallback = new CatalogItemPrice();
+    fallback.setTenantId(505L);
+    fallback.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    fallback.setCatalogItemId(9103L);
+    fallback.setPriceType(CatalogPriceType.SALE_BASE);
+    fallback.setPriceFinal(new BigDecimal("7.500000"));
+    fallback.setAdjustmentKind(com.ia.app.domain.PriceAdjustmentKind.FIXED);
+    fallback.setAdjustmentValue(BigDecimal.ZERO);
+    catalogItemPriceRepository.save(fallback);
+    resolvedSalePriceService.rebuildCurrentTenant();
+
+    List<SalePriceResolverService.ResolveItem> items = List.of(
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.PRODUCTS, 9103L, null),
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.PRODUCTS, 9102L, caixa),
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.PRODUCTS, 9101L, caixa),
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.PRODUCTS, 9102L, null),
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.SERVICES, 9103L, null));
+
+    List<SalePriceResolveResponse> resolved = resolverService.resolveMany(book.getId(), variant.getId(), items);
+
+    assertThat(resolved).extracting(SalePriceResolveResponse::source).containsExactly(
+      SalePriceSource.CATALOG_BASE,
+      SalePriceSource.BOOK_BASE,
+      SalePriceSource.EXACT_VARIANT,
+      SalePriceSource.BOOK_BASE,
+      SalePriceSource.CATALOG_BASE);
+    assertThat(resolved.get(0).priceFinal()).isEqualByComparingTo("7.500000");
+    assertThat(resolved.get(1).salePriceId()).isEqualTo(baseByUnit.getId());
+    assertThat(resolved.get(2).salePriceId()).isEqualTo(exactVariant.getId());
+    assertThat(resolved.get(3).salePriceId()).isEqualTo(baseWithoutUnit.getId());
+    assertThat(resolved.get(4).priceFinal()).isEqualByComparingTo("0.000000");
+    for (int i = 0; i < items.size(); i++) {
+      SalePriceResolverService.ResolveItem item = items.get(i);
+      assertThat(resolved.get(i)).isEqualTo(resolverService.resolve(new SalePriceResolveRequest(
+        book.getId(),
+        variant.getId(),
+        item.catalogType(),
+        item.catalogItemId(),
+        item.tenantUnitId())));
+    }
+  }
+
+  @Test
+  void shouldListPriceMatrixWithConstantQueryCount() {
+    TenantContext.setTenantId(506L);
+    UUID caixa = UUID.randomUUID();
+    List<PriceBook> books = new ArrayList<>();
+    List<PriceVariant> variants = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      books.add(createBook(506L, "Tabela " + i, true));
+    }
+    for (int i = 0; i < 5; i++) {
+      variants.add(createVariant(506L, "Variacao " + i, i != 4));
+    }
+    for (int b = 0; b < books.size(); b += 2) {
+      salePriceRepository.save(salePrice(506L, books.get(b).getId(), null, 9601L, null, "10.000000"));
+      salePriceRepository.save(salePrice(506L, books.get(b).getId(), variants.get(b % 4).getId(), 9601L, null, "11.000000"));
+      salePriceRepository.save(salePrice(506L, books.get(b).getId(), variants.get(4).getId(), 9601L, caixa, "99.000000"));
+    }
+    salePriceRepository.save(salePrice(506L, books.get(1).getId(), null, 9601L, caixa, "55.000000"));
+    salePriceRepository.save(salePrice(506L, books.get(1).getId(), null, 9602L, null, "1.000000"));
+    salePriceRepository.flush();
+    resolvedSalePriceService.rebuildCurrentTenant();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    List<SalePriceByItemRowResponse> rows = resolverService.listByItem(CatalogConfigurationType.PRODUCTS, 9601L, caixa);
+
+    // Tabelas, variacoes, preco base do catalogo e as linhas de preco do item: independe do tamanho da grade.
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    assertThat(rows).hasSize(books.size() * (variants.size() + 1));
+    for (SalePriceByItemRowResponse row : rows) {
+      SalePriceResolveResponse expected = resolverService.resolve(new SalePriceResolveRequest(
+        row.priceBookId(),
+        row.variantId(),
+        CatalogConfigurationType.PRODUCTS,
+        9601L,
+        caixa));
+      assertThat(row.priceFinal()).isEqualByComparingTo(expected.priceFinal());
+      assertThat(row.salePriceId()).isEqualTo(expected.salePriceId());
+      assertThat(row.source()).isEqualTo(expected.source());
+    }
+    SalePriceByItemRowResponse unitRow = rows.stream()
+      .filter(row -> books.get(1).getId().equals(row.priceBookId()) && row.variantId() == null)
+      .findFirst()
+      .orElseThrow();
+    assertThat(unitRow.priceFinal()).isEqualByComparingTo("55.000000");
+  }
+
+  @Test
+  void shouldKeepMaterializedResolveInSyncWithPriceWrites() {
+    TenantContext.setTenantId(507L);
+    PriceBook book = createBook(507L, "Padrao", true);
+    PriceBook promo = createBook(507L, "Promocional", true);
+    PriceVariant variant = createVariant(507L, "Atacado", true);
+    CatalogProduct product = createProduct(507L, 9701L);
+    UUID caixa = UUID.randomUUID();
+    CatalogItemPrice saleBase = new CatalogItemPrice();
+    saleBase.setTenantId(507L);
+    saleBase.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    saleBase.setCatalogItemId(product.getId());
+    saleBase.setPriceType(CatalogPriceType.SALE_BASE);
+    saleBase.setPriceFinal(new BigDecimal("8.000000"));
+    saleBase.setAdjustmentKind(com.ia.app.domain.PriceAdjustmentKind.FIXED);
+    saleBase.setAdjustmentValue(BigDecimal.ZERO);
+    catalogItemPriceRepository.save(saleBase);
+
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      null,
+      List.of(
+        new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), null, new BigDecimal("10")),
+        new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), caixa, new BigDecimal("12")))));
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      variant.getId(),
+      List.of(new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), null, new BigDecimal("9")))));
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      promo.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), caixa, new BigDecimal("7")))));
+
+    assertResolved(book.getId(), variant.getId(), product.getId(), caixa, "9.000000", SalePriceSource.EXACT_VARIANT);
+    assertResolved(book.getId(), null, product.getId(), caixa, "12.000000", SalePriceSource.BOOK_BASE);
+    assertResolved(book.getId(), null, product.getId(), UUID.randomUUID(), "10.000000", SalePriceSource.BOOK_BASE);
+    assertResolved(promo.getId(), variant.getId(), product.getId(), null, "8.000000", SalePriceSource.CATALOG_BASE);
+
+    priceVariantService.update(variant.getId(), new PriceVariantRequest("Atacado", false));
+    assertResolved(book.getId(), variant.getId(), product.getId(), caixa, "12.000000", SalePriceSource.INACTIVE_VARIANT_FALLBACK);
+
+    saleBase.setPriceFinal(new BigDecimal("8.500000"));
+    catalogItemPriceRepository.save(saleBase);
+    resolvedSalePriceService.refreshCatalogBase(507L, CatalogConfigurationType.PRODUCTS, product.getId(), saleBase.getPriceFinal());
+    assertResolved(promo.getId(), null, product.getId(), null, "8.500000", SalePriceSource.CATALOG_BASE);
+    assertResolved(promo.getId(), null, product.getId(), caixa, "7.000000", SalePriceSource.BOOK_BASE);
+
+    SalePrice unitRow = salePriceRepository
+      .findByTenantIdAndPriceBookIdAndVariantIdIsNullAndCatalogTypeAndCatalogItemIdAndTenantUnitId(
+        507L, book.getId(), CatalogConfigurationType.PRODUCTS, product.getId(), caixa)
+      .orElseThrow();
+    salePriceService.delete(unitRow.getId());
+    assertResolved(book.getId(), null, product.getId(), caixa, "10.000000", SalePriceSource.BOOK_BASE);
+
+    // A manutencao incremental tem que bater com a reconstrucao completa.
+    PriceVariant novaVariacao = createVariantViaService("Varejo");
+    List<SalePriceResolveResponse> incremental = resolveAll(List.of(book, promo), variant, novaVariacao, product.getId(), caixa);
+    resolvedSalePriceService.rebuildCurrentTenant();
+    assertThat(resolveAll(List.of(book, promo), variant, novaVariacao, product.getId(), caixa)).isEqualTo(incremental);
+
+    priceBookService.delete(promo.getId());
+    assertThat(resolvedSalePriceService.find(507L, promo.getId(), null, CatalogConfigurationType.PRODUCTS, product.getId(), caixa))
+      .isEmpty();
+  }
+
+  @Test
+  void shouldServeRepeatedResolvesFromCacheUntilAWriteInvalidatesThem() {
+    TenantContext.setTenantId(508L);
+    PriceBook book = createBook(508L, "Padrao", true);
+    PriceBook other = createBook(508L, "Outra", true);
+    CatalogProduct product = createProduct(508L, 9801L);
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), null, new BigDecimal("10")))));
+    assertResolved(book.getId(), null, product.getId(), null, "10.000000", SalePriceSource.BOOK_BASE);
+    assertResolved(other.getId(), null, product.getId(), null, "0.000000", SalePriceSource.CATALOG_BASE);
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    assertResolved(book.getId(), null, product.getId(), null, "10.000000", SalePriceSource.BOOK_BASE);
+    assertResolved(other.getId(), null, product.getId(), null, "0.000000", SalePriceSource.CATALOG_BASE);
+    assertThat(resolverService.resolveMany(book.getId(), null, List.of(
+      new SalePriceResolverService.ResolveItem(CatalogConfigurationType.PRODUCTS, product.getId(), null))))
+      .extracting(SalePriceResolveResponse::priceFinal)
+      .usingElementComparator(BigDecimal::compareTo)
+      .containsExactly(new BigDecimal("10"));
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+
+    // Resultado negativo (sem sale_price na tabela) tambem e invalidado quando o preco passa a existir.
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      other.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), null, new BigDecimal("11")))));
+    assertResolved(other.getId(), null, product.getId(), null, "11.000000", SalePriceSource.BOOK_BASE);
+    salePriceService.bulkUpsert(new SalePriceBulkUpsertRequest(
+      book.getId(),
+      null,
+      List.of(new SalePriceBulkItemRequest(CatalogConfigurationType.PRODUCTS, product.getId(), null, new BigDecimal("13")))));
+    assertResolved(book.getId(), null, product.getId(), null, "13.000000", SalePriceSource.BOOK_BASE);
+  }
+
+  private void assertResolved(
+      Long priceBookId,
+      Long variantId,
+      Long catalogItemId,
+      UUID tenantUnitId,
+      String expectedPrice,
+      SalePriceSource expectedSource) {
+    SalePriceResolveResponse resolved = resolverService.resolve(new SalePriceResolveRequest(
+      priceBookId,
+      variantId,
+      CatalogConfigurationType.PRODUCTS,
+      catalogItemId,
+      tenantUnitId));
+    assertThat(resolved.priceFinal()).isEqualByComparingTo(expectedPrice);
+    assertThat(resolved.source()).isEqualTo(expectedSource);
+  }
+
+  private List<SalePriceResolveResponse> resolveAll(
+      List<PriceBook> books,
+      PriceVariant variant,
+      PriceVariant otherVariant,
+      Long catalogItemId,
+      UUID tenantUnitId) {
+    List<SalePriceResolveResponse> result = new ArrayList<>();
+    for (PriceBook book : books) {
+      for (Long variantId : Arrays.asList(null, variant.getId(), otherVariant.getId())) {
+        for (UUID unitId : Arrays.asList(null, tenantUnitId)) {
+          result.add(resolverService.resolve(new SalePriceResolveRequest(
+            book.getId(),
+            variantId,
+            CatalogConfigurationType.PRODUCTS,
+            catalogItemId,
+            unitId)));
+        }
+      }
+    }
+    return result;
+  }
+
+  private PriceVariant createVariantViaService(String name) {
+    Long id = priceVariantService.create(new PriceVariantRequest(name, true)).id();
+    return priceVariantRepository.findById(id).orElseThrow();
+  }
+
+  private CatalogProduct createProduct(Long tenantId, Long codigo) {
+    CatalogProduct item = new CatalogProduct();
+    item.setTenantId(tenantId);
+    item.setCatalogConfigurationId(100L);
+    item.setAgrupadorEmpresaId(200L);
+    item.setCodigo(codigo);
+    item.setNome("Produto " + codigo);
+    item.setAtivo(true);
+    return productRepository.save(item);
+  }
+
+  private SalePrice salePrice(
+      Long tenantId,
+      Long priceBookId,
+      Long variantId,
+      Long catalogItemId,
+      UUID tenantUnitId,
+      String priceFinal) {
+    SalePrice row = new SalePrice();
+    row.setTenantId(tenantId);
+    row.setPriceBookId(priceBookId);
+    row.setVariantId(variantId);
+    row.setCatalogType(CatalogConfigurationType.PRODUCTS);
+    row.setCatalogItemId(catalogItemId);
+    row.setTenantUnitId(tenantUnitId);
+    row.setPriceFinal(new BigDecimal(priceFinal));
+    return row;
+  }
+
   private PriceBook createBook(Long tenantId, String name, boolean active) {
     PriceBook book = new PriceBook();
     book.setTenantId(tenantId);
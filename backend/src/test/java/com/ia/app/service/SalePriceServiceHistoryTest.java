@@ -3,6 +3,7 @@ package com.ia.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.ia.app.config.AuditingConfig;
+import com.ia.app.config.DatabaseDialect;
 import com.ia.app.domain.CatalogConfigurationType;
 import com.ia.app.domain.CatalogProduct;
 import com.ia.app.domain.PriceBook;
@@ -14,6 +15,10 @@ import com.ia.app.dto.SalePriceBulkUpsertRequest;
 import com.ia.app.repository.CatalogProductRepository;
 import com.ia.app.repository.PriceBookRepository;
 import com.ia.app.repository.PriceChangeLogRepository;
+import com.ia.app.repository.impl.ExportJobFileRepositoryImpl;
+import com.ia.app.repository.impl.ExportStreamRepositoryImpl;
+import com.ia.app.repository.impl.PriceChangeLogBatchWriteRepositoryImpl;
+import com.ia.app.repository.impl.SalePriceBulkWriteRepositoryImpl;
 import com.ia.app.tenant.TenantContext;
 import java.math.BigDecimal;
 import java.util.List;
@@ -26,8 +31,19 @@ import org.springframework.context.annotation.Import;
 @DataJpaTest
 @Import({
   AuditingConfig.class,
+  DatabaseDialect.class,
+  ResolvedSalePriceService.class,
+  CacheInvalidationNotifier.class,
+  SalePriceCacheService.class,
   PriceChangeLogService.class,
-  SalePriceService.class
+  PriceChangeLogBatchWriteRepositoryImpl.class,
+  PriceNameCacheService.class,
+  SalePriceService.class,
+  SalePriceBulkWriteRepositoryImpl.class,
+  ExportJobService.class,
+  ExportJobFileRepositoryImpl.class,
+  ScheduledJobLockService.class,
+  ExportStreamRepositoryImpl.class
 })
 class SalePriceServiceHistoryTest {
 
@@ -149,6 +149,7 @@ export interface CatalogPriceHistoryEntry {
   priceBookId?: number | null;
   priceBookName?: string | null;
   variantId?: number | null;
+  variantName?: string | null;
   changedBy?: string | null;
   changedAt: string;
 }